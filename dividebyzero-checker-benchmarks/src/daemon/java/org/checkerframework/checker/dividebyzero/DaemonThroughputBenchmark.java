@@ -0,0 +1,277 @@
+package org.checkerframework.checker.dividebyzero;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput in modules per minute of {@link DivByZeroDaemon} against a cold
+ * javac for every module, as a build that checks many small modules sees it.
+ *
+ * <p>Generates one corpus per module with {@link CorpusGenerator}, then
+ * compiles every module with the checker a few rounds over, first each in a
+ * fresh javac JVM and then each through a fresh {@link DivByZeroClient} JVM
+ * talking to one daemon. Both run {@code parallel} modules at once. The
+ * daemon's first round also warms it up, so its startup and each round are
+ * reported separately. The output and exit code of every daemon compilation
+ * are compared with those of javac, and differences are counted.
+ *
+ * <p>Options, all of the form {@code --name=value}:
+ * <ul>
+ *   <li>{@code modules}: number of modules
+ *   <li>{@code classes}, {@code methods}, {@code divisions}, {@code depth}: shape of each module, one class per file
+ *   <li>{@code seed}: corpus generator seed of the first module; module {@code i} uses {@code seed + i}
+ *   <li>{@code parallel}: modules compiled at once, and the daemon's threads
+ *   <li>{@code rounds}: rounds over all modules per mode
+ *   <li>{@code heap}: maximum heap of javac and the daemon, e.g. {@code 1g}
+ *   <li>{@code work}: scratch directory for the corpus and class files
+ *   <li>{@code out}: results file
+ * </ul>
+ */
+public class DaemonThroughputBenchmark {
+
+    /** Exports and opens the Checker Framework needs on Java 9+; keep in sync with build.gradle. */
+    private static final List<String> JAVAC_ACCESS = Arrays.asList(
+            "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+            "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED");
+
+    /** Lets the daemon reuse its compilers */
+    private static final String DAEMON_ACCESS = "--add-opens=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED";
+
+    private static final long TIMEOUT_MINUTES = 30;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int modules = Integer.parseInt(opts.getOrDefault("modules", "16"));
+        int classes = Integer.parseInt(opts.getOrDefault("classes", "10"));
+        int methods = Integer.parseInt(opts.getOrDefault("methods", "10"));
+        int divisions = Integer.parseInt(opts.getOrDefault("divisions", "3"));
+        int depth = Integer.parseInt(opts.getOrDefault("depth", "2"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "503"));
+        int parallel = Integer.parseInt(opts.getOrDefault("parallel",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int rounds = Integer.parseInt(opts.getOrDefault("rounds", "3"));
+        String heap = opts.getOrDefault("heap", "1g");
+        Path work = Paths.get(opts.getOrDefault("work", "build/daemon")).toAbsolutePath();
+        Path out = Paths.get(opts.getOrDefault("out", work.resolve("results.json").toString()));
+
+        List<List<String>> javacArgs = new ArrayList<>();
+        for (int i = 0; i < modules; i++) {
+            Path module = work.resolve("module" + i);
+            List<String> moduleArgs = new ArrayList<>(Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-processor", DivByZeroChecker.class.getName(),
+                    "-d", module.resolve("classes").toString()));
+            for (Path file : new CorpusGenerator(classes, methods, divisions, depth, seed + i)
+                    .generate(module.resolve("src"))) {
+                moduleArgs.add(file.toString());
+            }
+            javacArgs.add(moduleArgs);
+        }
+
+        List<String> java = new ArrayList<>();
+        java.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        java.add("-cp");
+        java.add(System.getProperty("java.class.path"));
+
+        List<String> javac = new ArrayList<>(java);
+        javac.addAll(1, JAVAC_ACCESS);
+        javac.add(1, "-Xmx" + heap);
+        javac.add("com.sun.tools.javac.Main");
+        List<Long> coldRounds = new ArrayList<>();
+        List<Compilation> cold = null;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            cold = compileAll(javac, javacArgs, parallel);
+            coldRounds.add(System.nanoTime() - start);
+        }
+
+        // The socket lives outside work, whose path may be too long for a Unix domain socket
+        Path socketDir = Files.createTempDirectory("dbz-daemon");
+        Path socket = socketDir.resolve("sock");
+        List<String> daemonCommand = new ArrayList<>(javac.subList(0, javac.size() - 1));
+        daemonCommand.add(1, DAEMON_ACCESS);
+        daemonCommand.addAll(Arrays.asList(DivByZeroDaemon.class.getName(),
+                "--socket=" + socket, "--threads=" + parallel));
+        long start = System.nanoTime();
+        Process daemon = new ProcessBuilder(daemonCommand).redirectErrorStream(true).start();
+        long startupNanos;
+        List<Long> daemonRounds = new ArrayList<>();
+        int mismatches = 0;
+        try {
+            awaitListening(daemon);
+            startupNanos = System.nanoTime() - start;
+            List<String> client = new ArrayList<>(java);
+            client.add(DivByZeroClient.class.getName());
+            client.add("--socket=" + socket);
+            for (int round = 0; round < rounds; round++) {
+                start = System.nanoTime();
+                List<Compilation> warm = compileAll(client, javacArgs, parallel);
+                daemonRounds.add(System.nanoTime() - start);
+                for (int i = 0; i < modules; i++) {
+                    if (!warm.get(i).equals(cold.get(i))) {
+                        if (mismatches++ == 0) {
+                            System.err.println("module" + i + ": javac exited with " + cold.get(i).exit + ":\n"
+                                    + cold.get(i).output + "the daemon with " + warm.get(i).exit + ":\n"
+                                    + warm.get(i).output);
+                        }
+                    }
+                }
+            }
+        } finally {
+            DivByZeroClient.stop(socket, System.err);
+            if (!daemon.waitFor(1, TimeUnit.MINUTES)) {
+                daemon.destroy();
+            }
+            Files.deleteIfExists(socket);
+            Files.delete(socketDir);
+        }
+
+        List<Long> warmRounds = daemonRounds.subList(Math.min(1, rounds - 1), rounds);
+        double coldPerMinute = perMinute(modules, median(coldRounds));
+        double daemonPerMinute = perMinute(modules, median(warmRounds));
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            w.println("{");
+            w.println("  \"shape\": {\"modules\": " + modules + ", \"classesPerModule\": " + classes
+                    + ", \"methodsPerClass\": " + methods + ", \"divisionsPerMethod\": " + divisions
+                    + ", \"guardDepth\": " + depth + ", \"seed\": " + seed + "},");
+            w.println("  \"parallel\": " + parallel + ",");
+            w.println("  \"rounds\": " + rounds + ",");
+            w.println("  \"cold\": {\"roundNanos\": " + coldRounds
+                    + ", \"modulesPerMinute\": " + String.format("%.1f", coldPerMinute) + "},");
+            w.println("  \"daemon\": {\"startupNanos\": " + startupNanos + ", \"roundNanos\": " + daemonRounds
+                    + ", \"firstRoundModulesPerMinute\": "
+                    + String.format("%.1f", perMinute(modules, daemonRounds.get(0)))
+                    + ", \"modulesPerMinute\": " + String.format("%.1f", daemonPerMinute) + "},");
+            w.println("  \"speedup\": " + String.format("%.2f", daemonPerMinute / coldPerMinute) + ",");
+            w.println("  \"mismatches\": " + mismatches);
+            w.println("}");
+        }
+        System.out.println(new String(Files.readAllBytes(out), StandardCharsets.UTF_8));
+        if (mismatches > 0) {
+            throw new IllegalStateException(mismatches + " daemon compilations differed from javac");
+        }
+    }
+
+    /** The exit code and output of one compilation */
+    private static final class Compilation {
+        final int exit;
+        final String output;
+
+        Compilation(int exit, String output) {
+            this.exit = exit;
+            this.output = output;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Compilation && ((Compilation) o).exit == exit
+                    && ((Compilation) o).output.equals(output);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * exit + output.hashCode();
+        }
+    }
+
+    /** Run the command with each module's arguments, in that many processes at once */
+    private static List<Compilation> compileAll(List<String> command, List<List<String>> javacArgs, int parallel)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallel);
+        try {
+            List<Future<Compilation>> futures = new ArrayList<>();
+            for (List<String> moduleArgs : javacArgs) {
+                List<String> full = new ArrayList<>(command);
+                full.addAll(moduleArgs);
+                futures.add(executor.submit(() -> run(full)));
+            }
+            List<Compilation> compilations = new ArrayList<>();
+            for (Future<Compilation> future : futures) {
+                compilations.add(future.get(TIMEOUT_MINUTES, TimeUnit.MINUTES));
+            }
+            return compilations;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Compilation run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = readAll(process.getInputStream());
+        return new Compilation(process.waitFor(), output);
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /** Wait until the daemon says it listens, then pass on the rest of what it prints */
+    private static void awaitListening(Process daemon) throws IOException {
+        BufferedReader r = new BufferedReader(new InputStreamReader(daemon.getInputStream(), StandardCharsets.UTF_8));
+        for (String line; (line = r.readLine()) != null; ) {
+            System.err.println(line);
+            if (line.startsWith("Listening on ")) {
+                Thread drain = new Thread(() -> {
+                    try {
+                        for (String rest; (rest = r.readLine()) != null; ) {
+                            System.err.println(rest);
+                        }
+                    } catch (IOException e) {
+                        // The daemon exited
+                    }
+                });
+                drain.setDaemon(true);
+                drain.start();
+                return;
+            }
+        }
+        throw new IllegalStateException("the daemon exited before listening");
+    }
+
+    private static double perMinute(int modules, long nanos) {
+        return modules / (nanos / 60e9);
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
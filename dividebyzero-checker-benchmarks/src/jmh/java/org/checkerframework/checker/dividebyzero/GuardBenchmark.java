@@ -0,0 +1,103 @@
+package org.checkerframework.checker.dividebyzero;
+
+import org.checkerframework.checker.dividebyzero.runtime.DivByZeroGuard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of runtime division guards in a hot numeric loop: no guards, guards
+ * only at the sites the checker could not prove (what
+ * {@code -Xplugin:"DivByZeroGuard index=..."} produces), and guards at every
+ * site (what {@code -Xplugin:"DivByZeroGuard all"} produces).
+ *
+ * <p>Of the four divisions in the loop, the checker proves the three by
+ * {@code scale}, {@code n} and {@code scale + 1}, and not the one by a value
+ * read from an array. The guarded kernels are the plugin's output for
+ * {@link #bare}, written out so that all three run in the same JVM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GuardBenchmark {
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private int[] values;
+    private int[] divisors;
+    private int scale;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        values = new int[size];
+        divisors = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt();
+            divisors[i] = random.nextInt(1000) + 1;
+        }
+        scale = 7;
+    }
+
+    @Benchmark
+    public long noGuards() {
+        return bare(values, divisors, scale);
+    }
+
+    @Benchmark
+    public long unprovenGuards() {
+        return unprovenGuarded(values, divisors, scale);
+    }
+
+    @Benchmark
+    public long allGuards() {
+        return allGuarded(values, divisors, scale);
+    }
+
+    static long bare(int[] values, int[] divisors, int scale) {
+        long sum = 0;
+        int n = values.length;
+        if (n > 0 && scale > 0) {
+            for (int i = 0; i < n; i++) {
+                int v = values[i];
+                sum += v / scale;
+                sum += v % n;
+                sum += (long) v * 31 / (scale + 1);
+                sum += v / divisors[i];
+            }
+        }
+        return sum;
+    }
+
+    static long unprovenGuarded(int[] values, int[] divisors, int scale) {
+        long sum = 0;
+        int n = values.length;
+        if (n > 0 && scale > 0) {
+            for (int i = 0; i < n; i++) {
+                int v = values[i];
+                sum += v / scale;
+                sum += v % n;
+                sum += (long) v * 31 / (scale + 1);
+                sum += v / DivByZeroGuard.divisor(divisors[i], "GuardBenchmark.java:11:24");
+            }
+        }
+        return sum;
+    }
+
+    static long allGuarded(int[] values, int[] divisors, int scale) {
+        long sum = 0;
+        int n = values.length;
+        if (n > 0 && scale > 0) {
+            for (int i = 0; i < n; i++) {
+                int v = values[i];
+                sum += v / DivByZeroGuard.divisor(scale, "GuardBenchmark.java:8:24");
+                sum += v % DivByZeroGuard.divisor(n, "GuardBenchmark.java:9:24");
+                sum += (long) v * 31 / DivByZeroGuard.divisor(scale + 1, "GuardBenchmark.java:10:24");
+                sum += v / DivByZeroGuard.divisor(divisors[i], "GuardBenchmark.java:11:24");
+            }
+        }
+        return sum;
+    }
+}
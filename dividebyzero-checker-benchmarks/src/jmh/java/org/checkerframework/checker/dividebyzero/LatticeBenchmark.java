@@ -0,0 +1,82 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.util.JavacTask;
+import org.openjdk.jmh.annotations.*;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the lub/glb helpers and for the AnnotationMirror boundary
+ * crossed by {@code implementOperator} and {@code implementComparison}, over
+ * every pair of lattice points.
+ *
+ * <p>The boundary benchmarks use real javac mirrors, so they measure the
+ * same identity fast path the dataflow analysis takes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatticeBenchmark {
+
+    @Param({"BOT", "NEG", "ZER", "POS", "NZE", "TOP"})
+    public String lhs;
+
+    @Param({"BOT", "NEG", "ZER", "POS", "NZE", "TOP"})
+    public String rhs;
+
+    private int l;
+    private int r;
+
+    private DivByZeroLattice lattice;
+    private AnnotationMirror lm;
+    private AnnotationMirror rm;
+
+    @Setup
+    public void setup() {
+        l = LatticePoints.parse(lhs);
+        r = LatticePoints.parse(rhs);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavacTask task = (JavacTask) compiler.getTask(
+                null, null, null,
+                Arrays.asList("-classpath", System.getProperty("java.class.path")),
+                null, Collections.emptyList());
+        lattice = new DivByZeroLattice(task.getElements());
+        lm = lattice.toMirror(l);
+        rm = lattice.toMirror(r);
+    }
+
+    @Benchmark
+    public int lub() {
+        return DivByZeroTransfer.lub(l, r);
+    }
+
+    @Benchmark
+    public int glb() {
+        return DivByZeroTransfer.glb(l, r);
+    }
+
+    /** Mirror to ordinal for both operands, then the result back to a mirror. */
+    @Benchmark
+    public AnnotationMirror operatorBoundary() {
+        int a = lattice.ordinalOf(lm);
+        int b = lattice.ordinalOf(rm);
+        return lattice.toMirror(DivByZeroTransfer.arithmeticTransfer(DivByZeroTransfer.BinaryOperator.DIVIDE, a, b));
+    }
+
+    /** Mirror to ordinal for both operands, then the four refinements back to mirrors. */
+    @Benchmark
+    public int comparisonBoundary() {
+        int a = lattice.ordinalOf(lm);
+        int b = lattice.ordinalOf(rm);
+        return lattice.toMirror(DivByZeroTransfer.refineLhsOfComparison(DivByZeroTransfer.Comparison.NE, a, b)).hashCode()
+                ^ lattice.toMirror(DivByZeroTransfer.refineLhsOfComparison(DivByZeroTransfer.Comparison.NE, b, a)).hashCode()
+                ^ lattice.toMirror(DivByZeroTransfer.refineLhsOfComparison(DivByZeroTransfer.Comparison.EQ, a, b)).hashCode()
+                ^ lattice.toMirror(DivByZeroTransfer.refineLhsOfComparison(DivByZeroTransfer.Comparison.EQ, b, a)).hashCode();
+    }
+}
@@ -0,0 +1,19 @@
+package org.checkerframework.checker.dividebyzero;
+
+/** Maps the lattice point names used as JMH parameters to their ordinals. */
+final class LatticePoints {
+
+    private LatticePoints() {}
+
+    static int parse(String name) {
+        switch (name) {
+            case "BOT": return DivByZeroLattice.BOT;
+            case "NEG": return DivByZeroLattice.NEG;
+            case "ZER": return DivByZeroLattice.ZER;
+            case "POS": return DivByZeroLattice.POS;
+            case "NZE": return DivByZeroLattice.NZE;
+            case "TOP": return DivByZeroLattice.TOP;
+            default: throw new IllegalArgumentException(name);
+        }
+    }
+}
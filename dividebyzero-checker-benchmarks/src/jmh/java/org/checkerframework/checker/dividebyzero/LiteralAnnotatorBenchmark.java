@@ -0,0 +1,58 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreeScanner;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the literal rule of {@code DivByZeroAnnotatedTypeFactory},
+ * over literals that map to each lattice point it can produce.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LiteralAnnotatorBenchmark {
+
+    @Param({"0", "1", "2147483647", "0L", "42L", "'c'", "\"s\""})
+    public String literal;
+
+    private LiteralTree tree;
+
+    @Setup
+    public void setup() throws IOException {
+        final String source = "class C { Object o = " + literal + "; }";
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///C.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavacTask task = (JavacTask) compiler.getTask(null, null, null, null, null, Collections.singletonList(file));
+        for (CompilationUnitTree unit : task.parse()) {
+            unit.accept(new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitLiteral(LiteralTree node, Void p) {
+                    tree = node;
+                    return null;
+                }
+            }, null);
+        }
+    }
+
+    @Benchmark
+    public int pointOf() {
+        return DivByZeroAnnotatedTypeFactory.pointOf(tree);
+    }
+}
@@ -0,0 +1,51 @@
+package org.checkerframework.checker.dividebyzero;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the comparison refinement rule ({@code refineLhsOfComparison}),
+ * over every comparison operator and every pair of lattice points. The
+ * {@code thenAndElse} benchmark performs the four refinements that
+ * {@code implementComparison} makes for one comparison node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RefinementBenchmark {
+
+    @Param({"EQ", "NE", "LT", "LE", "GT", "GE"})
+    public String comparison;
+
+    @Param({"BOT", "NEG", "ZER", "POS", "NZE", "TOP"})
+    public String lhs;
+
+    @Param({"BOT", "NEG", "ZER", "POS", "NZE", "TOP"})
+    public String rhs;
+
+    private DivByZeroTransfer.Comparison op;
+    private int l;
+    private int r;
+
+    @Setup
+    public void setup() {
+        op = DivByZeroTransfer.Comparison.valueOf(comparison);
+        l = LatticePoints.parse(lhs);
+        r = LatticePoints.parse(rhs);
+    }
+
+    @Benchmark
+    public int refine() {
+        return DivByZeroTransfer.refineLhsOfComparison(op, l, r);
+    }
+
+    @Benchmark
+    public int thenAndElse() {
+        DivByZeroTransfer.Comparison negated = DivByZeroTransfer.negate(op);
+        return DivByZeroTransfer.refineLhsOfComparison(op, l, r)
+                + DivByZeroTransfer.refineLhsOfComparison(DivByZeroTransfer.flip(op), r, l)
+                + DivByZeroTransfer.refineLhsOfComparison(negated, l, r)
+                + DivByZeroTransfer.refineLhsOfComparison(DivByZeroTransfer.flip(negated), r, l);
+    }
+}
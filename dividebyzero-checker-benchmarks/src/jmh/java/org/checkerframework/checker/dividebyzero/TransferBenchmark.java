@@ -0,0 +1,55 @@
+package org.checkerframework.checker.dividebyzero;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the arithmetic transfer rule ({@code arithmeticTransfer}),
+ * over every pair of lattice points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransferBenchmark {
+
+    @Param({"BOT", "NEG", "ZER", "POS", "NZE", "TOP"})
+    public String lhs;
+
+    @Param({"BOT", "NEG", "ZER", "POS", "NZE", "TOP"})
+    public String rhs;
+
+    private int l;
+    private int r;
+
+    @Setup
+    public void setup() {
+        l = LatticePoints.parse(lhs);
+        r = LatticePoints.parse(rhs);
+    }
+
+    @Benchmark
+    public int plus() {
+        return DivByZeroTransfer.arithmeticTransfer(DivByZeroTransfer.BinaryOperator.PLUS, l, r);
+    }
+
+    @Benchmark
+    public int minus() {
+        return DivByZeroTransfer.arithmeticTransfer(DivByZeroTransfer.BinaryOperator.MINUS, l, r);
+    }
+
+    @Benchmark
+    public int times() {
+        return DivByZeroTransfer.arithmeticTransfer(DivByZeroTransfer.BinaryOperator.TIMES, l, r);
+    }
+
+    @Benchmark
+    public int divide() {
+        return DivByZeroTransfer.arithmeticTransfer(DivByZeroTransfer.BinaryOperator.DIVIDE, l, r);
+    }
+
+    @Benchmark
+    public int mod() {
+        return DivByZeroTransfer.arithmeticTransfer(DivByZeroTransfer.BinaryOperator.MOD, l, r);
+    }
+}
@@ -0,0 +1,121 @@
+package org.checkerframework.checker.dividebyzero;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one javac compilation in the current JVM and prints its cost as a
+ * single JSON object on standard output. {@link CompileThroughputBenchmark}
+ * forks a fresh JVM for each run, so that peak heap and CPU time belong to
+ * that compilation alone.
+ *
+ * <p>Usage: {@code CompileRunner plain|checker <class output dir> [-Aoption...] <source files...>}
+ *
+ * <p>Besides wall time, CPU time and peak heap use (which includes garbage not
+ * yet collected), it reports the largest heap use right after a garbage
+ * collection, which approximates the most memory the compilation needed.
+ */
+public class CompileRunner {
+
+    public static void main(String[] args) throws Exception {
+        boolean checker = args[0].equals("checker");
+        List<File> sources = new ArrayList<>();
+        List<String> checkerOptions = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("-A")) {
+                checkerOptions.add(args[i]);
+            } else {
+                sources.add(new File(args[i]));
+            }
+        }
+
+        List<String> options = new ArrayList<>(Arrays.asList("-d", args[1], "-nowarn"));
+        if (checker) {
+            options.addAll(Arrays.asList(
+                    "-processor", DivByZeroChecker.class.getName(),
+                    "-processorpath", System.getProperty("java.class.path")));
+            options.addAll(checkerOptions);
+        } else {
+            options.add("-proc:none");
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        Set<String> heapPools = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        AtomicLong maxAfterGc = new AtomicLong();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    GcInfo info = GarbageCollectionNotificationInfo
+                            .from((CompositeData) notification.getUserData()).getGcInfo();
+                    long used = 0;
+                    for (Map.Entry<String, MemoryUsage> pool : info.getMemoryUsageAfterGc().entrySet()) {
+                        if (heapPools.contains(pool.getKey())) {
+                            used += pool.getValue().getUsed();
+                        }
+                    }
+                    maxAfterGc.accumulateAndGet(used, Math::max);
+                }
+            }, null, null);
+        }
+
+        long cpuStart = os.getProcessCpuTime();
+        long wallStart = System.nanoTime();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources)).call();
+        }
+        long wall = System.nanoTime() - wallStart;
+        long cpu = os.getProcessCpuTime() - cpuStart;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        int errors = 0;
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                errors++;
+            }
+        }
+
+        System.out.println("{\"wallNanos\":" + wall
+                + ",\"cpuNanos\":" + cpu
+                + ",\"peakHeapBytes\":" + peakHeap
+                + ",\"maxHeapAfterGcBytes\":" + maxAfterGc.get()
+                + ",\"errors\":" + errors + "}");
+    }
+}
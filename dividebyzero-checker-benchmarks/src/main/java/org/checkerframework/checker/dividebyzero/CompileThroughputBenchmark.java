@@ -0,0 +1,189 @@
+package org.checkerframework.checker.dividebyzero;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end compile-throughput benchmark for the Divide By Zero Checker.
+ *
+ * <p>Generates a corpus with {@link CorpusGenerator}, then compiles it with
+ * plain javac and with javac plus the checker, each in a fresh JVM (see
+ * {@link CompileRunner}). The median of each measurement over the
+ * repetitions is written as JSON, together with the checker's overhead per
+ * file and its throughput in lines per second.
+ *
+ * <p>Options, all of the form {@code --name=value}:
+ * <ul>
+ *   <li>{@code classes}, {@code classesPerFile}, {@code methods}, {@code divisions}, {@code depth}: corpus shape
+ *   <li>{@code checkerOptions}: space-separated {@code -A} options for the checker, e.g. {@code -Adbz.lowMemory}
+ *   <li>{@code seed}: corpus generator seed
+ *   <li>{@code reps}: repetitions per mode
+ *   <li>{@code heap}: maximum heap of the forked JVMs, e.g. {@code 2g}
+ *   <li>{@code work}: scratch directory for the corpus and class files
+ *   <li>{@code out}: results file
+ * </ul>
+ */
+public class CompileThroughputBenchmark {
+
+    /** Exports and opens the Checker Framework needs on Java 9+; keep in sync with build.gradle. */
+    private static final List<String> JAVAC_ACCESS = Arrays.asList(
+            "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+            "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED");
+
+    private static final Pattern FIELD = Pattern.compile("\"(\\w+)\":(\\d+)");
+
+    private static final String[] METRICS = {"wallNanos", "cpuNanos", "peakHeapBytes", "maxHeapAfterGcBytes", "errors"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int classes = Integer.parseInt(opts.getOrDefault("classes", "50"));
+        int classesPerFile = Integer.parseInt(opts.getOrDefault("classesPerFile", "1"));
+        int methods = Integer.parseInt(opts.getOrDefault("methods", "20"));
+        int divisions = Integer.parseInt(opts.getOrDefault("divisions", "5"));
+        int depth = Integer.parseInt(opts.getOrDefault("depth", "2"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "503"));
+        int reps = Integer.parseInt(opts.getOrDefault("reps", "3"));
+        String heap = opts.getOrDefault("heap", "2g");
+        List<String> checkerOptions = opts.containsKey("checkerOptions")
+                ? Arrays.asList(opts.get("checkerOptions").trim().split("\\s+"))
+                : Collections.<String>emptyList();
+        Path work = Paths.get(opts.getOrDefault("work", "build/throughput"));
+        Path out = Paths.get(opts.getOrDefault("out", work.resolve("results.json").toString()));
+
+        List<Path> files = new CorpusGenerator(classes, classesPerFile, methods, divisions, depth, seed)
+                .generate(work.resolve("corpus"));
+        long lines = 0;
+        for (Path file : files) {
+            lines += Files.readAllLines(file, StandardCharsets.UTF_8).size();
+        }
+
+        Map<String, Map<String, Long>> results = new HashMap<>();
+        for (String mode : new String[] {"plain", "checker"}) {
+            Map<String, List<Long>> samples = new HashMap<>();
+            for (int rep = 0; rep < reps; rep++) {
+                Map<String, Long> run = fork(mode, heap, work.resolve("classes-" + mode), checkerOptions, files);
+                for (Map.Entry<String, Long> e : run.entrySet()) {
+                    samples.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).add(e.getValue());
+                }
+            }
+            Map<String, Long> medians = new HashMap<>();
+            for (Map.Entry<String, List<Long>> e : samples.entrySet()) {
+                medians.put(e.getKey(), median(e.getValue()));
+            }
+            results.put(mode, medians);
+        }
+
+        Map<String, Long> plain = results.get("plain");
+        Map<String, Long> checker = results.get("checker");
+        long overheadPerFile = (checker.get("wallNanos") - plain.get("wallNanos")) / files.size();
+        double linesPerSecond = lines / ((checker.get("wallNanos") - plain.get("wallNanos")) / 1e9);
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            w.println("{");
+            w.println("  \"shape\": {\"classes\": " + classes + ", \"classesPerFile\": " + classesPerFile
+                    + ", \"methodsPerClass\": " + methods
+                    + ", \"divisionsPerMethod\": " + divisions + ", \"guardDepth\": " + depth
+                    + ", \"seed\": " + seed + "},");
+            w.println("  \"checkerOptions\": \"" + String.join(" ", checkerOptions) + "\",");
+            w.println("  \"files\": " + files.size() + ",");
+            w.println("  \"lines\": " + lines + ",");
+            w.println("  \"repetitions\": " + reps + ",");
+            w.println("  \"plain\": " + toJson(plain) + ",");
+            w.println("  \"checker\": " + toJson(checker) + ",");
+            w.println("  \"overheadNanosPerFile\": " + overheadPerFile + ",");
+            w.println("  \"checkerLinesPerSecond\": " + String.format("%.1f", linesPerSecond));
+            w.println("}");
+        }
+        System.out.println(new String(Files.readAllBytes(out), StandardCharsets.UTF_8));
+    }
+
+    /** Compile the files in a fresh JVM and parse the JSON line it prints */
+    private static Map<String, Long> fork(String mode, String heap, Path classes, List<String> checkerOptions,
+                                          List<Path> files)
+            throws IOException, InterruptedException {
+        Files.createDirectories(classes);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + heap);
+        if (!System.getProperty("java.specification.version").startsWith("1.")) {
+            command.addAll(JAVAC_ACCESS);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(CompileRunner.class.getName());
+        command.add(mode);
+        command.add(classes.toString());
+        if (mode.equals("checker")) {
+            command.addAll(checkerOptions);
+        }
+        for (Path file : files) {
+            command.add(file.toString());
+        }
+
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String last = null;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = r.readLine()) != null; ) {
+                last = line;
+            }
+        }
+        if (process.waitFor() != 0 || last == null) {
+            throw new IllegalStateException(mode + " compilation failed to report results");
+        }
+
+        Map<String, Long> run = new HashMap<>();
+        Matcher m = FIELD.matcher(last);
+        while (m.find()) {
+            run.put(m.group(1), Long.parseLong(m.group(2)));
+        }
+        return run;
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static String toJson(Map<String, Long> metrics) {
+        StringBuilder sb = new StringBuilder("{");
+        for (String name : METRICS) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append('"').append(name).append("\": ").append(metrics.get(name));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,109 @@
+package org.checkerframework.checker.dividebyzero;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic Java corpus of integer arithmetic for benchmarking.
+ *
+ * <p>The shape is configurable: the number of classes and how many of them
+ * share a file, the number of methods per class, the number of divisions per
+ * method, and how deeply each division
+ * is nested inside if/while guards of the kind found in
+ * {@code tests/dividebyzero/Foo.java}. Generation is deterministic for a given
+ * shape and seed, so results are comparable across runs.
+ */
+public class CorpusGenerator {
+
+    private static final String[] GUARDS = {
+        "if (%s != 0)", "if (%s > 0)", "if (%s < 0)", "if (!(%s == 0))", "while (%s >= 1)", "while (%s <= -1)"
+    };
+
+    private static final String[] OPERATORS = {"/", "%", "/=", "%="};
+
+    private final int classes;
+    private final int classesPerFile;
+    private final int methodsPerClass;
+    private final int divisionsPerMethod;
+    private final int guardDepth;
+    private final long seed;
+
+    public CorpusGenerator(int classes, int methodsPerClass, int divisionsPerMethod, int guardDepth, long seed) {
+        this(classes, 1, methodsPerClass, divisionsPerMethod, guardDepth, seed);
+    }
+
+    public CorpusGenerator(int classes, int classesPerFile, int methodsPerClass, int divisionsPerMethod,
+                           int guardDepth, long seed) {
+        this.classes = classes;
+        this.classesPerFile = classesPerFile;
+        this.methodsPerClass = methodsPerClass;
+        this.divisionsPerMethod = divisionsPerMethod;
+        this.guardDepth = guardDepth;
+        this.seed = seed;
+    }
+
+    /**
+     * Write the corpus into the given directory, with the configured number
+     * of top-level classes per file.
+     *
+     * @param dir the output directory, which is created if needed
+     * @return the generated source files
+     */
+    public List<Path> generate(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(seed);
+        List<Path> files = new ArrayList<>();
+        for (int first = 0; first < classes; first += classesPerFile) {
+            Path file = dir.resolve("Gen" + first + ".java");
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                for (int c = first; c < Math.min(classes, first + classesPerFile); c++) {
+                    writeClass(out, "Gen" + c, random);
+                }
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private void writeClass(PrintWriter out, String name, Random random) {
+        out.println("class " + name + " {");
+        for (int m = 0; m < methodsPerClass; m++) {
+            out.println();
+            out.println("    static int m" + m + "(int a, int b, long c) {");
+            out.println("        int r = 1;");
+            out.println("        long s = c;");
+            for (int d = 0; d < divisionsPerMethod; d++) {
+                writeDivision(out, random);
+            }
+            out.println("        return r + (int) s;");
+            out.println("    }");
+        }
+        out.println("}");
+    }
+
+    /** One division at the configured guard depth, on a randomly chosen divisor */
+    private void writeDivision(PrintWriter out, Random random) {
+        String divisor = random.nextBoolean() ? "b" : "c";
+        String indent = "        ";
+        for (int g = 0; g < guardDepth; g++) {
+            out.println(indent + String.format(GUARDS[random.nextInt(GUARDS.length)], divisor) + " {");
+            indent += "    ";
+        }
+        String op = OPERATORS[random.nextInt(OPERATORS.length)];
+        if (op.endsWith("=")) {
+            out.println(indent + "s " + op + " " + divisor + ";");
+        } else {
+            out.println(indent + "r += (int) (a " + op + " " + divisor + ");");
+        }
+        for (int g = 0; g < guardDepth; g++) {
+            indent = indent.substring(4);
+            out.println(indent + "}");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.checkerframework.checker.dividebyzero;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line client of {@link DivByZeroDaemon}: compiles with the checker
+ * in a running daemon, as javac with {@code -processor DivByZeroChecker}
+ * would.
+ *
+ * <p>Usage:
+ * <pre>
+ * java -cp &lt;checker jar&gt; org.checkerframework.checker.dividebyzero.DivByZeroClient \
+ *     --socket=&lt;path&gt; [--stop] &lt;javac options and source files&gt;
+ * </pre>
+ * The daemon's diagnostics are printed on standard error, and the client
+ * exits with javac's exit code: 0 for success, 1 for errors in the sources,
+ * 2 for bad arguments, 3 if the daemon could not be reached and 4 if the
+ * compiler crashed. {@code --stop} asks the daemon to exit instead.
+ *
+ * <p>The client loads none of javac or the checker, so it starts in the time
+ * of a bare JVM.
+ */
+public final class DivByZeroClient {
+
+    /** Request to compile: the client's working directory and javac arguments follow */
+    static final byte CHECK = 'c';
+
+    /** Request to stop the daemon */
+    static final byte STOP = 's';
+
+    /** Response frame with compiler output */
+    static final byte OUTPUT = 'o';
+
+    /** Response frame with the exit code; the last frame */
+    static final byte EXIT = 'x';
+
+    /** javac's exit code for bad arguments */
+    static final int CMDERR = 2;
+
+    /** javac's exit code for a system error */
+    static final int SYSERR = 3;
+
+    private DivByZeroClient() {}
+
+    public static void main(String[] args) {
+        Path socket = null;
+        boolean stop = false;
+        List<String> javacArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--socket=")) {
+                socket = Paths.get(arg.substring("--socket=".length()));
+            } else if (arg.equals("--stop")) {
+                stop = true;
+            } else {
+                javacArgs.add(arg);
+            }
+        }
+        if (socket == null) {
+            System.err.println("error: --socket=<path> is required");
+            System.exit(CMDERR);
+        }
+        System.exit(stop ? stop(socket, System.err)
+                : check(socket, Paths.get("").toAbsolutePath(), javacArgs, System.err));
+    }
+
+    /**
+     * Compile in the daemon, as javac would in the directory {@code cwd}.
+     *
+     * @return javac's exit code
+     */
+    public static int check(Path socket, Path cwd, List<String> javacArgs, PrintStream err) {
+        List<String> request = new ArrayList<>();
+        request.add(cwd.toString());
+        request.addAll(javacArgs);
+        return send(socket, CHECK, request, err);
+    }
+
+    /** Ask the daemon to exit once its compilations finish; returns 0 if it was running */
+    public static int stop(Path socket, PrintStream err) {
+        return send(socket, STOP, new ArrayList<>(), err);
+    }
+
+    private static int send(Path socket, byte kind, List<String> strings, PrintStream err) {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeByte(kind);
+            writeStrings(out, strings);
+            out.flush();
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            while (true) {
+                byte frame = in.readByte();
+                if (frame == OUTPUT) {
+                    err.print(readString(in));
+                    err.flush();
+                } else if (frame == EXIT) {
+                    return in.readInt();
+                } else {
+                    throw new IOException("unexpected frame " + frame);
+                }
+            }
+        } catch (EOFException e) {
+            err.println("error: the checker daemon at " + socket + " closed the connection");
+            return SYSERR;
+        } catch (IOException e) {
+            err.println("error: cannot reach the checker daemon at " + socket + ": " + e.getMessage());
+            return SYSERR;
+        }
+    }
+
+    // ========================================================================
+    // Framing, shared with the daemon
+
+    static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("bad count " + count);
+        }
+        List<String> strings = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    /** Unlike {@link DataOutputStream#writeUTF}, not limited to 64 KB, which a classpath can exceed */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("bad length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
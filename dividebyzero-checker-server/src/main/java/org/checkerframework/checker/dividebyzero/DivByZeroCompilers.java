@@ -0,0 +1,351 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.api.JavacTaskPool;
+import com.sun.tools.javac.comp.AttrContext;
+import com.sun.tools.javac.comp.Env;
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.model.JavacElements;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.Context;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compilers that run the checker and are reused from one compilation to the
+ * next, for the language server and the daemon.
+ *
+ * <p>The compilers come from a {@link JavacTaskPool}, which keeps the symbol
+ * tables of the platform classes and the classpath between compilations with
+ * the same options. A reused compiler keeps the annotation processing
+ * environment it was first given, whose element utilities the pool discards
+ * after each compilation, so they are replaced by reflection; that needs
+ * {@code --add-opens jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED}.
+ * Without it, every compilation starts a new compiler.
+ *
+ * <p>A reused compiler keeps the classes it read from the class path, and the
+ * contents of the packages it listed, so compilations only share a compiler
+ * while the files on their class and module paths are unchanged; see
+ * {@link #inputs}. A compiler that parsed source files other than those given
+ * to it, from a source path or from the class path, cannot resolve those
+ * classes again once it is reused. Compilations with a source path therefore
+ * always start a new compiler, and so do later compilations with the options
+ * of one that read sources from its class path.
+ *
+ * <p>The pool cannot run annotation processors, so compilations run with
+ * {@code -proc:none} and {@link #check} runs the checker as javac would.
+ */
+final class DivByZeroCompilers {
+
+    /** The element utilities of JavacProcessingEnvironment, or null if they cannot be replaced */
+    private static final Field ELEMENT_UTILS = elementUtils();
+
+    /** Options whose value is a list of paths that sources or classes are read from */
+    private static final Set<String> PATH_OPTIONS = new HashSet<>(Arrays.asList(
+            "-classpath", "-cp", "--class-path", "-sourcepath", "--source-path", "--module-path", "-p",
+            "--upgrade-module-path", "--module-source-path", "-bootclasspath", "--boot-class-path"));
+
+    /** Options that make javac read source files besides those given */
+    private static final Set<String> SOURCE_PATH_OPTIONS = new HashSet<>(Arrays.asList(
+            "-sourcepath", "--source-path", "--module-source-path"));
+
+    /** Pool of reusable compilers, or null to start a new compiler for every compilation */
+    private final JavacTaskPool pool;
+
+    /** Stamps of the files on the paths of each set of options, for {@link #inputs} */
+    private final Map<List<String>, Stamps> stamps = new ConcurrentHashMap<>();
+
+    /** Options of compilations that read sources from the class path, which are never pooled */
+    private final Set<List<String>> unpooled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param size most compilers kept for reuse; each holds the symbols of its classpath
+     */
+    DivByZeroCompilers(int size) {
+        this.pool = ELEMENT_UTILS == null ? null : new JavacTaskPool(size);
+    }
+
+    /** Returns true if compilers are reused from one compilation to the next */
+    boolean warm() {
+        return pool != null;
+    }
+
+    /**
+     * Run the worker with a compilation, as by
+     * {@link javax.tools.JavaCompiler#getTask}, without annotation processing.
+     *
+     * @throws IllegalArgumentException if an option is invalid
+     */
+    <Z> Z withTask(Writer out, JavaFileManager fileManager, DiagnosticListener<? super JavaFileObject> listener,
+                   List<String> options, Iterable<String> classes, Iterable<? extends JavaFileObject> sources,
+                   JavacTaskPool.Worker<Z> worker) {
+        List<String> all = new ArrayList<>(options);
+        all.add("-proc:none");
+        if (pool == null || unpooled.contains(all) || hasOption(options, SOURCE_PATH_OPTIONS)) {
+            return worker.withTask((JavacTask) ToolProvider.getSystemJavaCompiler().getTask(
+                    out, fileManager, listener, all, classes, sources));
+        }
+        Set<URI> given = new HashSet<>();
+        for (JavaFileObject source : sources) {
+            given.add(source.toUri());
+        }
+        // The pool keys compilers by their options, so this one is only
+        // reused while the class path stays the same
+        List<String> key = new ArrayList<>(all);
+        key.add("-XDdbz.inputs=" + inputs(options, null));
+        return pool.getTask(out, fileManager, listener, key, classes, sources, task -> {
+            Context context = ((BasicJavacTask) task).getContext();
+            try {
+                ELEMENT_UTILS.set(JavacProcessingEnvironment.instance(context), JavacElements.instance(context));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            boolean[] implicit = {false};
+            task.addTaskListener(new TaskListener() {
+                @Override
+                public void finished(TaskEvent e) {
+                    if (e.getKind() == TaskEvent.Kind.PARSE && !given.contains(e.getSourceFile().toUri())) {
+                        implicit[0] = true;
+                    }
+                }
+            });
+            try {
+                return worker.withTask(task);
+            } finally {
+                if (implicit[0]) {
+                    // This compiler can no longer be reused; later ones start afresh
+                    unpooled.add(all);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a fingerprint of the files on the class, module and source paths
+     * given in javac options: the path, size and modification time of each
+     * file, and of each class and source file in a directory.
+     *
+     * <p>The files are stamped once per set of options and watched from then
+     * on, so that a call walks the paths again only after a watched directory
+     * reported a change. Where a directory cannot be watched, every call walks
+     * the paths. A {@link WatchService} may report changes late on platforms
+     * without native file events, such as macOS.
+     *
+     * @param except a file to leave out, or null
+     */
+    String inputs(List<String> options, Path except) {
+        Stamps stamps = this.stamps.computeIfAbsent(new ArrayList<>(options), Stamps::new);
+        Map<Path, String> files;
+        synchronized (stamps) {
+            files = stamps.read();
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        for (Map.Entry<Path, String> file : files.entrySet()) {
+            if (!file.getKey().equals(except)) {
+                digest.update(file.getValue().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        byte[] bytes = digest.digest();
+        for (int i = 0; i < 8; i++) {
+            sb.append(String.format("%02x", bytes[i]));
+        }
+        return sb.toString();
+    }
+
+    /** The stamps of the files on the paths of one set of options, and the watch that tells when they change */
+    private static final class Stamps {
+        private final List<String> options;
+        private final WatchService watcher;
+        /** False once a directory could not be watched, so that every read walks the paths */
+        private boolean watching;
+        /** Stamp of each file, in path order, or null before the first read */
+        private Map<Path, String> files;
+
+        Stamps(List<String> options) {
+            this.options = options;
+            WatchService watcher;
+            try {
+                watcher = FileSystems.getDefault().newWatchService();
+            } catch (IOException | UnsupportedOperationException e) {
+                watcher = null;
+            }
+            this.watcher = watcher;
+            this.watching = watcher != null;
+        }
+
+        /** Returns the stamps, walking the paths again if a file may have changed since the last walk */
+        Map<Path, String> read() {
+            // Drain the events before walking, so a change during the walk is seen next time
+            boolean changed = !watching;
+            for (WatchKey key; watcher != null && (key = watcher.poll()) != null; ) {
+                key.pollEvents();
+                key.reset();
+                changed = true;
+            }
+            if (files == null || changed) {
+                Map<Path, String> stamped = new TreeMap<>();
+                for (int i = 0; i < options.size(); i++) {
+                    String option = options.get(i);
+                    int equals = option.indexOf('=');
+                    String name = option.startsWith("--") && equals > 0 ? option.substring(0, equals) : option;
+                    if (!PATH_OPTIONS.contains(name)) {
+                        continue;
+                    }
+                    String value = name.equals(option) ? (i + 1 < options.size() ? options.get(++i) : "")
+                            : option.substring(equals + 1);
+                    for (String entry : value.split(File.pathSeparator)) {
+                        if (!entry.isEmpty()) {
+                            stamp(stamped, Paths.get(entry));
+                        }
+                    }
+                }
+                files = stamped;
+            }
+            return files;
+        }
+
+        private void stamp(Map<Path, String> stamped, Path entry) {
+            if (!Files.isDirectory(entry)) {
+                // A jar or a missing entry; its directory tells when it changes
+                Path parent = entry.toAbsolutePath().getParent();
+                watch(parent != null && Files.isDirectory(parent) ? parent : null);
+                try {
+                    stamped.put(entry, stamp(entry, Files.readAttributes(entry, BasicFileAttributes.class)));
+                } catch (IOException e) {
+                    stamped.put(entry, entry + " missing");
+                }
+                return;
+            }
+            try {
+                Files.walkFileTree(entry, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                        watch(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (file.toString().endsWith(".class") || file.toString().endsWith(".java")) {
+                            stamped.put(file, stamp(file, attributes));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                // Unreadable now; a later change still changes the fingerprint
+                stamped.put(entry, "unreadable " + entry);
+                watching = false;
+            }
+        }
+
+        private static String stamp(Path file, BasicFileAttributes attributes) {
+            return file + " " + attributes.size() + " " + attributes.lastModifiedTime();
+        }
+
+        /** Watch a directory for changes to its entries; null gives up watching */
+        private void watch(Path dir) {
+            if (dir == null || !watching) {
+                watching = false;
+                return;
+            }
+            try {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException | UnsupportedOperationException e) {
+                watching = false;
+            }
+        }
+    }
+
+    private static boolean hasOption(List<String> options, Set<String> names) {
+        for (String option : options) {
+            int equals = option.indexOf('=');
+            if (names.contains(option.startsWith("--") && equals > 0 ? option.substring(0, equals) : option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Attribute and check the parsed compilation units one top-level class at
+     * a time, as javac does with the checker as its annotation processor.
+     *
+     * @param generate whether to write the class files of each class that is
+     *     checked before the first error, as javac does
+     */
+    static void check(JavacTask task, DivByZeroChecker checker, boolean generate) {
+        Context context = ((BasicJavacTask) task).getContext();
+        checker.init(JavacProcessingEnvironment.instance(context));
+        ((JavacTaskImpl) task).enter();
+        JavaCompiler compiler = JavaCompiler.instance(context);
+        checker.typeProcessingStart();
+        while (!compiler.todo.isEmpty()) {
+            Queue<Env<AttrContext>> analyzed = compiler.flow(compiler.attribute(compiler.todo.remove()));
+            for (Env<AttrContext> env : analyzed) {
+                if (env.tree instanceof JCTree.JCClassDecl) {
+                    JCTree.JCClassDecl decl = (JCTree.JCClassDecl) env.tree;
+                    checker.typeProcess(decl.sym, new TreePath(new TreePath(env.toplevel), decl));
+                }
+            }
+            if (generate) {
+                compiler.generate(compiler.desugar(analyzed));
+            }
+        }
+        checker.typeProcessingOver();
+    }
+
+    private static Field elementUtils() {
+        try {
+            Field field = JavacProcessingEnvironment.class.getDeclaredField("elementUtils");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.util.JavacTask;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.api.ClientCodeWrapper;
+import com.sun.tools.javac.main.CommandLine;
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.JCDiagnostic;
+import com.sun.tools.javac.util.Log;
+import jdk.net.ExtendedSocketOptions;
+
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running process that compiles with the checker on request, so that
+ * builds do not pay for starting a JVM, loading javac and the checker and
+ * warming them up on every module.
+ *
+ * <p>Usage:
+ * <pre>
+ * java --add-opens jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED &lt;the usual flags&gt; \
+ *     -cp &lt;checker classpath&gt; org.checkerframework.checker.dividebyzero.DivByZeroDaemon \
+ *     --socket=&lt;path&gt; [--threads=N] [--compilers=N]
+ * </pre>
+ * The daemon listens on a Unix domain socket at {@code path}, and
+ * {@link DivByZeroClient} sends it javac arguments, which it compiles as
+ * {@code javac -processor DivByZeroChecker} would in the client's directory.
+ * Up to {@code --threads} compilations (default: the number of cores) run at
+ * once; more wait their turn.
+ *
+ * <p>Only the user running the daemon may use it: the socket is readable and
+ * writable by its owner only, and where the platform reports the peer's
+ * credentials, clients of other users are refused. Compilations can still
+ * write wherever the daemon's user can, so keep the socket in a private
+ * directory rather than a shared one such as {@code /tmp}.
+ *
+ * <p>Each compilation has its own file manager and checker. The compiler's
+ * symbol tables for the JDK and the classpath are kept for the next
+ * compilation with the same arguments, such as the next build of the same
+ * module, up to {@code --compilers} of them (default 4); see
+ * {@link DivByZeroCompilers}. Classes compiled from source are never kept.
+ *
+ * <p>Relative paths in the arguments, including those of {@code @} files,
+ * are resolved against the client's directory, except in {@code -A} options.
+ * Diagnostics name the source files by their absolute path. Only the checker
+ * runs: {@code -processor} may name nothing else, the processor path is
+ * ignored, and {@code -Xplugin} is refused.
+ */
+public final class DivByZeroDaemon implements Closeable {
+
+    /** javac's exit code for a compilation that crashed */
+    private static final int ABNORMAL = 4;
+
+    /** What javac prints after an error in its arguments */
+    private static final String USAGE = "Usage: javac <options> <source files>\n"
+            + "use --help for a list of possible options";
+
+    /** Stack size of compiling threads, that of the main thread javac normally runs on */
+    private static final long STACK_BYTES = 8L << 20;
+
+    /** Options whose value is a list of paths */
+    private static final Set<Option> PATH_LISTS = EnumSet.of(Option.CLASS_PATH, Option.SOURCE_PATH,
+            Option.MODULE_PATH, Option.UPGRADE_MODULE_PATH, Option.BOOT_CLASS_PATH, Option.EXTDIRS,
+            Option.ENDORSEDDIRS);
+
+    /** Options whose value is one path */
+    private static final Set<Option> PATHS = EnumSet.of(Option.D, Option.S, Option.H, Option.SYSTEM);
+
+    /** Options of annotation processing, which the daemon runs itself */
+    private static final Set<Option> PROCESSING = EnumSet.of(Option.PROC, Option.PROCESSOR_PATH,
+            Option.PROCESSOR_MODULE_PATH);
+
+    private final Path socket;
+    /** Owner of the socket, the only user whose clients are served */
+    private final UserPrincipal owner;
+    private final ServerSocketChannel server;
+    private final ExecutorService executor;
+    private final DivByZeroCompilers compilers;
+
+    /**
+     * Listen on the socket; a socket file left by a daemon that exited is replaced.
+     *
+     * @param threads most compilations run at once
+     * @param compilers most compilers kept for reuse
+     * @throws IOException if the socket cannot be bound, or another daemon listens on it
+     */
+    public DivByZeroDaemon(Path socket, int threads, int compilers) throws IOException {
+        this.socket = socket;
+        if (Files.exists(socket)) {
+            if (listening(socket)) {
+                throw new IOException("a daemon already listens on " + socket);
+            }
+            Files.delete(socket);
+        }
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        if (socket.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        }
+        this.owner = Files.getOwner(socket);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads,
+                r -> new Thread(null, r, "dbz-daemon-" + count.incrementAndGet(), STACK_BYTES));
+        this.compilers = new DivByZeroCompilers(compilers);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path socket = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int compilers = 4;
+        for (String arg : args) {
+            if (arg.startsWith("--socket=")) {
+                socket = Paths.get(arg.substring("--socket=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--compilers=")) {
+                compilers = Integer.parseInt(arg.substring("--compilers=".length()));
+            } else {
+                System.err.println("unknown argument: " + arg);
+                System.exit(DivByZeroClient.CMDERR);
+            }
+        }
+        if (socket == null) {
+            System.err.println("error: --socket=<path> is required");
+            System.exit(DivByZeroClient.CMDERR);
+        }
+        DivByZeroDaemon daemon = new DivByZeroDaemon(socket, threads, compilers);
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+        if (!daemon.compilers.warm()) {
+            System.err.println("Starting a new compiler for every compilation; run the daemon with"
+                    + " --add-opens=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED to reuse them");
+        }
+        System.err.println("Listening on " + socket);
+        daemon.serve();
+        daemon.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /** Serve requests until the daemon is closed or a client stops it */
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            try {
+                executor.execute(() -> handle(channel));
+            } catch (RuntimeException e) {
+                // Closed in the meantime
+                channel.close();
+                return;
+            }
+        }
+    }
+
+    /** Stop accepting requests, let those under way finish, and remove the socket */
+    @Override
+    public void close() {
+        try {
+            // Removed first, so that it is gone once serve returns
+            Files.deleteIfExists(socket);
+            server.close();
+        } catch (IOException e) {
+            System.err.println("Could not remove " + socket + ": " + e.getMessage());
+        }
+        executor.shutdown();
+    }
+
+    private static boolean listening(Path socket) {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (SocketChannel c = channel) {
+            // A client that connected before the permissions were set
+            if (!fromOwner(c)) {
+                return;
+            }
+            DataInputStream in = new DataInputStream(Channels.newInputStream(c));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(c)));
+            byte kind = in.readByte();
+            List<String> request = DivByZeroClient.readStrings(in);
+            int exit;
+            if (kind == DivByZeroClient.STOP) {
+                exit = 0;
+            } else if (kind == DivByZeroClient.CHECK && !request.isEmpty()) {
+                try (PrintWriter log = new PrintWriter(new FrameWriter(out), true)) {
+                    exit = compile(Paths.get(request.get(0)), request.subList(1, request.size()), log);
+                }
+            } else {
+                throw new IOException("bad request " + kind);
+            }
+            out.writeByte(DivByZeroClient.EXIT);
+            out.writeInt(exit);
+            out.flush();
+            if (kind == DivByZeroClient.STOP) {
+                close();
+            }
+        } catch (IOException e) {
+            // The client went away; the compilation, if any, is finished or abandoned
+        }
+    }
+
+    /** Whether the client runs as the socket's owner, if the platform can tell */
+    private boolean fromOwner(SocketChannel channel) throws IOException {
+        if (!channel.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)) {
+            return true;
+        }
+        UserPrincipal user = channel.getOption(ExtendedSocketOptions.SO_PEERCRED).user();
+        if (user.equals(owner)) {
+            return true;
+        }
+        System.err.println("Refused a client of user " + user.getName());
+        return false;
+    }
+
+    /**
+     * Compile as javac with the checker would in the directory {@code cwd},
+     * printing what javac would print.
+     *
+     * @return javac's exit code
+     */
+    int compile(Path cwd, List<String> args, PrintWriter log) {
+        List<String> options = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        try {
+            parse(cwd, args, options, files);
+        } catch (IllegalArgumentException e) {
+            log.println(e.getMessage());
+            log.println(USAGE);
+            return DivByZeroClient.CMDERR;
+        } catch (IOException e) {
+            log.println("error: " + e.getMessage());
+            return DivByZeroClient.CMDERR;
+        }
+        if (files.isEmpty()) {
+            log.println("error: no source files");
+            return DivByZeroClient.CMDERR;
+        }
+
+        // Diagnostics are printed as javac prints them; the pool's compilers
+        // need a listener
+        Log[] javacLog = new Log[1];
+        DiagnosticListener<JavaFileObject> listener = d -> {
+            JCDiagnostic diagnostic = d instanceof ClientCodeWrapper.DiagnosticSourceUnwrapper
+                    ? ((ClientCodeWrapper.DiagnosticSourceUnwrapper) d).d : (JCDiagnostic) d;
+            log.println(javacLog[0] == null ? diagnostic.toString()
+                    : javacLog[0].getDiagnosticFormatter().format(diagnostic, Locale.getDefault()));
+        };
+        try (StandardJavaFileManager fileManager =
+                     ToolProvider.getSystemJavaCompiler().getStandardFileManager(null, null, null)) {
+            Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjectsFromPaths(files);
+            return compilers.withTask(log, fileManager, listener, options, null, sources, task -> {
+                javacLog[0] = Log.instance(((BasicJavacTask) task).getContext());
+                return run(task);
+            });
+        } catch (IllegalArgumentException e) {
+            if (javacLog[0] != null) {
+                return crashed(e, log);
+            }
+            log.println(e.getMessage().startsWith("error:") ? e.getMessage() : "error: " + e.getMessage());
+            log.println(USAGE);
+            return DivByZeroClient.CMDERR;
+        } catch (IOException e) {
+            log.println("error: " + e.getMessage());
+            return DivByZeroClient.SYSERR;
+        } catch (RuntimeException | StackOverflowError e) {
+            return crashed(e, log);
+        }
+    }
+
+    /** Check and generate as javac would, printing what it prints at the end */
+    private static int run(JavacTask task) {
+        Context context = ((BasicJavacTask) task).getContext();
+        JavaCompiler compiler = JavaCompiler.instance(context);
+        try {
+            task.parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // javac processes no annotations after syntax errors
+        if (compiler.errorCount() == 0) {
+            DivByZeroCompilers.check(task, new DivByZeroChecker(), true);
+        }
+        compiler.reportDeferredDiagnostics();
+        compiler.printCount("error", compiler.errorCount());
+        compiler.printCount("warn", compiler.warningCount());
+        Log log = Log.instance(context);
+        printSuppressed(log, compiler.errorCount(), log.nsuppressederrors, "count.error.recompile");
+        printSuppressed(log, compiler.warningCount(), log.nsuppressedwarns, "count.warn.recompile");
+        log.flush();
+        return compiler.errorCount() == 0 ? 0 : 1;
+    }
+
+    /** Print javac's note on diagnostics beyond -Xmaxerrs or -Xmaxwarns */
+    private static void printSuppressed(Log log, int shown, int suppressed, String key) {
+        if (suppressed > 0) {
+            log.printLines(Log.WriterKind.ERROR, key, String.valueOf(shown), String.valueOf(shown + suppressed));
+        }
+    }
+
+    private static int crashed(Throwable e, PrintWriter log) {
+        log.println("An exception has occurred in the compiler or the checker:");
+        e.printStackTrace(log);
+        return ABNORMAL;
+    }
+
+    /**
+     * Split javac arguments into options and source files, resolving relative
+     * paths against the client's directory.
+     *
+     * @throws IllegalArgumentException with javac's message for bad arguments
+     */
+    private static void parse(Path cwd, List<String> args, List<String> options, List<Path> files)
+            throws IOException {
+        List<String> resolved = new ArrayList<>();
+        for (String arg : args) {
+            resolved.add(arg.startsWith("@") ? "@" + cwd.resolve(arg.substring(1)) : arg);
+        }
+        List<String> expanded = CommandLine.parse(resolved);
+        for (int i = 0; i < expanded.size(); i++) {
+            String arg = expanded.get(i);
+            Option option = arg.startsWith("-") ? Option.lookup(arg) : null;
+            if (option == null) {
+                if (arg.startsWith("-")) {
+                    throw new IllegalArgumentException("error: invalid flag: " + arg);
+                }
+                if (!arg.endsWith(".java")) {
+                    throw new IllegalArgumentException("error: the daemon compiles source files, not classes such as "
+                            + arg);
+                }
+                Path file = cwd.resolve(arg);
+                if (!Files.isRegularFile(file)) {
+                    throw new IllegalArgumentException("error: file not found: " + arg);
+                }
+                files.add(file);
+                continue;
+            }
+            String name = arg;
+            String value = null;
+            if (option.hasSeparateArg()) {
+                int equals = arg.indexOf('=');
+                if (arg.startsWith("--") && equals > 0) {
+                    name = arg.substring(0, equals);
+                    value = arg.substring(equals + 1);
+                } else if (i + 1 < expanded.size()) {
+                    value = expanded.get(++i);
+                } else {
+                    throw new IllegalArgumentException("error: " + arg + " requires an argument");
+                }
+            }
+            if (option == Option.PROCESSOR) {
+                for (String processor : value.split(",")) {
+                    if (!processor.trim().equals(DivByZeroChecker.class.getName())) {
+                        throw new IllegalArgumentException("error: the daemon runs only "
+                                + DivByZeroChecker.class.getName() + ", not " + processor.trim());
+                    }
+                }
+                continue;
+            }
+            if (option == Option.PLUGIN) {
+                throw new IllegalArgumentException("error: the daemon runs no javac plugins, not " + arg);
+            }
+            if (PROCESSING.contains(option)) {
+                continue;
+            }
+            if (value != null && PATH_LISTS.contains(option)) {
+                List<String> paths = new ArrayList<>();
+                for (String path : value.split(File.pathSeparator, -1)) {
+                    paths.add(path.isEmpty() ? path : cwd.resolve(path).toString());
+                }
+                value = String.join(File.pathSeparator, paths);
+            } else if (value != null && PATHS.contains(option) && !value.equals("none")) {
+                value = cwd.resolve(value).toString();
+            }
+            options.add(name);
+            if (value != null) {
+                options.add(value);
+            }
+        }
+    }
+
+    /** Sends what javac prints to the client, a frame at each flush */
+    private static final class FrameWriter extends Writer {
+        private final DataOutputStream out;
+        private final StringBuilder pending = new StringBuilder();
+
+        FrameWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            pending.append(chars, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (pending.length() > 0) {
+                out.writeByte(DivByZeroClient.OUTPUT);
+                DivByZeroClient.writeString(out, pending.toString());
+                pending.setLength(0);
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
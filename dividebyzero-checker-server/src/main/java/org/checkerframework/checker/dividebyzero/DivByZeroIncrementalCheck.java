@@ -0,0 +1,267 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks successive versions of one source file, re-running dataflow and the
+ * visitor only for the methods whose text changed.
+ *
+ * <p>Every check parses and attributes the whole file, which javac does in a
+ * few milliseconds. A method of a named class whose text, signature included,
+ * is the same as in the last successful check is then skipped, and the
+ * checker diagnostics it had are replayed at its new position. This is exact
+ * as long as everything outside the method bodies is unchanged too, since
+ * only declarations outside a method (fields, signatures, annotations) can
+ * change another method's diagnostics; any change there checks every method.
+ * So does any change to the other files the method may depend on: the files
+ * on the class, module and source paths, as fingerprinted by
+ * {@link DivByZeroCompilers#inputs}.
+ *
+ * <p>The compilers are reused from one check to the next; see
+ * {@link DivByZeroCompilers}.
+ *
+ * <p>An instance checks one file at a time; several instances may share a
+ * {@link Compilers}.
+ */
+final class DivByZeroIncrementalCheck {
+
+    /** A diagnostic of one check, at character offsets in the checked text */
+    static final class Finding {
+        final Diagnostic.Kind kind;
+        /** Character offsets of the reported tree, or -1 if the diagnostic has no position */
+        final long start;
+        final long end;
+        /** Checker message key such as "divide.by.zero", or null for javac's own diagnostics */
+        final String messageKey;
+        final String message;
+
+        Finding(Diagnostic.Kind kind, long start, long end, String messageKey, String message) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+            this.messageKey = messageKey;
+            this.message = message;
+        }
+
+        Finding moved(long delta) {
+            return new Finding(kind, start + delta, end + delta, messageKey, message);
+        }
+    }
+
+    /** Diagnostics of one check, and how much of the file it checked */
+    static final class Outcome {
+        final List<Finding> findings;
+        final int methods;
+        final int checked;
+
+        Outcome(List<Finding> findings, int methods, int checked) {
+            this.findings = findings;
+            this.methods = methods;
+            this.checked = checked;
+        }
+    }
+
+    /** Warm compilers and file managers shared by the checks of several files */
+    static final class Compilers {
+        private final DivByZeroCompilers compilers;
+        private final List<String> options;
+        private final ThreadLocal<StandardJavaFileManager> fileManagers = ThreadLocal.withInitial(
+                () -> ToolProvider.getSystemJavaCompiler().getStandardFileManager(null, null, StandardCharsets.UTF_8));
+
+        /**
+         * @param threads number of checks that may run at once
+         * @param options javac options, such as the classpath and -A options
+         */
+        Compilers(int threads, List<String> options) {
+            this.compilers = new DivByZeroCompilers(threads);
+            this.options = new ArrayList<>(options);
+        }
+
+        /** Returns true if compilers are reused from one check to the next */
+        boolean warm() {
+            return compilers.warm();
+        }
+    }
+
+    /** Checker diagnostics go through the annotation processing messager */
+    private static final Pattern MESSAGER_CODE = Pattern.compile("compiler\\.(err|warn|note|misc)\\.proc\\.messager");
+
+    /** Checker diagnostics start with their message key in brackets */
+    private static final Pattern MESSAGE_KEY = Pattern.compile("\\[([\\w.]+)\\] (.*)", Pattern.DOTALL);
+
+    /** Key of the error the framework reports when javac's errors keep the checker from running */
+    private static final String NOT_RUN = "type.checking.not.run";
+
+    private final Compilers compilers;
+    private final URI uri;
+
+    /** Text outside the method bodies at the last successful check, or null before the first */
+    private String skeleton;
+
+    /** Fingerprint of the class, module and source paths at the last successful check */
+    private String inputs;
+
+    /** Text of each method at the last successful check, in source order */
+    private List<String> methodTexts = Collections.emptyList();
+
+    /** Checker diagnostics of each method at the last successful check, relative to its start */
+    private List<List<Finding>> methodFindings = Collections.emptyList();
+
+    DivByZeroIncrementalCheck(Compilers compilers, URI uri) {
+        this.compilers = compilers;
+        this.uri = uri;
+    }
+
+    /** Check a new version of the file */
+    Outcome check(String text) {
+        JavaFileObject source = new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return text;
+            }
+        };
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = Collections.synchronizedList(new ArrayList<>());
+        return compilers.compilers.withTask(null, compilers.fileManagers.get(), diagnostics::add,
+                compilers.options, null, Collections.singletonList(source),
+                task -> run(task, text, source, diagnostics));
+    }
+
+    private Outcome run(JavacTask task, String text, JavaFileObject source,
+                        List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        CompilationUnitTree root;
+        try {
+            root = task.parse().iterator().next();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Trees trees = Trees.instance(task);
+        SourcePositions positions = trees.getSourcePositions();
+        List<MethodTree> methods = DivByZeroPartition.methodsOf(root);
+        long[] starts = new long[methods.size()];
+        long[] ends = new long[methods.size()];
+        List<String> texts = new ArrayList<>(methods.size());
+        StringBuilder outside = new StringBuilder();
+        long last = 0;
+        for (int i = 0; i < methods.size(); i++) {
+            starts[i] = positions.getStartPosition(root, methods.get(i));
+            ends[i] = positions.getEndPosition(root, methods.get(i));
+            texts.add(text.substring((int) starts[i], (int) ends[i]));
+            Tree body = methods.get(i).getBody();
+            long bodyStart = body == null ? ends[i] : positions.getStartPosition(root, body);
+            outside.append(text, (int) last, (int) bodyStart).append('\0');
+            last = body == null ? ends[i] : positions.getEndPosition(root, body);
+        }
+        outside.append(text, (int) last, text.length());
+        String newSkeleton = outside.toString();
+        // The saved copy of this file does not count, since the text checked replaces it
+        String newInputs = compilers.compilers.inputs(compilers.options,
+                "file".equals(uri.getScheme()) ? Paths.get(uri) : null);
+
+        // Methods whose diagnostics from the last check still hold
+        Set<MethodTree> unchanged = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean sameOutside = newSkeleton.equals(skeleton) && newInputs.equals(inputs)
+                && methods.size() == methodTexts.size();
+        if (sameOutside) {
+            for (int i = 0; i < methods.size(); i++) {
+                if (texts.get(i).equals(methodTexts.get(i))) {
+                    unchanged.add(methods.get(i));
+                }
+            }
+        }
+
+        DivByZeroChecker checker = new DivByZeroChecker();
+        checker.setMethodFilter((unit, method) -> unchanged.contains(method));
+        DivByZeroCompilers.check(task, checker, false);
+
+        List<Finding> findings = new ArrayList<>();
+        List<List<Finding>> perMethod = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            perMethod.add(unchanged.contains(methods.get(i)) ? methodFindings.get(i) : new ArrayList<>());
+        }
+        boolean javacErrors = false;
+        for (Diagnostic<? extends JavaFileObject> d : new ArrayList<>(diagnostics)) {
+            if (d.getSource() != null && d.getSource() != source) {
+                continue;
+            }
+            boolean fromChecker = d.getCode() != null && MESSAGER_CODE.matcher(d.getCode()).matches();
+            javacErrors |= d.getKind() == Diagnostic.Kind.ERROR && !fromChecker;
+            String message = d.getMessage(null);
+            String key = null;
+            Matcher m = MESSAGE_KEY.matcher(message);
+            if (fromChecker && m.matches()) {
+                key = m.group(1);
+                message = m.group(2);
+            }
+            if (NOT_RUN.equals(key)) {
+                // Would mark the whole file next to javac's own error
+                continue;
+            }
+            long start = d.getStartPosition() == Diagnostic.NOPOS ? -1 : d.getStartPosition();
+            long end = d.getEndPosition() == Diagnostic.NOPOS ? start : d.getEndPosition();
+            Finding finding = new Finding(d.getKind(), start, end, key, message);
+            findings.add(finding);
+            int method = fromChecker ? enclosing(starts, ends, start) : -1;
+            if (method >= 0) {
+                perMethod.get(method).add(finding.moved(-starts[method]));
+            }
+        }
+
+        // The checker does not run on a file with javac errors, so such a
+        // check says nothing about the methods; keep the last results
+        if (!javacErrors) {
+            for (int i = 0; i < methods.size(); i++) {
+                if (unchanged.contains(methods.get(i))) {
+                    for (Finding finding : methodFindings.get(i)) {
+                        findings.add(finding.moved(starts[i]));
+                    }
+                }
+            }
+            skeleton = newSkeleton;
+            inputs = newInputs;
+            methodTexts = texts;
+            methodFindings = perMethod;
+        }
+        findings.sort((a, b) -> Long.compare(a.start, b.start));
+        return new Outcome(findings, methods.size(), methods.size() - unchanged.size());
+    }
+
+    /** Returns the index of the method whose text contains the offset, or -1 */
+    private static int enclosing(long[] starts, long[] ends, long offset) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (offset < starts[mid]) {
+                high = mid - 1;
+            } else if (offset >= ends[mid]) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
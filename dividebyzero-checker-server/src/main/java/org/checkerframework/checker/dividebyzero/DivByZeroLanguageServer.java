@@ -0,0 +1,677 @@
+package org.checkerframework.checker.dividebyzero;
+
+import javax.tools.Diagnostic;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Language Server Protocol server that reports the checker's diagnostics
+ * for open documents as they are edited.
+ *
+ * <p>Usage, with the server speaking the protocol on standard input and
+ * output:
+ * <pre>
+ * java -cp &lt;checker classpath&gt; org.checkerframework.checker.dividebyzero.DivByZeroLanguageServer \
+ *     [--threads=N] [-- &lt;javac options&gt;]
+ * </pre>
+ * The javac options (classpath, {@code -sourcepath}, {@code -A} options, ...)
+ * are used for every check. Each document is checked on its own, against the
+ * classpath and the saved files on the source path.
+ *
+ * <p>Every version of a document is re-parsed, and only its methods whose
+ * text changed are re-checked ({@link DivByZeroIncrementalCheck}). Checks run
+ * on a pool of {@code N} threads (default: the number of cores), so a slow
+ * document does not hold up the others or the handling of messages. The edits
+ * to a document that arrive while it is being checked are checked together
+ * afterwards, and diagnostics are published only for its latest version.
+ * After each check, the server logs how long it took and how many methods it
+ * re-checked.
+ *
+ * <p>Documents are synchronized in full on each change. The server handles
+ * {@code initialize}, {@code shutdown}, {@code exit} and the {@code didOpen},
+ * {@code didChange} and {@code didClose} notifications, and publishes
+ * diagnostics; other requests get a method-not-found error. A malformed
+ * request gets a JSON-RPC error, and a malformed notification is logged and
+ * skipped.
+ */
+public final class DivByZeroLanguageServer {
+
+    /** JSON-RPC error code of a message that is not valid JSON */
+    private static final int PARSE_ERROR = -32700;
+
+    /** JSON-RPC error code of a message that is not a valid request */
+    private static final int INVALID_REQUEST = -32600;
+
+    /** JSON-RPC error code of a request the server does not handle */
+    private static final int METHOD_NOT_FOUND = -32601;
+
+    /** JSON-RPC error code of a request with parameters of the wrong type */
+    private static final int INVALID_PARAMS = -32602;
+
+    /** LSP message type of log messages */
+    private static final int LOG = 4;
+
+    /** LSP message type of errors */
+    private static final int ERROR = 1;
+
+    /** A message the server cannot act on, answered with a JSON-RPC error code */
+    private static final class InvalidMessage extends Exception {
+        final int code;
+
+        InvalidMessage(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    /** An open document and the edits waiting to be checked */
+    private static final class Document {
+        final String uri;
+        final DivByZeroIncrementalCheck check;
+
+        /** Latest text not yet checked, or null */
+        String pendingText;
+        Object pendingVersion;
+        boolean scheduled;
+        boolean closed;
+
+        Document(String uri, DivByZeroIncrementalCheck check) {
+            this.uri = uri;
+            this.check = check;
+        }
+    }
+
+    private final DivByZeroIncrementalCheck.Compilers compilers;
+    private final ExecutorService executor;
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private OutputStream out;
+    private boolean shutdown;
+
+    /**
+     * @param threads number of documents checked at once
+     * @param javacOptions options for every check
+     */
+    public DivByZeroLanguageServer(int threads, List<String> javacOptions) {
+        compilers = new DivByZeroIncrementalCheck.Compilers(threads, javacOptions);
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "dbz-check-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> javacOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                javacOptions.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            } else if (args[i].startsWith("--threads=")) {
+                threads = Integer.parseInt(args[i].substring("--threads=".length()));
+            } else {
+                System.err.println("unknown argument: " + args[i]);
+                System.exit(2);
+            }
+        }
+        // Standard output carries the protocol, so nothing else may print there
+        PrintStream protocol = System.out;
+        System.setOut(System.err);
+        System.exit(new DivByZeroLanguageServer(threads, javacOptions).run(System.in, protocol));
+    }
+
+    /**
+     * Serve a client until it sends {@code exit} or closes the input.
+     *
+     * @return the exit code: 0 if the client shut the server down first, 1 otherwise
+     */
+    public int run(InputStream in, OutputStream out) throws IOException {
+        this.out = out;
+        try {
+            while (true) {
+                String content;
+                try {
+                    content = read(in);
+                } catch (EOFException e) {
+                    return 1;
+                }
+                Object parsed;
+                try {
+                    parsed = Json.parse(content);
+                } catch (IOException e) {
+                    error(null, PARSE_ERROR, e.getMessage());
+                    continue;
+                }
+                Map<String, Object> message = Json.object(parsed);
+                if ("exit".equals(message.get("method"))) {
+                    return shutdown ? 0 : 1;
+                }
+                try {
+                    if (!(parsed instanceof Map)) {
+                        throw new InvalidMessage(INVALID_REQUEST, "a message must be a JSON object");
+                    }
+                    handle(message);
+                } catch (InvalidMessage e) {
+                    if (e.code == INVALID_PARAMS && !message.containsKey("id")) {
+                        // A notification gets no response
+                        log(ERROR, "Ignoring " + message.get("method") + ": " + e.getMessage());
+                    } else {
+                        Object id = message.get("id");
+                        error(isId(id) ? id : null, e.code, e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(Map<String, Object> message) throws IOException, InvalidMessage {
+        Object id = message.get("id");
+        if (!isId(id)) {
+            throw new InvalidMessage(INVALID_REQUEST, "id must be a string or a number");
+        }
+        if (message.get("method") != null && !(message.get("method") instanceof String)) {
+            throw new InvalidMessage(INVALID_REQUEST, "method must be a string");
+        }
+        String method = (String) message.get("method");
+        Map<String, Object> params = Json.object(message.get("params"));
+        if (method == null) {
+            // A response to a request of ours; the server sends none
+            return;
+        }
+        switch (method) {
+            case "initialize":
+                respond(id, "{\"capabilities\": {\"textDocumentSync\": {\"openClose\": true, \"change\": 1}},"
+                        + " \"serverInfo\": {\"name\": \"dividebyzero\"}}");
+                if (!compilers.warm()) {
+                    log(LOG, "Starting a new compiler for every check; run the server with"
+                            + " --add-opens=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED to reuse them");
+                }
+                break;
+            case "shutdown":
+                shutdown = true;
+                respond(id, "null");
+                break;
+            case "textDocument/didOpen": {
+                Map<String, Object> document = Json.object(params.get("textDocument"));
+                update(uri(document), string(document, "text"), version(document));
+                break;
+            }
+            case "textDocument/didChange": {
+                Map<String, Object> document = Json.object(params.get("textDocument"));
+                List<Object> changes = Json.array(params.get("contentChanges"));
+                if (!changes.isEmpty()) {
+                    String text = string(Json.object(changes.get(changes.size() - 1)), "text");
+                    update(uri(document), text, version(document));
+                }
+                break;
+            }
+            case "textDocument/didClose": {
+                String uri = uri(Json.object(params.get("textDocument")));
+                Document document = documents.remove(uri);
+                if (document != null) {
+                    synchronized (document) {
+                        document.closed = true;
+                        publish(uri, null, "", new ArrayList<>());
+                    }
+                }
+                break;
+            }
+            default:
+                if (id != null) {
+                    error(id, METHOD_NOT_FOUND, method + " is not supported");
+                }
+        }
+    }
+
+    /** Returns true if the value may be a request id: a string, a number, or absent */
+    private static boolean isId(Object value) {
+        return value == null || value instanceof String || value instanceof Double;
+    }
+
+    private static String string(Map<String, Object> object, String key) throws InvalidMessage {
+        Object value = object.get(key);
+        if (!(value instanceof String)) {
+            throw new InvalidMessage(INVALID_PARAMS, key + " must be a string");
+        }
+        return (String) value;
+    }
+
+    /** Returns the document's URI, which must be a string that parses as a URI */
+    private static String uri(Map<String, Object> document) throws InvalidMessage {
+        String uri = string(document, "uri");
+        try {
+            URI.create(uri);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMessage(INVALID_PARAMS, "uri is not a URI: " + uri);
+        }
+        return uri;
+    }
+
+    /** Returns the document's version, a number or null */
+    private static Object version(Map<String, Object> document) throws InvalidMessage {
+        Object version = document.get("version");
+        if (version != null && !(version instanceof Double)) {
+            throw new InvalidMessage(INVALID_PARAMS, "version must be a number");
+        }
+        return version;
+    }
+
+    /** Queue the new text of a document, and start checking it unless that is already under way */
+    private void update(String uri, String text, Object version) {
+        if (shutdown) {
+            return;
+        }
+        Document document = documents.computeIfAbsent(uri,
+                u -> new Document(u, new DivByZeroIncrementalCheck(compilers, URI.create(u))));
+        synchronized (document) {
+            document.pendingText = text;
+            document.pendingVersion = version;
+            if (!document.scheduled) {
+                document.scheduled = true;
+                executor.execute(() -> drain(document));
+            }
+        }
+    }
+
+    /** Check the latest text of a document until no newer text is waiting */
+    private void drain(Document document) {
+        boolean idle = false;
+        try {
+            while (true) {
+                String text;
+                Object version;
+                synchronized (document) {
+                    if (document.pendingText == null || document.closed) {
+                        document.scheduled = false;
+                        idle = true;
+                        return;
+                    }
+                    text = document.pendingText;
+                    version = document.pendingVersion;
+                    document.pendingText = null;
+                }
+                try {
+                    long start = System.nanoTime();
+                    DivByZeroIncrementalCheck.Outcome outcome = document.check.check(text);
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    synchronized (document) {
+                        if (document.pendingText != null || document.closed) {
+                            // Superseded by a newer version before it could be published
+                            continue;
+                        }
+                        publish(document.uri, version, text, outcome.findings);
+                    }
+                    log(LOG, String.format(Locale.ROOT, "Checked %s in %d ms: %d of %d methods",
+                            document.uri, millis, outcome.checked, outcome.methods));
+                } catch (IOException e) {
+                    return;
+                } catch (Throwable e) {
+                    // Any error from javac or the checker, such as a LinkageError, fails only this version
+                    log(ERROR, "Could not check " + document.uri + ": " + e);
+                }
+            }
+        } catch (IOException e) {
+            // The client is gone
+        } finally {
+            if (!idle) {
+                // Left early, so the next edit must schedule the document again
+                synchronized (document) {
+                    document.scheduled = false;
+                }
+            }
+        }
+    }
+
+    // ========================================================================
+    // Protocol
+
+    private void publish(String uri, Object version, String text,
+                         List<DivByZeroIncrementalCheck.Finding> findings) throws IOException {
+        int[] lineStarts = lineStarts(text);
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"jsonrpc\": \"2.0\", \"method\": \"textDocument/publishDiagnostics\", \"params\": {\"uri\": \"")
+                .append(Json.escape(uri)).append('"');
+        if (version != null) {
+            sb.append(", \"version\": ").append(Json.write(version));
+        }
+        sb.append(", \"diagnostics\": [");
+        for (int i = 0; i < findings.size(); i++) {
+            DivByZeroIncrementalCheck.Finding finding = findings.get(i);
+            sb.append(i == 0 ? "" : ", ").append("{\"range\": {\"start\": ");
+            position(sb, lineStarts, Math.max(0, finding.start));
+            sb.append(", \"end\": ");
+            position(sb, lineStarts, Math.max(0, finding.end));
+            sb.append("}, \"severity\": ").append(severity(finding.kind));
+            if (finding.messageKey != null) {
+                sb.append(", \"code\": \"").append(Json.escape(finding.messageKey)).append('"');
+            }
+            sb.append(", \"source\": \"").append(finding.messageKey != null ? "dividebyzero" : "javac")
+                    .append("\", \"message\": \"").append(Json.escape(finding.message)).append("\"}");
+        }
+        sb.append("]}}");
+        send(sb.toString());
+    }
+
+    private static int severity(Diagnostic.Kind kind) {
+        switch (kind) {
+            case ERROR:
+                return 1;
+            case WARNING:
+            case MANDATORY_WARNING:
+                return 2;
+            case NOTE:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    /** Returns the offset at which each line of the text starts */
+    private static int[] lineStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                starts.add(i + 1);
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Append an LSP position, whose character is counted in UTF-16 code units like javac's offsets */
+    private static void position(StringBuilder sb, int[] lineStarts, long offset) {
+        int line = Arrays.binarySearch(lineStarts, (int) offset);
+        if (line < 0) {
+            line = -line - 2;
+        }
+        sb.append("{\"line\": ").append(line).append(", \"character\": ").append(offset - lineStarts[line]).append('}');
+    }
+
+    private void error(Object id, int code, String message) throws IOException {
+        send("{\"jsonrpc\": \"2.0\", \"id\": " + Json.write(id) + ", \"error\": {\"code\": " + code
+                + ", \"message\": \"" + Json.escape(message) + "\"}}");
+    }
+
+    private void respond(Object id, String result) throws IOException {
+        send("{\"jsonrpc\": \"2.0\", \"id\": " + Json.write(id) + ", \"result\": " + result + "}");
+    }
+
+    private void log(int type, String message) throws IOException {
+        send("{\"jsonrpc\": \"2.0\", \"method\": \"window/logMessage\", \"params\": {\"type\": " + type
+                + ", \"message\": \"" + Json.escape(message) + "\"}}");
+    }
+
+    private void send(String json) throws IOException {
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            out.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+        }
+    }
+
+    /** Read the content of the next message */
+    static String read(InputStream in) throws IOException {
+        int length = -1;
+        while (true) {
+            String header = readLine(in);
+            if (header.isEmpty()) {
+                break;
+            }
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                try {
+                    length = Integer.parseInt(header.substring(colon + 1).trim());
+                } catch (NumberFormatException e) {
+                    // The messages can no longer be told apart
+                    throw new IOException("bad Content-Length header: " + header);
+                }
+            }
+        }
+        if (length < 0) {
+            throw new IOException("message without a Content-Length header");
+        }
+        byte[] content = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(content, read, length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new EOFException();
+            }
+            if (c == '\n') {
+                break;
+            }
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /** Just enough JSON for the protocol: objects, arrays, strings, numbers, booleans and null */
+    static final class Json {
+        private final String text;
+        private int pos;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        static Object parse(String text) throws IOException {
+            Json json = new Json(text);
+            Object value = json.value();
+            json.skipSpace();
+            if (json.pos != text.length()) {
+                throw json.error("trailing characters");
+            }
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Map<String, Object> object(Object value) {
+            return value instanceof Map ? (Map<String, Object>) value : new LinkedHashMap<>();
+        }
+
+        @SuppressWarnings("unchecked")
+        static List<Object> array(Object value) {
+            return value instanceof List ? (List<Object>) value : new ArrayList<>();
+        }
+
+        /** Write a string, number, boolean or null, such as a request id or document version */
+        static String write(Object value) {
+            if (value instanceof String) {
+                return "\"" + escape((String) value) + "\"";
+            }
+            if (value instanceof Double && (Double) value == Math.rint((Double) value)) {
+                return Long.toString(((Double) value).longValue());
+            }
+            return String.valueOf(value);
+        }
+
+        static String escape(String s) {
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                }
+            }
+            return sb.toString();
+        }
+
+        private Object value() throws IOException {
+            skipSpace();
+            if (pos >= text.length()) {
+                throw error("unexpected end");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': {
+                    pos++;
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    skipSpace();
+                    if (peek('}')) {
+                        return map;
+                    }
+                    do {
+                        skipSpace();
+                        String key = string();
+                        skipSpace();
+                        expect(':');
+                        map.put(key, value());
+                        skipSpace();
+                    } while (peek(','));
+                    expect('}');
+                    return map;
+                }
+                case '[': {
+                    pos++;
+                    List<Object> list = new ArrayList<>();
+                    skipSpace();
+                    if (peek(']')) {
+                        return list;
+                    }
+                    do {
+                        list.add(value());
+                        skipSpace();
+                    } while (peek(','));
+                    expect(']');
+                    return list;
+                }
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default: {
+                    int start = pos;
+                    while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                        pos++;
+                    }
+                    try {
+                        return Double.parseDouble(text.substring(start, pos));
+                    } catch (NumberFormatException e) {
+                        throw error("unexpected character");
+                    }
+                }
+            }
+        }
+
+        private String string() throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char e = text.charAt(pos++);
+                switch (e) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("bad escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("bad escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+        }
+
+        private Object literal(String word, Object value) throws IOException {
+            if (!text.startsWith(word, pos)) {
+                throw error("unexpected character");
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private boolean peek(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws IOException {
+            if (!peek(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IOException error(String problem) {
+            return new IOException("malformed JSON at offset " + pos + ": " + problem);
+        }
+    }
+}
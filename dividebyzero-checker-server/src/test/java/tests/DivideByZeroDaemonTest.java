@@ -0,0 +1,178 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.dividebyzero.DivByZeroClient;
+import org.checkerframework.checker.dividebyzero.DivByZeroDaemon;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link DivByZeroDaemon}, serving in this JVM, through {@link DivByZeroClient}.
+ *
+ * <p>The compilations must exit and print as javac with the checker would, including when several
+ * run at once. The tests are skipped on platforms without Unix domain sockets, such as Windows
+ * before version 10.
+ */
+public class DivideByZeroDaemonTest {
+
+    /** Longest wait for the daemon; the first compilation loads the checker */
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private Path dir;
+    private Path socket;
+    private ExecutorService threads;
+    private Future<Void> served;
+
+    @Before
+    public void start() throws IOException {
+        Assume.assumeTrue("Unix domain sockets are not supported", unixDomainSockets());
+        dir = Files.createTempDirectory("dbz-daemon");
+        socket = dir.resolve("sock");
+        Files.write(dir.resolve("Good.java"), Arrays.asList(
+                "class Good {",
+                "    int f(int x) { return x / 2; }",
+                "}"));
+        Files.write(dir.resolve("Bad.java"), Arrays.asList(
+                "class Bad {",
+                "    int f(int x) { return x / 0; }",
+                "    int g(int x, int y) { return x % y; }",
+                "}"));
+        DivByZeroDaemon daemon = new DivByZeroDaemon(socket, 4, 2);
+        threads = Executors.newCachedThreadPool();
+        served = threads.submit(() -> {
+            daemon.serve();
+            return null;
+        });
+    }
+
+    @After
+    public void stop() throws Exception {
+        if (served == null) {
+            return;
+        }
+        try {
+            Assert.assertEquals(0, DivByZeroClient.stop(socket, System.err));
+            served.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertFalse(Files.exists(socket));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void errorsInSources() throws Exception {
+        Compilation c = compile("-d", "bad", "Bad.java");
+        Assert.assertEquals(c.output, 1, c.exit);
+        Assert.assertEquals(c.output, 2, count(c.output, "error: [divide.by.zero]"));
+        Assert.assertTrue(c.output, c.output.endsWith("2 errors" + System.lineSeparator()));
+        Assert.assertFalse(Files.exists(dir.resolve("bad/Bad.class")));
+    }
+
+    @Test
+    public void classesBeforeTheFirstErrorAreWritten() throws Exception {
+        Compilation c = compile("-d", "mixed", "Good.java", "Bad.java");
+        Assert.assertEquals(c.output, 1, c.exit);
+        Assert.assertTrue(Files.exists(dir.resolve("mixed/Good.class")));
+        Assert.assertFalse(Files.exists(dir.resolve("mixed/Bad.class")));
+
+        c = compile("-d", "good", "Good.java");
+        Assert.assertEquals(c.output, 0, c.exit);
+        Assert.assertEquals("", c.output);
+        Assert.assertTrue(Files.exists(dir.resolve("good/Good.class")));
+    }
+
+    @Test
+    public void badArguments() throws Exception {
+        Compilation c = compile("-foo", "Good.java");
+        Assert.assertEquals(c.output, 2, c.exit);
+        Assert.assertTrue(c.output, c.output.startsWith("error: invalid flag: -foo"));
+
+        c = compile("Missing.java");
+        Assert.assertEquals(c.output, 2, c.exit);
+        Assert.assertTrue(c.output, c.output.startsWith("error: file not found: Missing.java"));
+
+        c = compile("-processor", "other.Processor", "Good.java");
+        Assert.assertEquals(c.output, 2, c.exit);
+
+        c = compile("-Xplugin:DivByZeroGuard", "Good.java");
+        Assert.assertEquals(c.output, 2, c.exit);
+        Assert.assertTrue(c.output, c.output.startsWith("error: the daemon runs no javac plugins"));
+    }
+
+    @Test
+    public void socketIsPrivate() throws Exception {
+        Assume.assumeTrue(socket.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+    }
+
+    @Test
+    public void concurrentCompilations() throws Exception {
+        List<Future<Compilation>> compilations = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String out = "out" + i;
+            compilations.add(threads.submit(() -> compile("-d", out, "Good.java", "Bad.java")));
+        }
+        String expected = compilations.get(0).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).output;
+        Assert.assertEquals(expected, 2, count(expected, "error: [divide.by.zero]"));
+        for (int i = 0; i < compilations.size(); i++) {
+            Compilation c = compilations.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertEquals(c.output, 1, c.exit);
+            Assert.assertEquals(expected, c.output);
+            Assert.assertTrue(Files.exists(dir.resolve("out" + i + "/Good.class")));
+        }
+    }
+
+    private static final class Compilation {
+        final int exit;
+        final String output;
+
+        Compilation(int exit, String output) {
+            this.exit = exit;
+            this.output = output;
+        }
+    }
+
+    private Compilation compile(String... args) throws IOException {
+        List<String> javacArgs = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        javacArgs.addAll(Arrays.asList(args));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream err = new PrintStream(bytes, true, "UTF-8")) {
+            int exit = DivByZeroClient.check(socket, dir, javacArgs, err);
+            return new Compilation(exit, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Whether this platform can open a Unix domain socket, as the daemon does */
+    private static boolean unixDomainSockets() throws IOException {
+        try {
+            ServerSocketChannel.open(StandardProtocolFamily.UNIX).close();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.dividebyzero.DivByZeroLanguageServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@link DivByZeroLanguageServer}, driven over the Language Server Protocol by a stub
+ * client in this JVM.
+ *
+ * <p>The edits check that only the edited methods are checked again, that the diagnostics of the
+ * others are kept at their new positions, and that a change outside the method bodies, or to a
+ * file on the source path, checks every method. Malformed messages must get an error, not end the
+ * server.
+ */
+public class DivideByZeroLanguageServerTest {
+
+    private static final String URI = "file:///tmp/dbz/Edited.java";
+
+    /** Longest wait for a message from the server; the first check loads the checker */
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private static final Pattern CODE = Pattern.compile("\"code\": \"([\\w.]+)\"");
+    private static final Pattern START_LINE = Pattern.compile("\"range\": \\{\"start\": \\{\"line\": (\\d+)");
+    private static final Pattern CHECKED = Pattern.compile("Checked \\S+ in \\d+ ms: (\\d+) of (\\d+) methods");
+
+    private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    private ExecutorService threads;
+    private OutputStream toServer;
+    private Future<Integer> server;
+
+    /** Start the server with these javac options besides the classpath */
+    private void start(String... options) throws IOException {
+        List<String> javacOptions = new ArrayList<>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"), "-nowarn"));
+        javacOptions.addAll(Arrays.asList(options));
+        PipedInputStream serverIn = new PipedInputStream(1 << 16);
+        PipedInputStream clientIn = new PipedInputStream(1 << 16);
+        toServer = new PipedOutputStream(serverIn);
+        OutputStream fromServer = new PipedOutputStream(clientIn);
+        threads = Executors.newFixedThreadPool(2);
+        DivByZeroLanguageServer lsp = new DivByZeroLanguageServer(1, javacOptions);
+        server = threads.submit(() -> {
+            try {
+                return lsp.run(serverIn, fromServer);
+            } finally {
+                fromServer.close();
+            }
+        });
+        threads.submit(() -> {
+            try {
+                while (true) {
+                    messages.add(read(clientIn));
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void stop() {
+        if (threads != null) {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void editsRecheckOnlyChangedMethods() throws Exception {
+        start();
+        send("{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": \"initialize\", \"params\": {}}");
+        Assert.assertTrue(await("\"id\": 1").contains("\"textDocumentSync\""));
+
+        String text = String.join("\n",
+                "class Edited {",
+                "    int a(int x) { return x / 0; }",
+                "    int b(int x) { return x / 2; }",
+                "    int c(int x) { return x % 0; }",
+                "}",
+                "");
+        send(didOpen(text));
+        assertDiagnostics(Arrays.asList(1, 3));
+        assertChecked(3, 3);
+
+        // A longer b moves c, whose diagnostic is replayed rather than computed
+        send(didChange(2, text.replace("return x / 2;", "int y = 0;\n        return x / y;")));
+        assertDiagnostics(Arrays.asList(1, 3, 4));
+        assertChecked(1, 3);
+
+        // A new field changes the text outside the methods
+        send(didChange(3, text.replace("class Edited {", "class Edited {\n    int f;")));
+        assertDiagnostics(Arrays.asList(2, 4));
+        assertChecked(3, 3);
+
+        // The checker does not run on a file with javac errors
+        send(didChange(4, text.replace("return x / 2;", "return x / ;")));
+        String published = await("publishDiagnostics");
+        Assert.assertTrue(published, published.contains("\"source\": \"javac\""));
+        Assert.assertEquals(published, 0, all(CODE, published).size());
+
+        send("{\"jsonrpc\": \"2.0\", \"id\": 2, \"method\": \"textDocument/hover\", \"params\": {}}");
+        Assert.assertTrue(await("\"id\": 2").contains("-32601"));
+
+        send("{\"jsonrpc\": \"2.0\", \"id\": 3, \"method\": \"shutdown\"}");
+        Assert.assertTrue(await("\"id\": 3").contains("\"result\": null"));
+        send("{\"jsonrpc\": \"2.0\", \"method\": \"exit\"}");
+        Assert.assertEquals(Integer.valueOf(0), server.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sourcePathDependency() throws Exception {
+        Path sources = Files.createTempDirectory("dbz-lsp");
+        Path a = sources.resolve("A.java");
+        Files.write(a, Arrays.asList("class A {", "    static final int K = 10;", "}"));
+        start("-sourcepath", sources.toString());
+        send("{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": \"initialize\", \"params\": {}}");
+        await("\"id\": 1");
+
+        String text = String.join("\n",
+                "class Edited {",
+                "    int a(int x) { return x / A.K; }",
+                "    int b(int x) { return x / 2; }",
+                "}",
+                "");
+        send(didOpen(text));
+        assertDiagnostics(Collections.emptyList());
+        assertChecked(2, 2);
+
+        // A is read from the source path again
+        send(didChange(2, text.replace("x / 2", "x / 3")));
+        assertDiagnostics(Collections.emptyList());
+        assertChecked(1, 2);
+
+        // a depends on A, which is not part of the edited text
+        Files.write(a, Arrays.asList("class A {", "    static final int K = 0;", "}"));
+        send(didChange(3, text.replace("x / 2", "x / 4")));
+        assertDiagnostics(Arrays.asList(1));
+        assertChecked(2, 2);
+    }
+
+    @Test
+    public void malformedMessagesAreAnswered() throws Exception {
+        start();
+        send("{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": ");
+        Assert.assertTrue(await("\"error\"").contains("-32700"));
+        send("{\"jsonrpc\": \"2.0\", \"method\": \"textDocument/didOpen\","
+                + " \"params\": {\"textDocument\": {\"uri\": \"\\uzzzz\"}}}");
+        Assert.assertTrue(await("\"error\"").contains("-32700"));
+        send("{\"jsonrpc\": \"2.0\", \"id\": 2, \"method\": 7}");
+        Assert.assertTrue(await("\"error\"").contains("-32600"));
+        send("{\"jsonrpc\": \"2.0\", \"id\": 3, \"method\": \"textDocument/didOpen\","
+                + " \"params\": {\"textDocument\": {\"uri\": 5, \"text\": \"\"}}}");
+        Assert.assertTrue(await("\"id\": 3").contains("-32602"));
+        send("{\"jsonrpc\": \"2.0\", \"method\": \"textDocument/didOpen\", \"params\": {\"textDocument\":"
+                + " {\"uri\": \"" + URI + "\", \"version\": 1, \"text\": [\"class Edited {}\"]}}}");
+        Assert.assertTrue(await("Ignoring").contains("text must be a string"));
+
+        // The server is still serving
+        send("{\"jsonrpc\": \"2.0\", \"id\": 4, \"method\": \"initialize\", \"params\": {}}");
+        Assert.assertTrue(await("\"id\": 4").contains("\"textDocumentSync\""));
+        send("{\"jsonrpc\": \"2.0\", \"id\": 5, \"method\": \"shutdown\"}");
+        await("\"id\": 5");
+        send("{\"jsonrpc\": \"2.0\", \"method\": \"exit\"}");
+        Assert.assertEquals(Integer.valueOf(0), server.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void exitWithoutShutdownFails() throws Exception {
+        start();
+        send("{\"jsonrpc\": \"2.0\", \"method\": \"exit\"}");
+        Assert.assertEquals(Integer.valueOf(1), server.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /** Wait for the next diagnostics and compare the lines of the checker's, which must all be divide.by.zero */
+    private void assertDiagnostics(List<Integer> lines) throws InterruptedException {
+        String published = await("publishDiagnostics");
+        Assert.assertFalse(published, published.contains("\"source\": \"javac\""));
+        List<String> codes = all(CODE, published);
+        Assert.assertEquals(published, lines.size(), codes.size());
+        for (String code : codes) {
+            Assert.assertEquals(published, "divide.by.zero", code);
+        }
+        List<Integer> actual = new ArrayList<>();
+        for (String line : all(START_LINE, published)) {
+            actual.add(Integer.parseInt(line));
+        }
+        Assert.assertEquals(published, lines, actual);
+    }
+
+    private void assertChecked(int checked, int methods) throws InterruptedException {
+        String log = await("Checked ");
+        Matcher m = CHECKED.matcher(log);
+        Assert.assertTrue(log, m.find());
+        Assert.assertEquals(log, checked, Integer.parseInt(m.group(1)));
+        Assert.assertEquals(log, methods, Integer.parseInt(m.group(2)));
+    }
+
+    /** Returns the next message that contains the text, dropping the others */
+    private String await(String text) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (true) {
+            String message = messages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (message == null) {
+                Assert.fail("no message with " + text + " from the server");
+            }
+            if (message.contains(text)) {
+                return message;
+            }
+        }
+    }
+
+    private static List<String> all(Pattern pattern, String text) {
+        List<String> groups = new ArrayList<>();
+        Matcher m = pattern.matcher(text);
+        while (m.find()) {
+            groups.add(m.group(1));
+        }
+        return groups;
+    }
+
+    private static String didOpen(String text) {
+        return "{\"jsonrpc\": \"2.0\", \"method\": \"textDocument/didOpen\", \"params\": {\"textDocument\": {\"uri\": \""
+                + URI + "\", \"languageId\": \"java\", \"version\": 1, \"text\": \"" + escape(text) + "\"}}}";
+    }
+
+    private static String didChange(int version, String text) {
+        return "{\"jsonrpc\": \"2.0\", \"method\": \"textDocument/didChange\", \"params\": {\"textDocument\": {\"uri\": \""
+                + URI + "\", \"version\": " + version + "}, \"contentChanges\": [{\"text\": \"" + escape(text) + "\"}]}}";
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private void send(String json) throws IOException {
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        toServer.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        toServer.write(content);
+        toServer.flush();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        while (!header.toString("US-ASCII").endsWith("\r\n\r\n")) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("end of stream");
+            }
+            header.write(c);
+        }
+        Matcher m = Pattern.compile("Content-Length: (\\d+)").matcher(header.toString("US-ASCII"));
+        if (!m.find()) {
+            throw new IOException("no Content-Length in " + header);
+        }
+        byte[] content = new byte[Integer.parseInt(m.group(1))];
+        int read = 0;
+        while (read < content.length) {
+            int n = in.read(content, read, content.length - read);
+            if (n < 0) {
+                throw new IOException("end of stream");
+            }
+            read += n;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
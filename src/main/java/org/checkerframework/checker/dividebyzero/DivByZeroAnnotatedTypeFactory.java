@@ -1,124 +1,380 @@
-package org.checkerframework.checker.dividebyzero;
-
-import com.sun.source.tree.BinaryTree;
-import com.sun.source.tree.CompoundAssignmentTree;
-import com.sun.source.tree.LiteralTree;
-import com.sun.source.tree.Tree;
-import com.sun.source.tree.UnaryTree;
-import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
-import org.checkerframework.common.basetype.BaseTypeChecker;
-import org.checkerframework.framework.type.AnnotatedTypeFactory;
-import org.checkerframework.framework.type.AnnotatedTypeMirror;
-import org.checkerframework.framework.type.treeannotator.ListTreeAnnotator;
-import org.checkerframework.framework.type.treeannotator.TreeAnnotator;
-import org.checkerframework.javacutil.AnnotationBuilder;
-
-import javax.lang.model.element.AnnotationMirror;
-import java.lang.annotation.Annotation;
-
-import org.checkerframework.checker.dividebyzero.qual.*;
-
-public class DivByZeroAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
-
-    /**
-     * Compute the default annotation for the given literal.
-     *
-     * @param literal   the literal in the syntax tree to examine
-     * @return the most specific possible point in the lattice for the given literal
-     */
-    private Class<? extends Annotation> defaultAnnotation(LiteralTree literal) {
-
-        // Negative integers -> Negative.class
-        // Positive integers -> Positive.class
-        // Zero integers -> Zero.class
-
-        switch (literal.getKind()) {
-            case INT_LITERAL:
-                int intValue = (Integer) literal.getValue();
-
-                if (intValue < 0) return Negative.class;
-                if (intValue > 0) return Positive.class;
-                return Zero.class;
-            case LONG_LITERAL:
-                long longValue = (Long) literal.getValue();
-
-                if (longValue < 0) return Negative.class;
-                if (longValue > 0) return Positive.class;
-                return Zero.class;
-        }
-
-        // Otherwise, we know nothing about the variable
-        return Top.class;
-    }
-
-    // ========================================================================
-    // Checker Framework plumbing
-
-    public DivByZeroAnnotatedTypeFactory(BaseTypeChecker c) {
-        super(c);
-        postInit();
-    }
-
-    @Override
-    protected TreeAnnotator createTreeAnnotator() {
-        return new ListTreeAnnotator(
-            new DivByZeroTreeAnnotator(this),
-            super.createTreeAnnotator());
-    }
-
-    private class DivByZeroTreeAnnotator extends TreeAnnotator {
-
-        public DivByZeroTreeAnnotator(AnnotatedTypeFactory atypeFactory) {
-            super(atypeFactory);
-        }
-
-        @Override
-        public Void visitLiteral(LiteralTree tree, AnnotatedTypeMirror type) {
-            if (tree.getKind() == Tree.Kind.NULL_LITERAL) {
-                return super.visitLiteral(tree, type);
-            }
-            Class<? extends Annotation> c = defaultAnnotation(tree);
-            AnnotationMirror m = AnnotationBuilder.fromClass(getProcessingEnv().getElementUtils(), c);
-            type.replaceAnnotation(m);
-            return null;
-        }
-
-        // From Suzanne Millstein, 2017/05/08:
-        //
-        //  > The AnnotatedTypeFactory only applies types computed by dataflow
-        //  > if they are a subtype of the type it computed.  By default the
-        //  > type of a binary tree is the lub of the two operands.  (In your
-        //  > example, that means the the type of "1-1" as computed by the type
-        //  > factory is @NonZero which is not a super type of @Zero, so it is
-        //  > discarded.)
-        //
-        // The example she referenced is "int x = 1 / (1 - 1)".  So, to get the
-        // transfer rules to work properly for complex expressions like that
-        // one, we must override the "output-is-lub-of-operands" behavior. By
-        // default, everything should be Top.
-
-        private AnnotationMirror top() {
-            return getQualifierHierarchy().getTopAnnotations().iterator().next();
-        }
-
-        @Override
-        public Void visitBinary(BinaryTree node, AnnotatedTypeMirror type) {
-            type.replaceAnnotation(top());
-            return null;
-        }
-
-        @Override
-        public Void visitCompoundAssignment(CompoundAssignmentTree node, AnnotatedTypeMirror type) {
-            type.replaceAnnotation(top());
-            return null;
-        }
-
-        @Override
-        public Void visitUnary(UnaryTree node, AnnotatedTypeMirror type) {
-            type.replaceAnnotation(top());
-            return null;
-        }
-
-    }
-
-}
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeCastTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.tools.javac.code.Type;
+import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.framework.flow.CFAbstractAnalysis;
+import org.checkerframework.framework.flow.CFStore;
+import org.checkerframework.framework.flow.CFValue;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.type.treeannotator.ListTreeAnnotator;
+import org.checkerframework.framework.type.treeannotator.TreeAnnotator;
+import org.checkerframework.framework.util.defaults.QualifierDefaults;
+import org.checkerframework.javacutil.Pair;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+
+public class DivByZeroAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
+
+    /**
+     * Compute the default point for the given literal.
+     *
+     * @param literal   the literal in the syntax tree to examine
+     * @return the most specific possible point in the lattice for the given literal
+     */
+    static int pointOf(LiteralTree literal) {
+
+        // Negative integers -> Negative
+        // Positive integers -> Positive
+        // Zero integers -> Zero
+
+        switch (literal.getKind()) {
+            case INT_LITERAL:
+                return signOf((Integer) literal.getValue());
+            case LONG_LITERAL:
+                return signOf((Long) literal.getValue());
+        }
+
+        // Otherwise, we know nothing about the variable
+        return DivByZeroLattice.TOP;
+    }
+
+    /**
+     * Compute the point of a compile-time constant {@code int} or {@code long}
+     * expression, such as {@code SIZE * 4} or {@code (1 - 1)}, from the value
+     * javac folded it to.
+     *
+     * @return Negative, Zero or Positive, or -1 if the expression is not constant
+     */
+    static int constantPointOf(ExpressionTree tree) {
+        TypeMirror type = TreeUtils.typeOf(tree);
+        if (type == null || (type.getKind() != TypeKind.INT && type.getKind() != TypeKind.LONG)) {
+            return -1;
+        }
+        Object value = ((Type) type).constValue();
+        return value instanceof Number ? signOf(((Number) value).longValue()) : -1;
+    }
+
+    private static int signOf(long value) {
+        if (value < 0) return DivByZeroLattice.NEG;
+        if (value > 0) return DivByZeroLattice.POS;
+        return DivByZeroLattice.ZER;
+    }
+
+    // ========================================================================
+    // Checker Framework plumbing
+
+    /** Primitive lattice shared with the transfer functions */
+    private final DivByZeroLattice lattice;
+
+    /** Dataflow timings and lookup counters; records nothing unless -Adbz.metrics is given */
+    private final DivByZeroMetrics metrics;
+
+    /** Flight recorder events for the dataflow analysis of each class */
+    private final DivByZeroEvents events;
+
+    /** Decides which methods can skip dataflow, or null if -Adbz.noPrefilter is given */
+    private final DivByZeroPrefilter prefilter;
+
+    /** Persistent method return summaries, or null if -Adbz.summaries is not given */
+    private final DivByZeroSummaries summaries;
+
+    /** Cached qualifiers of the -Astubs files, or null if the Checker Framework loads them */
+    private final DivByZeroStubCache stubCache;
+
+    /** Methods not to check, such as those of other partitions, or null to check every method */
+    private final DivByZeroMethodFilter methodFilter;
+
+    public DivByZeroAnnotatedTypeFactory(BaseTypeChecker c) {
+        super(c);
+        lattice = new DivByZeroLattice(getProcessingEnv().getElementUtils());
+        metrics = ((DivByZeroChecker) c).getMetrics();
+        events = ((DivByZeroChecker) c).getEvents();
+        prefilter = c.hasOption(DivByZeroChecker.NO_PREFILTER_OPTION) ? null : new DivByZeroPrefilter(this);
+        summaries = ((DivByZeroChecker) c).getSummaries();
+        stubCache = ((DivByZeroChecker) c).getStubCache();
+        methodFilter = ((DivByZeroChecker) c).getMethodFilter();
+        postInit();
+        if (summaries != null) {
+            summaries.setTypeFactory(this);
+        }
+    }
+
+    /** Returns the primitive lattice, which owns the canonical mirror for each point */
+    DivByZeroLattice getLattice() {
+        return lattice;
+    }
+
+    /**
+     * Load the cached stub qualifiers before the Checker Framework prepares
+     * the JDK stubs. Otherwise, on a cache miss, every type the stub parser
+     * looks up would make the framework parse the JDK stub of its class. The
+     * types looked up meanwhile are not cached, since they lack the JDK stubs'
+     * annotations.
+     */
+    @Override
+    protected void parseAnnotationFiles() {
+        if (stubCache != null) {
+            long start = metrics.start();
+            boolean cached = shouldCache;
+            shouldCache = false;
+            try {
+                stubCache.load(this);
+            } catch (IOException e) {
+                checker.message(Diagnostic.Kind.WARNING,
+                        "Could not load or write " + DivByZeroChecker.STUB_CACHE_OPTION + " file: " + e.getMessage());
+            } finally {
+                shouldCache = cached;
+                metrics.time(DivByZeroMetrics.Counter.STUB_LOADS, start);
+            }
+        }
+        super.parseAnnotationFiles();
+    }
+
+    @Override
+    public AnnotatedTypeMirror fromElement(Element elt) {
+        AnnotatedTypeMirror type = super.fromElement(elt);
+        if (stubCache != null) {
+            stubCache.apply(elt, type, lattice);
+        }
+        return type;
+    }
+
+    @Override
+    protected void performFlowAnalysis(ClassTree classTree) {
+        DivByZeroEvents.Dataflow event = events.beginDataflow();
+        super.performFlowAnalysis(classTree);
+        events.endDataflow(event, root, classTree);
+    }
+
+    @Override
+    protected void analyze(
+            Queue<Pair<ClassTree, CFStore>> queue,
+            Queue<Pair<LambdaExpressionTree, CFStore>> lambdaQueue,
+            UnderlyingAST ast,
+            List<CFAbstractAnalysis.FieldInitialValue<CFValue>> fieldValues,
+            ClassTree currentClass,
+            boolean isInitializationCode,
+            boolean updateInitializationStore,
+            boolean isStatic,
+            CFStore capturedStore) {
+        MethodTree method = ast.getKind() == UnderlyingAST.Kind.METHOD
+                ? ((UnderlyingAST.CFGMethod) ast).getMethod()
+                : null;
+        if (method != null) {
+            if (methodFilter != null && methodFilter.skips(root, method)) {
+                // Another compilation analyzes and visits this method
+                return;
+            }
+            if (prefilter != null && !prefilter.needsFlow(method)
+                    && (summaries == null || !summaries.infers(method))) {
+                // Nothing in this method depends on refined types, so the
+                // diagnostics are the same without dataflow
+                metrics.count(DivByZeroMetrics.Counter.METHODS_SKIPPED);
+                return;
+            }
+            metrics.count(DivByZeroMetrics.Counter.METHODS_ANALYZED);
+        }
+        long start = metrics.start();
+        super.analyze(queue, lambdaQueue, ast, fieldValues, currentClass,
+                isInitializationCode, updateInitializationStore, isStatic, capturedStore);
+        metrics.dataflow(currentClass, method, start);
+    }
+
+    /**
+     * Use the summary of a method for the return type at a call site, unless
+     * the declaration or a stub file gives it a qualifier other than Top.
+     */
+    @Override
+    public void methodFromUsePreSubstitution(ExpressionTree tree, AnnotatedExecutableType type) {
+        super.methodFromUsePreSubstitution(tree, type);
+        if (summaries == null) {
+            return;
+        }
+        AnnotatedTypeMirror returnType = type.getReturnType();
+        if (lattice.find(returnType.getAnnotations()) == DivByZeroLattice.TOP) {
+            int point = summaries.pointOf(type.getElement());
+            if (point != DivByZeroLattice.TOP) {
+                returnType.replaceAnnotation(lattice.toMirror(point));
+            }
+        }
+    }
+
+    /** Nesting depth of getAnnotatedType, so that only outermost lookups are timed */
+    private int lookupDepth = 0;
+
+    @Override
+    public AnnotatedTypeMirror getAnnotatedType(Tree tree) {
+        if (lookupDepth > 0) {
+            metrics.count(DivByZeroMetrics.Counter.ANNOTATED_TYPE_LOOKUPS);
+            return super.getAnnotatedType(tree);
+        }
+        long start = metrics.start();
+        lookupDepth++;
+        try {
+            return super.getAnnotatedType(tree);
+        } finally {
+            lookupDepth--;
+            metrics.time(DivByZeroMetrics.Counter.ANNOTATED_TYPE_LOOKUPS, start);
+        }
+    }
+
+    /**
+     * Skip defaulting a primitive type that already has its qualifier, such
+     * as the type of every literal and arithmetic expression: defaults never
+     * replace a qualifier, and a primitive has no other types inside it. The
+     * Checker Framework would otherwise look up the tree's path to find the
+     * defaults in scope, and during dataflow that search starts at the
+     * enclosing class, so each lookup costs time proportional to the class.
+     */
+    @Override
+    protected QualifierDefaults createQualifierDefaults() {
+        return new QualifierDefaults(elements, this) {
+            @Override
+            public void annotate(Tree tree, AnnotatedTypeMirror type) {
+                if (type.getKind().isPrimitive() && !type.getAnnotations().isEmpty()) {
+                    return;
+                }
+                super.annotate(tree, type);
+            }
+        };
+    }
+
+    @Override
+    protected TreeAnnotator createTreeAnnotator() {
+        return new ListTreeAnnotator(
+            new DivByZeroTreeAnnotator(this),
+            super.createTreeAnnotator());
+    }
+
+    private class DivByZeroTreeAnnotator extends TreeAnnotator {
+
+        public DivByZeroTreeAnnotator(AnnotatedTypeFactory atypeFactory) {
+            super(atypeFactory);
+        }
+
+        @Override
+        public Void visitLiteral(LiteralTree tree, AnnotatedTypeMirror type) {
+            if (tree.getKind() == Tree.Kind.NULL_LITERAL) {
+                return super.visitLiteral(tree, type);
+            }
+            type.replaceAnnotation(lattice.toMirror(pointOf(tree)));
+            return null;
+        }
+
+        /** A constant variable, such as a {@code static final} field, has the point of its value */
+        @Override
+        public Void visitIdentifier(IdentifierTree node, AnnotatedTypeMirror type) {
+            return constant(node, type);
+        }
+
+        @Override
+        public Void visitMemberSelect(MemberSelectTree node, AnnotatedTypeMirror type) {
+            return constant(node, type);
+        }
+
+        /**
+         * A narrowing cast keeps only the low bits of its operand, so
+         * {@code (int) x} may be zero for a positive long {@code x}; unless
+         * javac folded it to a constant, it is Top.
+         */
+        @Override
+        public Void visitTypeCast(TypeCastTree node, AnnotatedTypeMirror type) {
+            if (constantPointOf(node) < 0 && isNarrowing(node)) {
+                type.replaceAnnotation(lattice.toMirror(DivByZeroLattice.TOP));
+                return null;
+            }
+            return constant(node, type);
+        }
+
+        private boolean isNarrowing(TypeCastTree node) {
+            TypeMirror target = TreeUtils.typeOf(node);
+            TypeMirror source = TreeUtils.typeOf(node.getExpression());
+            if (!target.getKind().isPrimitive() || target.getKind() == TypeKind.BOOLEAN) {
+                return false;
+            }
+            Types types = atypeFactory.getProcessingEnv().getTypeUtils();
+            if (!source.getKind().isPrimitive()) {
+                try {
+                    source = types.unboxedType(source);
+                } catch (IllegalArgumentException e) {
+                    // Not a boxed type, e.g. (int) anObject
+                    return false;
+                }
+            }
+            return !types.isAssignable(source, target);
+        }
+
+        private Void constant(ExpressionTree node, AnnotatedTypeMirror type) {
+            int point = constantPointOf(node);
+            if (point >= 0) {
+                type.replaceAnnotation(lattice.toMirror(point));
+            }
+            return null;
+        }
+
+        // From Suzanne Millstein, 2017/05/08:
+        //
+        //  > The AnnotatedTypeFactory only applies types computed by dataflow
+        //  > if they are a subtype of the type it computed.  By default the
+        //  > type of a binary tree is the lub of the two operands.  (In your
+        //  > example, that means the the type of "1-1" as computed by the type
+        //  > factory is @NonZero which is not a super type of @Zero, so it is
+        //  > discarded.)
+        //
+        // The example she referenced is "int x = 1 / (1 - 1)".  So, to get the
+        // transfer rules to work properly for complex expressions like that
+        // one, we must override the "output-is-lub-of-operands" behavior. By
+        // default, everything should be Top.
+        //
+        // Constant expressions are the exception: javac has already folded
+        // them, so they get the point of their value without dataflow.
+
+        private Void topUnlessConstant(ExpressionTree node, AnnotatedTypeMirror type) {
+            int point = constantPointOf(node);
+            type.replaceAnnotation(lattice.toMirror(point >= 0 ? point : DivByZeroLattice.TOP));
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(BinaryTree node, AnnotatedTypeMirror type) {
+            return topUnlessConstant(node, type);
+        }
+
+        @Override
+        public Void visitCompoundAssignment(CompoundAssignmentTree node, AnnotatedTypeMirror type) {
+            type.replaceAnnotation(lattice.toMirror(DivByZeroLattice.TOP));
+            return null;
+        }
+
+        @Override
+        public Void visitUnary(UnaryTree node, AnnotatedTypeMirror type) {
+            return topUnlessConstant(node, type);
+        }
+
+    }
+
+}
@@ -0,0 +1,288 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Baseline of known division diagnostics, enabled with
+ * {@code -Adbz.baseline=<file>}.
+ *
+ * <p>Each diagnostic has a fingerprint that survives line shifts and edits
+ * elsewhere in the file: the binary name of the enclosing class, the enclosing
+ * method's name and erased parameter types (or the field, or {@code {}} for
+ * an initializer block), the expression as printed by javac, and its
+ * occurrence index among identical expressions in that method. A diagnostic
+ * whose fingerprint is in the baseline is not reported.
+ *
+ * <p>The file has one entry per line: a 64-bit FNV-1a hash of the fingerprint
+ * in hex, a tab, then the fingerprint itself for reviewers. Entries are looked
+ * up by hash in a hash map, so filtering a diagnostic costs one hash of a
+ * short string however large the baseline is; the fingerprint of a hit is
+ * then compared too, so a hash collision never suppresses a diagnostic. A
+ * file whose hash does not match its fingerprint, such as one whose
+ * fingerprint was edited by hand, is rejected.
+ *
+ * <p>An entry is stale if its class was checked in this compilation and its
+ * diagnostic was not reported; stale entries are listed when type processing
+ * is over. With {@code -Adbz.baseline.write}, every division diagnostic is
+ * recorded instead of reported, and the file is rewritten with the entries
+ * found in this compilation plus those of classes that were not checked.
+ */
+final class DivByZeroBaseline {
+
+    private final Path file;
+    private final boolean write;
+    private final Elements elements;
+    private final Types types;
+
+    /** Fingerprints of the loaded entries, by hash */
+    private final Map<Long, String> baseline = new HashMap<>();
+
+    /** Hashes of loaded entries that matched a diagnostic in this compilation */
+    private final Set<Long> matched = new HashSet<>();
+
+    /** Entries found in this compilation, in write mode */
+    private final Map<Long, String> found = new HashMap<>();
+
+    /** Binary names of the classes checked in this compilation */
+    private final Set<String> checked = new HashSet<>();
+
+    /** Occurrences so far of each method and expression, within the current top-level class */
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
+    /** Fingerprints suppressed while the result cache records a class, or null if it does not */
+    private List<String> recording;
+
+    DivByZeroBaseline(Path file, boolean write, Elements elements, Types types) throws IOException {
+        this.file = file;
+        this.write = write;
+        this.elements = elements;
+        this.types = types;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                if (tab != 16) {
+                    throw new IOException(file + ": malformed entry: " + line);
+                }
+                long hash = Long.parseUnsignedLong(line.substring(0, tab), 16);
+                String fingerprint = line.substring(tab + 1);
+                if (hash != fnv1a(fingerprint)) {
+                    throw new IOException(file + ": entry hash does not match its fingerprint: " + line);
+                }
+                baseline.put(hash, fingerprint);
+            }
+        } catch (NoSuchFileException e) {
+            if (!write) {
+                throw e;
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(file + ": malformed entry hash", e);
+        }
+    }
+
+    /** Start checking a class; its entries can now become stale */
+    void checking(ClassTree cls) {
+        TypeElement element = TreeUtils.elementFromDeclaration(cls);
+        if (element != null) {
+            checked.add(elements.getBinaryName(element).toString());
+        }
+    }
+
+    /**
+     * Mark a top-level class whose diagnostics were replayed from the result
+     * cache as checked, with the fingerprints it suppressed when it was
+     * checked, so its entries are matched or recorded as before.
+     */
+    void replayed(ClassTree cls, List<String> fingerprints) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitClass(ClassTree node, Void p) {
+                checking(node);
+                return super.visitClass(node, p);
+            }
+        }.scan(cls, null);
+        for (String fingerprint : fingerprints) {
+            suppress(fingerprint);
+        }
+    }
+
+    /** Add the fingerprints suppressed from now on to the list, or stop if it is null */
+    void record(List<String> fingerprints) {
+        recording = fingerprints;
+    }
+
+    /** Forget occurrence counts once a top-level class is done */
+    void classDone() {
+        occurrences.clear();
+    }
+
+    /**
+     * Returns true if the diagnostic at the leaf of the path is in the
+     * baseline, or is being recorded in write mode, and must not be reported.
+     */
+    boolean suppress(TreePath path) {
+        String site = siteOf(path, elements, types);
+        // Block lambdas print over several lines
+        String expression = path.getLeaf().toString().replaceAll("\\s+", " ");
+        String key = site + ' ' + expression;
+        int occurrence = occurrences.merge(key, 1, Integer::sum) - 1;
+        return suppress(key + " #" + occurrence);
+    }
+
+    private boolean suppress(String fingerprint) {
+        long hash = fnv1a(fingerprint);
+        if (write) {
+            found.put(hash, fingerprint);
+        } else if (fingerprint.equals(baseline.get(hash))) {
+            matched.add(hash);
+        } else {
+            return false;
+        }
+        if (recording != null) {
+            recording.add(fingerprint);
+        }
+        return true;
+    }
+
+    /**
+     * Class and member the leaf of the path is in: the binary name of the
+     * class, {@code #}, and the method name and erased parameter types, the
+     * field name, or {@code {}} for an initializer block
+     */
+    static String siteOf(TreePath path, Elements elements, Types types) {
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            Tree leaf = p.getLeaf();
+            if (leaf instanceof MethodTree) {
+                ExecutableElement method = TreeUtils.elementFromDeclaration((MethodTree) leaf);
+                StringBuilder sb = new StringBuilder(classOf(p.getParentPath(), elements))
+                        .append('#').append(method.getSimpleName()).append('(');
+                for (int i = 0; i < method.getParameters().size(); i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(types.erasure(method.getParameters().get(i).asType()));
+                }
+                return sb.append(')').toString();
+            }
+            if (leaf instanceof VariableTree && p.getParentPath().getLeaf() instanceof ClassTree) {
+                VariableElement field = TreeUtils.elementFromDeclaration((VariableTree) leaf);
+                return classOf(p.getParentPath(), elements) + '#' + field.getSimpleName();
+            }
+            if (leaf instanceof ClassTree) {
+                return classOf(p, elements) + "#{}";
+            }
+        }
+        return "#{}";
+    }
+
+    private static String classOf(TreePath path, Elements elements) {
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            if (p.getLeaf() instanceof ClassTree) {
+                TypeElement element = TreeUtils.elementFromDeclaration((ClassTree) p.getLeaf());
+                return element == null ? "" : elements.getBinaryName(element).toString();
+            }
+        }
+        return "";
+    }
+
+    /** Returns the class part of a fingerprint */
+    private static String classOf(String fingerprint) {
+        int hash = fingerprint.indexOf('#');
+        return hash < 0 ? "" : fingerprint.substring(0, hash);
+    }
+
+    /** 64-bit FNV-1a hash of the UTF-16 code units of a string */
+    static long fnv1a(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // ========================================================================
+    // End of compilation
+
+    /** Returns the fingerprints of loaded entries of checked classes that no diagnostic matched */
+    List<String> stale() {
+        List<String> stale = new ArrayList<>();
+        if (write) {
+            return stale;
+        }
+        for (Map.Entry<Long, String> entry : baseline.entrySet()) {
+            if (!matched.contains(entry.getKey()) && checked.contains(classOf(entry.getValue()))) {
+                stale.add(entry.getValue());
+            }
+        }
+        stale.sort(null);
+        return stale;
+    }
+
+    /** In write mode, rewrite the file, atomically replacing it */
+    void writeIfRequested() throws IOException {
+        if (!write) {
+            return;
+        }
+        Map<String, Long> entries = new TreeMap<>();
+        for (Map.Entry<Long, String> entry : baseline.entrySet()) {
+            if (!checked.contains(classOf(entry.getValue()))) {
+                entries.put(entry.getValue(), entry.getKey());
+            }
+        }
+        for (Map.Entry<Long, String> entry : found.entrySet()) {
+            entries.put(entry.getValue(), entry.getKey());
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                    out.write(String.format("%016x", entry.getValue()));
+                    out.write('\t');
+                    out.write(entry.getKey());
+                    out.write('\n');
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.checkerframework.checker.dividebyzero;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the Divide By Zero Checker on in-memory sources, for services and
+ * tests that would otherwise write files and start a compiler per check.
+ *
+ * <pre>
+ * List&lt;DivByZeroCheck.Result&gt; results = DivByZeroCheck.check(
+ *         Collections.singletonMap("Foo.java", "class Foo { int f(int x) { return 1 / x; } }"),
+ *         new DivByZeroCheck.Options().stubs("stubs/"));
+ * </pre>
+ *
+ * <p>Sources are keyed by their path relative to a source root, e.g.
+ * {@code "com/example/Foo.java"}. Nothing is read from or written to disk
+ * except the classpath: class files are discarded as they are generated.
+ *
+ * <p>An instance keeps its file manager, which holds the opened classpath jars
+ * and the listings of their packages, so later checks do not open and list
+ * them again. Every check still runs in a new compiler, which reads and enters
+ * the classes it uses from scratch. Instances are not thread-safe; the static
+ * {@link #check(Map, Options)} uses one instance per thread. On JDK 9 and later, the JVM needs the same
+ * {@code --add-exports} of {@code jdk.compiler} packages as any in-process use
+ * of the Checker Framework.
+ */
+public final class DivByZeroCheck {
+
+    /** Compiler and checker options for a check */
+    public static final class Options {
+        private final List<String> javacOptions = new ArrayList<>();
+        private String classpath = System.getProperty("java.class.path");
+        private int partitions = 1;
+
+        /** Read stub files from the given files or directories, separated by the path separator */
+        public Options stubs(String stubs) {
+            return checkerOption("stubs", stubs);
+        }
+
+        /** Compile against this classpath instead of the classpath of the running JVM */
+        public Options classpath(String classpath) {
+            this.classpath = classpath;
+            return this;
+        }
+
+        /** Pass {@code -Akey=value} to the checker, e.g. {@code checkerOption(DivByZeroChecker.SUMMARIES_OPTION, file)} */
+        public Options checkerOption(String key, String value) {
+            javacOptions.add(value == null ? "-A" + key : "-A" + key + "=" + value);
+            return this;
+        }
+
+        /**
+         * Split the methods of each source between this many compilations,
+         * which {@link DivByZeroCheck#check(Map, Options)} runs concurrently
+         * (default 1). Each compilation parses and attributes every source,
+         * so this pays off for sources with many methods, such as generated
+         * classes, and costs that many times the memory.
+         */
+        public Options partitions(int partitions) {
+            if (partitions < 1) {
+                throw new IllegalArgumentException("partitions must be at least 1, not " + partitions);
+            }
+            this.partitions = partitions;
+            return this;
+        }
+
+        /** Pass an option to javac, e.g. {@code "-source", "8"} */
+        public Options javacOption(String... option) {
+            Collections.addAll(javacOptions, option);
+            return this;
+        }
+
+        List<String> toList() {
+            List<String> options = new ArrayList<>(javacOptions);
+            if (classpath != null) {
+                options.add("-classpath");
+                options.add(classpath);
+            }
+            return options;
+        }
+    }
+
+    /** One diagnostic from the compiler or the checker */
+    public static final class Result {
+        /** Error, warning, or note */
+        public final Diagnostic.Kind kind;
+        /** Key of the source in the map passed to check, or null if the diagnostic has no source */
+        public final String source;
+        /** 1-based line and column, or -1 if the diagnostic has no position */
+        public final long line;
+        public final long column;
+        /** Character offsets of the reported tree in the source, or -1 */
+        public final long startPosition;
+        public final long endPosition;
+        /** Checker message key such as "divide.by.zero", or null for javac's own diagnostics */
+        public final String messageKey;
+        /** Message text, without the message key */
+        public final String message;
+
+        Result(Diagnostic.Kind kind, String source, long line, long column,
+               long startPosition, long endPosition, String messageKey, String message) {
+            this.kind = kind;
+            this.source = source;
+            this.line = line;
+            this.column = column;
+            this.startPosition = startPosition;
+            this.endPosition = endPosition;
+            this.messageKey = messageKey;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return source + ":" + line + ":" + column + ": " + kind.toString().toLowerCase(Locale.ROOT)
+                    + ": " + (messageKey == null ? "" : "[" + messageKey + "] ") + message;
+        }
+    }
+
+    /** Checker diagnostics start with their message key in brackets */
+    private static final Pattern MESSAGE_KEY = Pattern.compile("\\[([\\w.]+)\\] (.*)", Pattern.DOTALL);
+
+    /** Order of the merged diagnostics of several partitions: by source, then position */
+    private static final Comparator<Result> SOURCE_ORDER = Comparator
+            .comparing((Result r) -> r.source, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingLong(r -> r.startPosition)
+            .thenComparingLong(r -> r.endPosition)
+            .thenComparingLong(r -> r.line)
+            .thenComparingLong(r -> r.column)
+            .thenComparing(r -> r.kind)
+            .thenComparing(r -> r.messageKey, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(r -> r.message);
+
+    private static final ThreadLocal<DivByZeroCheck> PER_THREAD = ThreadLocal.withInitial(DivByZeroCheck::new);
+
+    /** Runs the partitions of checks; bounded by the number of cores, however many checks run at once */
+    private static final class Pool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Check sources with this thread's instance or, if the options ask for
+     * several partitions, with the instances of a shared pool's threads. The diagnostics of several partitions are de-duplicated and
+     * sorted by source and position, so they do not depend on scheduling.
+     */
+    public static List<Result> check(Map<String, String> sources, Options options) {
+        if (options.partitions == 1) {
+            return PER_THREAD.get().run(sources, options.toList());
+        }
+        List<Callable<List<Result>>> tasks = new ArrayList<>();
+        for (int i = 0; i < options.partitions; i++) {
+            List<String> partition = options.toList();
+            partition.add("-A" + DivByZeroChecker.PARTITION_OPTION + "=" + i + "/" + options.partitions);
+            tasks.add(() -> PER_THREAD.get().run(sources, partition));
+        }
+        TreeSet<Result> merged = new TreeSet<>(SOURCE_ORDER);
+        try {
+            for (Future<List<Result>> results : Pool.INSTANCE.invokeAll(tasks)) {
+                merged.addAll(results.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while checking", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return new ArrayList<>(merged);
+    }
+
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager fileManager;
+
+    public DivByZeroCheck() {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("no system Java compiler; run on a JDK rather than a JRE");
+        }
+        fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check sources with this instance, in one compilation whatever
+     * {@link Options#partitions} says.
+     *
+     * @param sources source text by path, e.g. {@code "com/example/Foo.java"}
+     * @return every diagnostic, in the order javac reported them
+     */
+    public List<Result> run(Map<String, String> sources, Options options) {
+        return run(sources, options.toList());
+    }
+
+    private List<Result> run(Map<String, String> sources, List<String> options) {
+        Map<JavaFileObject, String> files = new LinkedHashMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            files.put(new Source(source.getKey(), source.getValue()), source.getKey());
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        // A new compiler context for every check; only the file manager is shared
+        JavaCompiler.CompilationTask task = compiler.getTask(null, new NoOutput(fileManager), diagnostics,
+                options, null, files.keySet());
+        task.setProcessors(Collections.singletonList(new DivByZeroChecker()));
+        task.call();
+
+        List<Result> results = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            String message = d.getMessage(null);
+            String key = null;
+            Matcher m = MESSAGE_KEY.matcher(message);
+            if (m.matches()) {
+                key = m.group(1);
+                message = m.group(2);
+            }
+            results.add(new Result(d.getKind(), d.getSource() == null ? null : files.get(d.getSource()),
+                    d.getLineNumber() == Diagnostic.NOPOS ? -1 : d.getLineNumber(),
+                    d.getColumnNumber() == Diagnostic.NOPOS ? -1 : d.getColumnNumber(),
+                    d.getStartPosition() == Diagnostic.NOPOS ? -1 : d.getStartPosition(),
+                    d.getEndPosition() == Diagnostic.NOPOS ? -1 : d.getEndPosition(),
+                    key, message));
+        }
+        return results;
+    }
+
+    /** A source file held in memory */
+    private static final class Source extends SimpleJavaFileObject {
+        private final String text;
+
+        Source(String path, String text) {
+            super(URI.create("mem:///" + path.replace('\\', '/')), Kind.SOURCE);
+            this.text = text;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return text;
+        }
+    }
+
+    /** Discards every class file and other output of the compilation */
+    private static final class NoOutput extends ForwardingJavaFileManager<JavaFileManager> {
+
+        NoOutput(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///out/" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new OutputStream() {
+                        @Override
+                        public void write(int b) {
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public FileObject getFileForOutput(Location location, String packageName,
+                                           String relativeName, FileObject sibling) {
+            return getJavaFileForOutput(location, packageName + "." + relativeName, JavaFileObject.Kind.OTHER, sibling);
+        }
+    }
+}
@@ -1,8 +1,467 @@
 package org.checkerframework.checker.dividebyzero;
 
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.framework.qual.RelevantJavaTypes;
 
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @RelevantJavaTypes({Integer.class, Long.class})
+@SupportedOptions({
+    DivByZeroChecker.METRICS_OPTION,
+    DivByZeroChecker.METRICS_TOP_OPTION,
+    DivByZeroChecker.CACHE_OPTION,
+    DivByZeroChecker.NO_PREFILTER_OPTION,
+    DivByZeroChecker.SUMMARIES_OPTION,
+    DivByZeroChecker.REPORT_OPTION,
+    DivByZeroChecker.REPORT_FORMAT_OPTION,
+    DivByZeroChecker.REPORT_QUIET_OPTION,
+    DivByZeroChecker.BASELINE_OPTION,
+    DivByZeroChecker.BASELINE_WRITE_OPTION,
+    DivByZeroChecker.LOW_MEMORY_OPTION,
+    DivByZeroChecker.INDEX_OPTION,
+    DivByZeroChecker.STUB_CACHE_OPTION,
+    DivByZeroChecker.PARTITION_OPTION})
 public class DivByZeroChecker extends BaseTypeChecker {
+
+    /** Write phase timings and counters as JSON to the given file */
+    public static final String METRICS_OPTION = "dbz.metrics";
+
+    /** Number of slowest methods and classes to include in the metrics (default 10) */
+    public static final String METRICS_TOP_OPTION = "dbz.metrics.top";
+
+    /** Replay diagnostics of unchanged classes from the given cache directory */
+    public static final String CACHE_OPTION = "dbz.cache";
+
+    /** Run dataflow on every method, even those that cannot affect any diagnostic */
+    public static final String NO_PREFILTER_OPTION = "dbz.noPrefilter";
+
+    /** Load, apply and update method return summaries in the given file */
+    public static final String SUMMARIES_OPTION = "dbz.summaries";
+
+    /** Stream every division diagnostic to the given file */
+    public static final String REPORT_OPTION = "dbz.report";
+
+    /** Format of the report: ndjson or sarif (default: sarif for *.sarif files, otherwise ndjson) */
+    public static final String REPORT_FORMAT_OPTION = "dbz.report.format";
+
+    /** Write division diagnostics only to the report, not through the compiler */
+    public static final String REPORT_QUIET_OPTION = "dbz.report.quiet";
+
+    /** Do not report division diagnostics listed in the given baseline file */
+    public static final String BASELINE_OPTION = "dbz.baseline";
+
+    /** Record every division diagnostic in the baseline file instead of reporting it */
+    public static final String BASELINE_WRITE_OPTION = "dbz.baseline.write";
+
+    /** Drop the flow results and type caches of each top-level class once it is checked */
+    public static final String LOW_MEMORY_OPTION = "dbz.lowMemory";
+
+    /** Record every integer division, reported or not, in the given index file */
+    public static final String INDEX_OPTION = "dbz.index";
+
+    /** Load the -Astubs files through a cache of their qualifiers in the given directory */
+    public static final String STUB_CACHE_OPTION = "dbz.stubCache";
+
+    /** Check only partition i of n of the methods of each compilation unit, given as i/n */
+    public static final String PARTITION_OPTION = "dbz.partition";
+
+    /** Options that read or write state of the whole compilation, so cannot be split into partitions */
+    private static final String[] WHOLE_COMPILATION_OPTIONS = {
+        METRICS_OPTION, CACHE_OPTION, SUMMARIES_OPTION, REPORT_OPTION, BASELINE_OPTION, INDEX_OPTION};
+
+    /** Number of stale baseline entries listed at the end of the compilation */
+    private static final int STALE_LISTED = 20;
+
+    private DivByZeroMetrics metrics;
+
+    private DivByZeroEvents events;
+
+    /** Result cache, or null if -Adbz.cache is not given or the cache is unusable */
+    private DivByZeroResultCache cache;
+
+    private boolean cacheInitialized = false;
+
+    /** Method summaries, or null if -Adbz.summaries is not given or the file is unusable */
+    private DivByZeroSummaries summaries;
+
+    private boolean summariesInitialized = false;
+
+    /** Streaming report, or null if -Adbz.report is not given or the file is unusable */
+    private DivByZeroReport report;
+
+    private boolean reportInitialized = false;
+
+    /** Baseline of known diagnostics, or null if -Adbz.baseline is not given or the file is unusable */
+    private DivByZeroBaseline baseline;
+
+    private boolean baselineInitialized = false;
+
+    /** Division-site index, or null if -Adbz.index is not given or the file is unusable */
+    private DivByZeroIndex index;
+
+    private boolean indexInitialized = false;
+
+    /** Stub cache, or null if -Adbz.stubCache or -Astubs is not given or the stubs are uncacheable */
+    private DivByZeroStubCache stubCache;
+
+    /** Methods not to check, or null to check every method */
+    private DivByZeroMethodFilter methodFilter;
+
+    private boolean methodFilterInitialized = false;
+
+    /** Point of the denominator of the division being reported, or -1 */
+    private int reportingDenominator = -1;
+
+    /** Diagnostics reported for the class being checked, or null if not recording */
+    private List<DivByZeroResultCache.Entry> recorded;
+
+    /** Returns the metrics for this compilation, which record nothing unless enabled */
+    DivByZeroMetrics getMetrics() {
+        if (metrics == null) {
+            String file = getOption(METRICS_OPTION);
+            metrics = file == null ? DivByZeroMetrics.DISABLED : new DivByZeroMetrics(file, getMetricsTop());
+        }
+        return metrics;
+    }
+
+    /** Returns the number of slowest methods and classes to list in the metrics */
+    private int getMetricsTop() {
+        String value = getOption(METRICS_TOP_OPTION, "10");
+        try {
+            int top = Integer.parseInt(value.trim());
+            if (top >= 0) {
+                return top;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        message(Diagnostic.Kind.WARNING, "Ignoring " + METRICS_TOP_OPTION + ": not a non-negative number: " + value);
+        return 10;
+    }
+
+    /** Returns the flight recorder events, which cost next to nothing unless a recording enables them */
+    DivByZeroEvents getEvents() {
+        if (events == null) {
+            events = DivByZeroEvents.create(processingEnv);
+        }
+        return events;
+    }
+
+    private DivByZeroResultCache getResultCache() {
+        if (!cacheInitialized) {
+            cacheInitialized = true;
+            String dir = getOption(CACHE_OPTION);
+            if (dir != null) {
+                try {
+                    cache = new DivByZeroResultCache(Paths.get(dir), this, processingEnv);
+                } catch (IOException e) {
+                    message(Diagnostic.Kind.WARNING, "Ignoring " + CACHE_OPTION + ": " + e.getMessage());
+                }
+            }
+        }
+        return cache;
+    }
+
+    /** Returns the method summaries, or null if they are not enabled */
+    DivByZeroSummaries getSummaries() {
+        if (!summariesInitialized) {
+            summariesInitialized = true;
+            String file = getOption(SUMMARIES_OPTION);
+            if (file != null) {
+                try {
+                    summaries = new DivByZeroSummaries(Paths.get(file), processingEnv);
+                } catch (IOException e) {
+                    message(Diagnostic.Kind.WARNING, "Ignoring " + SUMMARIES_OPTION + ": " + e.getMessage());
+                }
+            }
+        }
+        return summaries;
+    }
+
+    private DivByZeroReport getReport() {
+        if (!reportInitialized) {
+            reportInitialized = true;
+            String file = getOption(REPORT_OPTION);
+            if (file != null) {
+                try {
+                    report = new DivByZeroReport(Paths.get(file),
+                            DivByZeroReport.formatOf(getOption(REPORT_FORMAT_OPTION), file), processingEnv);
+                } catch (IOException | IllegalArgumentException e) {
+                    message(Diagnostic.Kind.WARNING, "Ignoring " + REPORT_OPTION + ": " + e.getMessage());
+                }
+            }
+        }
+        return report;
+    }
+
+    /** Returns the baseline of known diagnostics, or null if there is none */
+    DivByZeroBaseline getBaseline() {
+        if (!baselineInitialized) {
+            baselineInitialized = true;
+            String file = getOption(BASELINE_OPTION);
+            if (file != null) {
+                try {
+                    baseline = new DivByZeroBaseline(Paths.get(file), hasOption(BASELINE_WRITE_OPTION),
+                            processingEnv.getElementUtils(), processingEnv.getTypeUtils());
+                } catch (IOException e) {
+                    message(Diagnostic.Kind.WARNING, "Ignoring " + BASELINE_OPTION + ": " + e.getMessage());
+                }
+            }
+        }
+        return baseline;
+    }
+
+    /** Returns the division-site index, or null if it is not enabled */
+    DivByZeroIndex getIndex() {
+        if (!indexInitialized) {
+            indexInitialized = true;
+            String file = getOption(INDEX_OPTION);
+            if (file != null) {
+                try {
+                    index = new DivByZeroIndex(Paths.get(file), processingEnv);
+                } catch (IOException e) {
+                    message(Diagnostic.Kind.WARNING, "Ignoring " + INDEX_OPTION + ": " + e.getMessage());
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Check only the methods the filter does not skip, instead of the
+     * partition given by -Adbz.partition. Must be called before the checker
+     * is initialized.
+     */
+    void setMethodFilter(DivByZeroMethodFilter filter) {
+        methodFilter = filter;
+        methodFilterInitialized = true;
+    }
+
+    /** Returns the filter of the methods not to check, or null if every method is checked */
+    DivByZeroMethodFilter getMethodFilter() {
+        if (!methodFilterInitialized) {
+            methodFilterInitialized = true;
+            String value = getOption(PARTITION_OPTION);
+            if (value != null) {
+                try {
+                    for (String option : WHOLE_COMPILATION_OPTIONS) {
+                        if (hasOption(option)) {
+                            throw new IllegalArgumentException("cannot be combined with -A" + option);
+                        }
+                    }
+                    methodFilter = new DivByZeroPartition(value, Trees.instance(processingEnv).getSourcePositions());
+                } catch (IllegalArgumentException e) {
+                    message(Diagnostic.Kind.WARNING, "Ignoring " + PARTITION_OPTION + ": " + e.getMessage());
+                }
+            }
+        }
+        return methodFilter;
+    }
+
+    /** Returns the stub cache, or null if the Checker Framework loads the stub files */
+    DivByZeroStubCache getStubCache() {
+        return stubCache;
+    }
+
+    /**
+     * Take the -Astubs files over from the Checker Framework if -Adbz.stubCache
+     * is given, before the type factory is created and parses them.
+     */
+    @Override
+    public void initChecker() {
+        String dir = getOption(STUB_CACHE_OPTION);
+        String stubs = getOption("stubs");
+        if (dir != null && stubs != null) {
+            try {
+                stubCache = new DivByZeroStubCache(Paths.get(dir), stubs, processingEnv);
+                // Re-read the active options through getOptions, which now
+                // leaves the stubs out
+                addOptions(Collections.emptyMap());
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Ignoring " + STUB_CACHE_OPTION + ": " + e.getMessage());
+            }
+        }
+        super.initChecker();
+    }
+
+    @Override
+    public Map<String, String> getOptions() {
+        Map<String, String> options = super.getOptions();
+        if (stubCache != null && options.containsKey("stubs")) {
+            options = new HashMap<>(options);
+            options.remove("stubs");
+        }
+        return options;
+    }
+
+    /** Report a possible division by zero, given the point of its denominator */
+    void reportDivision(Tree node, int denominator) {
+        reportingDenominator = denominator;
+        try {
+            reportError(node, "divide.by.zero");
+        } finally {
+            reportingDenominator = -1;
+        }
+    }
+
+    @Override
+    public void typeProcess(TypeElement e, TreePath p) {
+        try {
+            checkClass(e, p);
+        } finally {
+            if (hasOption(LOW_MEMORY_OPTION) && currentRoot != null) {
+                // Resetting the root clears the type factory's flow results,
+                // exit and return stores, and tree caches; the Checker
+                // Framework otherwise keeps them until the next compilation
+                // unit, so a large file holds the state of all its classes
+                setRoot(currentRoot);
+            }
+        }
+    }
+
+    private void checkClass(TypeElement e, TreePath p) {
+        DivByZeroResultCache cache = getResultCache();
+        if (cache == null || !(p.getLeaf() instanceof ClassTree)) {
+            super.typeProcess(e, p);
+            return;
+        }
+
+        CompilationUnitTree root = p.getCompilationUnit();
+        String key = cache.key(root, (ClassTree) p.getLeaf());
+        if (key != null) {
+            DivByZeroResultCache.Stored stored = cache.load(key);
+            List<DivByZeroResultCache.Entry> entries = stored == null ? null : stored.entries;
+            List<Tree> trees = entries == null ? null : cache.locate(root, p.getLeaf(), entries);
+            if (trees != null) {
+                getMetrics().count(DivByZeroMetrics.Counter.CACHE_HITS);
+                currentRoot = root;
+                if (getIndex() != null) {
+                    index.replayed(root, e);
+                }
+                if (getBaseline() != null) {
+                    baseline.replayed((ClassTree) p.getLeaf(), stored.baselined);
+                }
+                for (int i = 0; i < entries.size(); i++) {
+                    DivByZeroResultCache.Entry entry = entries.get(i);
+                    emit(entry.kind, entry.message, trees.get(i), root, entry.denominator);
+                }
+                return;
+            }
+        }
+
+        getMetrics().count(DivByZeroMetrics.Counter.CACHE_MISSES);
+        recorded = key == null ? null : new ArrayList<>();
+        List<String> baselined = new ArrayList<>();
+        if (recorded != null && getBaseline() != null) {
+            baseline.record(baselined);
+        }
+        try {
+            super.typeProcess(e, p);
+            if (recorded != null) {
+                cache.store(key, recorded, baselined);
+            }
+        } catch (IOException ex) {
+            message(Diagnostic.Kind.WARNING, "Could not write " + CACHE_OPTION + " entry: " + ex.getMessage());
+        } finally {
+            recorded = null;
+            if (baseline != null) {
+                baseline.record(null);
+            }
+        }
+    }
+
+    @Override
+    protected void printOrStoreMessage(Diagnostic.Kind kind, String message, Tree source, CompilationUnitTree root) {
+        if (recorded != null) {
+            if (source == null || root != currentRoot) {
+                // Cannot be located again on replay, so the class is uncacheable
+                recorded = null;
+            } else {
+                recorded.add(new DivByZeroResultCache.Entry(
+                        kind, cache.positionOf(root, source), source.getKind(), reportingDenominator, message));
+            }
+        }
+        emit(kind, message, source, root, reportingDenominator);
+    }
+
+    /**
+     * Record a flight recorder event for every diagnostic, add a division
+     * diagnostic to the report, and pass every diagnostic on to the compiler
+     * unless -Adbz.report.quiet is given.
+     */
+    private void emit(Diagnostic.Kind kind, String message, Tree source, CompilationUnitTree root, int denominator) {
+        getEvents().diagnostic(kind, message, source, root, denominator);
+        if (denominator >= 0 && getReport() != null) {
+            report.add(root, source, denominator, message);
+            if (hasOption(REPORT_QUIET_OPTION)) {
+                return;
+            }
+        }
+        super.printOrStoreMessage(kind, message, source, root);
+    }
+
+    @Override
+    public void typeProcessingOver() {
+        try {
+            getMetrics().write();
+        } catch (IOException e) {
+            message(Diagnostic.Kind.WARNING, "Could not write " + METRICS_OPTION + " file: " + e.getMessage());
+        }
+        if (getReport() != null) {
+            try {
+                report.close();
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Could not write " + REPORT_OPTION + " file: " + e.getMessage());
+            }
+        }
+        if (getBaseline() != null) {
+            List<String> stale = baseline.stale();
+            if (!stale.isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(stale.size()).append(" stale ").append(BASELINE_OPTION)
+                        .append(" entries; refresh the baseline with -A").append(BASELINE_WRITE_OPTION);
+                for (String fingerprint : stale.subList(0, Math.min(stale.size(), STALE_LISTED))) {
+                    sb.append("\n  ").append(fingerprint);
+                }
+                if (stale.size() > STALE_LISTED) {
+                    sb.append("\n  ...");
+                }
+                message(Diagnostic.Kind.WARNING, sb.toString());
+            }
+            try {
+                baseline.writeIfRequested();
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Could not write " + BASELINE_OPTION + " file: " + e.getMessage());
+            }
+        }
+        if (getSummaries() != null) {
+            try {
+                summaries.write();
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Could not write " + SUMMARIES_OPTION + " file: " + e.getMessage());
+            }
+        }
+        if (getIndex() != null) {
+            try {
+                index.write();
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Could not write " + INDEX_OPTION + " file: " + e.getMessage());
+            }
+        }
+        super.typeProcessingOver();
+    }
 }
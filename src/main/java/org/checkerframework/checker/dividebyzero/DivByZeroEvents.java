@@ -0,0 +1,233 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.tools.Diagnostic;
+
+/**
+ * JDK Flight Recorder events for the checker's dataflow analysis, visitor
+ * pass and diagnostics.
+ *
+ * <p>Every event is disabled unless a recording enables it, e.g. with
+ * {@code -XX:StartFlightRecording:+org.checkerframework.dividebyzero.Dataflow#enabled=true}
+ * on JDK 17 or a {@code .jfc} settings file. Until the flight recorder has
+ * been started, no event object is created, since loading the first event
+ * class initializes the recorder (several hundred milliseconds); after that,
+ * a disabled event costs one allocation that the JIT usually removes.
+ * Dataflow and visitor events are only committed above their threshold
+ * (10 ms by default), and at most {@link #DIAGNOSTICS_PER_SECOND} diagnostic
+ * events are committed per second; the next committed event counts the ones
+ * dropped in between.
+ *
+ * <p>On a JVM without the {@code jdk.jfr} module, {@link #create} returns
+ * {@link #DISABLED}, which never touches the event classes.
+ */
+final class DivByZeroEvents {
+
+    static final String PREFIX = "org.checkerframework.dividebyzero.";
+
+    /** Diagnostic events committed per second, at most */
+    static final int DIAGNOSTICS_PER_SECOND = 100;
+
+    @Name(PREFIX + "Dataflow")
+    @Label("Class Dataflow")
+    @Description("Dataflow analysis of a top-level class, including its methods, lambdas and initializers")
+    @Category({"Checker Framework", "Divide By Zero"})
+    @Enabled(false)
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class Dataflow extends Event {
+        @Label("Class")
+        String className;
+        @Label("Source File")
+        String sourceFile;
+        @Label("Line")
+        long line;
+    }
+
+    @Name(PREFIX + "VisitMethod")
+    @Label("Method Visitor Pass")
+    @Description("Visitor pass over one method, excluding dataflow analysis")
+    @Category({"Checker Framework", "Divide By Zero"})
+    @Enabled(false)
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class VisitMethod extends Event {
+        @Label("Method")
+        String method;
+        @Label("Source File")
+        String sourceFile;
+        @Label("Line")
+        long line;
+    }
+
+    @Name(PREFIX + "Diagnostic")
+    @Label("Diagnostic")
+    @Description("A diagnostic reported by the checker, or replayed from the result cache")
+    @Category({"Checker Framework", "Divide By Zero"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class DiagnosticEvent extends Event {
+        @Label("Kind")
+        String kind;
+        @Label("Source File")
+        String sourceFile;
+        @Label("Line")
+        long line;
+        @Label("Column")
+        long column;
+        @Label("Denominator")
+        @Description("Qualifier of the denominator of a division, or null for other diagnostics")
+        String denominator;
+        @Label("Message")
+        String message;
+        @Label("Dropped")
+        @Description("Diagnostic events dropped by throttling since the previous one")
+        long dropped;
+    }
+
+    /** Events that are never recorded */
+    static final DivByZeroEvents DISABLED = new DivByZeroEvents(null);
+
+    /** Source positions, or null if events are unavailable */
+    private final SourcePositions positions;
+
+    /** Start of the current one-second throttling window, in nanoseconds */
+    private long windowStart;
+
+    /** Diagnostic events committed in the current window */
+    private int windowCount;
+
+    /** Diagnostic events dropped since the last committed one */
+    private long dropped;
+
+    private DivByZeroEvents(SourcePositions positions) {
+        this.positions = positions;
+        this.windowStart = System.nanoTime();
+    }
+
+    /** Returns events for this compilation, or DISABLED if this JVM has no flight recorder API */
+    static DivByZeroEvents create(ProcessingEnvironment env) {
+        try {
+            Class.forName("jdk.jfr.Event", false, DivByZeroEvents.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return DISABLED;
+        }
+        return new DivByZeroEvents(Trees.instance(env).getSourcePositions());
+    }
+
+    /** Start timing the dataflow analysis of a class; returns null if events are unavailable */
+    Dataflow beginDataflow() {
+        if (!recording()) {
+            return null;
+        }
+        Dataflow event = new Dataflow();
+        event.begin();
+        return event;
+    }
+
+    void endDataflow(Dataflow event, CompilationUnitTree root, ClassTree cls) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = DivByZeroMetrics.classKey(cls);
+            event.sourceFile = fileOf(root);
+            event.line = lineOf(root, cls);
+            event.commit();
+        }
+    }
+
+    /** Start timing the visitor pass over a method; returns null if events are unavailable */
+    VisitMethod beginVisitMethod() {
+        if (!recording()) {
+            return null;
+        }
+        VisitMethod event = new VisitMethod();
+        event.begin();
+        return event;
+    }
+
+    void endVisitMethod(VisitMethod event, CompilationUnitTree root, MethodTree method) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = DivByZeroMetrics.methodKey(method);
+            event.sourceFile = fileOf(root);
+            event.line = lineOf(root, method);
+            event.commit();
+        }
+    }
+
+    /** Record a diagnostic; denominator is the point of the denominator of a division, or -1 */
+    void diagnostic(Diagnostic.Kind kind, String message, Tree source, CompilationUnitTree root, int denominator) {
+        if (!recording()) {
+            return;
+        }
+        DiagnosticEvent event = new DiagnosticEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - windowStart >= 1_000_000_000L) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        if (windowCount >= DIAGNOSTICS_PER_SECOND) {
+            dropped++;
+            return;
+        }
+        windowCount++;
+        event.kind = kind.name();
+        event.message = message;
+        event.denominator = denominator < 0 ? null : DivByZeroLattice.nameOf(denominator);
+        if (source != null && root != null) {
+            long start = positions.getStartPosition(root, source);
+            if (start >= 0) {
+                LineMap lines = root.getLineMap();
+                event.line = lines.getLineNumber(start);
+                event.column = lines.getColumnNumber(start);
+            }
+            event.sourceFile = fileOf(root);
+        }
+        event.dropped = dropped;
+        dropped = 0;
+        event.commit();
+    }
+
+    /** Whether events are available and a flight recorder has been started in this JVM */
+    private boolean recording() {
+        return positions != null && FlightRecorder.isInitialized();
+    }
+
+    private static String fileOf(CompilationUnitTree root) {
+        return root == null ? null : root.getSourceFile().toUri().toString();
+    }
+
+    private long lineOf(CompilationUnitTree root, Tree tree) {
+        if (root == null) {
+            return -1;
+        }
+        long start = positions.getStartPosition(root, tree);
+        return start < 0 ? -1 : root.getLineMap().getLineNumber(start);
+    }
+}
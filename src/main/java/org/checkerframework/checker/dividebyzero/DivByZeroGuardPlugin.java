@@ -0,0 +1,60 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Javac plugin that guards the divisor of every integer division the checker
+ * could not prove nonzero with
+ * {@link org.checkerframework.checker.dividebyzero.runtime.DivByZeroGuard}, and leaves the proven
+ * ones as bare divisions:
+ * <pre>
+ * javac -Xplugin:"DivByZeroGuard index=build/dbz.index" ...
+ * javac -Xplugin:"DivByZeroGuard all" ...
+ * </pre>
+ *
+ * <p>With {@code index=<file>}, the verdicts come from a division-site index
+ * written by the checker with {@code -Adbz.index}: a division is left bare if
+ * the index has a site at the same offsets whose denominator is proven. A file
+ * that is not in the index, or whose text differs from the text that was
+ * checked, has every division guarded, with a warning. With {@code all}, every
+ * division is guarded, which is the blanket alternative to compare against.
+ *
+ * <p>Divisions are rewritten once the class is attributed and before it is
+ * lowered, so that only integer divisions are guarded and constant
+ * expressions stay constant. A divisor that is a nonzero constant is never
+ * guarded. The compilation needs the same {@code --add-exports} flags as the
+ * checker, and the qualifier jar, which has {@code DivByZeroGuard}, on its classpath.
+ */
+public final class DivByZeroGuardPlugin implements Plugin {
+
+    @Override
+    public String getName() {
+        return "DivByZeroGuard";
+    }
+
+    @Override
+    public void init(JavacTask task, String... args) {
+        if (args.length != 1 || !(args[0].equals("all") || args[0].startsWith("index="))) {
+            throw new IllegalArgumentException("usage: -Xplugin:\"DivByZeroGuard index=<file>\" or -Xplugin:\"DivByZeroGuard all\"");
+        }
+        DivByZeroIndexReader index = null;
+        String indexProblem = null;
+        if (args[0].startsWith("index=")) {
+            String file = args[0].substring("index=".length());
+            try {
+                index = DivByZeroIndexReader.open(Paths.get(file));
+            } catch (IOException e) {
+                indexProblem = "cannot read the division-site index, so every division is guarded: " + e.getMessage();
+            }
+        }
+        try {
+            task.addTaskListener(new DivByZeroGuardRewriter(task, index, indexProblem));
+        } catch (IllegalAccessError e) {
+            throw new IllegalStateException("DivByZeroGuard needs javac to run with the same --add-exports flags as the checker", e);
+        }
+    }
+}
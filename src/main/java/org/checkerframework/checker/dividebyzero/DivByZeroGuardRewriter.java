@@ -0,0 +1,196 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.List;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Guards the divisors of the divisions in each class once it has been
+ * analyzed, for {@link DivByZeroGuardPlugin}. This is the part of the plugin
+ * that uses javac internals, so that javac can load the plugin class, as it
+ * does for every plugin on the classpath, without {@code --add-exports}.
+ */
+final class DivByZeroGuardRewriter implements TaskListener {
+
+    private static final String GUARD = "org.checkerframework.checker.dividebyzero.runtime.DivByZeroGuard";
+
+    private final JavacTask task;
+    private final Trees trees;
+    private final Types types;
+    private final TreeMaker make;
+
+    /** Checker verdicts, or null to guard every division */
+    private final DivByZeroIndexReader index;
+
+    /** Why the index cannot be used, reported on the first file; or null */
+    private String indexProblem;
+
+    private Symbol.MethodSymbol intDivisor;
+    private Symbol.MethodSymbol longDivisor;
+
+    /** Compilation unit of the proven sites below */
+    private CompilationUnitTree unit;
+
+    /** Start and end offsets of the proven divisions of the unit, or null to guard all of them */
+    private Set<Long> proven;
+
+    DivByZeroGuardRewriter(JavacTask task, DivByZeroIndexReader index, String indexProblem) {
+        this.index = index;
+        this.indexProblem = indexProblem;
+        Context context = ((BasicJavacTask) task).getContext();
+        // Sites are matched by their end offset too, which javac records only on request
+        JavaCompiler.instance(context).genEndPos = true;
+        this.task = task;
+        this.trees = Trees.instance(task);
+        this.types = Types.instance(context);
+        this.make = TreeMaker.instance(context);
+    }
+
+    @Override
+    public void started(TaskEvent e) {
+    }
+
+    @Override
+    public void finished(TaskEvent e) {
+        if (e.getKind() == TaskEvent.Kind.ANALYZE) {
+            guard(e.getCompilationUnit(), e.getTypeElement());
+        }
+    }
+
+    private void guard(CompilationUnitTree root, TypeElement cls) {
+        JCTree tree = (JCTree) trees.getTree(cls);
+        if (tree == null) {
+            return;
+        }
+        if (root != unit) {
+            unit = root;
+            proven = provenSites(root);
+        }
+        SourcePositions positions = trees.getSourcePositions();
+        tree.accept(new TreeScanner() {
+            @Override
+            public void visitBinary(JCTree.JCBinary node) {
+                // Offsets are taken before the operands are rewritten
+                long site = siteOf(positions, node);
+                super.visitBinary(node);
+                if ((node.hasTag(JCTree.Tag.DIV) || node.hasTag(JCTree.Tag.MOD))
+                        && node.type.constValue() == null && needsGuard(node.operator, node.rhs, site)) {
+                    node.rhs = guarded(node.rhs, root, site >>> 32);
+                }
+            }
+
+            @Override
+            public void visitAssignop(JCTree.JCAssignOp node) {
+                long site = siteOf(positions, node);
+                super.visitAssignop(node);
+                if ((node.hasTag(JCTree.Tag.DIV_ASG) || node.hasTag(JCTree.Tag.MOD_ASG))
+                        && needsGuard(node.operator, node.rhs, site)) {
+                    node.rhs = guarded(node.rhs, root, site >>> 32);
+                }
+            }
+
+            private long siteOf(SourcePositions positions, JCTree node) {
+                return positions.getStartPosition(root, node) << 32 | positions.getEndPosition(root, node);
+            }
+        });
+    }
+
+    /**
+     * Returns the offsets of the divisions the index proves safe in a file,
+     * or null if every division in it must be guarded
+     */
+    private Set<Long> provenSites(CompilationUnitTree root) {
+        if (index == null) {
+            if (indexProblem != null) {
+                trees.printMessage(Diagnostic.Kind.WARNING, indexProblem, root, root);
+                indexProblem = null;
+            }
+            return null;
+        }
+        String uri = root.getSourceFile().toUri().toString();
+        int id = index.find(uri);
+        int file = id < 0 ? -1 : index.findFile(id);
+        long hash;
+        try {
+            hash = DivByZeroIndexReader.sourceHash(root.getSourceFile().getCharContent(true));
+        } catch (IOException e) {
+            hash = 0;
+        }
+        if (file < 0 || index.fileHash(file) != hash) {
+            trees.printMessage(Diagnostic.Kind.WARNING, (file < 0 ? "this file is not in" : "this file has changed since")
+                    + " the division-site index, so every division in it is guarded", root, root);
+            return null;
+        }
+        Set<Long> sites = new HashSet<>();
+        index.query().file(uri).forEach(site -> {
+            if (site.proven()) {
+                sites.add((long) site.startOffset() << 32 | site.endOffset());
+            }
+        });
+        return sites;
+    }
+
+    /** Returns true if a division by this operator and divisor needs a guard */
+    private boolean needsGuard(Symbol operator, JCTree.JCExpression divisor, long site) {
+        TypeKind kind = operator.type.getReturnType().getKind();
+        if (kind != TypeKind.INT && kind != TypeKind.LONG) {
+            // Floating-point division never throws
+            return false;
+        }
+        Object constant = divisor.type.constValue();
+        if (constant instanceof Number && ((Number) constant).longValue() != 0) {
+            return false;
+        }
+        return proven == null || !proven.contains(site);
+    }
+
+    /**
+     * Returns {@code DivByZeroGuard.divisor(divisor, "File.java:line:column")},
+     * attributed, given the start of the division
+     */
+    private JCTree.JCExpression guarded(JCTree.JCExpression divisor, CompilationUnitTree root, long start) {
+        if (intDivisor == null) {
+            TypeElement guard = task.getElements().getTypeElement(GUARD);
+            if (guard == null) {
+                throw new IllegalStateException(GUARD + " must be on the classpath of guarded code");
+            }
+            for (ExecutableElement method : ElementFilter.methodsIn(guard.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals("divisor")) {
+                    TypeKind parameter = method.getParameters().get(0).asType().getKind();
+                    if (parameter == TypeKind.INT) {
+                        intDivisor = (Symbol.MethodSymbol) method;
+                    } else if (parameter == TypeKind.LONG) {
+                        longDivisor = (Symbol.MethodSymbol) method;
+                    }
+                }
+            }
+        }
+        boolean isLong = types.unboxedTypeOrType(divisor.type).getKind() == TypeKind.LONG;
+        String path = root.getSourceFile().toUri().getPath();
+        String site = (path == null ? root.getSourceFile().getName() : path.substring(path.lastIndexOf('/') + 1))
+                + ":" + root.getLineMap().getLineNumber(start) + ":" + root.getLineMap().getColumnNumber(start);
+        make.at(divisor.pos);
+        return make.App(make.QualIdent(isLong ? longDivisor : intDivisor), List.of(divisor, make.Literal(site)));
+    }
+}
@@ -0,0 +1,435 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Division-site index, enabled with {@code -Adbz.index=<file>}; queried with
+ * {@link DivByZeroIndexReader}, which describes the file format.
+ *
+ * <p>Every integer division in the checked code is recorded with its inferred
+ * denominator qualifier, whether or not it is reported. The file is updated
+ * per compilation unit: when type processing is over, the sites of the files
+ * checked in this compilation replace their old sites, and the sites of every
+ * other file are copied over unchanged, without decoding them, except those
+ * of {@code file:} sources that no longer exist. A top-level class whose
+ * diagnostics were replayed from {@code -Adbz.cache} keeps its old sites. An
+ * index in an older format, or a truncated one, is rebuilt from the files
+ * checked now. The new file is written next to the old one and moved over it.
+ */
+final class DivByZeroIndex {
+
+    private final Path file;
+    private final SourcePositions positions;
+    private final Elements elements;
+    private final Types types;
+
+    /** Hashes of the source text of the files checked in this compilation, by URI */
+    private final Map<String, Long> checked = new HashMap<>();
+
+    /** Binary names of the top-level classes replayed from the result cache, by file URI */
+    private final Map<String, Set<String>> replayed = new HashMap<>();
+
+    /** Sites found in this compilation, by file URI */
+    private final Map<String, List<Site>> found = new HashMap<>();
+
+    /** A division site found in this compilation */
+    private static final class Site {
+        final String topLevelClass;
+        final String member;
+        final int line;
+        final int column;
+        final int start;
+        final int end;
+        final int operator;
+        final int denominator;
+        final int flags;
+
+        Site(String topLevelClass, String member, int line, int column, int start, int end,
+                int operator, int denominator, int flags) {
+            this.topLevelClass = topLevelClass;
+            this.member = member;
+            this.line = line;
+            this.column = column;
+            this.start = start;
+            this.end = end;
+            this.operator = operator;
+            this.denominator = denominator;
+            this.flags = flags;
+        }
+    }
+
+    DivByZeroIndex(Path file, ProcessingEnvironment env) throws IOException {
+        this.file = file;
+        this.positions = Trees.instance(env).getSourcePositions();
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        // Refuse a file that is not an index before overwriting it at the end
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+            }
+            if (header.hasRemaining() || header.getInt(0) != DivByZeroIndexReader.MAGIC) {
+                throw new IOException(file + " is not a division-site index");
+            }
+        } catch (NoSuchFileException e) {
+            // Created when type processing is over
+        }
+    }
+
+    /** Start checking a compilation unit; its old sites will be replaced */
+    void checking(CompilationUnitTree root) {
+        checked.computeIfAbsent(root.getSourceFile().toUri().toString(), uri -> hashOf(root));
+    }
+
+    /** Keep the old sites of a top-level class whose diagnostics were replayed from the result cache */
+    void replayed(CompilationUnitTree root, TypeElement cls) {
+        checking(root);
+        String uri = root.getSourceFile().toUri().toString();
+        replayed.computeIfAbsent(uri, k -> new HashSet<>()).add(elements.getBinaryName(cls).toString());
+    }
+
+    /** Record the integer division at the leaf of the path */
+    void add(TreePath path, int denominator, int flags) {
+        CompilationUnitTree root = path.getCompilationUnit();
+        long start = positions.getStartPosition(root, path.getLeaf());
+        long end = positions.getEndPosition(root, path.getLeaf());
+        LineMap lines = root.getLineMap();
+        found.computeIfAbsent(root.getSourceFile().toUri().toString(), k -> new ArrayList<>()).add(new Site(
+                topLevelClassOf(path),
+                DivByZeroBaseline.siteOf(path, elements, types),
+                (int) lines.getLineNumber(start),
+                (int) lines.getColumnNumber(start),
+                (int) start,
+                (int) end,
+                DivByZeroIndexReader.Operator.valueOf(path.getLeaf().getKind().name()).ordinal(),
+                denominator,
+                flags));
+    }
+
+    /** Hash of the source text of a compilation unit, or 0 if it cannot be read */
+    private static long hashOf(CompilationUnitTree root) {
+        try {
+            return DivByZeroIndexReader.sourceHash(root.getSourceFile().getCharContent(true));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String topLevelClassOf(TreePath path) {
+        ClassTree outermost = null;
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            if (p.getLeaf() instanceof ClassTree) {
+                outermost = (ClassTree) p.getLeaf();
+            }
+        }
+        TypeElement element = outermost == null ? null : TreeUtils.elementFromDeclaration(outermost);
+        return element == null ? "" : elements.getBinaryName(element).toString();
+    }
+
+    // ========================================================================
+    // Writing
+
+    /** Merge the sites found in this compilation into the index file */
+    void write() throws IOException {
+        DivByZeroIndexReader old = null;
+        if (Files.exists(file)) {
+            // Read into memory rather than mapped, so that the file can be replaced on every platform
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            try {
+                old = new DivByZeroIndexReader(bytes, file);
+            } catch (IOException e) {
+                // An index in an older format, or a truncated one, is rebuilt from the files checked now
+            }
+        }
+
+        // Old file table entries to copy unchanged, and the old records to keep of the checked files
+        List<Integer> copied = new ArrayList<>();
+        Map<String, List<Integer>> kept = new HashMap<>();
+        boolean[] referenced = new boolean[old == null ? 0 : old.stringCount()];
+        if (old != null) {
+            byte[] record = new byte[DivByZeroIndexReader.RECORD_BYTES];
+            ByteBuffer fields = ByteBuffer.wrap(record);
+            for (int f = 0; f < old.fileCount(); f++) {
+                String uri = old.string(old.fileString(f));
+                if (!checked.containsKey(uri)) {
+                    if (!removed(uri)) {
+                        copied.add(f);
+                        markStrings(old, f, referenced);
+                    }
+                    continue;
+                }
+                Set<String> classes = replayed.get(uri);
+                if (classes == null) {
+                    continue;
+                }
+                for (int r = old.fileFirstRecord(f), end = r + old.fileRecordCount(f); r < end; r++) {
+                    old.records(r, 1, record);
+                    if (classes.contains(old.string(fields.getInt(4)))) {
+                        kept.computeIfAbsent(uri, k -> new ArrayList<>()).add(r);
+                        referenced[fields.getInt(0)] = true;
+                        referenced[fields.getInt(4)] = true;
+                        referenced[fields.getInt(8)] = true;
+                    }
+                }
+            }
+        }
+
+        // String table: the referenced old strings, which are in order already, merged with the new ones
+        Map<String, byte[]> added = new HashMap<>();
+        for (Map.Entry<String, List<Site>> entry : found.entrySet()) {
+            added.computeIfAbsent(entry.getKey(), s -> s.getBytes(StandardCharsets.UTF_8));
+            for (Site site : entry.getValue()) {
+                added.computeIfAbsent(site.topLevelClass, s -> s.getBytes(StandardCharsets.UTF_8));
+                added.computeIfAbsent(site.member, s -> s.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        for (String uri : checked.keySet()) {
+            added.computeIfAbsent(uri, s -> s.getBytes(StandardCharsets.UTF_8));
+        }
+        List<Map.Entry<String, byte[]>> fresh = new ArrayList<>(added.entrySet());
+        fresh.sort((a, b) -> compareUtf8(a.getValue(), b.getValue()));
+        // Each entry of the new table is an old id, or -1 - the index of a new string
+        List<Integer> table = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        int[] remap = new int[referenced.length];
+        long dataBytes = 0;
+        int id = 0;
+        int next = 0;
+        while (true) {
+            while (id < referenced.length && !referenced[id]) {
+                id++;
+            }
+            if (id == referenced.length && next == fresh.size()) {
+                break;
+            }
+            int c = id == referenced.length ? 1
+                    : next == fresh.size() ? -1
+                    : old.compareString(id, fresh.get(next).getValue());
+            if (c <= 0) {
+                remap[id] = table.size();
+                dataBytes += old.stringLength(id);
+            }
+            if (c >= 0) {
+                ids.put(fresh.get(next).getKey(), table.size());
+                dataBytes += c == 0 ? 0 : fresh.get(next).getValue().length;
+            }
+            table.add(c <= 0 ? id : -1 - next);
+            id += c <= 0 ? 1 : 0;
+            next += c >= 0 ? 1 : 0;
+        }
+
+        // Files ordered by the id of their URI, each either copied or rebuilt
+        TreeMap<Integer, Integer> copiedFiles = new TreeMap<>();
+        for (int f : copied) {
+            copiedFiles.put(remap[old.fileString(f)], f);
+        }
+        TreeMap<Integer, List<int[]>> rebuilt = new TreeMap<>();
+        Map<Integer, Long> hashes = new HashMap<>();
+        for (String uri : checked.keySet()) {
+            List<int[]> records = new ArrayList<>();
+            for (int r : kept.getOrDefault(uri, new ArrayList<>())) {
+                records.add(oldRecord(old, r, remap));
+            }
+            for (Site site : found.getOrDefault(uri, new ArrayList<>())) {
+                records.add(new int[] {ids.get(uri), ids.get(site.topLevelClass), ids.get(site.member),
+                    site.line, site.column, site.start, site.end, site.operator, site.denominator, site.flags});
+            }
+            records.sort(Comparator.<int[]>comparingInt(record -> record[5]).thenComparingInt(record -> record[6]));
+            rebuilt.put(ids.get(uri), records);
+            hashes.put(ids.get(uri), checked.get(uri));
+        }
+        long recordCount = 0;
+        for (int f : copied) {
+            recordCount += old.fileRecordCount(f);
+        }
+        for (List<int[]> records : rebuilt.values()) {
+            recordCount += records.size();
+        }
+        int fileCount = copiedFiles.size() + rebuilt.size();
+        long size = DivByZeroIndexReader.HEADER_BYTES + 4L * (table.size() + 1)
+                + DivByZeroIndexReader.padded((int) Math.min(dataBytes, Integer.MAX_VALUE))
+                + (long) DivByZeroIndexReader.FILE_BYTES * fileCount
+                + DivByZeroIndexReader.RECORD_BYTES * recordCount;
+        if (dataBytes > Integer.MAX_VALUE || size > Integer.MAX_VALUE) {
+            throw new IOException("the index would be larger than 2 GB");
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(DivByZeroIndexReader.MAGIC);
+                out.writeInt(DivByZeroIndexReader.VERSION);
+                out.writeInt(table.size());
+                out.writeInt(fileCount);
+                out.writeInt((int) recordCount);
+                out.writeInt((int) dataBytes);
+                out.writeInt(0);
+                out.writeInt(0);
+                int offset = 0;
+                out.writeInt(offset);
+                for (int entry : table) {
+                    offset += entry >= 0 ? old.stringLength(entry) : fresh.get(-1 - entry).getValue().length;
+                    out.writeInt(offset);
+                }
+                for (int entry : table) {
+                    out.write(entry >= 0 ? old.stringBytes(entry) : fresh.get(-1 - entry).getValue());
+                }
+                for (int i = offset; i < DivByZeroIndexReader.padded(offset); i++) {
+                    out.writeByte(0);
+                }
+
+                // File table, then the records in the same order
+                List<Object> order = new ArrayList<>();
+                TreeMap<Integer, Object> files = new TreeMap<>();
+                files.putAll(copiedFiles);
+                files.putAll(rebuilt);
+                int first = 0;
+                for (Map.Entry<Integer, Object> entry : files.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(first);
+                    if (entry.getValue() instanceof Integer) {
+                        int f = (Integer) entry.getValue();
+                        out.writeInt(old.fileRecordCount(f));
+                        out.writeLong(old.fileHash(f));
+                        for (int q = 0; q < DivByZeroIndexReader.QUALIFIERS.size(); q++) {
+                            out.writeInt(old.fileQualifierCount(f, q));
+                        }
+                        first += old.fileRecordCount(f);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        List<int[]> records = (List<int[]>) entry.getValue();
+                        int[] counts = new int[DivByZeroIndexReader.QUALIFIERS.size()];
+                        for (int[] record : records) {
+                            counts[record[8]]++;
+                        }
+                        out.writeInt(records.size());
+                        out.writeLong(hashes.get(entry.getKey()));
+                        for (int count : counts) {
+                            out.writeInt(count);
+                        }
+                        first += records.size();
+                    }
+                    order.add(entry.getValue());
+                }
+                for (Object entry : order) {
+                    if (entry instanceof Integer) {
+                        copyRecords(old, (Integer) entry, remap, out);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        List<int[]> records = (List<int[]>) entry;
+                        for (int[] record : records) {
+                            for (int i = 0; i < 7; i++) {
+                                out.writeInt(record[i]);
+                            }
+                            out.writeByte(record[7]);
+                            out.writeByte(record[8]);
+                            out.writeByte(record[9]);
+                            out.writeByte(0);
+                        }
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Returns true if the URI is of a local file that no longer exists */
+    private static boolean removed(String uri) {
+        if (!uri.startsWith("file:")) {
+            return false;
+        }
+        try {
+            return !Files.exists(Paths.get(URI.create(uri)));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** Mark the strings used by the records of an old file */
+    private static void markStrings(DivByZeroIndexReader old, int f, boolean[] referenced) {
+        byte[] records = new byte[old.fileRecordCount(f) * DivByZeroIndexReader.RECORD_BYTES];
+        old.records(old.fileFirstRecord(f), old.fileRecordCount(f), records);
+        ByteBuffer fields = ByteBuffer.wrap(records);
+        referenced[old.fileString(f)] = true;
+        for (int at = 0; at < records.length; at += DivByZeroIndexReader.RECORD_BYTES) {
+            referenced[fields.getInt(at + 4)] = true;
+            referenced[fields.getInt(at + 8)] = true;
+        }
+    }
+
+    /** Copy the records of an old file, with their string ids remapped */
+    private static void copyRecords(DivByZeroIndexReader old, int f, int[] remap, DataOutputStream out)
+            throws IOException {
+        byte[] records = new byte[old.fileRecordCount(f) * DivByZeroIndexReader.RECORD_BYTES];
+        old.records(old.fileFirstRecord(f), old.fileRecordCount(f), records);
+        ByteBuffer fields = ByteBuffer.wrap(records);
+        for (int at = 0; at < records.length; at += DivByZeroIndexReader.RECORD_BYTES) {
+            for (int i = 0; i < 12; i += 4) {
+                fields.putInt(at + i, remap[fields.getInt(at + i)]);
+            }
+        }
+        out.write(records);
+    }
+
+    /** Decode an old record into the fields of a new one */
+    private static int[] oldRecord(DivByZeroIndexReader old, int r, int[] remap) {
+        byte[] record = new byte[DivByZeroIndexReader.RECORD_BYTES];
+        old.records(r, 1, record);
+        ByteBuffer fields = ByteBuffer.wrap(record);
+        return new int[] {remap[fields.getInt(0)], remap[fields.getInt(4)], remap[fields.getInt(8)],
+            fields.getInt(12), fields.getInt(16), fields.getInt(20), fields.getInt(24),
+            record[28], record[29], record[30]};
+    }
+
+    /** Compare UTF-8 bytes as unsigned, which orders strings by code point */
+    static int compareUtf8(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            int c = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
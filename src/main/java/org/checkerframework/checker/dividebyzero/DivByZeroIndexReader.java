@@ -0,0 +1,574 @@
+package org.checkerframework.checker.dividebyzero;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Queries a division-site index written with {@code -Adbz.index=<file>}.
+ *
+ * <pre>
+ * DivByZeroIndexReader index = DivByZeroIndexReader.open(Paths.get("build/dbz.index"));
+ * int remaining = index.query().denominator("Top").count();
+ * index.query().file(uri).operator(DivByZeroIndexReader.Operator.DIVIDE).forEach(System.out::println);
+ * </pre>
+ *
+ * <p>The file is memory-mapped and read in place: opening it reads only the
+ * header, string lookups are binary searches over its sorted string table,
+ * queries compare the integer fields of fixed-width records, and the strings
+ * of a {@link Site} are decoded only when they are asked for. Queries by file
+ * start from the file table, and counts by file and denominator come from the
+ * per-file totals without visiting any record, so neither the size of the
+ * index nor a cold JVM makes a query slow.
+ *
+ * <p>The writer replaces the file atomically, so an open reader keeps seeing
+ * the index as it was when it was opened. Instances are immutable and may be
+ * shared between threads. This class does not depend on the Checker
+ * Framework, and can be used with only the checker jar on the classpath.
+ *
+ * <h2>File format</h2>
+ *
+ * All integers are big-endian. Strings are identified by their index in the
+ * string table, which is ordered by their UTF-8 bytes and holds no duplicates.
+ * <ol>
+ *   <li>Header ({@value #HEADER_BYTES} bytes): magic {@code "DBZI"}, version,
+ *       string count, file count, record count, string data length, and two
+ *       reserved ints.
+ *   <li>String offsets: one int per string, plus the end of the last one,
+ *       into the string data.
+ *   <li>String data: UTF-8 bytes, padded with zeros to a multiple of 4.
+ *   <li>Files ({@value #FILE_BYTES} bytes each), ordered by URI: the string id
+ *       of the URI, the first record and number of records of the file, a
+ *       64-bit FNV-1a hash of the source text that was checked, then the
+ *       number of records for each denominator qualifier. Every checked file
+ *       has an entry, even if it has no division.
+ *   <li>Records ({@value #RECORD_BYTES} bytes each), grouped by file and
+ *       ordered by position: string ids of the file URI, the top-level class
+ *       and the enclosing member; line, column, start and end offsets; then
+ *       one byte each for the {@link Operator}, the denominator qualifier (in
+ *       the order of {@link #QUALIFIERS}) and the flags, and a padding byte.
+ * </ol>
+ */
+public final class DivByZeroIndexReader {
+
+    /** First bytes of an index file ("DBZI") */
+    static final int MAGIC = 0x44425A49;
+
+    /** Bump when the file format changes */
+    static final int VERSION = 2;
+
+    static final int HEADER_BYTES = 32;
+
+    /** URI, first record and record count, source hash, then a count for each of the six qualifiers */
+    static final int FILE_BYTES = 20 + 4 * 6;
+
+    static final int RECORD_BYTES = 32;
+
+    /** Flag of a site whose diagnostic was reported */
+    static final int REPORTED = 1;
+
+    /** Flag of a site whose diagnostic was suppressed by the baseline */
+    static final int BASELINED = 2;
+
+    /** Simple names of the denominator qualifiers, by their code in the file */
+    public static final List<String> QUALIFIERS = Collections.unmodifiableList(Arrays.asList(
+            "Bot", "Negative", "Zero", "Positive", "NonZero", "Top"));
+
+    /** Operator of a division site, by its code in the file */
+    public enum Operator {
+        /** {@code x / y} */ DIVIDE,
+        /** {@code x % y} */ REMAINDER,
+        /** {@code x /= y} */ DIVIDE_ASSIGNMENT,
+        /** {@code x %= y} */ REMAINDER_ASSIGNMENT
+    }
+
+    private static final Operator[] OPERATORS = Operator.values();
+
+    /** Qualifiers that do not exclude zero, as a mask of their codes */
+    private static final int UNPROVEN = 1 << QUALIFIERS.indexOf("Zero") | 1 << QUALIFIERS.indexOf("Top");
+
+    private static final int ALL_QUALIFIERS = (1 << QUALIFIERS.size()) - 1;
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int fileCount;
+    private final int recordCount;
+    private final int offsetsStart;
+    private final int dataStart;
+    private final int filesStart;
+    private final int recordsStart;
+
+    /** Map the index file read-only */
+    public static DivByZeroIndexReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            // The mapping stays valid once the channel is closed
+            return new DivByZeroIndexReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        }
+    }
+
+    /** Read an index from a buffer positioned at its start, e.g. a whole file read into memory */
+    DivByZeroIndexReader(ByteBuffer buffer, Object source) throws IOException {
+        this.buffer = buffer.slice();
+        if (this.buffer.limit() < HEADER_BYTES
+                || this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION) {
+            throw new IOException(source + " is not a division-site index of this version");
+        }
+        stringCount = this.buffer.getInt(8);
+        fileCount = this.buffer.getInt(12);
+        recordCount = this.buffer.getInt(16);
+        int dataBytes = this.buffer.getInt(20);
+        offsetsStart = HEADER_BYTES;
+        dataStart = offsetsStart + 4 * (stringCount + 1);
+        filesStart = dataStart + padded(dataBytes);
+        recordsStart = filesStart + FILE_BYTES * fileCount;
+        if (stringCount < 0 || fileCount < 0 || recordCount < 0 || dataBytes < 0
+                || (long) recordsStart + (long) RECORD_BYTES * recordCount != this.buffer.limit()) {
+            throw new IOException(source + " is truncated or corrupt");
+        }
+    }
+
+    /** Length of the string data once padded to a multiple of 4 */
+    static int padded(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /** Number of division sites in the index */
+    public int siteCount() {
+        return recordCount;
+    }
+
+    /** URIs of the files in the index, in order */
+    public List<String> files() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return string(fileString(index));
+            }
+
+            @Override
+            public int size() {
+                return fileCount;
+            }
+        };
+    }
+
+    /** Start a query that matches every site; each filter narrows it */
+    public Query query() {
+        return new Query();
+    }
+
+    /** Conditions on division sites, all of which must hold */
+    public final class Query {
+        private String file;
+        private String topLevelClass;
+        private String member;
+        private int operator = -1;
+        private int denominators = ALL_QUALIFIERS;
+        private int requiredFlags;
+
+        private Query() {
+        }
+
+        /** Sites in the file with this URI, as reported by javac, e.g. {@code file:/src/Foo.java} */
+        public Query file(String uri) {
+            this.file = uri;
+            return this;
+        }
+
+        /** Sites in this top-level class, by binary name, e.g. {@code com.example.Foo} */
+        public Query topLevelClass(String binaryName) {
+            this.topLevelClass = binaryName;
+            return this;
+        }
+
+        /**
+         * Sites in this member: the binary name of its class, {@code #}, and
+         * the method name and erased parameter types, e.g.
+         * {@code com.example.Foo$Bar#f(int,java.lang.String)}; or the field
+         * name, or {@code {}} for an initializer block.
+         */
+        public Query member(String member) {
+            this.member = member;
+            return this;
+        }
+
+        public Query operator(Operator operator) {
+            this.operator = operator.ordinal();
+            return this;
+        }
+
+        /** Sites whose denominator has this qualifier, by simple name, e.g. {@code "Top"} */
+        public Query denominator(String qualifier) {
+            int code = QUALIFIERS.indexOf(qualifier);
+            if (code < 0) {
+                throw new IllegalArgumentException("Unknown qualifier " + qualifier + "; expected one of " + QUALIFIERS);
+            }
+            this.denominators &= 1 << code;
+            return this;
+        }
+
+        /** Sites whose denominator was not proven nonzero: its qualifier is {@code Zero} or {@code Top} */
+        public Query unproven() {
+            this.denominators &= UNPROVEN;
+            return this;
+        }
+
+        /** Sites whose diagnostic was reported in the compilation that indexed them */
+        public Query reported() {
+            this.requiredFlags |= REPORTED;
+            return this;
+        }
+
+        /** Number of matching sites */
+        public int count() {
+            if (topLevelClass == null && member == null && operator < 0 && requiredFlags == 0) {
+                // Only file and denominator: add up the file table
+                int[] files = fileRange();
+                int count = 0;
+                for (int f = files[0]; f < files[1]; f++) {
+                    for (int q = 0; q < QUALIFIERS.size(); q++) {
+                        count += (denominators >> q & 1) != 0 ? fileQualifierCount(f, q) : 0;
+                    }
+                }
+                return count;
+            }
+            int[] count = {0};
+            scan(record -> count[0]++);
+            return count[0];
+        }
+
+        /** Pass each matching site to the action, in file and position order */
+        public void forEach(Consumer<Site> action) {
+            scan(record -> action.accept(new Site(record)));
+        }
+
+        /** Returns the matching sites, in file and position order */
+        public List<Site> list() {
+            List<Site> sites = new ArrayList<>();
+            forEach(sites::add);
+            return sites;
+        }
+
+        private void scan(IntConsumer matched) {
+            int classId = topLevelClass == null ? -1 : find(topLevelClass);
+            int memberId = member == null ? -1 : find(member);
+            if ((topLevelClass != null && classId < 0) || (member != null && memberId < 0)) {
+                return;
+            }
+            int[] files = fileRange();
+            if (files[0] >= files[1]) {
+                return;
+            }
+            int first = buffer.getInt(filesStart + files[0] * FILE_BYTES + 4);
+            int lastFile = filesStart + (files[1] - 1) * FILE_BYTES;
+            int end = buffer.getInt(lastFile + 4) + buffer.getInt(lastFile + 8);
+            for (int r = first; r < end; r++) {
+                int at = recordsStart + r * RECORD_BYTES;
+                if ((classId < 0 || buffer.getInt(at + 4) == classId)
+                        && (memberId < 0 || buffer.getInt(at + 8) == memberId)
+                        && (operator < 0 || buffer.get(at + 28) == operator)
+                        && (denominators >> buffer.get(at + 29) & 1) != 0
+                        && (buffer.get(at + 30) & requiredFlags) == requiredFlags) {
+                    matched.accept(r);
+                }
+            }
+        }
+
+        /** Range of file table entries to look at, as {first, end} */
+        private int[] fileRange() {
+            if (file == null) {
+                return new int[] {0, fileCount};
+            }
+            int id = find(file);
+            int f = id < 0 ? -1 : findFile(id);
+            return f < 0 ? new int[] {0, 0} : new int[] {f, f + 1};
+        }
+    }
+
+    /** One division site; its strings are read from the index when asked for */
+    public final class Site {
+        private final int at;
+
+        private Site(int record) {
+            this.at = recordsStart + record * RECORD_BYTES;
+        }
+
+        /** URI of the source file */
+        public String file() {
+            return string(buffer.getInt(at));
+        }
+
+        /** Binary name of the top-level class */
+        public String topLevelClass() {
+            return string(buffer.getInt(at + 4));
+        }
+
+        /** Enclosing member, in the form described at {@link Query#member} */
+        public String member() {
+            return string(buffer.getInt(at + 8));
+        }
+
+        /** 1-based line */
+        public int line() {
+            return buffer.getInt(at + 12);
+        }
+
+        /** 1-based column */
+        public int column() {
+            return buffer.getInt(at + 16);
+        }
+
+        /** Character offset of the start of the division expression */
+        public int startOffset() {
+            return buffer.getInt(at + 20);
+        }
+
+        /** Character offset of the end of the division expression */
+        public int endOffset() {
+            return buffer.getInt(at + 24);
+        }
+
+        public Operator operator() {
+            return OPERATORS[buffer.get(at + 28)];
+        }
+
+        /** Simple name of the denominator's qualifier, e.g. {@code "Top"} */
+        public String denominator() {
+            return QUALIFIERS.get(buffer.get(at + 29));
+        }
+
+        /**
+         * Whether the denominator was proven nonzero, or the division
+         * unreachable: its qualifier is neither {@code Zero} nor {@code Top}
+         */
+        public boolean proven() {
+            return (UNPROVEN >> buffer.get(at + 29) & 1) == 0;
+        }
+
+        /** Whether a diagnostic was reported at this site */
+        public boolean reported() {
+            return (buffer.get(at + 30) & REPORTED) != 0;
+        }
+
+        /** Whether the site's diagnostic was suppressed by {@code -Adbz.baseline} */
+        public boolean baselined() {
+            return (buffer.get(at + 30) & BASELINED) != 0;
+        }
+
+        @Override
+        public String toString() {
+            return file() + ":" + line() + ":" + column() + ": " + operator() + " by " + denominator()
+                    + " in " + member() + (reported() ? " (reported)" : baselined() ? " (baselined)" : "");
+        }
+    }
+
+    /** 64-bit FNV-1a hash of a source text, as recorded for each file */
+    static long sourceHash(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // ========================================================================
+    // Raw access, shared with the writer and the guard plugin
+
+    int stringCount() {
+        return stringCount;
+    }
+
+    int fileCount() {
+        return fileCount;
+    }
+
+    /** Decode a string by id */
+    String string(int id) {
+        return new String(stringBytes(id), StandardCharsets.UTF_8);
+    }
+
+    /** Returns the UTF-8 bytes of a string by id */
+    byte[] stringBytes(int id) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(dataStart + buffer.getInt(offsetsStart + 4 * id));
+        byte[] bytes = new byte[stringLength(id)];
+        view.get(bytes);
+        return bytes;
+    }
+
+    /** Number of UTF-8 bytes of a string by id */
+    int stringLength(int id) {
+        return buffer.getInt(offsetsStart + 4 * id + 4) - buffer.getInt(offsetsStart + 4 * id);
+    }
+
+    /** Compare the UTF-8 bytes of a string in the table with the given bytes, unsigned */
+    int compareString(int id, byte[] bytes) {
+        int start = dataStart + buffer.getInt(offsetsStart + 4 * id);
+        int length = stringLength(id);
+        for (int i = 0; i < length && i < bytes.length; i++) {
+            int c = Integer.compare(buffer.get(start + i) & 0xff, bytes[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(length, bytes.length);
+    }
+
+    /** Returns the id of a string, or -1 if the index does not contain it */
+    int find(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compareString(mid, bytes);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the file table entry of a file's string id, or -1 */
+    int findFile(int id) {
+        int low = 0;
+        int high = fileCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int other = fileString(mid);
+            if (other < id) {
+                low = mid + 1;
+            } else if (other > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** String id of the URI of a file table entry */
+    int fileString(int file) {
+        return buffer.getInt(filesStart + file * FILE_BYTES);
+    }
+
+    int fileFirstRecord(int file) {
+        return buffer.getInt(filesStart + file * FILE_BYTES + 4);
+    }
+
+    int fileRecordCount(int file) {
+        return buffer.getInt(filesStart + file * FILE_BYTES + 8);
+    }
+
+    /** Hash of the source text of a file, as it was when its sites were recorded */
+    long fileHash(int file) {
+        return buffer.getLong(filesStart + file * FILE_BYTES + 12);
+    }
+
+    /** Number of records of a file whose denominator has the qualifier with this code */
+    int fileQualifierCount(int file, int qualifier) {
+        return buffer.getInt(filesStart + file * FILE_BYTES + 20 + 4 * qualifier);
+    }
+
+    /** Copy the raw bytes of a range of records */
+    void records(int first, int count, byte[] into) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(recordsStart + first * RECORD_BYTES);
+        view.get(into, 0, count * RECORD_BYTES);
+    }
+
+    // ========================================================================
+    // Command line
+
+    /**
+     * Print the matching sites, or their number with {@code --count}:
+     * <pre>
+     * java -cp checker.jar org.checkerframework.checker.dividebyzero.DivByZeroIndexReader dbz.index \
+     *     [--file=URI] [--class=NAME] [--member=MEMBER] [--operator=DIVIDE] [--denominator=Top] [--unproven]
+ *     [--reported] [--count]
+     * </pre>
+     */
+    private static final List<String> OPTIONS = Arrays.asList(
+            "file", "class", "member", "operator", "denominator", "unproven", "reported", "count");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: DivByZeroIndexReader <index> [--file=URI] [--class=NAME] [--member=MEMBER]"
+                    + " [--operator=OPERATOR] [--denominator=QUALIFIER] [--unproven] [--reported] [--count]");
+            System.exit(2);
+        }
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (!args[i].startsWith("--")) {
+                System.err.println("DivByZeroIndexReader: unexpected argument " + args[i]);
+                System.exit(2);
+            }
+            String name = args[i].substring(2, eq < 0 ? args[i].length() : eq);
+            if (!OPTIONS.contains(name)) {
+                System.err.println("DivByZeroIndexReader: unknown option " + args[i]);
+                System.exit(2);
+            }
+            opts.put(name, eq < 0 ? "" : args[i].substring(eq + 1));
+        }
+        Query query = open(Paths.get(args[0])).query();
+        try {
+            filter(query, opts);
+        } catch (IllegalArgumentException e) {
+            System.err.println("DivByZeroIndexReader: " + e.getMessage());
+            System.exit(2);
+        }
+        PrintStream out = System.out;
+        if (opts.containsKey("count")) {
+            out.println(query.count());
+        } else {
+            query.forEach(out::println);
+        }
+    }
+
+    private static void filter(Query query, Map<String, String> opts) {
+        if (opts.containsKey("file")) {
+            query.file(opts.get("file"));
+        }
+        if (opts.containsKey("class")) {
+            query.topLevelClass(opts.get("class"));
+        }
+        if (opts.containsKey("member")) {
+            query.member(opts.get("member"));
+        }
+        if (opts.containsKey("operator")) {
+            query.operator(Operator.valueOf(opts.get("operator")));
+        }
+        if (opts.containsKey("denominator")) {
+            query.denominator(opts.get("denominator"));
+        }
+        if (opts.containsKey("unproven")) {
+            query.unproven();
+        }
+        if (opts.containsKey("reported")) {
+            query.reported();
+        }
+    }
+}
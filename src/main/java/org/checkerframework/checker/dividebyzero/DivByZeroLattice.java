@@ -0,0 +1,254 @@
+package org.checkerframework.checker.dividebyzero;
+
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.util.Elements;
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+import org.checkerframework.checker.dividebyzero.qual.*;
+
+/**
+ * Primitive encoding of the divide-by-zero lattice.
+ *
+ * <p>Each point is a small int (its ordinal), and every operation the transfer
+ * functions need is a lookup in a precomputed static table, so the dataflow hot
+ * path never allocates or compares AnnotationMirrors. Conversion to and from
+ * AnnotationMirror happens only at the CFValue boundary, through an instance of
+ * this class that holds one canonical mirror per point.
+ *
+ * <pre>
+ *         Top
+ *        /   \
+ *      Zero  NonZero
+ *       |    /    \
+ *       | Negative Positive
+ *        \   |    /
+ *           Bot
+ * </pre>
+ */
+final class DivByZeroLattice {
+
+    // All possible points in our lattice, in table order
+    static final int BOT = 0;
+    static final int NEG = 1;
+    static final int ZER = 2;
+    static final int POS = 3;
+    static final int NZE = 4;
+    static final int TOP = 5;
+
+    /** Number of points in the lattice */
+    static final int SIZE = 6;
+
+    /** Qualifier classes, indexed by ordinal */
+    private static final Class<?>[] QUALIFIERS = {
+            Bot.class, Negative.class, Zero.class, Positive.class, NonZero.class, Top.class
+    };
+
+    /**
+     * The set of concrete signs each point stands for: bit 0 is "negative",
+     * bit 1 is "zero" and bit 2 is "positive". In this encoding glb is bitwise
+     * and, and lub is bitwise or closed upwards to the nearest point.
+     */
+    private static final int[] SIGNS = {0b000, 0b001, 0b010, 0b100, 0b101, 0b111};
+
+    // The tables below follow the rules of real-number arithmetic and are used
+    // for float and double operands. Integer arithmetic wraps around (65536 *
+    // 65536 is zero as an int, and so is MIN_VALUE + MIN_VALUE) and integer
+    // division truncates (1 / 2 is zero), so int and long operands use the
+    // INTEGRAL_ tables further down, which keep a sign only where no overflow
+    // or truncation can change it.
+
+    // Transfer table used for DIVIDE and MOD operators. Defines (point, point) -> point
+    static final int[][] DIVIDE_TRANSFER = {
+            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
+            /** Neg   **/  {BOT, POS, TOP, NEG, NZE, TOP},
+            /** Zero  **/  {BOT, ZER, TOP, ZER, ZER, TOP},
+            /** Pos   **/  {BOT, NEG, TOP, POS, NZE, TOP},
+            /** !Zero **/  {BOT, NZE, TOP, NZE, NZE, TOP},
+            /** Top   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+    };
+
+    // Transfer table used for PLUS and MINUS operators. Defines (point, point) -> point
+    static final int[][] PLUS_TRANSFER = {
+            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
+            /** Neg   **/  {BOT, NEG, NEG, TOP, TOP, TOP},
+            /** Zero  **/  {BOT, NEG, ZER, POS, NZE, TOP},
+            /** Pos   **/  {BOT, TOP, POS, POS, TOP, TOP},
+            /** !Zero **/  {BOT, TOP, NZE, TOP, TOP, TOP},
+            /** Top   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+    };
+
+    // Transfer table used for TIMES operators. Defines (point, point) -> point
+    static final int[][] TIMES_TRANSFER = {
+            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
+            /** Neg   **/  {BOT, POS, ZER, NEG, NZE, TOP},
+            /** Zero  **/  {BOT, ZER, ZER, ZER, ZER, ZER},
+            /** Pos   **/  {BOT, NEG, ZER, POS, NZE, TOP},
+            /** !Zero **/  {BOT, NZE, ZER, NZE, NZE, TOP},
+            /** Top   **/  {BOT, TOP, ZER, TOP, TOP, TOP},
+    };
+
+    // Transfer table used for DIVIDE and MOD operators on int and long operands.
+    // Only a zero numerator survives truncation; MIN_VALUE / -1 overflows too.
+    static final int[][] INTEGRAL_DIVIDE_TRANSFER = {
+            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
+            /** Neg   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+            /** Zero  **/  {BOT, ZER, TOP, ZER, ZER, TOP},
+            /** Pos   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+            /** !Zero **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+            /** Top   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+    };
+
+    // Transfer table used for PLUS and MINUS operators on int and long operands.
+    // Two positives cannot wrap all the way around to zero, but may wrap negative.
+    static final int[][] INTEGRAL_PLUS_TRANSFER = {
+            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
+            /** Neg   **/  {BOT, TOP, NEG, TOP, TOP, TOP},
+            /** Zero  **/  {BOT, NEG, ZER, POS, NZE, TOP},
+            /** Pos   **/  {BOT, TOP, POS, NZE, TOP, TOP},
+            /** !Zero **/  {BOT, TOP, NZE, TOP, TOP, TOP},
+            /** Top   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
+    };
+
+    // Transfer table used for TIMES operators on int and long operands. Any
+    // product of non-zero factors may wrap to zero.
+    static final int[][] INTEGRAL_TIMES_TRANSFER = {
+            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
+            /** Neg   **/  {BOT, TOP, ZER, TOP, TOP, TOP},
+            /** Zero  **/  {BOT, ZER, ZER, ZER, ZER, ZER},
+            /** Pos   **/  {BOT, TOP, ZER, TOP, TOP, TOP},
+            /** !Zero **/  {BOT, TOP, ZER, TOP, TOP, TOP},
+            /** Top   **/  {BOT, TOP, ZER, TOP, TOP, TOP},
+    };
+
+    // Refinement table. Defines (comparison ordinal, point) -> point, with rows
+    // in the declaration order of DivByZeroTransfer.Comparison
+    static final int[][] REFINEMENT = {
+            /** EQ   **/  {BOT, NEG, ZER, POS, NZE, TOP},
+            /** NE   **/  {TOP, TOP, NZE, TOP, ZER, BOT},
+            /** LT   **/  {BOT, NEG, NEG, TOP, TOP, TOP},
+            /** LE   **/  {BOT, NEG, TOP, TOP, TOP, TOP},
+            /** GT   **/  {BOT, TOP, POS, POS, TOP, TOP},
+            /** GE   **/  {BOT, TOP, TOP, POS, TOP, TOP},
+    };
+
+    /** Negated point (e.g. -POS => NEG), indexed by ordinal */
+    static final int[] NEGATE = {BOT, POS, ZER, NEG, NZE, TOP};
+
+    /** Negated point of an int or long; -MIN_VALUE is MIN_VALUE, so -NEG is only NZE */
+    static final int[] INTEGRAL_NEGATE = {BOT, NZE, ZER, NEG, NZE, TOP};
+
+    /** Least-upper-bound table. Defines (point, point) -> point */
+    static final int[][] LUB = new int[SIZE][SIZE];
+
+    /** Greatest-lower-bound table. Defines (point, point) -> point */
+    static final int[][] GLB = new int[SIZE][SIZE];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                LUB[i][j] = fromSigns(SIGNS[i] | SIGNS[j]);
+                GLB[i][j] = fromSigns(SIGNS[i] & SIGNS[j]);
+            }
+        }
+    }
+
+    /** Returns the lowest point whose set of signs includes the given set */
+    private static int fromSigns(int signs) {
+        for (int i = 0; i < SIZE; i++) {
+            if (SIGNS[i] == signs) {
+                return i;
+            }
+        }
+        // Not a point of the lattice (zero and one other sign), so go up
+        return TOP;
+    }
+
+    /** Compute the least-upper-bound of two points in the lattice */
+    static int lub(int x, int y) {
+        return LUB[x][y];
+    }
+
+    /** Compute the greatest-lower-bound of two points in the lattice */
+    static int glb(int x, int y) {
+        return GLB[x][y];
+    }
+
+    /** Returns the simple name of a point's qualifier, e.g. "NonZero" */
+    static String nameOf(int point) {
+        return QUALIFIERS[point].getSimpleName();
+    }
+
+    /** Returns true if x is below or equal to y in the lattice */
+    static boolean isSubtype(int x, int y) {
+        return GLB[x][y] == x;
+    }
+
+    // ========================================================================
+    // AnnotationMirror boundary
+
+    /** Canonical mirror of each point, indexed by ordinal */
+    private final AnnotationMirror[] mirrors = new AnnotationMirror[SIZE];
+
+    /** Annotation type element of each point, for identity comparisons */
+    private final Element[] elements = new Element[SIZE];
+
+    @SuppressWarnings("unchecked")
+    DivByZeroLattice(Elements elementUtils) {
+        for (int i = 0; i < SIZE; i++) {
+            mirrors[i] = AnnotationBuilder.fromClass(elementUtils, (Class<? extends Annotation>) QUALIFIERS[i]);
+            elements[i] = mirrors[i].getAnnotationType().asElement();
+        }
+    }
+
+    /** Convert a point to its canonical AnnotationMirror */
+    AnnotationMirror toMirror(int point) {
+        return mirrors[point];
+    }
+
+    /**
+     * Convert an AnnotationMirror to its point in the lattice.
+     *
+     * @return the ordinal of the point, or -1 if the mirror is not one of ours
+     */
+    int ordinalOf(AnnotationMirror am) {
+        for (int i = 0; i < SIZE; i++) {
+            if (am == mirrors[i]) {
+                return i;
+            }
+        }
+        Element element = am.getAnnotationType().asElement();
+        for (int i = 0; i < SIZE; i++) {
+            if (element == elements[i]) {
+                return i;
+            }
+        }
+        // Element identity does not hold across compilation contexts
+        for (int i = 0; i < SIZE; i++) {
+            if (AnnotationUtils.areSameByName(am, mirrors[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the point in the lattice among a set of annotations.
+     *
+     * @return the ordinal of the point, or -1 if the set contains none of ours
+     */
+    int find(Set<AnnotationMirror> annotations) {
+        for (AnnotationMirror am : annotations) {
+            int point = ordinalOf(am);
+            if (point >= 0) {
+                return point;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,14 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+
+/**
+ * Leaves some methods of a compilation unchecked: they get neither dataflow
+ * analysis nor a visitor pass, so they produce no checker diagnostics.
+ */
+interface DivByZeroMethodFilter {
+
+    /** Returns true if the method is not to be checked */
+    boolean skips(CompilationUnitTree root, MethodTree method);
+}
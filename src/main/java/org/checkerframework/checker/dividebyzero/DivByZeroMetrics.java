@@ -0,0 +1,217 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Phase timings and counters for one compilation, enabled with
+ * {@code -Adbz.metrics=<file>} and written to that file as JSON when type
+ * processing is over.
+ *
+ * <p>When disabled, every recording method returns after a single field
+ * read, so call sites need no guard of their own.
+ */
+final class DivByZeroMetrics {
+
+    /**
+     * Event counters. The label is the JSON key. Counters with a site are
+     * also timed, and their time is reported under that checker method.
+     */
+    enum Counter {
+        VISIT_EQUAL_TO("visitEqualTo", "DivByZeroTransfer.visitEqualTo"),
+        VISIT_NOT_EQUAL("visitNotEqual", "DivByZeroTransfer.visitNotEqual"),
+        VISIT_GREATER_THAN("visitGreaterThan", "DivByZeroTransfer.visitGreaterThan"),
+        VISIT_GREATER_THAN_OR_EQUAL("visitGreaterThanOrEqual", "DivByZeroTransfer.visitGreaterThanOrEqual"),
+        VISIT_LESS_THAN("visitLessThan", "DivByZeroTransfer.visitLessThan"),
+        VISIT_LESS_THAN_OR_EQUAL("visitLessThanOrEqual", "DivByZeroTransfer.visitLessThanOrEqual"),
+        VISIT_INTEGER_DIVISION("visitIntegerDivision", "DivByZeroTransfer.visitIntegerDivision"),
+        VISIT_INTEGER_REMAINDER("visitIntegerRemainder", "DivByZeroTransfer.visitIntegerRemainder"),
+        VISIT_FLOATING_DIVISION("visitFloatingDivision", "DivByZeroTransfer.visitFloatingDivision"),
+        VISIT_FLOATING_REMAINDER("visitFloatingRemainder", "DivByZeroTransfer.visitFloatingRemainder"),
+        VISIT_NUMERICAL_MULTIPLICATION("visitNumericalMultiplication", "DivByZeroTransfer.visitNumericalMultiplication"),
+        VISIT_NUMERICAL_ADDITION("visitNumericalAddition", "DivByZeroTransfer.visitNumericalAddition"),
+        VISIT_NUMERICAL_SUBTRACTION("visitNumericalSubtraction", "DivByZeroTransfer.visitNumericalSubtraction"),
+        STORE_COPIES("storeCopies", null),
+        ANNOTATED_TYPE_LOOKUPS("annotatedTypeLookups", "DivByZeroAnnotatedTypeFactory.getAnnotatedType"),
+        DIVISION_CHECKS("divisionChecks", "DivByZeroVisitor.denominatorOf"),
+        DIAGNOSTICS("diagnostics", "DivByZeroVisitor.report"),
+        BASELINE_SUPPRESSED("baselineSuppressed", null),
+        CACHE_HITS("cacheHits", null),
+        CACHE_MISSES("cacheMisses", null),
+        STUB_LOADS("stubLoads", "DivByZeroStubCache.load"),
+        METHODS_ANALYZED("methodsAnalyzed", null),
+        METHODS_SKIPPED("methodsSkipped", null);
+
+        final String label;
+
+        /** Checker method whose time this counter measures, or null if it is not timed */
+        final String site;
+
+        Counter(String label, String site) {
+            this.label = label;
+            this.site = site;
+        }
+    }
+
+    /** A metrics sink that records nothing */
+    static final DivByZeroMetrics DISABLED = new DivByZeroMetrics(null, 0);
+
+    /** Output file, or null if metrics are disabled */
+    private final String file;
+
+    /** Number of slowest methods and classes to report */
+    private final int topN;
+
+    private final boolean enabled;
+
+    private final long[] counts = new long[Counter.values().length];
+
+    /** Time spent in the site of each timed counter */
+    private final long[] nanos = new long[Counter.values().length];
+
+    private long dataflowNanos;
+    private long visitorNanos;
+
+    private final Map<String, Long> methodNanos = new HashMap<>();
+    private final Map<String, Long> classNanos = new HashMap<>();
+
+    DivByZeroMetrics(String file, int topN) {
+        this.file = file;
+        this.topN = topN;
+        this.enabled = file != null;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void count(Counter counter) {
+        if (enabled) {
+            counts[counter.ordinal()]++;
+        }
+    }
+
+    void count(Counter counter, int n) {
+        if (enabled) {
+            counts[counter.ordinal()] += n;
+        }
+    }
+
+    /** Count one call of a timed counter's site, which began at start */
+    void time(Counter counter, long start) {
+        if (enabled) {
+            counts[counter.ordinal()]++;
+            nanos[counter.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    /** Returns a start timestamp for one of the timing methods */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** Record dataflow analysis of one method, or of other code in a class if method is null */
+    void dataflow(ClassTree cls, MethodTree method, long start) {
+        if (enabled) {
+            long nanos = System.nanoTime() - start;
+            dataflowNanos += nanos;
+            classNanos.merge(classKey(cls), nanos, Long::sum);
+            if (method != null) {
+                methodNanos.merge(methodKey(method), nanos, Long::sum);
+            }
+        }
+    }
+
+    /** Record the visitor pass over one method, excluding dataflow */
+    void visitMethod(MethodTree method, long start) {
+        if (enabled) {
+            long nanos = System.nanoTime() - start;
+            methodNanos.merge(methodKey(method), nanos, Long::sum);
+        }
+    }
+
+    /** Record the visitor pass over one top-level class, excluding dataflow */
+    void visitClass(ClassTree cls, long nanos) {
+        if (enabled) {
+            visitorNanos += nanos;
+            classNanos.merge(classKey(cls), nanos, Long::sum);
+        }
+    }
+
+    long dataflowNanos() {
+        return dataflowNanos;
+    }
+
+    static String classKey(ClassTree cls) {
+        return TreeUtils.elementFromDeclaration(cls).getQualifiedName().toString();
+    }
+
+    static String methodKey(MethodTree method) {
+        ExecutableElement element = TreeUtils.elementFromDeclaration(method);
+        TypeElement owner = ElementUtils.enclosingTypeElement(element);
+        return (owner == null ? "" : owner.getQualifiedName() + "#") + element;
+    }
+
+    /** Write the collected metrics as JSON to the configured file */
+    void write() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.println("  \"dataflowNanos\": " + dataflowNanos + ",");
+            out.println("  \"visitorNanos\": " + visitorNanos + ",");
+            out.println("  \"counters\": {");
+            Counter[] counters = Counter.values();
+            for (int i = 0; i < counters.length; i++) {
+                out.println("    \"" + counters[i].label + "\": " + counts[i] + (i + 1 < counters.length ? "," : ""));
+            }
+            out.println("  },");
+            out.println("  \"sites\": {");
+            boolean first = true;
+            for (Counter counter : counters) {
+                if (counter.site != null) {
+                    out.print(first ? "" : ",\n");
+                    out.print("    \"" + counter.site + "\": {\"calls\": " + counts[counter.ordinal()]
+                            + ", \"nanos\": " + nanos[counter.ordinal()] + "}");
+                    first = false;
+                }
+            }
+            out.println();
+            out.println("  },");
+            out.println("  \"slowestMethods\": " + slowest(methodNanos) + ",");
+            out.println("  \"slowestClasses\": " + slowest(classNanos));
+            out.println("}");
+        }
+    }
+
+    private String slowest(Map<String, Long> nanos) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(nanos.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < entries.size() && i < topN; i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"name\": \"").append(escape(entries.get(i).getKey()))
+                    .append("\", \"nanos\": ").append(entries.get(i).getValue()).append('}');
+        }
+        return sb.append(entries.isEmpty() ? "]" : "\n  ]").toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,126 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The share of the methods of each compilation unit that one of several
+ * compilations of the same sources checks, with {@code -Adbz.partition=i/n}.
+ * The other methods get neither dataflow analysis nor a visitor pass, so
+ * running partitions 0 to n-1 concurrently and merging their diagnostics
+ * gives the diagnostics of a single compilation, while each class is split
+ * between n threads or processes.
+ *
+ * <p>Only methods of named classes are partitioned; those of anonymous and
+ * local classes go with the method that declares them. Field initializers
+ * and initializer blocks are checked by every partition. The methods of a
+ * compilation unit are assigned largest first to the partition with the
+ * least source text so far, which depends on nothing but the source, so every
+ * partition computes the same assignment.
+ */
+final class DivByZeroPartition implements DivByZeroMethodFilter {
+
+    private final int index;
+    private final int count;
+    private final SourcePositions positions;
+
+    /** Compilation unit whose methods were last assigned */
+    private CompilationUnitTree root;
+
+    /** Methods of root assigned to other partitions */
+    private Set<MethodTree> skipped = Collections.emptySet();
+
+    /**
+     * @param value partition number and count, e.g. {@code 0/4}
+     * @throws IllegalArgumentException if the value is malformed or out of range
+     */
+    DivByZeroPartition(String value, SourcePositions positions) {
+        int slash = value.indexOf('/');
+        try {
+            index = Integer.parseInt(value.substring(0, Math.max(slash, 0)));
+            count = Integer.parseInt(value.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected <index>/<count>, e.g. 0/4, not " + value);
+        }
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("partition " + value + " is out of range");
+        }
+        this.positions = positions;
+    }
+
+    /** Returns true if the method belongs to another partition */
+    @Override
+    public boolean skips(CompilationUnitTree root, MethodTree method) {
+        if (this.root != root) {
+            this.root = root;
+            skipped = assign(root);
+        }
+        return skipped.contains(method);
+    }
+
+    /** Returns the methods of the compilation unit that belong to other partitions */
+    private Set<MethodTree> assign(CompilationUnitTree root) {
+        List<MethodTree> methods = methodsOf(root);
+        List<long[]> order = new ArrayList<>(methods.size());
+        for (int i = 0; i < methods.size(); i++) {
+            MethodTree method = methods.get(i);
+            long start = positions.getStartPosition(root, method);
+            long end = positions.getEndPosition(root, method);
+            order.add(new long[] {Math.max(0, end - start), start, i});
+        }
+        order.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+
+        // Rotate the partitions per file, so that the methods of small files
+        // do not all go to partition 0
+        int offset = Math.floorMod(root.getSourceFile().toUri().toString().hashCode(), count);
+        long[] load = new long[count];
+        Set<MethodTree> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (long[] method : order) {
+            int least = offset;
+            for (int k = 1; k < count; k++) {
+                int p = (offset + k) % count;
+                if (load[p] < load[least]) {
+                    least = p;
+                }
+            }
+            load[least] += method[0] + 1;
+            if (least != index) {
+                skipped.add(methods.get((int) method[2]));
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Returns the methods of the named classes of a compilation unit, in
+     * source order; those of anonymous and local classes are part of the
+     * method that declares them.
+     */
+    static List<MethodTree> methodsOf(CompilationUnitTree root) {
+        List<MethodTree> methods = new ArrayList<>();
+        for (Tree decl : root.getTypeDecls()) {
+            collect(decl, methods);
+        }
+        return methods;
+    }
+
+    /** Add the methods of a class and of its member classes */
+    private static void collect(Tree tree, List<MethodTree> methods) {
+        if (tree instanceof MethodTree) {
+            methods.add((MethodTree) tree);
+        } else if (tree instanceof ClassTree) {
+            for (Tree member : ((ClassTree) tree).getMembers()) {
+                collect(member, methods);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ArrayAccessTree;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Cheap pre-pass that decides whether a method needs dataflow analysis.
+ *
+ * <p>Dataflow only matters where the visitor checks the type of an
+ * expression against something below Top: the denominator of a division
+ * (unless it is a constant expression, whose point is known without it), and
+ * the target of an assignment, argument, initializer or return whose type is
+ * not Top.
+ * A method with none of these, anywhere in its body (including lambdas and
+ * local classes, which are analyzed as part of it), would get the same
+ * diagnostics without dataflow, so its analysis can be skipped.
+ *
+ * <p>The scan is conservative: any explicit annotation in the method, or any
+ * use of a method or field whose annotated type (including stub files) has a
+ * qualifier other than Top, keeps the method analyzed. So does a variable
+ * declared below Top, even by a default, and a lambda or local class method
+ * whose return type is below Top.
+ */
+final class DivByZeroPrefilter {
+
+    private final DivByZeroAnnotatedTypeFactory atypeFactory;
+
+    DivByZeroPrefilter(DivByZeroAnnotatedTypeFactory atypeFactory) {
+        this.atypeFactory = atypeFactory;
+    }
+
+    /** Returns true if the method must be analyzed by dataflow */
+    boolean needsFlow(MethodTree method) {
+        if (TreeUtils.isConstructor(method) || method.getBody() == null) {
+            return true;
+        }
+        ExecutableElement element = TreeUtils.elementFromDeclaration(method);
+        if (usesQualified(element)) {
+            return true;
+        }
+        Scanner scanner = new Scanner();
+        scanner.scan(method.getBody(), null);
+        return scanner.found;
+    }
+
+    /**
+     * Returns true if a method has a contract or other Checker Framework
+     * declaration annotation, or a return or parameter type below Top.
+     */
+    private boolean usesQualified(ExecutableElement method) {
+        if (method == null) {
+            return true;
+        }
+        for (AnnotationMirror am : method.getAnnotationMirrors()) {
+            if (AnnotationUtils.annotationName(am).startsWith("org.checkerframework.")) {
+                return true;
+            }
+        }
+        AnnotatedExecutableType type = atypeFactory.getAnnotatedType(method);
+        if (hasQualifier(type.getReturnType())) {
+            return true;
+        }
+        for (AnnotatedTypeMirror parameter : type.getParameterTypes()) {
+            if (hasQualifier(parameter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns true if a field's or parameter's type, or any component of it, is below Top */
+    private boolean usesQualified(Element variable) {
+        return variable != null
+                && (variable.getKind() == ElementKind.FIELD || variable.getKind() == ElementKind.PARAMETER)
+                && hasQualifier(atypeFactory.getAnnotatedType(variable));
+    }
+
+    private boolean hasQualifier(AnnotatedTypeMirror type) {
+        int point = atypeFactory.getLattice().find(type.getAnnotations());
+        if (point >= 0 && point != DivByZeroLattice.TOP) {
+            return true;
+        }
+        return type instanceof AnnotatedArrayType
+                && hasQualifier(((AnnotatedArrayType) type).getComponentType());
+    }
+
+    /** Sets found on the first tree that makes dataflow necessary, then stops */
+    private class Scanner extends TreeScanner<Void, Void> {
+
+        boolean found = false;
+
+        /**
+         * Whether the return type of each enclosing lambda or local class
+         * method is below Top, innermost first; the scanned method's own
+         * return type is checked before the scan
+         */
+        private final Deque<Boolean> returnsQualified = new ArrayDeque<>();
+
+        @Override
+        public Void scan(Tree tree, Void p) {
+            if (found || tree == null) {
+                return null;
+            }
+            if (needsFlow(tree)) {
+                found = true;
+                return null;
+            }
+            return super.scan(tree, p);
+        }
+
+        @Override
+        public Void visitLambdaExpression(LambdaExpressionTree tree, Void p) {
+            returnsQualified.push(hasQualifier(atypeFactory.getFunctionTypeFromTree(tree).getReturnType()));
+            try {
+                if (tree.getBodyKind() == LambdaExpressionTree.BodyKind.EXPRESSION && returnsQualified.peek()) {
+                    found = true;
+                    return null;
+                }
+                return super.visitLambdaExpression(tree, p);
+            } finally {
+                returnsQualified.pop();
+            }
+        }
+
+        @Override
+        public Void visitMethod(MethodTree tree, Void p) {
+            ExecutableElement element = TreeUtils.elementFromDeclaration(tree);
+            returnsQualified.push(element == null
+                    || hasQualifier(atypeFactory.getAnnotatedType(element).getReturnType()));
+            try {
+                return super.visitMethod(tree, p);
+            } finally {
+                returnsQualified.pop();
+            }
+        }
+
+        private boolean needsFlow(Tree tree) {
+            switch (tree.getKind()) {
+                case DIVIDE:
+                case REMAINDER:
+                    // A constant denominator has the same point with or without dataflow
+                    return DivByZeroAnnotatedTypeFactory.constantPointOf(((BinaryTree) tree).getRightOperand()) < 0;
+                case DIVIDE_ASSIGNMENT:
+                case REMAINDER_ASSIGNMENT:
+                    return DivByZeroAnnotatedTypeFactory.constantPointOf(((CompoundAssignmentTree) tree).getExpression()) < 0
+                            || targetIsQualified(((CompoundAssignmentTree) tree).getVariable());
+                case ANNOTATION:
+                case TYPE_ANNOTATION:
+                    return true;
+                case METHOD_INVOCATION:
+                    return usesQualified(TreeUtils.elementFromUse((MethodInvocationTree) tree));
+                case NEW_CLASS:
+                    return usesQualified(TreeUtils.elementFromUse((NewClassTree) tree));
+                case ASSIGNMENT:
+                    return targetIsQualified(((AssignmentTree) tree).getVariable());
+                case RETURN:
+                    return ((ReturnTree) tree).getExpression() != null
+                            && !returnsQualified.isEmpty() && returnsQualified.peek();
+                case VARIABLE:
+                    return declaredQualified((VariableTree) tree);
+                default:
+                    return tree instanceof CompoundAssignmentTree
+                            && targetIsQualified(((CompoundAssignmentTree) tree).getVariable());
+            }
+        }
+
+        /**
+         * Returns true if a local variable or field of a local class is
+         * declared below Top, by an annotation or a default
+         */
+        private boolean declaredQualified(VariableTree tree) {
+            Element element = TreeUtils.elementFromDeclaration(tree);
+            if (element == null) {
+                return true;
+            }
+            if (element.getKind() != ElementKind.LOCAL_VARIABLE && element.getKind() != ElementKind.FIELD) {
+                // Parameters of lambdas and local class methods get no values from dataflow
+                return false;
+            }
+            return hasQualifier(atypeFactory.getAnnotatedTypeLhs(tree));
+        }
+
+        private boolean targetIsQualified(ExpressionTree target) {
+            if (target.getKind() == Tree.Kind.ARRAY_ACCESS) {
+                target = ((ArrayAccessTree) target).getExpression();
+            }
+            Element element = TreeUtils.elementFromTree(target);
+            // Unknown targets, e.g. an array returned by a call, keep the method analyzed
+            return element == null || usesQualified(element);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streaming diagnostic report, enabled with {@code -Adbz.report=<file>}.
+ *
+ * <p>Each diagnostic is formatted on the compiler thread as soon as it is
+ * reported and handed to a writer thread through a bounded queue, so memory
+ * use does not grow with the number of diagnostics and the compiler only
+ * waits if the writer falls a full queue behind. Two formats are supported:
+ * <ul>
+ *   <li>{@code ndjson}: one JSON object per line, with the file, line, column,
+ *       start and end offsets, operator, denominator qualifier and message;
+ *   <li>{@code sarif}: a SARIF 2.1.0 log with one result per diagnostic, and
+ *       the operator and denominator qualifier as result properties.
+ * </ul>
+ */
+final class DivByZeroReport {
+
+    enum Format { NDJSON, SARIF }
+
+    /** Formatted diagnostics waiting to be written */
+    private static final int QUEUE_CAPACITY = 4096;
+
+    /** Queued after the last diagnostic to stop the writer thread */
+    private static final String END = new String("end");
+
+    private static final String SARIF_HEADER = "{\n"
+            + "  \"$schema\": \"https://json.schemastore.org/sarif-2.1.0.json\",\n"
+            + "  \"version\": \"2.1.0\",\n"
+            + "  \"runs\": [{\n"
+            + "    \"tool\": {\"driver\": {\n"
+            + "      \"name\": \"Divide By Zero Checker\",\n"
+            + "      \"rules\": [{\"id\": \"divide.by.zero\", \"shortDescription\": {\"text\": \"Possible division by zero\"}}]\n"
+            + "    }},\n"
+            + "    \"results\": [";
+
+    private static final String SARIF_FOOTER = "\n    ]\n  }]\n}\n";
+
+    private final Format format;
+    private final SourcePositions positions;
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+
+    /** First failure of the writer thread, rethrown by close() */
+    private volatile IOException failure;
+
+    private boolean first = true;
+
+    DivByZeroReport(Path file, Format format, ProcessingEnvironment env) throws IOException {
+        this.format = format;
+        this.positions = Trees.instance(env).getSourcePositions();
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer = new Thread(() -> drain(out), "dbz-report");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Returns the format named by the option, or by the file extension if it is not given */
+    static Format formatOf(String option, String file) {
+        if (option != null) {
+            return Format.valueOf(option.toUpperCase(Locale.ROOT));
+        }
+        return file.endsWith(".sarif") || file.endsWith(".sarif.json") ? Format.SARIF : Format.NDJSON;
+    }
+
+    /** Add a diagnostic reported on a division or compound division assignment */
+    void add(CompilationUnitTree root, Tree tree, int denominator, String message) {
+        if (failure != null) {
+            return;
+        }
+        long start = positions.getStartPosition(root, tree);
+        long end = positions.getEndPosition(root, tree);
+        LineMap lines = root.getLineMap();
+        long line = lines.getLineNumber(start);
+        long column = lines.getColumnNumber(start);
+        String file = escape(root.getSourceFile().toUri().toString());
+        String operator = tree.getKind().name();
+        String qualifier = DivByZeroLattice.nameOf(denominator);
+
+        StringBuilder sb = new StringBuilder(256);
+        if (format == Format.NDJSON) {
+            sb.append("{\"file\": \"").append(file)
+                    .append("\", \"line\": ").append(line)
+                    .append(", \"column\": ").append(column)
+                    .append(", \"startOffset\": ").append(start)
+                    .append(", \"endOffset\": ").append(end)
+                    .append(", \"operator\": \"").append(operator)
+                    .append("\", \"denominator\": \"").append(qualifier)
+                    .append("\", \"message\": \"").append(escape(message))
+                    .append("\"}\n");
+        } else {
+            sb.append(first ? "\n" : ",\n")
+                    .append("      {\"ruleId\": \"divide.by.zero\", \"level\": \"error\", \"message\": {\"text\": \"")
+                    .append(escape(message))
+                    .append("\"}, \"locations\": [{\"physicalLocation\": {\"artifactLocation\": {\"uri\": \"")
+                    .append(file)
+                    .append("\"}, \"region\": {\"startLine\": ").append(line)
+                    .append(", \"startColumn\": ").append(column)
+                    .append(", \"charOffset\": ").append(start)
+                    .append(", \"charLength\": ").append(end - start)
+                    .append("}}}], \"properties\": {\"operator\": \"").append(operator)
+                    .append("\", \"denominator\": \"").append(qualifier)
+                    .append("\"}}");
+        }
+        first = false;
+        put(sb.toString());
+    }
+
+    /** Write everything still queued and close the file */
+    void close() throws IOException {
+        if (writer.isAlive()) {
+            put(END);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while writing the report", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Queue a formatted diagnostic. If the compiler thread is interrupted
+     * while waiting, the entry is lost, so the report fails instead of being
+     * silently incomplete: close() throws, and the writer thread stops.
+     */
+    private void put(String s) {
+        try {
+            queue.put(s);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                failure = new InterruptedIOException("interrupted while writing the report");
+            }
+            writer.interrupt();
+        }
+    }
+
+    /**
+     * Body of the writer thread. After a write fails it keeps taking from the
+     * queue, so that the compiler thread never blocks on a full queue.
+     */
+    private void drain(Writer out) {
+        try {
+            if (format == Format.SARIF) {
+                write(out, SARIF_HEADER);
+            }
+            for (String s; (s = queue.take()) != END; ) {
+                write(out, s);
+            }
+            if (format == Format.SARIF) {
+                write(out, SARIF_FOOTER);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void write(Writer out, String s) {
+        if (failure == null) {
+            try {
+                out.write(s);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+}
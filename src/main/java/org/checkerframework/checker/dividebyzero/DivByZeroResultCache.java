@@ -0,0 +1,434 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Persistent on-disk cache of the diagnostics reported for each top-level
+ * class, enabled with {@code -Adbz.cache=<dir>}.
+ *
+ * <p>An entry is keyed by a SHA-256 hash of:
+ * <ul>
+ *   <li>the source of the compilation unit and the name of the class,
+ *   <li>the checker and Checker Framework code (path, size and modification time of every file),
+ *   <li>the contents of every stub file and of the baseline, and the processor options,
+ *   <li>the signature, including type annotations and constant values, of every element
+ *       the class references from outside its compilation unit, and of every member the
+ *       class inherits,
+ *   <li>the summary of every method the class calls, if {@code -Adbz.summaries} is given.
+ * </ul>
+ * Anything that cannot be hashed makes the class uncacheable, so invalidation
+ * errs on the side of re-analysis.
+ *
+ * <p>An entry also lists the {@code -Adbz.baseline} fingerprints of the
+ * diagnostics the baseline suppressed, so that a replayed class still counts
+ * as checked and its entries are matched, recorded or listed as stale just as
+ * if it had been checked again.
+ *
+ * <p>Entries are written to a temporary file and atomically renamed into
+ * place, so concurrent compilations (e.g. parallel Gradle workers) sharing a
+ * cache directory only ever see complete entries.
+ */
+final class DivByZeroResultCache {
+
+    /**
+     * One cached diagnostic, located by the start position and kind of its
+     * tree. The denominator is the point of a division's denominator, or -1.
+     */
+    static final class Entry {
+        final Diagnostic.Kind kind;
+        final long position;
+        final Tree.Kind treeKind;
+        final int denominator;
+        final String message;
+
+        Entry(Diagnostic.Kind kind, long position, Tree.Kind treeKind, int denominator, String message) {
+            this.kind = kind;
+            this.position = position;
+            this.treeKind = treeKind;
+            this.denominator = denominator;
+            this.message = message;
+        }
+    }
+
+    /** The diagnostics of a class, and the baseline fingerprints of those it did not report */
+    static final class Stored {
+        final List<Entry> entries;
+        final List<String> baselined;
+
+        Stored(List<Entry> entries, List<String> baselined) {
+            this.entries = entries;
+            this.baselined = baselined;
+        }
+    }
+
+    /** First line of every entry file; bump when the format or key changes */
+    private static final String HEADER = "dbz-cache 3";
+
+    /** First field of a line that holds a baseline fingerprint instead of a diagnostic */
+    private static final String BASELINED = "BASELINED";
+
+    /** Options that do not affect which diagnostics are reported */
+    private static final Set<String> OUTPUT_ONLY_OPTIONS = new HashSet<>(Arrays.asList(
+            DivByZeroChecker.CACHE_OPTION,
+            DivByZeroChecker.METRICS_OPTION,
+            DivByZeroChecker.METRICS_TOP_OPTION,
+            DivByZeroChecker.REPORT_OPTION,
+            DivByZeroChecker.REPORT_FORMAT_OPTION,
+            DivByZeroChecker.REPORT_QUIET_OPTION));
+
+    private final Path dir;
+    private final Trees trees;
+    private final Elements elements;
+    private final Types types;
+
+    /** Method summaries applied at call sites, or null if not enabled */
+    private final DivByZeroSummaries summaries;
+
+    /** Hash of everything that is the same for every class in this compilation */
+    private final byte[] environment;
+
+    DivByZeroResultCache(Path dir, DivByZeroChecker checker, ProcessingEnvironment env) throws IOException {
+        this.dir = dir;
+        this.summaries = checker.getSummaries();
+        this.trees = Trees.instance(env);
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        Files.createDirectories(dir);
+
+        MessageDigest digest = sha256();
+        update(digest, HEADER);
+        update(digest, env.getSourceVersion().toString());
+        hashCodeSource(digest, DivByZeroChecker.class);
+        hashCodeSource(digest, BaseTypeChecker.class);
+        for (Map.Entry<String, String> option : new TreeMap<>(env.getOptions()).entrySet()) {
+            if (!OUTPUT_ONLY_OPTIONS.contains(option.getKey())) {
+                update(digest, option.getKey() + "=" + option.getValue());
+            }
+        }
+        String baseline = checker.getOption(DivByZeroChecker.BASELINE_OPTION);
+        if (baseline != null && Files.exists(Paths.get(baseline))) {
+            hashFiles(digest, Paths.get(baseline), true);
+        }
+        // Read from the compiler, since the checker hides the stubs from the
+        // Checker Framework when it loads them through -Adbz.stubCache
+        String stubs = env.getOptions().get("stubs");
+        if (stubs != null) {
+            for (String stub : stubs.split(File.pathSeparator)) {
+                hashFiles(digest, Paths.get(stub), true);
+            }
+        }
+        environment = digest.digest();
+    }
+
+    // ========================================================================
+    // Keys
+
+    /**
+     * Compute the cache key of a top-level class.
+     *
+     * @return the key, or null if the class cannot be cached
+     */
+    String key(CompilationUnitTree root, ClassTree cls) {
+        MessageDigest digest = sha256();
+        digest.update(environment);
+        try {
+            update(digest, root.getSourceFile().getCharContent(true).toString());
+        } catch (IOException e) {
+            return null;
+        }
+        TypeElement element = TreeUtils.elementFromDeclaration(cls);
+        update(digest, element.getQualifiedName().toString());
+        for (String signature : dependencySignatures(root, cls)) {
+            update(digest, signature);
+        }
+        return hex(digest.digest());
+    }
+
+    /** Signatures of everything outside the compilation unit that the class can see */
+    private Set<String> dependencySignatures(CompilationUnitTree root, ClassTree cls) {
+        Set<String> signatures = new TreeSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree == null) {
+                    return null;
+                }
+                if (tree instanceof ClassTree) {
+                    TypeElement declared = TreeUtils.elementFromDeclaration((ClassTree) tree);
+                    if (declared != null) {
+                        for (Element member : elements.getAllMembers(declared)) {
+                            addIfExternal(member, root, signatures);
+                        }
+                        for (TypeMirror supertype : types.directSupertypes(declared.asType())) {
+                            signatures.add("super " + supertype);
+                        }
+                    }
+                } else {
+                    Element used = elementOf(tree);
+                    if (used != null) {
+                        addIfExternal(used, root, signatures);
+                        if (summaries != null && used instanceof ExecutableElement) {
+                            signatures.add("summary " + ElementUtils.enclosingTypeElement(used).getQualifiedName() + "." + used + " = " + summaries.pointOf((ExecutableElement) used));
+                        }
+                    }
+                }
+                return super.scan(tree, p);
+            }
+        }.scan(cls, null);
+        return signatures;
+    }
+
+    private static Element elementOf(Tree tree) {
+        switch (tree.getKind()) {
+            case IDENTIFIER:
+            case MEMBER_SELECT:
+            case METHOD_INVOCATION:
+            case NEW_CLASS:
+                return TreeUtils.elementFromTree(tree);
+            default:
+                return null;
+        }
+    }
+
+    private void addIfExternal(Element element, CompilationUnitTree root, Set<String> signatures) {
+        if (element.getKind() == ElementKind.PACKAGE
+                || element.getKind() == ElementKind.LOCAL_VARIABLE
+                || element.getKind() == ElementKind.PARAMETER
+                || element.getKind() == ElementKind.EXCEPTION_PARAMETER
+                || element.getKind() == ElementKind.RESOURCE_VARIABLE) {
+            return;
+        }
+        TypeElement owner = element instanceof TypeElement
+                ? (TypeElement) element
+                : ElementUtils.enclosingTypeElement(element);
+        if (owner != null && trees.getPath(owner) != null
+                && trees.getPath(owner).getCompilationUnit() == root) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(element.getKind()).append(' ')
+                .append(owner == null ? "" : owner.getQualifiedName()).append('.')
+                .append(element).append(" : ").append(element.asType())
+                .append(' ').append(element.getAnnotationMirrors());
+        if (element instanceof VariableElement) {
+            sb.append(" = ").append(((VariableElement) element).getConstantValue());
+        }
+        signatures.add(sb.toString());
+    }
+
+    // ========================================================================
+    // Entries
+
+    /**
+     * Load the diagnostics stored under a key.
+     *
+     * @return the diagnostics, or null on a miss or an unreadable entry
+     */
+    Stored load(String key) {
+        List<Entry> entries = new ArrayList<>();
+        List<String> baselined = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(dir.resolve(key), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(in.readLine())) {
+                return null;
+            }
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.startsWith(BASELINED + "\t")) {
+                    baselined.add(unescape(line.substring(BASELINED.length() + 1)));
+                    continue;
+                }
+                String[] fields = line.split("\t", 5);
+                entries.add(new Entry(
+                        Diagnostic.Kind.valueOf(fields[0]),
+                        Long.parseLong(fields[1]),
+                        Tree.Kind.valueOf(fields[2]),
+                        Integer.parseInt(fields[3]),
+                        unescape(fields[4])));
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Treat a corrupt entry as a miss; it is overwritten after re-analysis
+            return null;
+        }
+        return new Stored(entries, baselined);
+    }
+
+    /** Store the diagnostics for a key, atomically replacing any previous entry */
+    void store(String key, List<Entry> entries, List<String> baselined) throws IOException {
+        Path tmp = Files.createTempFile(dir, key, ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                out.write(HEADER);
+                out.write('\n');
+                for (Entry entry : entries) {
+                    out.write(entry.kind + "\t" + entry.position + "\t" + entry.treeKind + "\t" + entry.denominator + "\t" + escape(entry.message));
+                    out.write('\n');
+                }
+                for (String fingerprint : baselined) {
+                    out.write(BASELINED + "\t" + escape(fingerprint));
+                    out.write('\n');
+                }
+            }
+            try {
+                Files.move(tmp, dir.resolve(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, dir.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Returns the start position used to locate a diagnostic's tree */
+    long positionOf(CompilationUnitTree root, Tree tree) {
+        return trees.getSourcePositions().getStartPosition(root, tree);
+    }
+
+    /**
+     * Find the trees the entries were reported on.
+     *
+     * @return the trees, in entry order, or null if any of them cannot be found
+     */
+    List<Tree> locate(CompilationUnitTree root, Tree cls, List<Entry> entries) {
+        SourcePositions positions = trees.getSourcePositions();
+        Map<String, Tree> byPosition = new TreeMap<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree != null) {
+                    byPosition.putIfAbsent(positions.getStartPosition(root, tree) + ":" + tree.getKind(), tree);
+                }
+                return super.scan(tree, p);
+            }
+        }.scan(cls, null);
+        List<Tree> located = new ArrayList<>();
+        for (Entry entry : entries) {
+            Tree tree = byPosition.get(entry.position + ":" + entry.treeKind);
+            if (tree == null) {
+                return null;
+            }
+            located.add(tree);
+        }
+        return located;
+    }
+
+    // ========================================================================
+    // Hashing helpers
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /** Hash the jar or class directory a class was loaded from */
+    private static void hashCodeSource(MessageDigest digest, Class<?> c) throws IOException {
+        CodeSource source = c.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            // No way to tell versions apart, so make every key unique to this run
+            update(digest, Long.toString(System.nanoTime()));
+            return;
+        }
+        try {
+            hashFiles(digest, Paths.get(source.getLocation().toURI()), false);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            update(digest, Long.toString(System.nanoTime()));
+        }
+    }
+
+    /** Hash the files under a path, by content or by path, size and modification time */
+    static void hashFiles(MessageDigest digest, Path path, boolean contents) throws IOException {
+        if (!Files.exists(path)) {
+            update(digest, "missing " + path);
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+        for (Path file : files) {
+            update(digest, file.toString());
+            if (contents) {
+                digest.update(Files.readAllBytes(file));
+            } else {
+                update(digest, Files.size(file) + "@" + Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next == 't' ? '\t' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,511 @@
+package org.checkerframework.checker.dividebyzero;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Checks a large source set with several worker JVMs and merges the results.
+ *
+ * <p>The sources are split into more shards than there are workers, balanced
+ * by file size or, when a timings file from a previous run is given, by how
+ * long each file took. Workers ({@link DivByZeroShardWorker}) stay alive for
+ * the whole run and pull the most expensive remaining shard whenever they are
+ * idle. Once the queue is empty, an idle worker re-runs the longest-running
+ * unfinished shard, and whichever copy finishes first wins, so one slow shard
+ * cannot hold up the whole run. A worker that dies mid-shard is replaced by a
+ * fresh one and the shard is re-run, until the same shard has killed three
+ * workers. Each worker writes its class files to its own directory.
+ * Diagnostics from all shards are de-duplicated and printed in file, line,
+ * column order, so the report does not depend on scheduling.
+ *
+ * <p>Usage:
+ * <pre>
+ * java -cp &lt;checker classpath&gt; org.checkerframework.checker.dividebyzero.DivByZeroShardDriver \
+ *     [--workers=N] [--shards=K] [--heap=2g] [--timings=file] [--format=text|json] [--out=file] \
+ *     &lt;source files or directories&gt; [-- &lt;javac options&gt;]
+ * </pre>
+ * The javac options (classpath, {@code -sourcepath}, {@code -A} options, ...)
+ * are passed to every shard's compilation. Give {@code -sourcepath} when
+ * sources reference each other, so each shard can see the others. Options
+ * that name one file for the whole compilation ({@code -Adbz.report},
+ * {@code -Adbz.baseline}, {@code -Adbz.baseline.write}, {@code -Adbz.index},
+ * {@code -Adbz.summaries} and {@code -Adbz.metrics}) are rejected: every
+ * worker would read and rewrite the same file, each seeing only its own
+ * shards. The exit code is 1 if any error was reported, 2 for bad arguments
+ * and 0 otherwise.
+ */
+public class DivByZeroShardDriver {
+
+    /** Exports and opens the Checker Framework needs on Java 9+; keep in sync with build.gradle. */
+    private static final List<String> JAVAC_ACCESS = Arrays.asList(
+            "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+            "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+            "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED");
+
+    /** Checker options naming a file of the whole compilation, which concurrent workers would clobber */
+    private static final List<String> WHOLE_COMPILATION_FILE_OPTIONS = Arrays.asList(
+            DivByZeroChecker.REPORT_OPTION,
+            DivByZeroChecker.BASELINE_OPTION,
+            DivByZeroChecker.BASELINE_WRITE_OPTION,
+            DivByZeroChecker.INDEX_OPTION,
+            DivByZeroChecker.SUMMARIES_OPTION,
+            DivByZeroChecker.METRICS_OPTION);
+
+    /** A worker that dies mid-shard is retried; a shard that kills this many workers fails the run */
+    private static final int MAX_FAILURES = 3;
+
+    /** A group of files checked by one javac invocation */
+    private static final class Shard {
+        final int id;
+        final List<Path> files = new ArrayList<>();
+        long cost;
+
+        int running;
+        int failures;
+        long startNanos;
+        boolean done;
+        long nanos;
+        List<DiagnosticLine> diagnostics;
+
+        Shard(int id) {
+            this.id = id;
+        }
+    }
+
+    /** A diagnostic as reported by a worker; ordered by file, line, column, kind and message */
+    private static final class DiagnosticLine implements Comparable<DiagnosticLine> {
+        final String kind;
+        final String file;
+        final long line;
+        final long column;
+        final String message;
+
+        DiagnosticLine(String kind, String file, long line, long column, String message) {
+            this.kind = kind;
+            this.file = file;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        @Override
+        public int compareTo(DiagnosticLine o) {
+            int c = file.compareTo(o.file);
+            if (c == 0) c = Long.compare(line, o.line);
+            if (c == 0) c = Long.compare(column, o.column);
+            if (c == 0) c = kind.compareTo(o.kind);
+            if (c == 0) c = message.compareTo(o.message);
+            return c;
+        }
+    }
+
+    /** A running worker process and its pipes */
+    private static final class Worker implements Closeable {
+        final Process process;
+        final PrintWriter to;
+        final BufferedReader from;
+
+        Worker(Process process) {
+            this.process = process;
+            this.to = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.from = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        /** Close the worker's input, so that it exits once it is idle */
+        @Override
+        public void close() throws IOException {
+            to.close();
+            from.close();
+        }
+    }
+
+    private final Deque<Shard> queue = new ArrayDeque<>();
+    private final List<Shard> shards = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+    private int remaining;
+    private String failure;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        List<String> sources = new ArrayList<>();
+        List<String> javacOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                javacOptions.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            } else if (args[i].startsWith("--") && args[i].contains("=")) {
+                opts.put(args[i].substring(2, args[i].indexOf('=')), args[i].substring(args[i].indexOf('=') + 1));
+            } else {
+                sources.add(args[i]);
+            }
+        }
+        for (String option : javacOptions) {
+            String name = option.startsWith("-A") ? option.substring(2).split("=", 2)[0] : null;
+            if (WHOLE_COMPILATION_FILE_OPTIONS.contains(name)) {
+                System.err.println("DivByZeroShardDriver: -A" + name + " names one file for the whole"
+                        + " compilation, which the workers would overwrite; run the checker in one javac instead");
+                System.exit(2);
+            }
+        }
+        int workers = Integer.parseInt(opts.getOrDefault("workers",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        int shardCount = Integer.parseInt(opts.getOrDefault("shards", Integer.toString(workers * 4)));
+        Path timings = opts.containsKey("timings") ? Paths.get(opts.get("timings")) : null;
+
+        List<Path> files = new ArrayList<>();
+        for (String source : sources) {
+            try (Stream<Path> walk = Files.walk(Paths.get(source))) {
+                walk.filter(f -> f.toString().endsWith(".java") && Files.isRegularFile(f))
+                        .map(Path::toAbsolutePath)
+                        .forEach(files::add);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("DivByZeroShardDriver: no source files given");
+            System.exit(2);
+        }
+
+        DivByZeroShardDriver driver = new DivByZeroShardDriver();
+        driver.partition(files, readTimings(timings), shardCount);
+        List<DiagnosticLine> diagnostics = driver.run(workers, opts.getOrDefault("heap", "2g"), javacOptions);
+        if (timings != null) {
+            driver.writeTimings(timings);
+        }
+
+        PrintStream out = opts.containsKey("out")
+                ? new PrintStream(Files.newOutputStream(Paths.get(opts.get("out"))), false, "UTF-8")
+                : System.out;
+        boolean errors = report(diagnostics, "json".equals(opts.get("format")), out);
+        out.flush();
+        System.exit(errors ? 1 : 0);
+    }
+
+    // ========================================================================
+    // Partitioning
+
+    /** Longest-processing-time-first assignment of files to shards */
+    private void partition(List<Path> files, Map<String, Long> timings, int shardCount) throws IOException {
+        // Previous timings give a cost per byte for files that have none yet
+        long knownNanos = 0;
+        long knownBytes = 0;
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path file : files) {
+            sizes.put(file, Files.size(file));
+            Long t = timings.get(file.toString());
+            if (t != null) {
+                knownNanos += t;
+                knownBytes += sizes.get(file);
+            }
+        }
+        double nanosPerByte = knownBytes == 0 ? 1 : (double) knownNanos / knownBytes;
+
+        Map<Path, Long> costs = new HashMap<>();
+        for (Path file : files) {
+            Long t = timings.get(file.toString());
+            costs.put(file, t != null ? t : (long) (sizes.get(file) * nanosPerByte));
+        }
+        List<Path> byCost = new ArrayList<>(files);
+        byCost.sort(Comparator.comparing((Path f) -> costs.get(f)).reversed().thenComparing(Path::toString));
+
+        PriorityQueue<Shard> lightest = new PriorityQueue<>(
+                Comparator.comparingLong((Shard s) -> s.cost).thenComparingInt(s -> s.id));
+        for (int i = 0; i < Math.min(shardCount, files.size()); i++) {
+            Shard shard = new Shard(i);
+            shards.add(shard);
+            lightest.add(shard);
+        }
+        for (Path file : byCost) {
+            Shard shard = lightest.poll();
+            shard.files.add(file);
+            shard.cost += costs.get(file);
+            lightest.add(shard);
+        }
+
+        List<Shard> ordered = new ArrayList<>(shards);
+        ordered.sort(Comparator.comparingLong((Shard s) -> s.cost).reversed());
+        queue.addAll(ordered);
+        remaining = shards.size();
+    }
+
+    // ========================================================================
+    // Scheduling
+
+    private List<DiagnosticLine> run(int workers, String heap, List<String> javacOptions) throws Exception {
+        Path classes = Files.createTempDirectory("dbz-shards");
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + heap);
+        if (!System.getProperty("java.specification.version").startsWith("1.")) {
+            command.addAll(JAVAC_ACCESS);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DivByZeroShardWorker.class.getName());
+        command.addAll(Arrays.asList(
+                "-processor", DivByZeroChecker.class.getName(),
+                "-processorpath", System.getProperty("java.class.path"),
+                "-implicit:none"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < Math.min(workers, shards.size()); i++) {
+            Thread thread = new Thread(() -> serve(command, classes, javacOptions), "dbz-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        synchronized (this) {
+            while (remaining > 0 && failure == null && threads.stream().anyMatch(Thread::isAlive)) {
+                wait(1000);
+            }
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+        deleteRecursively(classes);
+        if (failure != null || remaining > 0) {
+            throw new IllegalStateException(failure != null ? failure : "all workers exited before finishing");
+        }
+
+        TreeSet<DiagnosticLine> merged = new TreeSet<>();
+        for (Shard shard : shards) {
+            merged.addAll(shard.diagnostics);
+        }
+        return new ArrayList<>(merged);
+    }
+
+    /**
+     * Feed shards to one worker process until there is nothing left to do,
+     * starting a fresh process whenever the current one dies
+     */
+    private void serve(List<String> command, Path classes, List<String> javacOptions) {
+        Worker worker = null;
+        try {
+            for (Shard shard; (shard = next()) != null; ) {
+                if (worker == null) {
+                    try {
+                        worker = start(command, classes, javacOptions);
+                    } catch (IOException e) {
+                        failed("could not start a worker: " + e.getMessage());
+                        return;
+                    }
+                    if (worker == null) {
+                        return;
+                    }
+                }
+                StringBuilder request = new StringBuilder("SHARD\t").append(shard.id);
+                for (Path file : shard.files) {
+                    request.append('\t').append(file);
+                }
+                worker.to.println(request);
+                worker.to.flush();
+
+                List<DiagnosticLine> diagnostics = new ArrayList<>();
+                String line;
+                try {
+                    while ((line = worker.from.readLine()) != null && !line.startsWith("DONE\t")) {
+                        String[] f = line.split("\t", 7);
+                        if (f.length == 7 && f[0].equals("DIAG")) {
+                            diagnostics.add(new DiagnosticLine(
+                                    f[2], f[3], Long.parseLong(f[4]), Long.parseLong(f[5]),
+                                    DivByZeroShardWorker.unescape(f[6])));
+                        }
+                    }
+                } catch (IOException e) {
+                    // The worker died, or was destroyed at the end of the run
+                    line = null;
+                }
+                if (line == null) {
+                    worker.process.destroy();
+                    closeQuietly(worker);
+                    worker = null;
+                    failed(shard);
+                    continue;
+                }
+                finished(shard, Long.parseLong(line.split("\t")[2]), diagnostics);
+            }
+        } finally {
+            if (worker != null) {
+                closeQuietly(worker);
+            }
+        }
+    }
+
+    /**
+     * Start a worker process that writes its class files to a directory of
+     * its own, so that two copies of a straggler never write the same files.
+     * Returns null once the run is over: processes are started under the lock
+     * the end of the run destroys them under, so none is left running.
+     */
+    private synchronized Worker start(List<String> command, Path classes, List<String> javacOptions)
+            throws IOException {
+        if (failure != null || remaining == 0) {
+            return null;
+        }
+        Path dir = classes.resolve("worker-" + processes.size());
+        Files.createDirectories(dir);
+        List<String> workerCommand = new ArrayList<>(command);
+        workerCommand.add("-d");
+        workerCommand.add(dir.toString());
+        workerCommand.addAll(javacOptions);
+        Process process = new ProcessBuilder(workerCommand).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        processes.add(process);
+        return new Worker(process);
+    }
+
+    private static void closeQuietly(Worker worker) {
+        try {
+            worker.close();
+        } catch (IOException e) {
+            // The worker is gone already
+        }
+    }
+
+    /**
+     * Returns the next shard for an idle worker: the most expensive queued
+     * shard, or else a second copy of the longest-running straggler, or null
+     * when there is nothing useful left to do.
+     */
+    private synchronized Shard next() {
+        Shard shard = queue.poll();
+        if (shard == null) {
+            for (Shard s : shards) {
+                if (!s.done && s.running == 1 && (shard == null || s.startNanos < shard.startNanos)) {
+                    shard = s;
+                }
+            }
+        }
+        if (shard != null) {
+            if (shard.running == 0) {
+                shard.startNanos = System.nanoTime();
+            }
+            shard.running++;
+        }
+        return shard;
+    }
+
+    private synchronized void finished(Shard shard, long nanos, List<DiagnosticLine> diagnostics) {
+        shard.running--;
+        if (!shard.done) {
+            shard.done = true;
+            shard.nanos = nanos;
+            shard.diagnostics = diagnostics;
+            remaining--;
+            notifyAll();
+        }
+    }
+
+    /** End the run with an error */
+    private synchronized void failed(String why) {
+        if (failure == null && remaining > 0) {
+            failure = why;
+        }
+        notifyAll();
+    }
+
+    private synchronized void failed(Shard shard) {
+        shard.running--;
+        if (!shard.done && ++shard.failures >= MAX_FAILURES) {
+            failure = "shard " + shard.id + " crashed " + MAX_FAILURES + " workers: " + shard.files;
+        } else if (!shard.done && shard.running == 0) {
+            queue.addFirst(shard);
+        }
+        notifyAll();
+    }
+
+    // ========================================================================
+    // Timings and reporting
+
+    /** Reads "nanos TAB path" lines from a previous run; a missing file means no timings */
+    private static Map<String, Long> readTimings(Path file) throws IOException {
+        Map<String, Long> timings = new HashMap<>();
+        if (file != null && Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] f = line.split("\t", 2);
+                if (f.length == 2) {
+                    timings.put(f[1], Long.parseLong(f[0]));
+                }
+            }
+        }
+        return timings;
+    }
+
+    /** Apportions each shard's time to its files by size, for the next run's partitioning */
+    private void writeTimings(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Shard shard : shards) {
+            long bytes = 0;
+            for (Path f : shard.files) {
+                bytes += Files.size(f);
+            }
+            for (Path f : shard.files) {
+                long share = bytes == 0 ? shard.nanos / shard.files.size() : shard.nanos * Files.size(f) / bytes;
+                lines.add(share + "\t" + f);
+            }
+        }
+        lines.sort(Comparator.comparing((String l) -> l.substring(l.indexOf('\t') + 1)));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /** Print the merged diagnostics, returning true if any of them is an error */
+    private static boolean report(List<DiagnosticLine> diagnostics, boolean json, PrintStream out) {
+        boolean errors = false;
+        if (json) {
+            out.println("[");
+        }
+        for (int i = 0; i < diagnostics.size(); i++) {
+            DiagnosticLine d = diagnostics.get(i);
+            errors |= d.kind.equals("ERROR");
+            if (json) {
+                out.println("  {\"kind\": \"" + d.kind + "\", \"file\": \"" + jsonEscape(d.file)
+                        + "\", \"line\": " + d.line + ", \"column\": " + d.column
+                        + ", \"message\": \"" + jsonEscape(d.message) + "\"}"
+                        + (i + 1 < diagnostics.size() ? "," : ""));
+            } else {
+                String kind = d.kind.equals("ERROR") ? "error" : d.kind.equals("NOTE") ? "note" : "warning";
+                out.println(d.file + ":" + d.line + ": " + kind + ": " + d.message);
+            }
+        }
+        if (json) {
+            out.println("]");
+        }
+        return errors;
+    }
+
+    private static String jsonEscape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\t", "\\t");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.checkerframework.checker.dividebyzero;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Worker process for {@link DivByZeroShardDriver}.
+ *
+ * <p>Reads shard assignments from standard input, one per line, and checks
+ * each with javac and the Divide By Zero Checker in this (warm) JVM. The
+ * protocol is line-based and tab-separated:
+ * <pre>
+ * in:  SHARD  id  file  file ...
+ * out: DIAG   id  kind  file  line  column  message
+ * out: DONE   id  nanos
+ * </pre>
+ * The javac options to use are given as command-line arguments.
+ */
+public class DivByZeroShardWorker {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = Arrays.asList(args);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        PrintStream out = new PrintStream(System.out, false, "UTF-8");
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            for (String line; (line = in.readLine()) != null; ) {
+                String[] fields = line.split("\t");
+                if (fields.length < 2 || !fields[0].equals("SHARD")) {
+                    continue;
+                }
+                String id = fields[1];
+                List<File> files = new ArrayList<>();
+                for (int i = 2; i < fields.length; i++) {
+                    files.add(new File(fields[i]));
+                }
+
+                long start = System.nanoTime();
+                DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+                compiler.getTask(null, fileManager, diagnostics, options, null,
+                        fileManager.getJavaFileObjectsFromFiles(files)).call();
+                long nanos = System.nanoTime() - start;
+
+                for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                    out.println("DIAG\t" + id
+                            + "\t" + d.getKind()
+                            + "\t" + (d.getSource() == null ? "" : d.getSource().getName())
+                            + "\t" + d.getLineNumber()
+                            + "\t" + d.getColumnNumber()
+                            + "\t" + escape(d.getMessage(null)));
+                }
+                out.println("DONE\t" + id + "\t" + nanos);
+                out.flush();
+            }
+        }
+    }
+
+    static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\n", "\\n").replace("\t", "\\t");
+    }
+
+    static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 't' ? '\t' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,428 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Options;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.stub.AnnotationFileParser;
+import org.checkerframework.framework.stub.AnnotationFileParser.AnnotationFileAnnotations;
+import org.checkerframework.framework.stub.AnnotationFileUtil.AnnotationFileType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
+import org.checkerframework.javacutil.ElementUtils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Binary cache of the qualifiers in the {@code -Astubs} files, enabled with
+ * {@code -Adbz.stubCache=<dir>}.
+ *
+ * <p>With the cache, the checker loads the stub files instead of the Checker
+ * Framework. The first run parses them with the framework's stub parser and
+ * writes the divide-by-zero qualifier of every type in every field and method
+ * signature they annotate to a file named by the SHA-256 of the stub files'
+ * paths and contents, and of what the parse resolved them against: the
+ * checker and Checker Framework jars, the JDK, and the classpath (path, size
+ * and modification time of every file). Later runs with the same key read
+ * that file, and apply a class's entries only when one of its members is
+ * first looked up, so no stub file is parsed at all. Editing a stub file or
+ * changing the classpath changes the key, and the next run parses again.
+ *
+ * <p>Only the checker's own qualifiers are cached: other annotations in the
+ * stub files, such as purity annotations, are not applied while the cache is
+ * in use. Warnings about the stub files are reported only by the run that
+ * parses them.
+ *
+ * <p>The file is binary: a header, then for each class its binary name and,
+ * for each annotated member, its key and the point of every type in its
+ * signature, or -1 for a type without a qualifier.
+ */
+final class DivByZeroStubCache {
+
+    /** First bytes of a stub cache file ("DBZA") */
+    private static final int MAGIC = 0x44425A41;
+
+    /** Bump when the file format, the type order or the lattice changes */
+    private static final int VERSION = 1;
+
+    /** The stub files, in the order the Checker Framework would parse them */
+    private final List<Path> stubFiles;
+
+    /** Cache file of the current stub files */
+    private final Path file;
+
+    /** Points of each annotated member, by member key, by binary class name; null until loaded */
+    private Map<String, Map<String, byte[]>> classes;
+
+    /** Points of the annotated members of each class looked up so far */
+    private final Map<TypeElement, Map<Element, byte[]>> resolved = new IdentityHashMap<>();
+
+    private Elements elements;
+    private Types types;
+
+    /**
+     * Hash the stub files named by the stubs option, and what they are parsed
+     * against.
+     *
+     * @throws IOException if a stub file cannot be read, or is not a file or
+     *     directory, or if the checker's code cannot be identified, in which
+     *     case the Checker Framework should load the stubs
+     */
+    DivByZeroStubCache(Path dir, String stubs, ProcessingEnvironment env) throws IOException {
+        stubFiles = new ArrayList<>();
+        for (String stub : stubs.split(File.pathSeparator)) {
+            Path path = Paths.get(stub);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".astub"))
+                            .sorted().forEach(stubFiles::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                stubFiles.add(path);
+            } else {
+                throw new IOException("no stub file or directory " + stub);
+            }
+        }
+
+        MessageDigest digest = sha256();
+        digest.update(("dbz-stubs " + VERSION).getBytes(StandardCharsets.UTF_8));
+        for (Path stubFile : stubFiles) {
+            digest.update((byte) 0);
+            digest.update(stubFile.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(stubFile));
+        }
+        // Stub entries for classes or members that do not resolve are dropped
+        // by the parse, so the result depends on everything it resolves against
+        hashCodeSource(digest, DivByZeroChecker.class);
+        hashCodeSource(digest, BaseTypeChecker.class);
+        digest.update((byte) 0);
+        digest.update((System.getProperty("java.home") + " " + System.getProperty("java.vm.version") + " "
+                + env.getSourceVersion()).getBytes(StandardCharsets.UTF_8));
+        JavaFileManager fileManager = null;
+        if (env instanceof JavacProcessingEnvironment) {
+            Context context = ((JavacProcessingEnvironment) env).getContext();
+            digest.update((byte) 0);
+            digest.update(String.valueOf(Options.instance(context).get("--release")).getBytes(StandardCharsets.UTF_8));
+            fileManager = context.get(JavaFileManager.class);
+        }
+        for (File entry : classpath(fileManager)) {
+            DivByZeroResultCache.hashFiles(digest, entry.toPath(), false);
+        }
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest.digest()) {
+            name.append(String.format("%02x", b));
+        }
+        Files.createDirectories(dir);
+        file = dir.resolve(name.append(".stubs").toString());
+    }
+
+    /** The platform classpath and classpath of the compilation, as far as they can be told */
+    private static List<File> classpath(JavaFileManager fileManager) {
+        List<File> entries = new ArrayList<>();
+        if (fileManager instanceof StandardJavaFileManager) {
+            for (StandardLocation location : new StandardLocation[] {
+                    StandardLocation.PLATFORM_CLASS_PATH, StandardLocation.CLASS_PATH}) {
+                Iterable<? extends File> files = ((StandardJavaFileManager) fileManager).getLocation(location);
+                if (files != null) {
+                    files.forEach(entries::add);
+                }
+            }
+        } else {
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                entries.add(new File(entry));
+            }
+        }
+        return entries;
+    }
+
+    /** Hash the jar or class directory a class was loaded from */
+    private static void hashCodeSource(MessageDigest digest, Class<?> c) throws IOException {
+        CodeSource source = c.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            throw new IOException("cannot tell which version of " + c.getName() + " is running");
+        }
+        try {
+            DivByZeroResultCache.hashFiles(digest, Paths.get(source.getLocation().toURI()), false);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("cannot tell which version of " + c.getName() + " is running", e);
+        }
+    }
+
+    // ========================================================================
+    // Loading
+
+    /**
+     * Read the cached qualifiers of the stub files, or parse the stub files
+     * and cache their qualifiers if no valid cache file exists.
+     *
+     * @throws IOException if a stub file cannot be read, or if the cache file
+     *     cannot be written, in which case the parsed qualifiers are applied
+     *     regardless
+     */
+    void load(DivByZeroAnnotatedTypeFactory atypeFactory) throws IOException {
+        elements = atypeFactory.getElementUtils();
+        types = atypeFactory.getProcessingEnv().getTypeUtils();
+        classes = read(file);
+        if (classes != null) {
+            return;
+        }
+        AnnotationFileAnnotations annotations = new AnnotationFileAnnotations();
+        for (Path stubFile : stubFiles) {
+            try (InputStream in = Files.newInputStream(stubFile)) {
+                AnnotationFileParser.parseStubFile(stubFile.toString(), in, atypeFactory,
+                        atypeFactory.getProcessingEnv(), annotations, AnnotationFileType.COMMAND_LINE_STUB);
+            }
+        }
+        classes = extract(annotations, atypeFactory.getLattice());
+        write();
+    }
+
+    /** Qualifiers of the members the stub files annotate, keyed as in the cache file */
+    private Map<String, Map<String, byte[]>> extract(AnnotationFileAnnotations annotations, DivByZeroLattice lattice) {
+        Map<String, Map<String, byte[]>> extracted = new TreeMap<>();
+        for (Map.Entry<Element, AnnotatedTypeMirror> entry : annotations.atypes.entrySet()) {
+            Element member = entry.getKey();
+            if (!isMember(member)) {
+                continue;
+            }
+            List<AnnotatedTypeMirror> positions = new ArrayList<>();
+            positions(entry.getValue(), positions);
+            byte[] points = new byte[positions.size()];
+            boolean annotated = false;
+            for (int i = 0; i < points.length; i++) {
+                points[i] = (byte) lattice.find(positions.get(i).getAnnotations());
+                annotated |= points[i] >= 0;
+            }
+            if (annotated) {
+                TypeElement owner = (TypeElement) member.getEnclosingElement();
+                extracted.computeIfAbsent(elements.getBinaryName(owner).toString(), k -> new TreeMap<>())
+                        .put(key(member), points);
+            }
+        }
+        return extracted;
+    }
+
+    // ========================================================================
+    // Lookup
+
+    /**
+     * Replace the qualifiers of an element's type with those the stub files
+     * give it. Like the Checker Framework, stub files only apply to elements
+     * loaded from class files.
+     */
+    void apply(Element element, AnnotatedTypeMirror type, DivByZeroLattice lattice) {
+        if (classes == null || classes.isEmpty() || !isMember(element)) {
+            return;
+        }
+        TypeElement owner = (TypeElement) element.getEnclosingElement();
+        Map<Element, byte[]> members = resolved.get(owner);
+        if (members == null) {
+            members = resolve(owner);
+            resolved.put(owner, members);
+        }
+        byte[] points = members.get(element);
+        if (points == null || !ElementUtils.isElementFromByteCode(element)) {
+            return;
+        }
+        List<AnnotatedTypeMirror> positions = new ArrayList<>();
+        positions(type, positions);
+        if (positions.size() != points.length) {
+            // The class no longer has the shape the stub file was written for
+            return;
+        }
+        for (int i = 0; i < points.length; i++) {
+            if (points[i] >= 0) {
+                positions.get(i).replaceAnnotation(lattice.toMirror(points[i]));
+            }
+        }
+    }
+
+    /** Match the cached members of a class to its elements */
+    private Map<Element, byte[]> resolve(TypeElement owner) {
+        Map<String, byte[]> byKey = classes.get(elements.getBinaryName(owner).toString());
+        if (byKey == null) {
+            return Collections.emptyMap();
+        }
+        Map<Element, byte[]> members = new HashMap<>();
+        for (Element member : owner.getEnclosedElements()) {
+            if (isMember(member)) {
+                byte[] points = byKey.get(key(member));
+                if (points != null) {
+                    members.put(member, points);
+                }
+            }
+        }
+        return members;
+    }
+
+    private static boolean isMember(Element element) {
+        switch (element.getKind()) {
+            case FIELD:
+            case ENUM_CONSTANT:
+            case METHOD:
+            case CONSTRUCTOR:
+                return element.getEnclosingElement() instanceof TypeElement;
+            default:
+                return false;
+        }
+    }
+
+    /** Name of a field, or name and erased parameter types of a method */
+    private String key(Element member) {
+        if (!(member instanceof ExecutableElement)) {
+            return member.getSimpleName().toString();
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(member.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = ((ExecutableElement) member).getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(types.erasure(parameters.get(i).asType()));
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * List the types inside a member's type in a fixed order: for a method,
+     * the return type and then each parameter type; each type before its
+     * component or type arguments. Type variable bounds are not entered, so
+     * that recursive bounds end the walk.
+     */
+    private static void positions(AnnotatedTypeMirror type, List<AnnotatedTypeMirror> out) {
+        switch (type.getKind()) {
+            case EXECUTABLE:
+                AnnotatedExecutableType method = (AnnotatedExecutableType) type;
+                positions(method.getReturnType(), out);
+                for (AnnotatedTypeMirror parameter : method.getParameterTypes()) {
+                    positions(parameter, out);
+                }
+                return;
+            case ARRAY:
+                out.add(type);
+                positions(((AnnotatedArrayType) type).getComponentType(), out);
+                return;
+            case DECLARED:
+                out.add(type);
+                for (AnnotatedTypeMirror argument : ((AnnotatedDeclaredType) type).getTypeArguments()) {
+                    positions(argument, out);
+                }
+                return;
+            case WILDCARD:
+                out.add(type);
+                positions(((AnnotatedWildcardType) type).getExtendsBound(), out);
+                positions(((AnnotatedWildcardType) type).getSuperBound(), out);
+                return;
+            default:
+                out.add(type);
+        }
+    }
+
+    // ========================================================================
+    // File format
+
+    /** Read a cache file, or return null if it is missing, corrupt or of another version */
+    private static Map<String, Map<String, byte[]>> read(Path file) {
+        Map<String, Map<String, byte[]>> read = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int classCount = in.readInt();
+            for (int i = 0; i < classCount; i++) {
+                String owner = in.readUTF();
+                int memberCount = in.readInt();
+                Map<String, byte[]> members = new HashMap<>(memberCount * 2);
+                for (int j = 0; j < memberCount; j++) {
+                    String key = in.readUTF();
+                    byte[] points = new byte[in.readInt()];
+                    in.readFully(points);
+                    members.put(key, points);
+                }
+                read.put(owner, members);
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Treat a corrupt file as a miss; it is overwritten after parsing
+            return null;
+        }
+        return read;
+    }
+
+    /** Write the qualifiers of the stub files, atomically replacing any previous file */
+    private void write() throws IOException {
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(classes.size());
+                for (Map.Entry<String, Map<String, byte[]>> owner : classes.entrySet()) {
+                    out.writeUTF(owner.getKey());
+                    out.writeInt(owner.getValue().size());
+                    for (Map.Entry<String, byte[]> member : owner.getValue().entrySet()) {
+                        out.writeUTF(member.getKey());
+                        out.writeInt(member.getValue().length);
+                        out.write(member.getValue());
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package org.checkerframework.checker.dividebyzero;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.TreeUtils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Persistent return-qualifier summaries, enabled with
+ * {@code -Adbz.summaries=<file>}.
+ *
+ * <p>After a method is checked, the lub of the qualifiers of its return
+ * expressions becomes its summary. At a call site, the summary replaces the
+ * default Top return type, so {@code x / computeStride()} is accepted when
+ * every return in {@code computeStride} is Positive. Explicit annotations and
+ * stub files take precedence, and only methods that cannot be overridden
+ * (static, private or final methods, or methods of final classes) with an
+ * {@code int} or {@code long} (or boxed) return type are summarized.
+ *
+ * <p>Each summary records a hash of the method's source, a fingerprint of
+ * the return type of every method it calls, and a fingerprint of every field
+ * it reads. A callee's fingerprint covers its annotated return type, from the
+ * declaration, stubs and defaults, and its own summary where that applies at
+ * the call site; a field's covers its annotated type and constant value. A
+ * summary is used only if the method's source (when it is part of the
+ * compilation) is unchanged and every fingerprint still matches, so editing a
+ * method, the annotations of a callee or a constant invalidates it and its
+ * callers until they are re-checked. Summaries computed in a run are only
+ * used by later runs, which keeps diagnostics independent of the order classes
+ * are checked in; a change can take one more run to reach callers of callers.
+ *
+ * <p>At the end of the run, the loaded summaries and those computed in this
+ * run are merged and written back atomically. The file is binary: a header,
+ * a table of method and field keys, then one record per method with its point,
+ * source hash, and the key index and fingerprint of every method it calls and
+ * every field it reads.
+ */
+final class DivByZeroSummaries {
+
+    /** First bytes of a summary file ("DBZS") */
+    private static final int MAGIC = 0x44425A53;
+
+    /** Bump when the file format or the meaning of a summary changes */
+    private static final int VERSION = 4;
+
+    /** One method summary, loaded from the file or computed in this run */
+    private static final class Summary {
+        final int point;
+        final long hash;
+        /** Keys and fingerprints of the methods this one calls */
+        final Map<String, Long> dependencies;
+        /** Keys and fingerprints of the fields this one reads */
+        final Map<String, Long> fields;
+
+        Summary(int point, long hash, Map<String, Long> dependencies, Map<String, Long> fields) {
+            this.point = point;
+            this.hash = hash;
+            this.dependencies = dependencies;
+            this.fields = fields;
+        }
+    }
+
+    private final Path file;
+    private final Trees trees;
+    private final Elements elements;
+    private final Types types;
+
+    /** Summaries read from the file, by key */
+    private final Map<String, Summary> loaded;
+
+    /** Summaries computed in this run, by key */
+    private final Map<String, Summary> inferred = new TreeMap<>();
+
+    /** Point of every loaded summary checked so far, or TOP if it no longer holds */
+    private final Map<String, Integer> validated = new HashMap<>();
+
+    /** Gives the declared types of fields and methods; set once the factory is built */
+    private DivByZeroAnnotatedTypeFactory atypeFactory;
+
+    DivByZeroSummaries(Path file, ProcessingEnvironment env) throws IOException {
+        this.file = file;
+        this.trees = Trees.instance(env);
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.loaded = read(file);
+    }
+
+    /** Use the factory's declared types, which include stubs and defaults */
+    void setTypeFactory(DivByZeroAnnotatedTypeFactory atypeFactory) {
+        this.atypeFactory = atypeFactory;
+    }
+
+    // ========================================================================
+    // Lookup
+
+    /**
+     * Returns the summarized return point of a method, or TOP if it has no
+     * summary that still holds.
+     */
+    int pointOf(ExecutableElement method) {
+        return summarizable(method) ? validate(key(method)) : DivByZeroLattice.TOP;
+    }
+
+    /** Returns true if summaries are computed for this method */
+    boolean infers(MethodTree method) {
+        return summarizable(TreeUtils.elementFromDeclaration(method));
+    }
+
+    /**
+     * Returns the point of a loaded summary if it still holds. Cycles are
+     * assumed to hold while they are being checked.
+     */
+    private int validate(String key) {
+        Integer known = validated.get(key);
+        if (known != null) {
+            return known;
+        }
+        Summary summary = loaded.get(key);
+        if (summary == null) {
+            validated.put(key, DivByZeroLattice.TOP);
+            return DivByZeroLattice.TOP;
+        }
+        validated.put(key, summary.point);
+        boolean holds = sourceUnchanged(key, summary.hash);
+        for (Map.Entry<String, Long> field : summary.fields.entrySet()) {
+            if (!holds) {
+                break;
+            }
+            VariableElement element = resolveField(field.getKey());
+            holds = element != null && fingerprint(element) == field.getValue();
+        }
+        for (Map.Entry<String, Long> dependency : summary.dependencies.entrySet()) {
+            if (!holds) {
+                break;
+            }
+            ExecutableElement callee = resolve(dependency.getKey());
+            holds = callee != null && fingerprint(callee) == dependency.getValue();
+        }
+        int point = holds ? summary.point : DivByZeroLattice.TOP;
+        validated.put(key, point);
+        return point;
+    }
+
+    /**
+     * Returns false if the method no longer exists, or if it is part of this
+     * compilation and its source has changed. Methods from class files are
+     * trusted to match the summaries written when they were compiled.
+     */
+    private boolean sourceUnchanged(String key, long hash) {
+        ExecutableElement method = resolve(key);
+        if (method == null || !summarizable(method)) {
+            return false;
+        }
+        Tree tree = trees.getTree(method);
+        return tree == null || hash(tree) == hash;
+    }
+
+    // ========================================================================
+    // Inference
+
+    /**
+     * Compute the summary of a method that has just been checked, so that its
+     * return expressions have their flow-refined types.
+     */
+    void infer(MethodTree method, DivByZeroAnnotatedTypeFactory atypeFactory) {
+        ExecutableElement element = TreeUtils.elementFromDeclaration(method);
+        if (method.getBody() == null || !summarizable(element)) {
+            return;
+        }
+        DivByZeroLattice lattice = atypeFactory.getLattice();
+        int[] point = {DivByZeroLattice.BOT};
+        Map<String, Long> dependencies = new TreeMap<>();
+        Map<String, Long> fields = new TreeMap<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitReturn(ReturnTree tree, Void p) {
+                if (tree.getExpression() != null) {
+                    int returned = lattice.find(atypeFactory.getAnnotatedType(tree.getExpression()).getAnnotations());
+                    point[0] = returned < 0 ? DivByZeroLattice.TOP : DivByZeroLattice.lub(point[0], returned);
+                }
+                return super.visitReturn(tree, p);
+            }
+
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+                ExecutableElement callee = TreeUtils.elementFromUse(tree);
+                if (callee != null) {
+                    // Every callee, since any return type may flow into a
+                    // return; also when the callee has no summary yet, so
+                    // that this one is recomputed once the callee gets one
+                    dependencies.put(key(callee), fingerprint(callee));
+                }
+                return super.visitMethodInvocation(tree, p);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree tree, Void p) {
+                addField(tree);
+                return super.visitIdentifier(tree, p);
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree tree, Void p) {
+                addField(tree);
+                return super.visitMemberSelect(tree, p);
+            }
+
+            /** Record a field read, whose constant value or qualifier may flow into a return */
+            private void addField(ExpressionTree tree) {
+                Element used = TreeUtils.elementFromUse(tree);
+                if (used != null && used.getKind().isField() && !TreeUtils.isArrayLengthAccess(tree)) {
+                    VariableElement field = (VariableElement) used;
+                    fields.put(key(field), fingerprint(field));
+                }
+            }
+
+            // Returns in lambdas and local classes belong to other methods
+
+            @Override
+            public Void visitLambdaExpression(LambdaExpressionTree tree, Void p) {
+                return null;
+            }
+
+            @Override
+            public Void visitClass(ClassTree tree, Void p) {
+                return null;
+            }
+        }.scan(method.getBody(), null);
+
+        if (point[0] == DivByZeroLattice.BOT) {
+            // Never returns normally; leave it to its declared type
+            point[0] = DivByZeroLattice.TOP;
+        }
+        inferred.put(key(element), new Summary(point[0], hash(method), dependencies, fields));
+    }
+
+    /**
+     * Only methods that cannot be overridden are summarized, since a call
+     * may otherwise dispatch to a different body.
+     */
+    private boolean summarizable(ExecutableElement method) {
+        if (method == null || method.getKind() != ElementKind.METHOD || !isIntegral(method.getReturnType())) {
+            return false;
+        }
+        TypeElement owner = (TypeElement) method.getEnclosingElement();
+        return method.getModifiers().contains(Modifier.STATIC)
+                || method.getModifiers().contains(Modifier.PRIVATE)
+                || method.getModifiers().contains(Modifier.FINAL)
+                || owner.getModifiers().contains(Modifier.FINAL);
+    }
+
+    private boolean isIntegral(TypeMirror type) {
+        if (type.getKind() == TypeKind.INT || type.getKind() == TypeKind.LONG) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        String name = types.erasure(type).toString();
+        return name.equals("java.lang.Integer") || name.equals("java.lang.Long");
+    }
+
+    // ========================================================================
+    // Keys
+
+    /** Binary name of the owner, then the method name and erased parameter types */
+    private String key(ExecutableElement method) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(elements.getBinaryName((TypeElement) method.getEnclosingElement()))
+                .append('#').append(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(types.erasure(parameters.get(i).asType()));
+        }
+        return sb.append(')').toString();
+    }
+
+    /** Binary name of the owner, then the field name */
+    private String key(VariableElement field) {
+        return elements.getBinaryName((TypeElement) field.getEnclosingElement()) + "#" + field.getSimpleName();
+    }
+
+    /** Find the method a key refers to, or null if it no longer exists */
+    private ExecutableElement resolve(String key) {
+        TypeElement owner = owner(key);
+        if (owner == null) {
+            return null;
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+            if (key(method).equals(key)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /** Find the field a key refers to, or null if it no longer exists */
+    private VariableElement resolveField(String key) {
+        TypeElement owner = owner(key);
+        if (owner == null) {
+            return null;
+        }
+        String name = key.substring(key.indexOf('#') + 1);
+        for (VariableElement field : ElementFilter.fieldsIn(owner.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private TypeElement owner(String key) {
+        int hash = key.indexOf('#');
+        if (hash < 0) {
+            return null;
+        }
+        // Binary names of nested classes use '$'; this is a best-effort
+        // lookup, and a miss only means the summary is not used
+        return elements.getTypeElement(key.substring(0, hash).replace('$', '.'));
+    }
+
+    /**
+     * Hash of what a method learns from reading a field: its constant value,
+     * if any, and its declared type with all its qualifiers, including stubs
+     * and defaults.
+     */
+    private long fingerprint(VariableElement field) {
+        String declared = atypeFactory == null ? field.asType().toString()
+                : atypeFactory.getAnnotatedType(field).toString(true);
+        return hash(declared + " = " + field.getConstantValue());
+    }
+
+    /**
+     * Hash of what a method learns from calling another: the callee's declared
+     * return type with all its qualifiers, including stubs and defaults, and
+     * the callee's summary if it replaces that type at call sites.
+     */
+    private long fingerprint(ExecutableElement callee) {
+        if (atypeFactory == null) {
+            return hash(callee.getReturnType().toString());
+        }
+        AnnotatedTypeMirror returned = atypeFactory.getAnnotatedType(callee).getReturnType();
+        String declared = returned.toString(true);
+        if (summarizable(callee) && atypeFactory.getLattice().find(returned.getAnnotations()) == DivByZeroLattice.TOP) {
+            declared += " summary " + validate(key(callee));
+        }
+        return hash(declared);
+    }
+
+    /** First 64 bits of the SHA-256 of a method's source, as printed by javac */
+    private static long hash(Tree method) {
+        return hash(method.toString());
+    }
+
+    /** First 64 bits of the SHA-256 of a string */
+    private static long hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // ========================================================================
+    // File format
+
+    /**
+     * Read a summary file. A missing file is empty; an unreadable one is
+     * reported so that it is not silently overwritten.
+     */
+    private static Map<String, Summary> read(Path file) throws IOException {
+        Map<String, Summary> summaries = new TreeMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a summary file of this version");
+            }
+            String[] keys = new String[in.readInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = in.readUTF();
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = keys[in.readInt()];
+                int point = in.readByte();
+                long hash = in.readLong();
+                int dependencyCount = in.readInt();
+                Map<String, Long> dependencies = new TreeMap<>();
+                for (int j = 0; j < dependencyCount; j++) {
+                    dependencies.put(keys[in.readInt()], in.readLong());
+                }
+                int fieldCount = in.readInt();
+                Map<String, Long> fields = new TreeMap<>();
+                for (int j = 0; j < fieldCount; j++) {
+                    fields.put(keys[in.readInt()], in.readLong());
+                }
+                summaries.put(key, new Summary(point, hash, dependencies, fields));
+            }
+        } catch (NoSuchFileException e) {
+            // First run
+        } catch (RuntimeException e) {
+            throw new IOException(file + " is corrupt", e);
+        }
+        return summaries;
+    }
+
+    /**
+     * Merge the summaries computed in this run into the file, atomically
+     * replacing it. The file starts with a table of every method key, which
+     * the records refer to by index.
+     */
+    void write() throws IOException {
+        if (inferred.isEmpty()) {
+            return;
+        }
+        Map<String, Summary> merged = new TreeMap<>(loaded);
+        merged.putAll(inferred);
+        Map<String, Integer> index = new TreeMap<>();
+        for (Map.Entry<String, Summary> entry : merged.entrySet()) {
+            index.put(entry.getKey(), 0);
+            for (String dependency : entry.getValue().dependencies.keySet()) {
+                index.put(dependency, 0);
+            }
+            for (String field : entry.getValue().fields.keySet()) {
+                index.put(field, 0);
+            }
+        }
+        List<String> keys = new ArrayList<>(index.keySet());
+        for (int i = 0; i < keys.size(); i++) {
+            index.put(keys.get(i), i);
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(keys.size());
+                for (String key : keys) {
+                    out.writeUTF(key);
+                }
+                out.writeInt(merged.size());
+                for (Map.Entry<String, Summary> entry : merged.entrySet()) {
+                    Summary summary = entry.getValue();
+                    out.writeInt(index.get(entry.getKey()));
+                    out.writeByte(summary.point);
+                    out.writeLong(summary.hash);
+                    out.writeInt(summary.dependencies.size());
+                    for (Map.Entry<String, Long> dependency : summary.dependencies.entrySet()) {
+                        out.writeInt(index.get(dependency.getKey()));
+                        out.writeLong(dependency.getValue());
+                    }
+                    out.writeInt(summary.fields.size());
+                    for (Map.Entry<String, Long> field : summary.fields.entrySet()) {
+                        out.writeInt(index.get(field.getKey()));
+                        out.writeLong(field.getValue());
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package org.checkerframework.checker.dividebyzero;
 
 import org.checkerframework.dataflow.expression.JavaExpression;
-import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.framework.flow.CFAbstractStore;
 import org.checkerframework.framework.flow.CFTransfer;
 import org.checkerframework.framework.flow.CFValue;
 import org.checkerframework.framework.flow.CFStore;
@@ -11,16 +11,9 @@ import org.checkerframework.dataflow.analysis.TransferInput;
 import org.checkerframework.dataflow.analysis.TransferResult;
 import org.checkerframework.dataflow.analysis.RegularTransferResult;
 import org.checkerframework.dataflow.analysis.ConditionalTransferResult;
-import org.checkerframework.javacutil.AnnotationBuilder;
-import org.checkerframework.javacutil.AnnotationUtils;
 
 import javax.lang.model.element.AnnotationMirror;
-import java.lang.annotation.Annotation;
-
-import java.util.Arrays;
-import java.util.Set;
-
-import org.checkerframework.checker.dividebyzero.qual.*;
+import javax.lang.model.type.TypeKind;
 
 public class DivByZeroTransfer extends CFTransfer {
 
@@ -41,54 +34,11 @@ public class DivByZeroTransfer extends CFTransfer {
         /** % */ MOD
     }
 
-    // All possible points in our lattice
-    private final AnnotationMirror BOT = reflect(Bot.class);
-    private final AnnotationMirror NEG = reflect(Negative.class);
-    private final AnnotationMirror ZER = reflect(Zero.class);
-    private final AnnotationMirror POS = reflect(Positive.class);
-    private final AnnotationMirror NZE = reflect(NonZero.class);
-    private final AnnotationMirror TOP = reflect(Top.class);
-
-    // Transfer table used for DIVIDE and MOD operators. Defines (point, point) -> point
-    private AnnotationMirror[][] DIVIDE_TRANSFER = new AnnotationMirror[][]{
-            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
-            /** Neg   **/  {BOT, POS, TOP, NEG, NZE, TOP},
-            /** Zero  **/  {BOT, ZER, TOP, ZER, ZER, TOP},
-            /** Pos   **/  {BOT, NEG, TOP, POS, NZE, TOP},
-            /** !Zero **/  {BOT, NZE, TOP, NZE, NZE, TOP},
-            /** Top   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
-    };
-
-    // Transfer table used for PLUS and MINUS operators. Defines (point, point) -> point
-    private AnnotationMirror[][] PLUS_TRANSFER = new AnnotationMirror[][]{
-            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
-            /** Neg   **/  {BOT, NEG, NEG, TOP, TOP, TOP},
-            /** Zero  **/  {BOT, NEG, ZER, POS, NZE, TOP},
-            /** Pos   **/  {BOT, TOP, ZER, POS, TOP, TOP},
-            /** !Zero **/  {BOT, TOP, NZE, TOP, TOP, TOP},
-            /** Top   **/  {BOT, TOP, TOP, TOP, TOP, TOP},
-    };
-
-    // Transfer table used for TIMES operators. Defines (point, point) -> point
-    private AnnotationMirror[][] TIMES_TRANSFER = new AnnotationMirror[][]{
-            /** Bot   **/  {BOT, BOT, BOT, BOT, BOT, BOT},
-            /** Neg   **/  {BOT, POS, ZER, NEG, NZE, TOP},
-            /** Zero  **/  {BOT, ZER, ZER, ZER, ZER, ZER},
-            /** Pos   **/  {BOT, NEG, ZER, POS, NZE, TOP},
-            /** !Zero **/  {BOT, NZE, ZER, NZE, NZE, TOP},
-            /** Top   **/  {BOT, TOP, ZER, TOP, TOP, TOP},
-    };
-
-    // Refinement table used for REFINEMENT. Defines (op, point) -> point
-    private AnnotationMirror[][] REFINEMENT = new AnnotationMirror[][]{
-            /** EQ   **/  {BOT, NEG, ZER, POS, NZE, TOP},
-            /** NE   **/  {TOP, TOP, NZE, TOP, ZER, BOT},
-            /** LT   **/  {BOT, NEG, NEG, TOP, TOP, TOP},
-            /** GT   **/  {BOT, TOP, POS, POS, TOP, TOP},
-            /** LE   **/  {BOT, NEG, TOP, TOP, TOP, TOP},
-            /** GE   **/  {BOT, TOP, TOP, POS, TOP, TOP},
-    };
+    /** Converts between lattice points and AnnotationMirrors at the CFValue boundary */
+    private final DivByZeroLattice lattice;
 
+    /** Per-node transfer counters; records nothing unless -Adbz.metrics is given */
+    private final DivByZeroMetrics metrics;
 
     // ========================================================================
     // Transfer functions to implement
@@ -117,26 +67,18 @@ public class DivByZeroTransfer extends CFTransfer {
      * @param rhs        the lattice point for the right-hand side of the comparison expression
      * @return a refined type for lhs
      */
-    private AnnotationMirror refineLhsOfComparison(
+    static int refineLhsOfComparison(
             Comparison operator,
-            AnnotationMirror lhs,
-            AnnotationMirror rhs) {
+            int lhs,
+            int rhs) {
 
         // Find what we know about an arbitrary LHS given operator and RHS
-        int i = indexOf(operator);
-        int j = indexOf(rhs);
-        AnnotationMirror refinement = REFINEMENT[i][j];
+        int refinement = DivByZeroLattice.REFINEMENT[operator.ordinal()][rhs];
 
         // We know what we used to know about LHS and refinement
         return glb(lhs, refinement);
     }
 
-    /** Returns the index of the comparison operator as used in the refinement table **/
-    private int indexOf(Comparison operator) {
-        Comparison[] arr = {Comparison.EQ, Comparison.NE, Comparison.LT, Comparison.GT, Comparison.LE, Comparison.GE};
-        return Arrays.asList(arr).indexOf(operator);
-    }
-
     /**
      * For an arithmetic expression (lhs `op` rhs), compute the point in the
      * lattice for the result of evaluating the expression. ("Top" is always a
@@ -146,90 +88,75 @@ public class DivByZeroTransfer extends CFTransfer {
      * <pre>x = 1 + 0</pre>
      * should cause us to conclude that "x is not zero".
      *
+     * <p>This is the rule for int and long operands, whose arithmetic wraps
+     * around and whose division truncates: {@code a * b} with positive
+     * {@code a} and {@code b} may be zero, so it is only "top".
+     *
      * @param operator   a binary operator
      * @param lhs        the lattice point for the left-hand side of the expression
      * @param rhs        the lattice point for the right-hand side of the expression
      * @return the lattice point for the result of the expression
      */
-    private AnnotationMirror arithmeticTransfer(
+    static int arithmeticTransfer(
             BinaryOperator operator,
-            AnnotationMirror lhs,
-            AnnotationMirror rhs) {
-
-        int i = indexOf(lhs);
-        int j = indexOf(rhs);
+            int lhs,
+            int rhs) {
 
         switch (operator) {
             case MOD:
             case DIVIDE:
-                return DIVIDE_TRANSFER[i][j];
+                return DivByZeroLattice.INTEGRAL_DIVIDE_TRANSFER[lhs][rhs];
             case TIMES:
-                return TIMES_TRANSFER[i][j];
+                return DivByZeroLattice.INTEGRAL_TIMES_TRANSFER[lhs][rhs];
             case PLUS:
-                return PLUS_TRANSFER[i][j];
+                return DivByZeroLattice.INTEGRAL_PLUS_TRANSFER[lhs][rhs];
             case MINUS:
-                j = indexOf(negate(rhs));  // a - b == a + (-b)
-                return PLUS_TRANSFER[i][j];
+                // a - b == a + (-b)
+                return DivByZeroLattice.INTEGRAL_PLUS_TRANSFER[lhs][DivByZeroLattice.INTEGRAL_NEGATE[rhs]];
         }
-        return top();
+        return DivByZeroLattice.TOP;
     }
 
-    /** Returns the index of the point in the lattice used by our lookup tables */
-    private int indexOf(AnnotationMirror op) {
-        AnnotationMirror[] arr = {BOT, NEG, ZER, POS, NZE, TOP};
-        for (int i = 0; i < arr.length; i++) {
-            if (equal(op, arr[i])) {
-                return i;
-            }
-        }
-
-        return -1;
-    }
+    /**
+     * Like {@link #arithmeticTransfer}, for float and double operands, which
+     * follow the signs of real-number arithmetic.
+     */
+    static int floatingTransfer(
+            BinaryOperator operator,
+            int lhs,
+            int rhs) {
 
-    /** Returns the negated version of the point in the lattice (e.g. -POS => NEG) **/
-    private AnnotationMirror negate(AnnotationMirror op) {
-        AnnotationMirror[] negated = {BOT, POS, ZER, NEG, NZE, TOP};
-        return negated[indexOf(op)];
+        switch (operator) {
+            case MOD:
+            case DIVIDE:
+                return DivByZeroLattice.DIVIDE_TRANSFER[lhs][rhs];
+            case TIMES:
+                return DivByZeroLattice.TIMES_TRANSFER[lhs][rhs];
+            case PLUS:
+                return DivByZeroLattice.PLUS_TRANSFER[lhs][rhs];
+            case MINUS:
+                // a - b == a + (-b)
+                return DivByZeroLattice.PLUS_TRANSFER[lhs][DivByZeroLattice.NEGATE[rhs]];
+        }
+        return DivByZeroLattice.TOP;
     }
 
 
     // ========================================================================
     // Useful helpers
 
-    /** Get the top of the lattice */
-    private AnnotationMirror top() {
-        return analysis.getTypeFactory().getQualifierHierarchy().getTopAnnotations().iterator().next();
-    }
-
-    /** Get the bottom of the lattice */
-    private AnnotationMirror bottom() {
-        return analysis.getTypeFactory().getQualifierHierarchy().getBottomAnnotations().iterator().next();
-    }
-
     /** Compute the least-upper-bound of two points in the lattice */
-    private AnnotationMirror lub(AnnotationMirror x, AnnotationMirror y) {
-        return analysis.getTypeFactory().getQualifierHierarchy().leastUpperBound(x, y);
+    static int lub(int x, int y) {
+        return DivByZeroLattice.lub(x, y);
     }
 
     /** Compute the greatest-lower-bound of two points in the lattice */
-    private AnnotationMirror glb(AnnotationMirror x, AnnotationMirror y) {
-        return analysis.getTypeFactory().getQualifierHierarchy().greatestLowerBound(x, y);
-    }
-
-    /** Convert a "Class" object (e.g. "Top.class") to a point in the lattice */
-    private AnnotationMirror reflect(Class<? extends Annotation> qualifier) {
-        return AnnotationBuilder.fromClass(
-            analysis.getTypeFactory().getProcessingEnv().getElementUtils(),
-            qualifier);
-    }
-
-    /** Determine whether two AnnotationMirrors are the same point in the lattice */
-    private boolean equal(AnnotationMirror x, AnnotationMirror y) {
-        return AnnotationUtils.areSame(x, y);
+    static int glb(int x, int y) {
+        return DivByZeroLattice.glb(x, y);
     }
 
     /** `x op y` == `y flip(op) x` */
-    private Comparison flip(Comparison op) {
+    static Comparison flip(Comparison op) {
         switch (op) {
             case EQ: return Comparison.EQ;
             case NE: return Comparison.NE;
@@ -242,7 +169,7 @@ public class DivByZeroTransfer extends CFTransfer {
     }
 
     /** `x op y` == `!(x negate(op) y)` */
-    private Comparison negate(Comparison op) {
+    static Comparison negate(Comparison op) {
         switch (op) {
             case EQ: return Comparison.NE;
             case NE: return Comparison.EQ;
@@ -259,127 +186,202 @@ public class DivByZeroTransfer extends CFTransfer {
 
     public DivByZeroTransfer(CFAnalysis analysis) {
         super(analysis);
+        lattice = ((DivByZeroAnnotatedTypeFactory) analysis.getTypeFactory()).getLattice();
+        metrics = ((DivByZeroChecker) analysis.getTypeFactory().getChecker()).getMetrics();
     }
 
     private TransferResult<CFValue, CFStore> implementComparison(Comparison op, BinaryOperationNode n, TransferResult<CFValue, CFStore> out) {
-        QualifierHierarchy hierarchy = analysis.getTypeFactory().getQualifierHierarchy();
-        AnnotationMirror l = findAnnotation(analysis.getValue(n.getLeftOperand()).getAnnotations(), hierarchy);
-        AnnotationMirror r = findAnnotation(analysis.getValue(n.getRightOperand()).getAnnotations(), hierarchy);
+        int l = findPoint(n.getLeftOperand());
+        int r = findPoint(n.getRightOperand());
 
-        if (l == null || r == null) {
+        if (l < 0 || r < 0) {
             // this can happen for generic types
             return out;
         }
 
-        CFStore thenStore = out.getThenStore().copy();
-        CFStore elseStore = out.getElseStore().copy();
-
-        thenStore.insertValue(
-                JavaExpression.fromNode(n.getLeftOperand()),
-            refineLhsOfComparison(op, l, r));
+        // Refinements that would not change an operand's value are dropped
+        // before building its JavaExpression, and operands the store cannot
+        // track (literals, calls, ...) are dropped before copying a store.
+        JavaExpression left = null;
+        JavaExpression right = null;
+        int thenLeft = refineLhsOfComparison(op, l, r);
+        int thenRight = refineLhsOfComparison(flip(op), r, l);
+        int elseLeft = refineLhsOfComparison(negate(op), l, r);
+        int elseRight = refineLhsOfComparison(flip(negate(op)), r, l);
+        if (thenLeft != l || elseLeft != l) {
+            left = trackable(n.getLeftOperand());
+        }
+        if (thenRight != r || elseRight != r) {
+            right = trackable(n.getRightOperand());
+        }
+        boolean thenChanges = (left != null && thenLeft != l) || (right != null && thenRight != r);
+        boolean elseChanges = (left != null && elseLeft != l) || (right != null && elseRight != r);
+        if (!thenChanges && !elseChanges) {
+            return out;
+        }
 
-        thenStore.insertValue(
-            JavaExpression.fromNode(n.getRightOperand()),
-            refineLhsOfComparison(flip(op), r, l));
+        // Copy only the branches that change; the other keeps sharing the
+        // store it already has
+        CFStore thenStore = out.getThenStore();
+        CFStore elseStore = out.getElseStore();
+        if (thenChanges) {
+            thenStore = thenStore.copy();
+            refine(thenStore, left, thenLeft, l);
+            refine(thenStore, right, thenRight, r);
+            metrics.count(DivByZeroMetrics.Counter.STORE_COPIES);
+        }
+        if (elseChanges) {
+            elseStore = elseStore.copy();
+            refine(elseStore, left, elseLeft, l);
+            refine(elseStore, right, elseRight, r);
+            metrics.count(DivByZeroMetrics.Counter.STORE_COPIES);
+        }
 
-        elseStore.insertValue(
-            JavaExpression.fromNode(n.getLeftOperand()),
-            refineLhsOfComparison(negate(op), l, r));
+        return new ConditionalTransferResult<>(out.getResultValue(), thenStore, elseStore);
+    }
 
-        elseStore.insertValue(
-            JavaExpression.fromNode(n.getRightOperand()),
-            refineLhsOfComparison(flip(negate(op)), r, l));
+    /** Returns the operand as an expression the store can hold, or null if it cannot */
+    private static JavaExpression trackable(Node operand) {
+        JavaExpression expr = JavaExpression.fromNode(operand);
+        return CFAbstractStore.canInsertJavaExpression(expr) ? expr : null;
+    }
 
-        return new ConditionalTransferResult<>(out.getResultValue(), thenStore, elseStore);
+    /** Insert a refined point for an operand, unless it is untrackable or unchanged */
+    private void refine(CFStore store, JavaExpression expr, int refined, int current) {
+        if (expr != null && refined != current) {
+            store.insertValue(expr, lattice.toMirror(refined));
+        }
     }
 
     private TransferResult<CFValue, CFStore> implementOperator(BinaryOperator op, BinaryOperationNode n, TransferResult<CFValue, CFStore> out) {
-        QualifierHierarchy hierarchy = analysis.getTypeFactory().getQualifierHierarchy();
-        AnnotationMirror l = findAnnotation(analysis.getValue(n.getLeftOperand()).getAnnotations(), hierarchy);
-        AnnotationMirror r = findAnnotation(analysis.getValue(n.getRightOperand()).getAnnotations(), hierarchy);
+        int l = findPoint(n.getLeftOperand());
+        int r = findPoint(n.getRightOperand());
 
-        if (l == null || r == null) {
+        if (l < 0 || r < 0) {
             // this can happen for generic types
             return out;
         }
 
-        AnnotationMirror res = arithmeticTransfer(op, l, r);
+        TypeKind kind = n.getType().getKind();
+        int point = kind == TypeKind.FLOAT || kind == TypeKind.DOUBLE
+                ? floatingTransfer(op, l, r)
+                : arithmeticTransfer(op, l, r);
+        AnnotationMirror res = lattice.toMirror(point);
         CFValue newResultValue = analysis.createSingleAnnotationValue(res, out.getResultValue().getUnderlyingType());
         return new RegularTransferResult<>(newResultValue, out.getRegularStore());
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitEqualTo(EqualToNode n, TransferInput<CFValue, CFStore> p) {
-        return implementComparison(Comparison.EQ, n, super.visitEqualTo(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementComparison(Comparison.EQ, n, super.visitEqualTo(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_EQUAL_TO, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitNotEqual(NotEqualNode n, TransferInput<CFValue, CFStore> p) {
-        return implementComparison(Comparison.NE, n, super.visitNotEqual(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementComparison(Comparison.NE, n, super.visitNotEqual(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_NOT_EQUAL, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitGreaterThan(GreaterThanNode n, TransferInput<CFValue, CFStore> p) {
-        return implementComparison(Comparison.GT, n, super.visitGreaterThan(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementComparison(Comparison.GT, n, super.visitGreaterThan(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_GREATER_THAN, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitGreaterThanOrEqual(GreaterThanOrEqualNode n, TransferInput<CFValue, CFStore> p) {
-        return implementComparison(Comparison.GE, n, super.visitGreaterThanOrEqual(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementComparison(Comparison.GE, n, super.visitGreaterThanOrEqual(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_GREATER_THAN_OR_EQUAL, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitLessThan(LessThanNode n, TransferInput<CFValue, CFStore> p) {
-        return implementComparison(Comparison.LT, n, super.visitLessThan(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementComparison(Comparison.LT, n, super.visitLessThan(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_LESS_THAN, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitLessThanOrEqual(LessThanOrEqualNode n, TransferInput<CFValue, CFStore> p) {
-        return implementComparison(Comparison.LE, n, super.visitLessThanOrEqual(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementComparison(Comparison.LE, n, super.visitLessThanOrEqual(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_LESS_THAN_OR_EQUAL, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitIntegerDivision(IntegerDivisionNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.DIVIDE, n, super.visitIntegerDivision(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.DIVIDE, n, super.visitIntegerDivision(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_INTEGER_DIVISION, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitIntegerRemainder(IntegerRemainderNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.MOD, n, super.visitIntegerRemainder(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.MOD, n, super.visitIntegerRemainder(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_INTEGER_REMAINDER, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitFloatingDivision(FloatingDivisionNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.DIVIDE, n, super.visitFloatingDivision(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.DIVIDE, n, super.visitFloatingDivision(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_FLOATING_DIVISION, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitFloatingRemainder(FloatingRemainderNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.MOD, n, super.visitFloatingRemainder(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.MOD, n, super.visitFloatingRemainder(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_FLOATING_REMAINDER, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitNumericalMultiplication(NumericalMultiplicationNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.TIMES, n, super.visitNumericalMultiplication(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.TIMES, n, super.visitNumericalMultiplication(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_NUMERICAL_MULTIPLICATION, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitNumericalAddition(NumericalAdditionNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.PLUS, n, super.visitNumericalAddition(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.PLUS, n, super.visitNumericalAddition(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_NUMERICAL_ADDITION, start);
+        return result;
     }
 
     @Override
     public TransferResult<CFValue, CFStore> visitNumericalSubtraction(NumericalSubtractionNode n, TransferInput<CFValue, CFStore> p) {
-        return implementOperator(BinaryOperator.MINUS, n, super.visitNumericalSubtraction(n, p));
+        long start = metrics.start();
+        TransferResult<CFValue, CFStore> result = implementOperator(BinaryOperator.MINUS, n, super.visitNumericalSubtraction(n, p));
+        metrics.time(DivByZeroMetrics.Counter.VISIT_NUMERICAL_SUBTRACTION, start);
+        return result;
     }
 
-    private static AnnotationMirror findAnnotation(
-            Set<AnnotationMirror> set, QualifierHierarchy hierarchy) {
-        if (set.size() == 0) {
-            return null;
+    /** Returns the lattice point for the value of a node, or -1 if it has none */
+    private int findPoint(Node node) {
+        CFValue value = analysis.getValue(node);
+        if (value == null) {
+            return -1;
         }
-        Set<? extends AnnotationMirror> tops = hierarchy.getTopAnnotations();
-        return hierarchy.findAnnotationInSameHierarchy(set, tops.iterator().next());
+        return lattice.find(value.getAnnotations());
     }
 
 }
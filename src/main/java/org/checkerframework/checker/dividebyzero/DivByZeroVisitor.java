@@ -3,15 +3,16 @@ package org.checkerframework.checker.dividebyzero;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.basetype.BaseTypeVisitor;
 
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.TreeUtils;
+
 import javax.lang.model.type.TypeKind;
-import java.lang.annotation.Annotation;
+import javax.lang.model.type.TypeMirror;
 import com.sun.source.tree.*;
 
 import java.util.Set;
 import java.util.EnumSet;
 
-import org.checkerframework.checker.dividebyzero.qual.*;
-
 public class DivByZeroVisitor extends BaseTypeVisitor<DivByZeroAnnotatedTypeFactory> {
 
     /** Set of operators we care about */
@@ -26,92 +27,208 @@ public class DivByZeroVisitor extends BaseTypeVisitor<DivByZeroAnnotatedTypeFact
             TypeKind.LONG);
 
     /**
-     * Determine whether to report an error at the given binary AST node.
-     * The error text is defined in the messages.properties file.
+     * Determine whether the given binary AST node is an integer division.
      * @param node the AST node to inspect
-     * @return true if an error should be reported, false otherwise
+     * @return the denominator's point if it is, -1 otherwise
      */
-    private boolean errorAt(BinaryTree node) {
+    private int denominatorOf(BinaryTree node) {
 
         // Is this an operator that can have divide by zero errors?
         Tree.Kind operator = node.getKind();
         if (!DIVISION_OPERATORS.contains(operator)) {
-            return false;
+            return -1;
         }
 
         // Can't have a divide by zero unless both sides are INT_TYPES
         // E.g. (0.0 / 0)  =>  (0.0 / 0.0)  =>  Double.NaN (?)
         ExpressionTree lhs = node.getLeftOperand();
         ExpressionTree rhs = node.getRightOperand();
-        if (!isInt(lhs) || !isInt(rhs)) {
-            return false;
+        if (!isInt(node) || !isInt(lhs) || !isInt(rhs)) {
+            return -1;
         }
 
-        return hasAnnotation(rhs, Zero.class) || hasAnnotation(rhs, Top.class);
+        return pointOf(rhs);
     }
 
     /**
-     * Determine whether to report an error at the given compound assignment
-     * AST node. The error text is defined in the messages.properties file.
+     * Determine whether the given compound assignment AST node is an
+     * integer division.
      * @param node the AST node to inspect
-     * @return true if an error should be reported, false otherwise
+     * @return the denominator's point if it is, -1 otherwise
      */
-    private boolean errorAt(CompoundAssignmentTree node) {
+    private int denominatorOf(CompoundAssignmentTree node) {
         // A CompoundAssignmentTree represents any binary operator combined with an assignment,
         // such as "x += 10".
 
         // Is this an operator that can have divide by zero errors?
         Tree.Kind operator = node.getKind();
         if (!DIVISION_OPERATORS.contains(operator)) {
-            return false;
+            return -1;
         }
 
         // Can't have a divide unless rhs is an INT_TYPES
         ExpressionTree exp = node.getExpression();
         if (!isInt(exp)) {
-            return false;
+            return -1;
         }
 
-        return hasAnnotation(exp, Zero.class) || hasAnnotation(exp, Top.class);
+        return pointOf(exp);
     }
 
     // ========================================================================
     // Useful helpers
 
+    /**
+     * Uses the underlying javac type, so that operands of non-integral
+     * divisions never need an annotated type.
+     */
     private boolean isInt(Tree node) {
-        return INT_TYPES.contains(atypeFactory.getAnnotatedType(node).getKind());
+        TypeMirror type = TreeUtils.typeOf(node);
+        return type != null && INT_TYPES.contains(type.getKind());
     }
 
-    private boolean hasAnnotation(Tree node, Class<? extends Annotation> c) {
-        return atypeFactory.getAnnotatedType(node).hasAnnotation(c);
+    /**
+     * Returns the denominator's point. This is the only annotated-type
+     * lookup made per division.
+     */
+    private int pointOf(ExpressionTree denominator) {
+        AnnotatedTypeMirror type = atypeFactory.getAnnotatedType(denominator);
+        return atypeFactory.getLattice().find(type.getAnnotations());
     }
 
     // ========================================================================
     // Checker Framework plumbing
 
+    /** Phase timings and counters; records nothing unless -Adbz.metrics is given */
+    private final DivByZeroMetrics metrics;
+
+    /** Flight recorder events for the visitor pass over each method */
+    private final DivByZeroEvents events;
+
+    /** Method summaries to update, or null if -Adbz.summaries is not given */
+    private final DivByZeroSummaries summaries;
+
+    /** Known diagnostics not to report, or null if -Adbz.baseline is not given */
+    private final DivByZeroBaseline baseline;
+
+    /** Index of every division site, or null if -Adbz.index is not given */
+    private final DivByZeroIndex index;
+
+    /** Methods not to check, such as those of other partitions, or null to check every method */
+    private final DivByZeroMethodFilter methodFilter;
+
+    /** Nesting depth of processClassTree, so that only top-level classes are timed */
+    private int classDepth = 0;
+
     public DivByZeroVisitor(BaseTypeChecker c) {
         super(c);
+        metrics = ((DivByZeroChecker) c).getMetrics();
+        events = ((DivByZeroChecker) c).getEvents();
+        summaries = ((DivByZeroChecker) c).getSummaries();
+        baseline = ((DivByZeroChecker) c).getBaseline();
+        index = ((DivByZeroChecker) c).getIndex();
+        methodFilter = ((DivByZeroChecker) c).getMethodFilter();
     }
 
     @Override
-    public Void visitBinary(BinaryTree node, Void p) {
-        if (isInt(node)) {
-            if (errorAt(node)) {
-                checker.reportError(node, "divide.by.zero");
-//                System.out.println("ERROR: " + node);
+    public void processClassTree(ClassTree classTree) {
+        // Dataflow for the whole top-level class has already run in
+        // preProcessClassTree, so this is the visitor pass alone.
+        long start = metrics.start();
+        if (baseline != null) {
+            baseline.checking(classTree);
+        }
+        if (index != null && classDepth == 0) {
+            index.checking(root);
+        }
+        classDepth++;
+        try {
+            super.processClassTree(classTree);
+        } finally {
+            classDepth--;
+        }
+        if (classDepth == 0) {
+            if (baseline != null) {
+                baseline.classDone();
             }
+            metrics.visitClass(classTree, metrics.start() - start);
+        }
+    }
+
+    @Override
+    public Void visitMethod(MethodTree node, Void p) {
+        if (methodFilter != null && methodFilter.skips(root, node)) {
+            return null;
+        }
+        long start = metrics.start();
+        DivByZeroEvents.VisitMethod event = events.beginVisitMethod();
+        Void result = super.visitMethod(node, p);
+        if (summaries != null) {
+            summaries.infer(node, atypeFactory);
+        }
+        events.endVisitMethod(event, root, node);
+        metrics.visitMethod(node, start);
+        return result;
+    }
+
+    /**
+     * Report the division at the current path if its denominator may be
+     * zero, unless it is in the baseline, and add it to the index.
+     */
+    private void division(int denominator) {
+        int flags = 0;
+        if (denominator == DivByZeroLattice.ZER || denominator == DivByZeroLattice.TOP) {
+            flags = report(denominator);
+        }
+        if (index != null) {
+            index.add(getCurrentPath(), denominator, flags);
+        }
+    }
+
+    /** Report the division at the current path unless it is in the baseline; returns the index flag */
+    private int report(int denominator) {
+        if (baseline != null && baseline.suppress(getCurrentPath())) {
+            metrics.count(DivByZeroMetrics.Counter.BASELINE_SUPPRESSED);
+            return DivByZeroIndexReader.BASELINED;
+        }
+        long start = metrics.start();
+        ((DivByZeroChecker) checker).reportDivision(getCurrentPath().getLeaf(), denominator);
+        metrics.time(DivByZeroMetrics.Counter.DIAGNOSTICS, start);
+        return DivByZeroIndexReader.REPORTED;
+    }
+
+    @Override
+    public Void visitBinary(BinaryTree node, Void p) {
+        long start = metrics.start();
+        int denominator = denominatorOf(node);
+        metrics.time(DivByZeroMetrics.Counter.DIVISION_CHECKS, start);
+        if (denominator >= 0) {
+            division(denominator);
         }
         return super.visitBinary(node, p);
     }
 
     @Override
     public Void visitCompoundAssignment(CompoundAssignmentTree node, Void p) {
-        if (isInt(node.getExpression())) {
-            if (errorAt(node)) {
-                checker.reportError(node, "divide.by.zero");
-            }
+        long start = metrics.start();
+        int denominator = denominatorOf(node);
+        metrics.time(DivByZeroMetrics.Counter.DIVISION_CHECKS, start);
+        if (denominator >= 0) {
+            division(denominator);
         }
         return super.visitCompoundAssignment(node, p);
     }
 
+    /**
+     * A cast that javac folds, such as {@code (int) 4294967296L}, has the
+     * point of its value, which is exact even where it is not a supertype of
+     * the operand's.
+     */
+    @Override
+    protected void checkTypecastSafety(TypeCastTree node) {
+        if (DivByZeroAnnotatedTypeFactory.constantPointOf(node) < 0) {
+            super.checkTypecastSafety(node);
+        }
+    }
+
 }
@@ -0,0 +1,68 @@
+package org.checkerframework.checker.dividebyzero.runtime;
+
+/**
+ * Runtime check inserted by the {@code DivByZeroGuard} javac plugin around the
+ * divisor of each division the checker could not prove safe:
+ * {@code a / b} is compiled as {@code a / DivByZeroGuard.divisor(b, "Foo.java:12:17")}.
+ *
+ * <p>A nonzero divisor is returned as is, and the JIT compiler reduces the
+ * call to a compare and a branch. A zero divisor is passed to the installed
+ * {@link Handler}, which either returns a divisor to use instead or throws.
+ * The default handler throws an {@link ArithmeticException} naming the site.
+ *
+ * <p>This class has no dependencies, and is published in the qualifier jar
+ * alone, so that guarded code needs only that jar at run time.
+ */
+public final class DivByZeroGuard {
+
+    /** Decides what a guarded division does when its divisor is zero */
+    public interface Handler {
+        /**
+         * Returns the nonzero divisor to use instead of zero, or throws.
+         * For an {@code int} division, the divisor must also fit in an {@code int}.
+         * @param site the source file, line and column of the division
+         */
+        long zeroDivisor(String site);
+    }
+
+    private static final Handler THROW = site -> {
+        throw new ArithmeticException("/ by zero at " + site);
+    };
+
+    private static volatile Handler handler = THROW;
+
+    private DivByZeroGuard() {
+    }
+
+    /** Install the handler of zero divisors for the whole JVM; null restores the default */
+    public static void setHandler(Handler handler) {
+        DivByZeroGuard.handler = handler == null ? THROW : handler;
+    }
+
+    public static int divisor(int divisor, String site) {
+        return divisor != 0 ? divisor : intZero(site);
+    }
+
+    public static long divisor(long divisor, String site) {
+        return divisor != 0 ? divisor : zero(site);
+    }
+
+    /** Kept out of the fast path, so that the divisor checks stay small enough to inline */
+    private static long zero(String site) {
+        long divisor = handler.zeroDivisor(site);
+        if (divisor == 0) {
+            throw new ArithmeticException("/ by zero at " + site);
+        }
+        return divisor;
+    }
+
+    /** As {@link #zero}, for an {@code int} division, which the handler's divisor must fit */
+    private static int intZero(String site) {
+        long divisor = zero(site);
+        if (divisor != (int) divisor) {
+            throw new ArithmeticException("/ by zero at " + site + ": the handler's divisor "
+                    + divisor + " does not fit in an int");
+        }
+        return (int) divisor;
+    }
+}
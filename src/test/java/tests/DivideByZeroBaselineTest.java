@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.dividebyzero.DivByZeroCheck;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.baseline} across edits: an entry must keep suppressing its diagnostic
+ * when lines shift, but not a new diagnostic with the same text, and entries that no longer match
+ * must be listed as stale. An entry whose hash does not match its fingerprint must be rejected.
+ */
+public class DivideByZeroBaselineTest {
+
+    @Test
+    public void baselineAcrossEdits() throws IOException {
+        Path baseline = Files.createTempDirectory("dbz-baseline").resolve("baseline.txt");
+        Map<String, String> legacy = source("Legacy.java",
+                "class Legacy {",
+                "    int f(int x, int y) { return x / y; }",
+                "    int g(int x, int y) { return x % y + x % y; }",
+                "}");
+
+        // Write mode records every diagnostic instead of reporting it
+        List<DivByZeroCheck.Result> results = check(legacy, baseline, true);
+        Assert.assertEquals(results.toString(), Collections.emptyList(), divisionLines(results));
+        Assert.assertEquals(Arrays.asList(
+                        "Legacy#f(int,int) x / y #0",
+                        "Legacy#g(int,int) x % y #0",
+                        "Legacy#g(int,int) x % y #1"),
+                fingerprints(baseline));
+
+        results = check(legacy, baseline, false);
+        Assert.assertEquals(results.toString(), Collections.emptyList(), divisionLines(results));
+        Assert.assertEquals(results.toString(), Collections.emptyList(), stale(results));
+
+        // Shifted lines and a new method do not change the fingerprints
+        results = check(source("Legacy.java",
+                "// A comment",
+                "class Legacy {",
+                "    int h(int x) { return x / 2; }",
+                "",
+                "    int f(int x, int y) { return x / y; }",
+                "    int g(int x, int y) { return x % y + x % y; }",
+                "}"), baseline, false);
+        Assert.assertEquals(results.toString(), Collections.emptyList(), divisionLines(results));
+        Assert.assertEquals(results.toString(), Collections.emptyList(), stale(results));
+
+        // A second x / y in f is a new occurrence, so it is reported
+        results = check(source("Legacy.java",
+                "class Legacy {",
+                "    int f(int x, int y) {",
+                "        int a = x / y;",
+                "        return a + x / y;",
+                "    }",
+                "    int g(int x, int y) { return x % y + x % y; }",
+                "}"), baseline, false);
+        Assert.assertEquals(results.toString(), Arrays.asList(4L), divisionLines(results));
+
+        // Entries of a fixed division are stale
+        results = check(source("Legacy.java",
+                "class Legacy {",
+                "    int f(int x, int y) { return x / y; }",
+                "    int g(int x, int y) { return x + y; }",
+                "}"), baseline, false);
+        Assert.assertEquals(results.toString(), Collections.emptyList(), divisionLines(results));
+        Assert.assertEquals(results.toString(),
+                Arrays.asList("Legacy#g(int,int) x % y #0", "Legacy#g(int,int) x % y #1"), stale(results));
+    }
+
+    @Test
+    public void writeKeepsOtherClasses() throws IOException {
+        Path baseline = Files.createTempDirectory("dbz-baseline").resolve("baseline.txt");
+        check(source("A.java", "class A {", "    int f(int x) { return 1 / x; }", "}"), baseline, true);
+        check(source("B.java", "class B {", "    int f(int x) { return 2 / x; }", "}"), baseline, true);
+        Assert.assertEquals(Arrays.asList("A#f(int) 1 / x #0", "B#f(int) 2 / x #0"), fingerprints(baseline));
+
+        // Refreshing B drops its fixed entry and keeps those of A
+        check(source("B.java", "class B {", "    int f(int x) { return 2; }", "}"), baseline, true);
+        Assert.assertEquals(Arrays.asList("A#f(int) 1 / x #0"), fingerprints(baseline));
+    }
+
+    @Test
+    public void editedEntryIsRejected() throws IOException {
+        Path baseline = Files.createTempDirectory("dbz-baseline").resolve("baseline.txt");
+        Map<String, String> a = source("A.java", "class A {", "    int f(int x) { return 1 / x; }", "}");
+        check(a, baseline, true);
+
+        // The hash of the entry no longer matches its fingerprint
+        String entry = Files.readAllLines(baseline, StandardCharsets.UTF_8).get(0);
+        Files.write(baseline, Collections.singletonList(entry.replace("1 / x", "2 / x")), StandardCharsets.UTF_8);
+        List<DivByZeroCheck.Result> results = check(a, baseline, false);
+        Assert.assertEquals(results.toString(), Arrays.asList(2L), divisionLines(results));
+        Assert.assertTrue(results.toString(), results.stream().anyMatch(r -> r.kind == Diagnostic.Kind.WARNING
+                && r.message.contains("Ignoring " + DivByZeroChecker.BASELINE_OPTION)
+                && r.message.contains("does not match its fingerprint")));
+    }
+
+    private static Map<String, String> source(String name, String... lines) {
+        return Collections.singletonMap(name, String.join("\n", lines));
+    }
+
+    private static List<DivByZeroCheck.Result> check(Map<String, String> sources, Path baseline, boolean write) {
+        DivByZeroCheck.Options options = new DivByZeroCheck.Options()
+                .checkerOption(DivByZeroChecker.BASELINE_OPTION, baseline.toString());
+        if (write) {
+            options.checkerOption(DivByZeroChecker.BASELINE_WRITE_OPTION, null);
+        }
+        return DivByZeroCheck.check(sources, options);
+    }
+
+    /** Lines of the reported divide.by.zero errors */
+    private static List<Long> divisionLines(List<DivByZeroCheck.Result> results) {
+        List<Long> lines = new ArrayList<>();
+        for (DivByZeroCheck.Result r : results) {
+            if ("divide.by.zero".equals(r.messageKey)) {
+                lines.add(r.line);
+            }
+        }
+        return lines;
+    }
+
+    /** Fingerprints listed in the stale entries warning */
+    private static List<String> stale(List<DivByZeroCheck.Result> results) {
+        List<String> stale = new ArrayList<>();
+        for (DivByZeroCheck.Result r : results) {
+            if (r.kind == Diagnostic.Kind.WARNING && r.message.contains(" stale ")) {
+                String[] lines = r.message.split("\n");
+                for (int i = 1; i < lines.length; i++) {
+                    stale.add(lines[i].trim());
+                }
+            }
+        }
+        return stale;
+    }
+
+    /** Fingerprints in the baseline file, in file order */
+    private static List<String> fingerprints(Path baseline) throws IOException {
+        List<String> fingerprints = new ArrayList<>();
+        for (String line : Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+            Assert.assertEquals(line, 16, line.indexOf('\t'));
+            fingerprints.add(line.substring(17));
+        }
+        return fingerprints;
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.dividebyzero.DivByZeroCheck;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests of the in-memory checking API, {@link DivByZeroCheck}. */
+public class DivideByZeroCheckTest {
+
+    private static final String FOO = String.join("\n",
+            "package com.example;",
+            "",
+            "class Foo {",
+            "    int f(int x, int y) { return x / y; }",
+            "}");
+
+    @Test
+    public void messageKeyAndPosition() {
+        List<DivByZeroCheck.Result> results = DivByZeroCheck.check(
+                Collections.singletonMap("com/example/Foo.java", FOO), new DivByZeroCheck.Options());
+        Assert.assertEquals(results.toString(), 1, results.size());
+        DivByZeroCheck.Result r = results.get(0);
+        Assert.assertEquals(Diagnostic.Kind.ERROR, r.kind);
+        Assert.assertEquals("com/example/Foo.java", r.source);
+        Assert.assertEquals("divide.by.zero", r.messageKey);
+        Assert.assertEquals("The denominator of this expression could be zero.", r.message);
+        Assert.assertEquals(4, r.line);
+        // javac places a binary expression's diagnostic at its operator
+        String line = FOO.split("\n")[3];
+        Assert.assertEquals(line.indexOf('/') + 1, r.column);
+        Assert.assertEquals(FOO.indexOf("x / y"), r.startPosition);
+        Assert.assertEquals(FOO.indexOf("x / y") + "x / y".length(), r.endPosition);
+        Assert.assertEquals("com/example/Foo.java:4:" + r.column
+                + ": error: [divide.by.zero] The denominator of this expression could be zero.", r.toString());
+    }
+
+    @Test
+    public void sourceKeys() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("com/example/Foo.java", FOO);
+        sources.put("Bar.java", "class Bar {\n    int g(int x) { return 1 % x; }\n}");
+        sources.put("Ok.java", "class Ok {\n    int h(int x) { return x / 2; }\n}");
+        List<String> sites = new ArrayList<>();
+        for (DivByZeroCheck.Result r : DivByZeroCheck.check(sources, new DivByZeroCheck.Options())) {
+            sites.add(r.source + ":" + r.line + ":" + r.messageKey);
+        }
+        Collections.sort(sites);
+        Assert.assertEquals(Arrays.asList("Bar.java:2:divide.by.zero", "com/example/Foo.java:4:divide.by.zero"), sites);
+    }
+
+    @Test
+    public void javacErrorHasNoMessageKey() {
+        List<DivByZeroCheck.Result> results = DivByZeroCheck.check(
+                Collections.singletonMap("Bad.java", "class Bad {\n    int f() { return \"s\"; }\n}"),
+                new DivByZeroCheck.Options());
+        Assert.assertFalse(results.isEmpty());
+        DivByZeroCheck.Result r = results.get(0);
+        Assert.assertEquals(Diagnostic.Kind.ERROR, r.kind);
+        Assert.assertEquals("Bad.java", r.source);
+        Assert.assertEquals(2, r.line);
+        Assert.assertNull(r.toString(), r.messageKey);
+        Assert.assertTrue(r.message, r.message.contains("incompatible types"));
+        Assert.assertFalse(r.toString(), r.toString().contains("["));
+    }
+
+    @Test
+    public void suppressWarnings() {
+        String source = String.join("\n",
+                "class Quiet {",
+                "    @SuppressWarnings(\"divbyzero\")",
+                "    int f(int x, int y) { return x / y; }",
+                "    int g(int x, int y) { return x / y; }",
+                "}");
+        List<DivByZeroCheck.Result> results = DivByZeroCheck.check(
+                Collections.singletonMap("Quiet.java", source), new DivByZeroCheck.Options());
+        Assert.assertEquals(results.toString(), 1, results.size());
+        Assert.assertEquals(4, results.get(0).line);
+    }
+
+    @Test
+    public void writesNothing() throws IOException {
+        Path out = Files.createTempDirectory("dbz-check");
+        Path cwd = Paths.get("").toAbsolutePath();
+        DivByZeroCheck check = new DivByZeroCheck();
+        List<DivByZeroCheck.Result> results = check.run(Collections.singletonMap("com/example/Foo.java", FOO),
+                new DivByZeroCheck.Options().javacOption("-d", out.toString()));
+        Assert.assertEquals(results.toString(), 1, results.size());
+        // A class without errors, which javac would write a class file for
+        results = check.run(Collections.singletonMap("com/example/Ok.java",
+                "package com.example;\nclass Ok {\n    int h(int x) { return x / 2; }\n}"),
+                new DivByZeroCheck.Options().javacOption("-d", out.toString()));
+        Assert.assertEquals(results.toString(), 0, results.size());
+        try (Stream<Path> files = Files.list(out)) {
+            Assert.assertEquals(0, files.count());
+        }
+        Assert.assertFalse(Files.exists(cwd.resolve("com/example/Ok.class")));
+        Assert.assertFalse(Files.exists(cwd.resolve("Ok.class")));
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.checkerframework.checker.dividebyzero.runtime.DivByZeroGuard;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of the {@code DivByZeroGuard} javac plugin: classes are checked with {@code -Adbz.index},
+ * compiled with the plugin and run. Divisions the index proves must stay bare, every other integer
+ * division must be guarded and still compute the same, including divisors whose int arithmetic
+ * wraps to zero, and without a usable index every division must be guarded.
+ */
+public class DivideByZeroGuardTest {
+
+    private static final String[] CALC = {
+        "class GuardedCalc {",
+        "    static int provenInt(int x, int y) { if (y > 0) { return x / y; } return 0; }",
+        "    static int unprovenInt(int x, int y) { return x / y; }",
+        "    static long unprovenLong(long x, long y) { return x % y; }",
+        "    static int unprovenBoxed(Integer x, Integer y) { return x / y; }",
+        "    static int divideAssign(int x, int y) { x /= y; return x; }",
+        "    static long remainderAssign(long x, int y) { x %= y; return x; }",
+        "    static int constant(int x) { return x / 4 + x % 3; }",
+        "    static int wrappedSquare(int x) { int d = 65536; if (d > 0) { return x / (d * d); } return 0; }",
+        "    static int wrappedProduct(int x, int a, int b) { if (a > 0 && b > 0) { return x / (a * b); } return 0; }",
+        "    static int wrappedSum(int x, int d) { if (d < 0) { return x / (d + d); } return 0; }",
+        "    static int narrowed(int x, long d) { if (d > 0) { return x / (int) d; } return 0; }",
+        "}",
+    };
+
+    /** Site strings of the guards in a class file */
+    private static final Pattern SITE = Pattern.compile("GuardedCalc\\.java:(\\d+):(\\d+)");
+
+    @Test
+    public void guardsUnprovenDivisions() throws Exception {
+        Path dir = Files.createTempDirectory("dbz-guard");
+        Path index = dir.resolve("dbz.index");
+        write(dir, CALC);
+        check(dir, index);
+        Path out = compile(dir, "index=" + index, Collections.emptyList());
+
+        Assert.assertEquals(Arrays.asList(
+                        site(3, "x / y"), site(4, "x % y"), site(5, "x / y"), site(6, "x /= y"), site(7, "x %= y"),
+                        site(9, "x / (d * d)"), site(10, "x / (a * b)"), site(11, "x / (d + d)"),
+                        site(12, "x / (int) d")),
+                guardedSites(out));
+
+        Class<?> calc = load(out);
+        Assert.assertEquals(3, call(calc, "provenInt", 7, 2));
+        Assert.assertEquals(0, call(calc, "provenInt", 7, 0));
+        Assert.assertEquals(3, call(calc, "unprovenInt", 7, 2));
+        Assert.assertEquals(-3, call(calc, "unprovenInt", 7, -2));
+        Assert.assertEquals(1L, call(calc, "unprovenLong", 7L, 3L));
+        Assert.assertEquals(3, call(calc, "unprovenBoxed", 7, 2));
+        Assert.assertEquals(3, call(calc, "divideAssign", 7, 2));
+        Assert.assertEquals(1L, call(calc, "remainderAssign", 7L, 3));
+        Assert.assertEquals(2, call(calc, "constant", 8));
+
+        assertZeroDivisor(calc, site(3, "x / y"), "unprovenInt", 7, 0);
+        assertZeroDivisor(calc, site(4, "x % y"), "unprovenLong", 7L, 0L);
+        assertZeroDivisor(calc, site(5, "x / y"), "unprovenBoxed", 7, 0);
+        assertZeroDivisor(calc, site(6, "x /= y"), "divideAssign", 7, 0);
+        assertZeroDivisor(calc, site(7, "x %= y"), "remainderAssign", 7L, 0);
+
+        // Positive operands whose int product, sum or narrowing is zero
+        Assert.assertEquals(1, call(calc, "wrappedProduct", 7, 2, 3));
+        Assert.assertEquals(-1, call(calc, "wrappedSum", 7, -2));
+        Assert.assertEquals(3, call(calc, "narrowed", 7, 2L));
+        assertZeroDivisor(calc, site(9, "x / (d * d)"), "wrappedSquare", 7);
+        assertZeroDivisor(calc, site(10, "x / (a * b)"), "wrappedProduct", 7, 65536, 65536);
+        assertZeroDivisor(calc, site(11, "x / (d + d)"), "wrappedSum", 7, Integer.MIN_VALUE);
+        assertZeroDivisor(calc, site(12, "x / (int) d"), "narrowed", 7, 1L << 32);
+    }
+
+    @Test
+    public void handlerDivisor() throws Exception {
+        Path dir = Files.createTempDirectory("dbz-guard");
+        write(dir, CALC);
+        Class<?> calc = load(compile(dir, "all", Collections.emptyList()));
+        List<String> sites = new ArrayList<>();
+        try {
+            DivByZeroGuard.setHandler(site -> {
+                sites.add(site);
+                return 2;
+            });
+            Assert.assertEquals(3, call(calc, "unprovenInt", 7, 0));
+            Assert.assertEquals(1L, call(calc, "unprovenLong", 7L, 0L));
+            Assert.assertEquals(Arrays.asList(site(3, "x / y"), site(4, "x % y")), sites);
+
+            // Narrowed to an int, this divisor would be zero
+            DivByZeroGuard.setHandler(site -> 1L << 32);
+            try {
+                call(calc, "unprovenInt", 7, 0);
+                Assert.fail("divided by a handler divisor that does not fit in an int");
+            } catch (ArithmeticException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("does not fit in an int"));
+            }
+            Assert.assertEquals(7L, call(calc, "unprovenLong", 7L, 0L));
+        } finally {
+            DivByZeroGuard.setHandler(null);
+        }
+        assertZeroDivisor(calc, site(3, "x / y"), "unprovenInt", 7, 0);
+    }
+
+    @Test
+    public void withoutIndexGuardsEverything() throws Exception {
+        Path dir = Files.createTempDirectory("dbz-guard");
+        Path index = dir.resolve("dbz.index");
+        write(dir, CALC);
+        List<String> all = Arrays.asList(site(2, "x / y"),
+                site(3, "x / y"), site(4, "x % y"), site(5, "x / y"), site(6, "x /= y"), site(7, "x %= y"),
+                site(9, "x / (d * d)"), site(10, "x / (a * b)"), site(11, "x / (d + d)"), site(12, "x / (int) d"));
+
+        // Missing index
+        List<String> warnings = new ArrayList<>();
+        Path out = compile(dir, "index=" + index, warnings);
+        Assert.assertEquals(all, guardedSites(out));
+        Assert.assertTrue(warnings.toString(),
+                warnings.stream().anyMatch(w -> w.startsWith("cannot read the division-site index")));
+
+        // Stale index: the file changed after it was checked
+        check(dir, index);
+        List<String> edited = new ArrayList<>(Arrays.asList(CALC));
+        edited.set(edited.size() - 1, "    static int added(int x) { return x; }\n}");
+        write(dir, edited.toArray(new String[0]));
+        warnings.clear();
+        out = compile(dir, "index=" + index, warnings);
+        Assert.assertEquals(all, guardedSites(out));
+        Assert.assertTrue(warnings.toString(),
+                warnings.stream().anyMatch(w -> w.contains("has changed since the division-site index")));
+        Class<?> calc = load(out);
+        Assert.assertEquals(3, call(calc, "provenInt", 7, 2));
+        assertZeroDivisor(calc, site(3, "x / y"), "unprovenInt", 7, 0);
+    }
+
+    private static void write(Path dir, String... lines) throws IOException {
+        Files.write(dir.resolve("GuardedCalc.java"), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    /** The site string of the first occurrence of the division on the 1-based line of CALC */
+    private static String site(int line, String division) {
+        return "GuardedCalc.java:" + line + ":" + (CALC[line - 1].indexOf(division) + 1);
+    }
+
+    /** Check the source, writing the index */
+    private static void check(Path dir, Path index) throws IOException {
+        run(dir, new ArrayList<>(), Arrays.asList(
+                "-processor", DivByZeroChecker.class.getName(),
+                "-proc:only",
+                "-A" + DivByZeroChecker.INDEX_OPTION + "=" + index));
+        Assert.assertTrue(Files.exists(index));
+    }
+
+    /** Compile the source with the plugin, adding its warnings to the list; returns the class directory */
+    private static Path compile(Path dir, String pluginArgument, List<String> warnings) throws IOException {
+        Path out = Files.createTempDirectory(dir, "classes");
+        Assert.assertTrue(run(dir, warnings, Arrays.asList(
+                "-proc:none",
+                "-Xplugin:DivByZeroGuard " + pluginArgument,
+                "-d", out.toString())));
+        return out;
+    }
+
+    private static boolean run(Path dir, List<String> warnings, List<String> options) throws IOException {
+        List<String> all = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        all.addAll(options);
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success;
+        try (StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            success = javac.getTask(null, fileManager, diagnostics, all, null,
+                    fileManager.getJavaFileObjects(dir.resolve("GuardedCalc.java").toFile())).call();
+        }
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.WARNING) {
+                warnings.add(d.getMessage(null));
+            }
+        }
+        return success;
+    }
+
+    /** Sites of the guards in the compiled class, in source order */
+    private static List<String> guardedSites(Path out) throws IOException {
+        String bytes = new String(Files.readAllBytes(out.resolve("GuardedCalc.class")), StandardCharsets.ISO_8859_1);
+        TreeSet<List<Integer>> positions = new TreeSet<>((a, b) ->
+                a.get(0).equals(b.get(0)) ? a.get(1).compareTo(b.get(1)) : a.get(0).compareTo(b.get(0)));
+        Matcher m = SITE.matcher(bytes);
+        while (m.find()) {
+            positions.add(Arrays.asList(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+        }
+        List<String> sites = new ArrayList<>();
+        for (List<Integer> position : positions) {
+            sites.add("GuardedCalc.java:" + position.get(0) + ":" + position.get(1));
+        }
+        return sites;
+    }
+
+    private static Class<?> load(Path out) throws Exception {
+        // The parent loads DivByZeroGuard, so the handler the test installs is the one the class calls
+        URLClassLoader loader = new URLClassLoader(new URL[] {out.toUri().toURL()},
+                DivideByZeroGuardTest.class.getClassLoader());
+        return loader.loadClass("GuardedCalc");
+    }
+
+    /** Call a static method of the class by name, with the given arguments */
+    private static Object call(Class<?> calc, String name, Object... args) throws Exception {
+        for (Method method : calc.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                method.setAccessible(true);
+                try {
+                    return method.invoke(null, args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    /** A zero divisor must throw the guard's exception, which names the site */
+    private static void assertZeroDivisor(Class<?> calc, String site, String name, Object... args) throws Exception {
+        try {
+            call(calc, name, args);
+            Assert.fail(name + " divided by zero without an exception");
+        } catch (ArithmeticException e) {
+            Assert.assertEquals("/ by zero at " + site, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.checkerframework.checker.dividebyzero.DivByZeroIndexReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.index} and {@link DivByZeroIndexReader}: the sites of a compilation must
+ * read back as written, and later compilations must replace only the sites of their own files.
+ */
+public class DivideByZeroIndexTest {
+
+    /** Size of one site record in the index file */
+    private static final int RECORD_BYTES = 32;
+
+    @Test
+    public void roundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-index");
+        Path index = dir.resolve("dbz.index");
+        writeA(dir);
+        writeB(dir);
+        check(dir, index, "A.java", "B.java");
+
+        DivByZeroIndexReader reader = DivByZeroIndexReader.open(index);
+        Assert.assertEquals(6, reader.siteCount());
+        Assert.assertEquals(Arrays.asList(uri(dir, "A.java"), uri(dir, "B.java")), reader.files());
+
+        List<DivByZeroIndexReader.Site> sites = reader.query().file(uri(dir, "A.java")).list();
+        Assert.assertEquals(Arrays.asList(
+                        "2 DIVIDE Top A#f(int,int) reported",
+                        "2 DIVIDE Positive A#f(int,int) proven",
+                        "3 REMAINDER Zero A#g(int) reported",
+                        "4 DIVIDE_ASSIGNMENT Top A#h(int,int) reported",
+                        "4 REMAINDER_ASSIGNMENT Positive A#h(int,int) proven"),
+                describe(sites));
+        DivByZeroIndexReader.Site first = sites.get(0);
+        Assert.assertEquals(uri(dir, "A.java"), first.file());
+        Assert.assertEquals("A", first.topLevelClass());
+        String text = new String(Files.readAllBytes(dir.resolve("A.java")), StandardCharsets.UTF_8);
+        Assert.assertEquals(text.indexOf("x / y"), first.startOffset());
+        Assert.assertEquals(text.indexOf("x / y") + "x / y".length(), first.endOffset());
+        Assert.assertEquals(text.indexOf("x / y") - text.indexOf("    int f"), first.column() - 1);
+
+        Assert.assertEquals(4, reader.query().unproven().count());
+        Assert.assertEquals(4, reader.query().reported().count());
+        Assert.assertEquals(3, reader.query().denominator("Top").count());
+        Assert.assertEquals(1, reader.query().file(uri(dir, "B.java")).count());
+        Assert.assertEquals(2, reader.query().member("A#h(int,int)").count());
+        Assert.assertEquals(1,
+                reader.query().topLevelClass("A").operator(DivByZeroIndexReader.Operator.REMAINDER).count());
+        Assert.assertEquals(0, reader.query().file(uri(dir, "Missing.java")).count());
+    }
+
+    @Test
+    public void incrementalMerge() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-index");
+        Path index = dir.resolve("dbz.index");
+        writeA(dir);
+        writeB(dir);
+        check(dir, index, "A.java", "B.java");
+        List<String> a = sitesOf(index, uri(dir, "A.java"));
+
+        // New strings sort between the old ones, so the ids of A's strings change
+        write(dir, "B.java",
+                "class B {",
+                "    static int k(int x) { return 10 / x; }",
+                "}",
+                "class AA {",
+                "    int m(int x) { return x % x; }",
+                "}");
+        check(dir, index, "B.java");
+        Assert.assertEquals(a, sitesOf(index, uri(dir, "A.java")));
+        Assert.assertEquals(2, sitesOf(index, uri(dir, "B.java")).size());
+        Assert.assertEquals(1, DivByZeroIndexReader.open(index).query().topLevelClass("AA").count());
+
+        write(dir, "C.java", "class C {", "    int c(int x) { return x / 3; }", "}");
+        check(dir, index, "C.java");
+        Assert.assertEquals(Arrays.asList(uri(dir, "A.java"), uri(dir, "B.java"), uri(dir, "C.java")),
+                DivByZeroIndexReader.open(index).files());
+        Assert.assertEquals(a, sitesOf(index, uri(dir, "A.java")));
+
+        // The sites of a deleted file are dropped by the next compilation
+        Files.delete(dir.resolve("B.java"));
+        check(dir, index, "C.java");
+        DivByZeroIndexReader reader = DivByZeroIndexReader.open(index);
+        Assert.assertEquals(Arrays.asList(uri(dir, "A.java"), uri(dir, "C.java")), reader.files());
+        Assert.assertEquals(0, reader.query().topLevelClass("AA").count());
+        Assert.assertEquals(a, sitesOf(index, uri(dir, "A.java")));
+        Assert.assertEquals(6, reader.siteCount());
+    }
+
+    @Test
+    public void replayedClassKeepsSites() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-index");
+        Path index = dir.resolve("dbz.index");
+        String cache = "-A" + DivByZeroChecker.CACHE_OPTION + "=" + dir.resolve("cache");
+        writeA(dir);
+        check(dir, index, cache, "A.java");
+        List<String> a = sitesOf(index, uri(dir, "A.java"));
+        Assert.assertEquals(5, a.size());
+        // This run replays A's diagnostics from the cache instead of checking it
+        check(dir, index, cache, "A.java");
+        Assert.assertEquals(a, sitesOf(index, uri(dir, "A.java")));
+    }
+
+    @Test
+    public void unreadableIndexIsRebuilt() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-index");
+        Path index = dir.resolve("dbz.index");
+        writeA(dir);
+        writeB(dir);
+        check(dir, index, "A.java", "B.java");
+        byte[] bytes = Files.readAllBytes(index);
+
+        // Another version
+        byte[] other = bytes.clone();
+        ByteBuffer.wrap(other).putInt(4, ByteBuffer.wrap(bytes).getInt(4) + 1);
+        Files.write(index, other);
+        assertUnreadable(index);
+        check(dir, index, "A.java");
+        Assert.assertEquals(Arrays.asList(uri(dir, "A.java")), DivByZeroIndexReader.open(index).files());
+
+        // Truncated
+        Files.write(index, Arrays.copyOf(bytes, bytes.length - RECORD_BYTES));
+        assertUnreadable(index);
+        check(dir, index, "A.java");
+        Assert.assertEquals(Arrays.asList(uri(dir, "A.java")), DivByZeroIndexReader.open(index).files());
+        Assert.assertEquals(5, DivByZeroIndexReader.open(index).siteCount());
+
+        // Not an index at all: left alone, with a warning
+        Files.write(index, Arrays.asList("not an index"), StandardCharsets.UTF_8);
+        List<String> warnings = check(dir, index, "A.java");
+        Assert.assertTrue(warnings.toString(),
+                warnings.stream().anyMatch(w -> w.contains(DivByZeroChecker.INDEX_OPTION)));
+        Assert.assertEquals(Arrays.asList("not an index"), Files.readAllLines(index, StandardCharsets.UTF_8));
+    }
+
+    private static void writeA(Path dir) throws IOException {
+        write(dir, "A.java",
+                "class A {",
+                "    int f(int x, int y) { return x / y + x / 2; }",
+                "    int g(int x) { return x % 0; }",
+                "    void h(int x, int y) { x /= y; x %= 7; }",
+                "}");
+    }
+
+    private static void writeB(Path dir) throws IOException {
+        write(dir, "B.java", "class B {", "    static int k(int x) { return 10 / x; }", "}");
+    }
+
+    private static void write(Path dir, String name, String... lines) throws IOException {
+        Files.write(dir.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static void assertUnreadable(Path index) {
+        try {
+            DivByZeroIndexReader.open(index);
+            Assert.fail("opened an unreadable index");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /** The URI javac reports for a file of the directory */
+    private static String uri(Path dir, String name) {
+        return dir.resolve(name).toUri().toString();
+    }
+
+    private static List<String> sitesOf(Path index, String uri) throws IOException {
+        List<String> sites = new ArrayList<>();
+        for (DivByZeroIndexReader.Site site : DivByZeroIndexReader.open(index).query().file(uri).list()) {
+            sites.add(site.toString() + " @" + site.startOffset() + "-" + site.endOffset());
+        }
+        return sites;
+    }
+
+    private static List<String> describe(List<DivByZeroIndexReader.Site> sites) {
+        List<String> described = new ArrayList<>();
+        for (DivByZeroIndexReader.Site site : sites) {
+            described.add(site.line() + " " + site.operator() + " " + site.denominator() + " " + site.member()
+                    + (site.reported() ? " reported" : "") + (site.proven() ? " proven" : ""));
+        }
+        return described;
+    }
+
+    /**
+     * Check the given files of the directory with the index, and any further -A options given
+     * before them; returns the compiler's warnings.
+     */
+    private static List<String> check(Path dir, Path index, String... args) throws IOException {
+        List<String> options = new ArrayList<>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-processor", DivByZeroChecker.class.getName(),
+                "-proc:only",
+                "-A" + DivByZeroChecker.INDEX_OPTION + "=" + index));
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("-A")) {
+                options.add(arg);
+            } else {
+                files.add(dir.resolve(arg));
+            }
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            javac.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files.stream().map(Path::toFile)::iterator)).call();
+        }
+        List<String> warnings = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.WARNING || d.getKind() == Diagnostic.Kind.MANDATORY_WARNING) {
+                warnings.add(d.getMessage(null));
+            }
+        }
+        return warnings;
+    }
+}
@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.checkerframework.checker.dividebyzero.DivByZeroCheck;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.partition} through {@link DivByZeroCheck.Options#partitions}: the merged
+ * diagnostics of several partitions must be those of a single compilation.
+ *
+ * <p>The sources are those of {@code tests/dividebyzero}; {@code Partitions.java} there has the
+ * nested, anonymous and local classes, lambdas and initializers that partitions split or share.
+ */
+public class DivideByZeroPartitionTest {
+
+    @Test
+    public void eachFile() throws IOException {
+        for (Map.Entry<String, String> source : sources().entrySet()) {
+            Map<String, String> one = Collections.singletonMap(source.getKey(), source.getValue());
+            List<String> single = diagnostics(one, 1);
+            Assert.assertFalse(source.getKey(), single.isEmpty());
+            Assert.assertEquals(source.getKey(), single, diagnostics(one, 4));
+        }
+    }
+
+    @Test
+    public void allFiles() throws IOException {
+        Map<String, String> sources = sources();
+        Assert.assertEquals(diagnostics(sources, 1), diagnostics(sources, 4));
+    }
+
+    /** The test files in tests/dividebyzero, by name */
+    private static Map<String, String> sources() throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.list(Paths.get("tests", "dividebyzero"))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList())) {
+                sources.put(file.getFileName().toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        Assert.assertTrue(sources.containsKey("Partitions.java"));
+        return sources;
+    }
+
+    /** Every diagnostic with its source and offsets, sorted, since partitions are merged in source order */
+    private static List<String> diagnostics(Map<String, String> sources, int partitions) {
+        List<String> diagnostics = new ArrayList<>();
+        for (DivByZeroCheck.Result r : DivByZeroCheck.check(sources, new DivByZeroCheck.Options().partitions(partitions))) {
+            diagnostics.add(r.source + ":" + r.startPosition + "-" + r.endPosition + " " + r);
+        }
+        Collections.sort(diagnostics);
+        return diagnostics;
+    }
+}
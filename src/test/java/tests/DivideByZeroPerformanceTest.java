@@ -0,0 +1,215 @@
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Performance regression tests for the Divide By Zero Checker.
+ *
+ * <p>Each directory under {@code tests/performance} is a fixed corpus that is compiled in this JVM
+ * with and without the checker. The cost of checking is measured as a ratio to plain javac on the
+ * same corpus: CPU time of the compiling thread, bytes it allocated, and peak live heap (sampled
+ * after a full collection as each class is generated). Because both sides run
+ * on the same machine in the same JVM, the ratios hold on slow or busy machines where absolute
+ * timings would not. The largest allowed ratios are in {@code tests/performance/budgets.properties}.
+ *
+ * <p>Run with {@code ./gradlew performanceTest}. It is excluded from {@code ./gradlew test} so that
+ * parallel tests cannot skew its timings.
+ */
+@RunWith(Parameterized.class)
+public class DivideByZeroPerformanceTest {
+
+    private static final Path CORPORA = Paths.get("tests", "performance");
+
+    /** Untimed compilations before measuring, so that both sides run JIT-compiled code */
+    private static final int WARMUP = 2;
+
+    /** Timed compilations; the cheapest one is compared, as it has the least noise */
+    private static final int REPETITIONS = 3;
+
+    private final String corpus;
+
+    public DivideByZeroPerformanceTest(String corpus) {
+        this.corpus = corpus;
+    }
+
+    @Parameters(name = "{0}")
+    public static List<String> getCorpora() throws IOException {
+        List<String> corpora = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(CORPORA, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                corpora.add(dir.getFileName().toString());
+            }
+        }
+        corpora.sort(null);
+        return corpora;
+    }
+
+    @Test
+    public void withinBudget() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = Files.newInputStream(CORPORA.resolve("budgets.properties"))) {
+            budgets.load(in);
+        }
+        List<File> sources = sourcesOf(CORPORA.resolve(corpus));
+        Path out = Files.createTempDirectory("dbz-perf");
+        try {
+            for (int i = 0; i < WARMUP; i++) {
+                compile(sources, out, false, false);
+                compile(sources, out, true, false);
+            }
+            Cost plain = compile(sources, out, false, false);
+            Cost checker = compile(sources, out, true, false);
+            for (int i = 1; i < REPETITIONS; i++) {
+                plain = plain.min(compile(sources, out, false, false));
+                checker = checker.min(compile(sources, out, true, false));
+            }
+            plain.peakHeapBytes = compile(sources, out, false, true).peakHeapBytes;
+            checker.peakHeapBytes = compile(sources, out, true, true).peakHeapBytes;
+
+            List<String> failures = new ArrayList<>();
+            check(failures, budgets, "cpuTime", checker.cpuNanos, plain.cpuNanos);
+            check(failures, budgets, "allocatedBytes", checker.allocatedBytes, plain.allocatedBytes);
+            check(failures, budgets, "peakHeap", checker.peakHeapBytes, plain.peakHeapBytes);
+            Assert.assertTrue(corpus + " is over budget:\n" + String.join("\n", failures), failures.isEmpty());
+        } finally {
+            deleteRecursively(out);
+        }
+    }
+
+    /** Compare the ratio of the checker's cost to plain javac's with its budget */
+    private void check(List<String> failures, Properties budgets, String metric, long checker, long plain) {
+        String key = corpus + "." + metric;
+        String budget = budgets.getProperty(key);
+        Assert.assertNotNull("no budget for " + key + " in budgets.properties", budget);
+        double ratio = (double) checker / Math.max(1, plain);
+        String line = String.format(Locale.ROOT, "%s: %.2fx plain javac (budget %sx; checker %d, plain %d)",
+                key, ratio, budget, checker, plain);
+        System.out.println(line);
+        if (ratio > Double.parseDouble(budget)) {
+            failures.add(line);
+        }
+    }
+
+    /** Cost of one compilation on this thread */
+    private static final class Cost {
+        long cpuNanos;
+        long allocatedBytes;
+        long peakHeapBytes;
+
+        Cost min(Cost other) {
+            cpuNanos = Math.min(cpuNanos, other.cpuNanos);
+            allocatedBytes = Math.min(allocatedBytes, other.allocatedBytes);
+            return this;
+        }
+    }
+
+    /**
+     * Compile the sources, with or without the checker. If sampleHeap is true, the live heap is
+     * measured after each class is generated, by which point the checker has processed it; this
+     * forces full collections, so the CPU time and allocations of that compilation are not
+     * representative.
+     */
+    private static Cost compile(List<File> sources, Path out, boolean checker, boolean sampleHeap)
+            throws IOException {
+        List<String> options = new ArrayList<>(Arrays.asList("-d", out.toString(), "-nowarn"));
+        if (checker) {
+            options.addAll(Arrays.asList("-processor", DivByZeroChecker.class.getName()));
+        } else {
+            options.add("-proc:none");
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Cost cost = new Cost();
+        long baseline = sampleHeap ? liveHeap() : 0;
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources));
+            if (sampleHeap) {
+                task.addTaskListener(new TaskListener() {
+                    @Override
+                    public void started(TaskEvent e) {}
+
+                    @Override
+                    public void finished(TaskEvent e) {
+                        if (e.getKind() == TaskEvent.Kind.GENERATE) {
+                            cost.peakHeapBytes = Math.max(cost.peakHeapBytes, liveHeap() - baseline);
+                        }
+                    }
+                });
+            }
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            long allocatedStart = threads.getThreadAllocatedBytes(thread);
+            boolean success = task.call();
+            cost.cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+            cost.allocatedBytes = threads.getThreadAllocatedBytes(thread) - allocatedStart;
+            if (!success) {
+                StringBuilder sb = new StringBuilder("corpus does not compile cleanly:");
+                for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                    sb.append('\n').append(d);
+                }
+                Assert.fail(sb.toString());
+            }
+        }
+        return cost;
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static List<File> sourcesOf(Path dir) throws IOException {
+        TreeSet<Path> paths = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.java")) {
+            for (Path file : files) {
+                paths.add(file);
+            }
+        }
+        List<File> sources = new ArrayList<>();
+        for (Path path : paths) {
+            sources.add(path.toFile());
+        }
+        return sources;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = new ArrayList<>(new TreeSet<>(walk.collect(java.util.stream.Collectors.toList())).descendingSet());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.dividebyzero.DivByZeroCheck;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.report}: every division diagnostic must reach the report, in either
+ * format, whether or not it also reaches the compiler.
+ */
+public class DivideByZeroReportTest {
+
+    private static final Map<String, String> SOURCES = Collections.singletonMap("Use.java", String.join("\n",
+            "class Use {",
+            "    int f(int x) { return x / 0; }",
+            "    int g(int x, int y) { return x % y; }",
+            "    void h(int x, int y) { x /= y; }",
+            "    int ok(int x) { return x / 2; }",
+            "}"));
+
+    @Test
+    public void ndjson() throws IOException {
+        Path report = Files.createTempDirectory("dbz-report").resolve("report.json");
+        List<DivByZeroCheck.Result> results = DivByZeroCheck.check(SOURCES,
+                new DivByZeroCheck.Options().checkerOption(DivByZeroChecker.REPORT_OPTION, report.toString()));
+        List<DivByZeroCheck.Result> errors = divisionErrors(results);
+        Assert.assertEquals(results.toString(), 3, errors.size());
+
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.toString(), 3, lines.size());
+        String[][] expected = {{"2", "DIVIDE", "Zero"}, {"3", "REMAINDER", "Top"}, {"4", "DIVIDE_ASSIGNMENT", "Top"}};
+        for (int i = 0; i < expected.length; i++) {
+            String line = lines.get(i);
+            DivByZeroCheck.Result error = errors.get(i);
+            Assert.assertTrue(line, line.startsWith("{") && line.endsWith("}"));
+            Assert.assertEquals(line, "mem:///Use.java", field(line, "file"));
+            Assert.assertEquals(line, expected[i][0], field(line, "line"));
+            Assert.assertTrue(line, Long.parseLong(field(line, "column")) > 0);
+            Assert.assertEquals(line, String.valueOf(error.startPosition), field(line, "startOffset"));
+            Assert.assertTrue(line, Long.parseLong(field(line, "endOffset")) > error.startPosition);
+            Assert.assertEquals(line, expected[i][1], field(line, "operator"));
+            Assert.assertEquals(line, expected[i][2], field(line, "denominator"));
+            Assert.assertTrue(line, field(line, "message").endsWith(error.message));
+        }
+    }
+
+    @Test
+    public void sarif() throws IOException {
+        Path report = Files.createTempDirectory("dbz-report").resolve("report.sarif");
+        DivByZeroCheck.check(SOURCES,
+                new DivByZeroCheck.Options().checkerOption(DivByZeroChecker.REPORT_OPTION, report.toString()));
+
+        String log = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        Assert.assertTrue(log, log.startsWith("{") && log.trim().endsWith("}"));
+        Assert.assertEquals(log, "2.1.0", field(log, "version"));
+        List<String> results = all(log, "\"ruleId\": \"divide.by.zero\"");
+        Assert.assertEquals(log, 3, results.size());
+        Assert.assertEquals(log, "[2, 3, 4]", all(log, "\"startLine\": (\\d+)").toString());
+        Assert.assertEquals(log, "[DIVIDE, REMAINDER, DIVIDE_ASSIGNMENT]",
+                all(log, "\"operator\": \"(\\w+)\"").toString());
+        Assert.assertEquals(log, "[Zero, Top, Top]", all(log, "\"denominator\": \"(\\w+)\"").toString());
+        Assert.assertEquals(log, 0, balanced(log));
+    }
+
+    @Test
+    public void emptySarif() throws IOException {
+        Path report = Files.createTempDirectory("dbz-report").resolve("report.json");
+        DivByZeroCheck.check(Collections.singletonMap("Ok.java", "class Ok { int f(int x) { return x / 2; } }"),
+                new DivByZeroCheck.Options()
+                        .checkerOption(DivByZeroChecker.REPORT_OPTION, report.toString())
+                        .checkerOption(DivByZeroChecker.REPORT_FORMAT_OPTION, "sarif"));
+
+        String log = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        Assert.assertTrue(log, log.replaceAll("\\s", "").contains("\"results\":[]"));
+        Assert.assertEquals(log, 0, balanced(log));
+    }
+
+    @Test
+    public void quiet() throws IOException {
+        Path report = Files.createTempDirectory("dbz-report").resolve("report.json");
+        List<DivByZeroCheck.Result> results = DivByZeroCheck.check(SOURCES, new DivByZeroCheck.Options()
+                .checkerOption(DivByZeroChecker.REPORT_OPTION, report.toString())
+                .checkerOption(DivByZeroChecker.REPORT_QUIET_OPTION, null));
+
+        Assert.assertEquals(results.toString(), 0, divisionErrors(results).size());
+        Assert.assertEquals(3, Files.readAllLines(report, StandardCharsets.UTF_8).size());
+    }
+
+    private static List<DivByZeroCheck.Result> divisionErrors(List<DivByZeroCheck.Result> results) {
+        List<DivByZeroCheck.Result> errors = new ArrayList<>();
+        for (DivByZeroCheck.Result r : results) {
+            if ("divide.by.zero".equals(r.messageKey)) {
+                errors.add(r);
+            }
+        }
+        return errors;
+    }
+
+    /** The first value of a JSON field, without the quotes of a string */
+    private static String field(String json, String name) {
+        Matcher m = Pattern.compile("\"" + name + "\": (\"((?:[^\"\\\\]|\\\\.)*)\"|[-\\d]+)").matcher(json);
+        Assert.assertTrue(json, m.find());
+        return m.group(2) != null ? m.group(2) : m.group(1);
+    }
+
+    /** Every match of a pattern, or of its first group if it has one */
+    private static List<String> all(String text, String regex) {
+        Matcher m = Pattern.compile(regex).matcher(text);
+        List<String> matches = new ArrayList<>();
+        while (m.find()) {
+            matches.add(m.groupCount() > 0 ? m.group(1) : m.group());
+        }
+        return matches;
+    }
+
+    /** Open minus closed braces and brackets outside strings, which is 0 for a complete JSON document */
+    private static int balanced(String json) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return depth;
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.dividebyzero.DivByZeroCheck;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.cache} across runs: a hit must replay exactly the diagnostics of a full
+ * check, and an edit to a class, to a class it depends on, to the options or to the baseline must
+ * make it a miss.
+ */
+public class DivideByZeroResultCacheTest {
+
+    private static final Pattern CACHE_HITS = Pattern.compile("\"cacheHits\": (\\d+)");
+
+    private Path dir;
+
+    @Test
+    public void hitsAndMisses() throws IOException {
+        dir = Files.createTempDirectory("dbz-cache");
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("A.java", lines(
+                "class A {",
+                "    int f(int x, int y) { return x / y + x / B.K; }",
+                "}"));
+        sources.put("B.java", lines(
+                "class B {",
+                "    static final int K = 2;",
+                "    int g(int x) { return x % 0; }",
+                "}"));
+        List<String> first = check(sources);
+        Assert.assertEquals(0, hits());
+        Assert.assertEquals(Arrays.asList("A.java:2", "B.java:3"), divisions(first));
+        Assert.assertEquals(first, check(sources));
+        Assert.assertEquals(2, hits());
+
+        // An edit to A misses for A alone
+        sources.put("A.java", lines(
+                "class A {",
+                "",
+                "    int f(int x, int y) { return x / y + x / B.K; }",
+                "}"));
+        Assert.assertEquals(Arrays.asList("A.java:3", "B.java:3"), divisions(check(sources)));
+        Assert.assertEquals(1, hits());
+
+        // An edit to B changes a constant A uses, so both miss
+        sources.put("B.java", lines(
+                "class B {",
+                "    static final int K = 0;",
+                "    int g(int x) { return x % 0; }",
+                "}"));
+        List<String> edited = check(sources);
+        Assert.assertEquals(Arrays.asList("A.java:3", "A.java:3", "B.java:3"), divisions(edited));
+        Assert.assertEquals(0, hits());
+        Assert.assertEquals(edited, check(sources));
+        Assert.assertEquals(2, hits());
+
+        // Another option misses for every class, though it reports the same
+        Assert.assertEquals(edited, check(sources, DivByZeroChecker.LOW_MEMORY_OPTION, null));
+        Assert.assertEquals(0, hits());
+        Assert.assertEquals(edited, check(sources, DivByZeroChecker.LOW_MEMORY_OPTION, null));
+        Assert.assertEquals(2, hits());
+    }
+
+    @Test
+    public void unlocatedEntriesAreChecked() throws IOException {
+        dir = Files.createTempDirectory("dbz-cache");
+        Map<String, String> sources = Collections.singletonMap("A.java", lines(
+                "class A {",
+                "    int f(int x, int y) { return x / y; }",
+                "}"));
+        List<String> first = check(sources);
+        Assert.assertEquals(Arrays.asList("A.java:2"), divisions(first));
+
+        // Move every stored diagnostic to a position where there is no tree
+        try (Stream<Path> entries = Files.list(dir.resolve("cache"))) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                List<String> moved = new ArrayList<>();
+                for (String line : Files.readAllLines(entry, StandardCharsets.UTF_8)) {
+                    String[] fields = line.split("\t", 3);
+                    moved.add(fields.length == 3 && !fields[0].equals("BASELINED")
+                            ? fields[0] + "\t99999\t" + fields[2] : line);
+                }
+                Files.write(entry, moved, StandardCharsets.UTF_8);
+            }
+        }
+        Assert.assertEquals(first, check(sources));
+        Assert.assertEquals(0, hits());
+        // The entry was stored again
+        Assert.assertEquals(first, check(sources));
+        Assert.assertEquals(1, hits());
+    }
+
+    @Test
+    public void replayedClassesAreBaselined() throws IOException {
+        dir = Files.createTempDirectory("dbz-cache");
+        Path baseline = dir.resolve("baseline.txt");
+        Map<String, String> sources = Collections.singletonMap("A.java", lines(
+                "class A {",
+                "    int f(int x, int y) { return x / y; }",
+                "    int g(int x) { return x % 0; }",
+                "}"));
+        DivByZeroCheck.check(sources, new DivByZeroCheck.Options()
+                .checkerOption(DivByZeroChecker.BASELINE_OPTION, baseline.toString())
+                .checkerOption(DivByZeroChecker.BASELINE_WRITE_OPTION, null));
+        List<String> entries = new ArrayList<>(Files.readAllLines(baseline, StandardCharsets.UTF_8));
+        Assert.assertEquals(2, entries.size());
+        entries.add("0000000000000001\tA#h(int) x / x #0");
+        Files.write(baseline, entries, StandardCharsets.UTF_8);
+
+        // The matched entries stay matched, and the stale one is listed, on a hit too
+        List<String> first = check(sources, DivByZeroChecker.BASELINE_OPTION, baseline.toString());
+        Assert.assertEquals(0, hits());
+        Assert.assertEquals(Collections.emptyList(), divisions(first));
+        Assert.assertEquals(Arrays.asList("A#h(int) x / x #0"), stale(first));
+        Assert.assertEquals(first, check(sources, DivByZeroChecker.BASELINE_OPTION, baseline.toString()));
+        Assert.assertEquals(1, hits());
+
+        // An edit to the baseline misses
+        Files.write(baseline, entries.subList(0, 1), StandardCharsets.UTF_8);
+        List<String> edited = check(sources, DivByZeroChecker.BASELINE_OPTION, baseline.toString());
+        Assert.assertEquals(0, hits());
+        Assert.assertEquals(1, divisions(edited).size());
+        Assert.assertEquals(Collections.emptyList(), stale(edited));
+
+        // Write mode keeps the entries of a replayed class, and records no others
+        for (int i = 0; i < 3; i++) {
+            check(sources, DivByZeroChecker.BASELINE_OPTION, baseline.toString(),
+                    DivByZeroChecker.BASELINE_WRITE_OPTION, null);
+        }
+        Assert.assertEquals(1, hits());
+        Assert.assertEquals(entries.subList(0, 2), Files.readAllLines(baseline, StandardCharsets.UTF_8));
+    }
+
+    private static String lines(String... lines) {
+        return String.join("\n", lines);
+    }
+
+    /** Check with the cache and metrics, and the given further option keys and values */
+    private List<String> check(Map<String, String> sources, String... options) {
+        DivByZeroCheck.Options checkOptions = new DivByZeroCheck.Options()
+                .checkerOption(DivByZeroChecker.CACHE_OPTION, dir.resolve("cache").toString())
+                .checkerOption(DivByZeroChecker.METRICS_OPTION, dir.resolve("metrics.json").toString());
+        for (int i = 0; i < options.length; i += 2) {
+            checkOptions.checkerOption(options[i], options[i + 1]);
+        }
+        List<String> results = new ArrayList<>();
+        for (DivByZeroCheck.Result r : DivByZeroCheck.check(sources, checkOptions)) {
+            results.add(r.toString());
+        }
+        return results;
+    }
+
+    /** Cache hits of the last check */
+    private int hits() throws IOException {
+        String json = new String(Files.readAllBytes(dir.resolve("metrics.json")), StandardCharsets.UTF_8);
+        Matcher m = CACHE_HITS.matcher(json);
+        Assert.assertTrue(json, m.find());
+        return Integer.parseInt(m.group(1));
+    }
+
+    /** File and line of each divide.by.zero error */
+    private static List<String> divisions(List<String> results) {
+        List<String> divisions = new ArrayList<>();
+        for (String r : results) {
+            if (r.contains("[divide.by.zero]")) {
+                divisions.add(r.substring(0, r.indexOf(':', r.indexOf(':') + 1)));
+            }
+        }
+        return divisions;
+    }
+
+    /** Fingerprints listed in the stale entries warning */
+    private static List<String> stale(List<String> results) {
+        List<String> stale = new ArrayList<>();
+        for (String r : results) {
+            if (r.contains(" stale ")) {
+                String[] lines = r.split("\n");
+                for (int i = 1; i < lines.length; i++) {
+                    stale.add(lines[i].trim());
+                }
+            }
+        }
+        return stale;
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.checkerframework.checker.dividebyzero.DivByZeroShardDriver;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@link DivByZeroShardDriver} with workers that die mid-shard: a dead worker must be
+ * replaced and its shard re-run, and a shard that keeps killing workers must fail the run. Options
+ * naming one file for the whole compilation must be rejected.
+ */
+public class DivideByZeroShardDriverTest {
+
+    /** Kills the worker JVM on its first shard, or on every shard with {@code -Acrash.always} */
+    @SupportedAnnotationTypes("*")
+    @SupportedOptions({"crash.marker", "crash.always"})
+    public static class CrashOnce extends AbstractProcessor {
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+            Path marker = Paths.get(processingEnv.getOptions().get("crash.marker"));
+            if (processingEnv.getOptions().containsKey("crash.always") || !Files.exists(marker)) {
+                try {
+                    Files.write(marker, new byte[0]);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                Runtime.getRuntime().halt(1);
+            }
+            return false;
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+    }
+
+    /** Exit code, report and standard error of a driver run */
+    private static final class Run {
+        int exit;
+        List<String> report;
+        String stderr;
+    }
+
+    @Test
+    public void crashedWorkerIsReplaced() throws Exception {
+        Path dir = sources();
+        Path marker = dir.resolve("crashed");
+        // With one worker, the run finishes only if the dead worker is replaced
+        Run run = drive(dir, "-Acrash.marker=" + marker);
+        Assert.assertTrue(Files.exists(marker));
+        Assert.assertEquals(run.stderr, 1, run.exit);
+        Assert.assertEquals(run.stderr, Arrays.asList(
+                        dir.resolve("A.java") + ":2: error",
+                        dir.resolve("B.java") + ":2: error",
+                        dir.resolve("C.java") + ":2: error"),
+                errors(run.report));
+    }
+
+    @Test
+    public void crashingShardFailsTheRun() throws Exception {
+        Path dir = sources();
+        Run run = drive(dir, "-Acrash.marker=" + dir.resolve("crashed"), "-Acrash.always");
+        Assert.assertNotEquals(0, run.exit);
+        Assert.assertNull(run.report);
+        Assert.assertTrue(run.stderr, run.stderr.contains("crashed 3 workers"));
+    }
+
+    @Test
+    public void sharedFileOptionIsRejected() throws Exception {
+        Path dir = sources();
+        Run run = drive(dir, "-A" + DivByZeroChecker.REPORT_OPTION + "=" + dir.resolve("dbz.ndjson"));
+        Assert.assertEquals(run.stderr, 2, run.exit);
+        Assert.assertNull(run.report);
+        Assert.assertFalse(Files.exists(dir.resolve("dbz.ndjson")));
+        Assert.assertTrue(run.stderr, run.stderr.contains("-A" + DivByZeroChecker.REPORT_OPTION + " "));
+    }
+
+    private static Path sources() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-shards-test");
+        for (String name : Arrays.asList("A", "B", "C")) {
+            Files.write(dir.resolve(name + ".java"), Arrays.asList(
+                    "class " + name + " {",
+                    "    int f(int x) { return 1 / x; }",
+                    "}"), StandardCharsets.UTF_8);
+        }
+        return dir;
+    }
+
+    /** Run the driver on the directory's sources with one worker, a shard per file, and the given -A options */
+    private static Run drive(Path dir, String... options) throws Exception {
+        Path report = dir.resolve("report.txt");
+        Path stderr = dir.resolve("stderr.txt");
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                DivByZeroShardDriver.class.getName(),
+                "--workers=1", "--shards=3", "--heap=512m", "--out=" + report,
+                dir.toString(),
+                "--",
+                "-processor", DivByZeroChecker.class.getName() + "," + CrashOnce.class.getName()));
+        command.addAll(Arrays.asList(options));
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(dir.resolve("stdout.txt").toFile())
+                .redirectError(stderr.toFile())
+                .start();
+        if (!process.waitFor(5, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            Assert.fail("the driver did not finish");
+        }
+        Run run = new Run();
+        run.exit = process.exitValue();
+        run.report = Files.exists(report) ? Files.readAllLines(report, StandardCharsets.UTF_8) : null;
+        run.stderr = new String(Files.readAllBytes(stderr), StandardCharsets.UTF_8);
+        return run;
+    }
+
+    /** File, line and kind of the errors in a text report */
+    private static List<String> errors(List<String> report) {
+        List<String> errors = new ArrayList<>();
+        for (String line : report) {
+            int error = line.indexOf(": error: ");
+            if (error >= 0) {
+                errors.add(line.substring(0, error + ": error".length()));
+            }
+        }
+        return errors;
+    }
+}
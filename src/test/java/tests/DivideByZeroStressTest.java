@@ -0,0 +1,339 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Scalability tests for the Divide By Zero Checker on pathological program shapes.
+ *
+ * <p>Each shape is generated at a small and a large size, {@link #GROWTH} times larger, and checked
+ * with {@code -Adbz.metrics}. The growth of the checker's time (dataflow plus visitor) must stay
+ * within the shape's bound, {@code Math.pow(GROWTH, exponent)}, where each shape's exponent is
+ * between 1.5 and 2.0: above linear, to allow for the framework's own costs, and at most quadratic.
+ * The time of the shape at size 1 is subtracted from both first, since it is mostly loading the
+ * JDK's annotated stubs, which would hide the growth. The number of calls of each timed checker
+ * method must grow at most linearly. On failure, the message lists the checker methods whose time
+ * or number of calls grew faster than the input, from the {@code sites} and {@code counters} of
+ * the metrics.
+ *
+ * <p>Every shape is error-free, so diagnostics do not dominate the time. Run with {@code ./gradlew
+ * performanceTest}.
+ */
+@RunWith(Parameterized.class)
+public class DivideByZeroStressTest {
+
+    /** Ratio of the large input to the small one */
+    private static final int GROWTH = 4;
+
+    /** Factor over linear growth allowed in the number of calls of each checker method */
+    private static final double CALL_SLACK = 1.25;
+
+    /** Timed checks of each size; the fastest is compared */
+    private static final int REPETITIONS = 3;
+
+    /** Stack size of the compiling thread; javac and the CFG builder recurse on expression depth */
+    private static final long STACK_BYTES = 256L << 20;
+
+    @Parameters(name = "{0}")
+    public static List<Object[]> getShapes() {
+        // The Checker Framework copies the whole store, one value per local, into every block
+        // that can branch or throw (as every integer division can), and finds the declaration of
+        // each local by scanning the compilation unit, so shapes with many locals grow faster than
+        // linearly before the checker does any work. Their bound still fails a quadratic checker;
+        // in a loop, the copies are repeated until the fixpoint, which is nearly quadratic already.
+        return Arrays.asList(
+                // 10,000 terms at the large size; the framework compares nodes of the chain structurally
+                shape("arithmeticChain", 2_500, 1.75, DivideByZeroStressTest::arithmeticChain),
+                shape("nestedGuards", 100, 1.75, DivideByZeroStressTest::nestedGuards),
+                // 2,000 locals at the large size; many more exceed the 64 KB limit on a method's code
+                shape("manyLocals", 500, 1.75, DivideByZeroStressTest::manyLocals),
+                shape("bigSwitch", 250, 1.5, DivideByZeroStressTest::bigSwitch),
+                shape("inductionVariables", 100, 2.0, DivideByZeroStressTest::inductionVariables));
+    }
+
+    private static Object[] shape(String name, int size, double exponent, IntFunction<String> generator) {
+        return new Object[] {name, size, exponent, generator};
+    }
+
+    private final String name;
+    private final int size;
+    private final double exponent;
+    private final IntFunction<String> generator;
+
+    /**
+     * @param size the size of the small input
+     * @param exponent time may grow at most as size^exponent
+     */
+    public DivideByZeroStressTest(String name, int size, double exponent, IntFunction<String> generator) {
+        this.name = name;
+        this.size = size;
+        this.exponent = exponent;
+        this.generator = generator;
+    }
+
+    // ========================================================================
+    // Shapes
+
+    /** One expression of n terms, the result of which is the divisor */
+    static String arithmeticChain(int n) {
+        StringBuilder sb = new StringBuilder("    static int f(int a, int b) {\n        int r = 1");
+        String[] operators = {" + ", " * ", " + ", " - "};
+        for (int i = 1; i < n; i++) {
+            sb.append(operators[i % operators.length]).append(i % 3 == 0 ? "b" : i % 3 == 1 ? "a" : "2");
+            if (i % 8 == 0) {
+                sb.append("\n            ");
+            }
+        }
+        sb.append(";\n        if (r != 0) {\n            return 100 / r;\n        }\n        return 0;\n    }\n");
+        return type(sb);
+    }
+
+    /** An if/else tree of depth n, each level guarding a division by a new local */
+    static String nestedGuards(int n) {
+        StringBuilder sb = new StringBuilder("    static int f(int a) {\n        int r = 0;\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("        int x").append(i).append(" = a - ").append(i).append(";\n");
+            sb.append("        if (x").append(i).append(" != 0) {\n");
+            sb.append("            r += a / x").append(i).append(";\n");
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            sb.append("        } else {\n            r -= 1;\n        }\n");
+        }
+        sb.append("        return r;\n    }\n");
+        return type(sb);
+    }
+
+    /**
+     * n locals, each derived from the previous one and used as a divisor. A sum of positive ints
+     * may wrap around, so each is tested before it divides.
+     */
+    static String manyLocals(int n) {
+        StringBuilder sb = new StringBuilder("    static int f(int a) {\n        int r = 0;\n        int v0 = 1;\n");
+        for (int i = 1; i < n; i++) {
+            sb.append("        int v").append(i).append(" = v").append(i - 1).append(" + ").append(i % 5 + 1)
+                    .append(";\n");
+            sb.append("        if (v").append(i).append(" > 0) {\n");
+            sb.append("            r += a / v").append(i).append(";\n        }\n");
+        }
+        sb.append("        return r;\n    }\n");
+        return type(sb);
+    }
+
+    /** A switch of n cases, each dividing by its own guarded expression */
+    static String bigSwitch(int n) {
+        StringBuilder sb = new StringBuilder("    static int f(int k, int a, int b) {\n        int r = 0;\n");
+        sb.append("        switch (k) {\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("            case ").append(i).append(":\n");
+            sb.append("                if (b > ").append(i).append(") {\n");
+            sb.append("                    r = a / (b + ").append(i + 1).append(");\n");
+            sb.append("                } else {\n");
+            sb.append("                    r = a % ").append(i + 1).append(";\n");
+            sb.append("                }\n                break;\n");
+        }
+        sb.append("            default:\n                r = -1;\n        }\n        return r;\n    }\n");
+        return type(sb);
+    }
+
+    /** A loop updating n induction variables, each of which divides the accumulator */
+    static String inductionVariables(int n) {
+        StringBuilder sb = new StringBuilder("    static long f(int a, int m) {\n        long r = a;\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("        int d").append(i).append(" = ").append(i + 1).append(";\n");
+        }
+        sb.append("        for (int k = 0; k < m; k++) {\n");
+        for (int i = 0; i < n; i++) {
+            String prev = "d" + (i == 0 ? n - 1 : i - 1);
+            sb.append("            d").append(i).append(" = d").append(i).append(i % 2 == 0 ? " + " : " * ")
+                    .append(i % 2 == 0 ? prev : "2").append(";\n");
+            sb.append("            if (d").append(i).append(" > 0) {\n");
+            sb.append("                r = r / d").append(i).append(";\n            }\n");
+        }
+        sb.append("        }\n        return r;\n    }\n");
+        return type(sb);
+    }
+
+    private static String type(StringBuilder members) {
+        return "class Stress {\n" + members + "}\n";
+    }
+
+    // ========================================================================
+    // Measurement
+
+    @Test
+    public void growthWithinBound() throws Exception {
+        Run base = fastest(1);
+        Run small = fastest(size);
+        Run large = fastest(size * GROWTH);
+        double bound = Math.pow(GROWTH, exponent);
+        double growth = (double) (large.nanos() - base.nanos()) / Math.max(1, small.nanos() - base.nanos());
+        String summary = String.format(Locale.ROOT,
+                "%s: checker time %.1f ms at size 1, %.1f ms at size %d, %.1f ms at size %d: %.2fx (bound %.2fx)",
+                name, base.nanos() / 1e6, small.nanos() / 1e6, size, large.nanos() / 1e6, size * GROWTH, growth, bound);
+        System.out.println(summary);
+        if (growth > bound) {
+            Assert.fail(summary + "\nGrowing faster than the input:\n" + culprits(small, large));
+        }
+        // Call counts do not depend on the machine, so they are held to linear growth whatever the
+        // shape's time bound: more calls per input node means the checker itself has become
+        // super-linear, e.g. a transfer function that keeps the fixpoint from converging. The
+        // slack covers the few calls that do not scale with the size, such as a chain's first term.
+        for (Map.Entry<String, long[]> site : large.sites.entrySet()) {
+            long baseCalls = base.site(site.getKey())[0];
+            long calls = site.getValue()[0] - baseCalls;
+            if (calls > CALL_SLACK * GROWTH * (small.site(site.getKey())[0] - baseCalls)) {
+                Assert.fail(summary + "\nCalls growing faster than the input:\n" + culprits(small, large));
+            }
+        }
+    }
+
+    /** Checker sites and counters that grew more than the input, largest time increase first */
+    private static String culprits(Run small, Run large) {
+        List<String> lines = new ArrayList<>();
+        List<Map.Entry<String, long[]>> sites = new ArrayList<>(large.sites.entrySet());
+        sites.sort((a, b) -> Long.compare(b.getValue()[1] - small.site(b.getKey())[1],
+                a.getValue()[1] - small.site(a.getKey())[1]));
+        for (Map.Entry<String, long[]> site : sites) {
+            long[] before = small.site(site.getKey());
+            long[] after = site.getValue();
+            if (after[1] > GROWTH * before[1] || after[0] > GROWTH * before[0]) {
+                lines.add(String.format(Locale.ROOT, "  %s: %d -> %d calls, %.1f -> %.1f ms",
+                        site.getKey(), before[0], after[0], before[1] / 1e6, after[1] / 1e6));
+            }
+        }
+        for (Map.Entry<String, Long> counter : large.counters.entrySet()) {
+            long before = small.counters.getOrDefault(counter.getKey(), 0L);
+            if (counter.getValue() > GROWTH * before) {
+                lines.add(String.format(Locale.ROOT, "  counter %s: %d -> %d",
+                        counter.getKey(), before, counter.getValue()));
+            }
+        }
+        lines.add(String.format(Locale.ROOT, "  dataflow %.1f -> %.1f ms, visitor %.1f -> %.1f ms",
+                small.dataflowNanos / 1e6, large.dataflowNanos / 1e6,
+                small.visitorNanos / 1e6, large.visitorNanos / 1e6));
+        return String.join("\n", lines);
+    }
+
+    /** Metrics of one check */
+    private static final class Run {
+        long dataflowNanos;
+        long visitorNanos;
+        final Map<String, Long> counters = new LinkedHashMap<>();
+        /** Calls and nanos by checker method */
+        final Map<String, long[]> sites = new LinkedHashMap<>();
+
+        long nanos() {
+            return dataflowNanos + visitorNanos;
+        }
+
+        long[] site(String site) {
+            return sites.getOrDefault(site, new long[2]);
+        }
+    }
+
+    private static final Pattern NUMBER = Pattern.compile("\"(\\w+)\": (\\d+)");
+    private static final Pattern SITE =
+            Pattern.compile("\"([\\w.]+)\": \\{\"calls\": (\\d+), \"nanos\": (\\d+)\\}");
+
+    /** Check the shape at the given size, after one untimed check, and keep the fastest run */
+    private Run fastest(int n) throws Exception {
+        Path dir = Files.createTempDirectory("dbz-stress");
+        try {
+            Path source = dir.resolve("Stress.java");
+            Files.write(source, generator.apply(n).getBytes(StandardCharsets.UTF_8));
+            check(dir, source);
+            Run best = null;
+            for (int i = 0; i < REPETITIONS; i++) {
+                Run run = check(dir, source);
+                if (best == null || run.nanos() < best.nanos()) {
+                    best = run;
+                }
+            }
+            return best;
+        } finally {
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(dir)) {
+                paths = walk.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList());
+            }
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /** Check one source on a thread with a deep stack, and read back its metrics */
+    private static Run check(Path dir, Path source) throws Exception {
+        Path metrics = dir.resolve("metrics.json");
+        List<String> options = Arrays.asList(
+                "-d", dir.toString(), "-nowarn",
+                "-processor", DivByZeroChecker.class.getName(),
+                "-A" + DivByZeroChecker.METRICS_OPTION + "=" + metrics);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Object[] outcome = new Object[1];
+        Thread thread = new Thread(null, () -> {
+            try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+                outcome[0] = compiler.getTask(null, fileManager, diagnostics, options, null,
+                        fileManager.getJavaFileObjects(source.toFile())).call();
+            } catch (IOException | RuntimeException | StackOverflowError e) {
+                outcome[0] = e;
+            }
+        }, "dbz-stress", STACK_BYTES);
+        thread.start();
+        thread.join();
+        if (outcome[0] instanceof Throwable) {
+            throw new AssertionError("checking failed", (Throwable) outcome[0]);
+        }
+        if (!Boolean.TRUE.equals(outcome[0])) {
+            StringBuilder sb = new StringBuilder("stress input does not check cleanly:");
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                sb.append('\n').append(d);
+            }
+            Assert.fail(sb.toString());
+        }
+
+        String json = new String(Files.readAllBytes(metrics), StandardCharsets.UTF_8);
+        Run run = new Run();
+        String counters = json.substring(json.indexOf("\"counters\""), json.indexOf("\"sites\""));
+        Matcher m = NUMBER.matcher(counters);
+        while (m.find()) {
+            run.counters.put(m.group(1), Long.parseLong(m.group(2)));
+        }
+        m = SITE.matcher(json);
+        while (m.find()) {
+            run.sites.put(m.group(1), new long[] {Long.parseLong(m.group(2)), Long.parseLong(m.group(3))});
+        }
+        m = NUMBER.matcher(json);
+        while (m.find()) {
+            if (m.group(1).equals("dataflowNanos")) {
+                run.dataflowNanos = Long.parseLong(m.group(2));
+            } else if (m.group(1).equals("visitorNanos")) {
+                run.visitorNanos = Long.parseLong(m.group(2));
+            }
+        }
+        return run;
+    }
+}
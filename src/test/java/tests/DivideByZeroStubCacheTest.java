@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.dividebyzero.DivByZeroCheck;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.stubCache}: the qualifiers read from the cache must give the same
+ * diagnostics as the Checker Framework's own parse of the {@code -Astubs} files.
+ */
+public class DivideByZeroStubCacheTest {
+
+    private static final Map<String, String> SOURCES = Collections.singletonMap("Use.java", String.join("\n",
+            "class Use {",
+            "    int cores(int x) { return x / Runtime.getRuntime().availableProcessors(); }",
+            "    int floor(int x) { return Math.floorDiv(x, 0); }",
+            "    long mod(long x) { return Math.floorMod(x, 0L); }",
+            "    int size(java.util.List<String> l, int x) { return x / l.size(); }",
+            "}"));
+
+    @Test
+    public void cacheMatchesParsedStubs() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-stubcache");
+        Path stubs = dir.resolve("stubs");
+        Files.createDirectories(stubs);
+        write(stubs.resolve("lang.astub"),
+                "package java.lang;",
+                "import org.checkerframework.checker.dividebyzero.qual.*;",
+                "class Runtime {",
+                "    @Positive int availableProcessors();",
+                "}",
+                "class Math {",
+                "    static int floorDiv(int x, @NonZero int y);",
+                "    static long floorMod(long x, @NonZero long y);",
+                "}");
+        Path cache = dir.resolve("cache");
+
+        // Without the stubs, line 2 would be reported too
+        List<DivByZeroCheck.Result> parsed = errors(new DivByZeroCheck.Options().stubs(stubs.toString()));
+        Assert.assertEquals(Arrays.asList("3:argument.type.incompatible", "4:argument.type.incompatible",
+                "5:divide.by.zero"), parsed.stream().map(r -> r.line + ":" + r.messageKey).collect(Collectors.toList()));
+
+        // The first run parses the stubs and writes the cache, the second reads it
+        assertSameErrors(parsed, errors(cached(stubs, cache)));
+        Path file = cacheFile(cache);
+        assertSameErrors(parsed, errors(cached(stubs, cache)));
+        Assert.assertEquals(file, cacheFile(cache));
+
+        // A truncated cache file is parsed again and replaced
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertSameErrors(parsed, errors(cached(stubs, cache)));
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(file));
+    }
+
+    private static DivByZeroCheck.Options cached(Path stubs, Path cache) {
+        return new DivByZeroCheck.Options().stubs(stubs.toString())
+                .checkerOption(DivByZeroChecker.STUB_CACHE_OPTION, cache.toString());
+    }
+
+    /** The only file in the cache directory */
+    private static Path cacheFile(Path cache) throws IOException {
+        try (Stream<Path> files = Files.list(cache)) {
+            List<Path> list = files.collect(Collectors.toList());
+            Assert.assertEquals(list.toString(), 1, list.size());
+            return list.get(0);
+        }
+    }
+
+    /**
+     * The errors of a check. Warnings are left out, since the stub parser's warnings appear only
+     * on the run that parses the stubs.
+     */
+    private static List<DivByZeroCheck.Result> errors(DivByZeroCheck.Options options) {
+        List<DivByZeroCheck.Result> errors = new ArrayList<>();
+        for (DivByZeroCheck.Result r : DivByZeroCheck.check(SOURCES, options)) {
+            if (r.kind == Diagnostic.Kind.ERROR) {
+                errors.add(r);
+            }
+        }
+        return errors;
+    }
+
+    private static void assertSameErrors(List<DivByZeroCheck.Result> expected, List<DivByZeroCheck.Result> actual) {
+        Assert.assertEquals(expected.toString(), actual.toString());
+    }
+
+    private static void write(Path file, String... lines) throws IOException {
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
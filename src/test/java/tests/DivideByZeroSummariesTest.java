@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@code -Adbz.summaries} across runs: a summary must not outlive a change to anything it
+ * was computed from.
+ */
+public class DivideByZeroSummariesTest {
+
+    @Test
+    public void editedConstantInvalidatesSummary() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-summaries");
+        Path summaries = dir.resolve("summaries.bin");
+        write(dir, "Use.java", "class Use {", "    int f(int x) { return x / A.g(); }", "}");
+
+        write(dir, "A.java", "class A {", "    static final int K = 5;", "    static int g() { return K; }", "}");
+        // The first run computes the summary of g, the second uses it
+        Assert.assertEquals(Arrays.asList("Use.java:2"), divisionErrors(dir, summaries));
+        Assert.assertEquals(Arrays.asList(), divisionErrors(dir, summaries));
+
+        write(dir, "A.java", "class A {", "    static final int K = 0;", "    static int g() { return K; }", "}");
+        Assert.assertEquals(Arrays.asList("Use.java:2"), divisionErrors(dir, summaries));
+    }
+
+    @Test
+    public void editedCalleeQualifierInvalidatesSummary() throws IOException {
+        Path dir = Files.createTempDirectory("dbz-summaries");
+        Path summaries = dir.resolve("summaries.bin");
+        write(dir, "Use.java", "class Use {", "    static int f(A a) { return a.g(); }",
+                "    static int use(A a) { return 1 / f(a); }", "}");
+
+        // g can be overridden, so it has no summary of its own
+        write(dir, "A.java", "import org.checkerframework.checker.dividebyzero.qual.Positive;",
+                "class A {", "    @Positive Integer g() { return 1; }", "}");
+        Assert.assertEquals(Arrays.asList("Use.java:3"), divisionErrors(dir, summaries));
+        Assert.assertEquals(Arrays.asList(), divisionErrors(dir, summaries));
+
+        write(dir, "A.java", "class A {", "    Integer g() { return 0; }", "}");
+        Assert.assertEquals(Arrays.asList("Use.java:3"), divisionErrors(dir, summaries));
+    }
+
+    private static void write(Path dir, String name, String... lines) throws IOException {
+        Files.write(dir.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    /** Check the directory's sources, returning the file and line of each divide.by.zero error */
+    private static List<String> divisionErrors(Path dir, Path summaries) throws IOException {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-processor", DivByZeroChecker.class.getName(),
+                    "-proc:only",
+                    "-Anomsgtext",
+                    "-Adbz.summaries=" + summaries);
+            javac.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjects(
+                    dir.resolve("A.java").toFile(), dir.resolve("Use.java").toFile())).call();
+        }
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                Assert.assertTrue(d.toString(), d.getMessage(null).contains("divide.by.zero"));
+                errors.add(Paths.get(d.getSource().toUri()).getFileName() + ":" + d.getLineNumber());
+            }
+        }
+        return errors;
+    }
+}
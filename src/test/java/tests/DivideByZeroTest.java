@@ -1,21 +1,25 @@
 import java.io.File;
-import java.util.List;
 import org.checkerframework.checker.dividebyzero.DivByZeroChecker;
-import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.CheckerFrameworkPerFileTest;
+import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized.Parameters;
 
 /**
  * Test runner for tests of the Divide By Zero Checker.
  *
  * <p>Tests appear as Java files in the {@code tests/dividebyzero} folder. To add a new test case,
- * create a Java file in that directory. The file contains "// ::" comments to indicate expected
- * errors and warnings; see
+ * create a Java file in that directory; it must not depend on the other files. The file contains
+ * "// ::" comments to indicate expected errors and warnings; see
  * https://github.com/typetools/checker-framework/blob/master/checker/tests/README .
+ *
+ * <p>Each file in the directories returned by {@link #getTestDirs()} is checked as its own
+ * compilation, and the files are checked in parallel; see {@link ParallelPerFileSuite}.
  */
-public class DivideByZeroTest extends CheckerFrameworkPerDirectoryTest {
-    public DivideByZeroTest(List<File> testFiles) {
+@RunWith(ParallelPerFileSuite.class)
+public class DivideByZeroTest extends CheckerFrameworkPerFileTest {
+    public DivideByZeroTest(File testFile) {
         super(
-                testFiles,
+                testFile,
                 DivByZeroChecker.class,
                 "dividebyzero",
                 "-Anomsgtext",
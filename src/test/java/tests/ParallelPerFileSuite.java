@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.checkerframework.framework.test.PerFileSuite;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * A {@link PerFileSuite} that checks its test files in parallel, each in its own javac compilation
+ * on a thread of a bounded pool.
+ *
+ * <p>The pool has one thread per processor, or {@code -Ddbz.test.threads=<n>} threads; {@code 1}
+ * runs the files one after another.
+ */
+public class ParallelPerFileSuite extends PerFileSuite {
+
+    public ParallelPerFileSuite(Class<?> klass) throws Throwable {
+        super(klass);
+        int threads = Integer.getInteger("dbz.test.threads", Runtime.getRuntime().availableProcessors());
+        if (threads > 1) {
+            setScheduler(new PoolScheduler(threads));
+        }
+    }
+
+    /** Runs each file as a task of a fixed pool and waits for all of them */
+    private static final class PoolScheduler implements RunnerScheduler {
+        private final ExecutorService pool;
+        private final List<Future<?>> running = new ArrayList<>();
+
+        PoolScheduler(int threads) {
+            pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "dbz-test");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            running.add(pool.submit(childStatement));
+        }
+
+        @Override
+        public void finished() {
+            try {
+                for (Future<?> future : running) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Failures are reported to the notifier by the child runner itself
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+}
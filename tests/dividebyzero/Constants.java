@@ -0,0 +1,61 @@
+import org.checkerframework.checker.dividebyzero.qual.*;
+
+// Compile-time constant expressions have the point of their value, without
+// dataflow.
+class Constants {
+
+    static final int SIZE = 16;
+    static final int NONE = 0;
+    static final long WIDE = 1L << 40;
+    static int notFinal = 16;
+
+    static int fields(int x) {
+        int a = x / SIZE;
+        int b = x / (SIZE * 4);
+        int c = x % (SIZE - 17);
+        // :: error: divide.by.zero
+        int d = x / NONE;
+        // :: error: divide.by.zero
+        int e = x / (SIZE - 16);
+        // :: error: divide.by.zero
+        int f = x / notFinal;
+        return a + b + c + d + e + f;
+    }
+
+    static int qualified(int x) {
+        int a = x / Constants.SIZE;
+        // :: error: divide.by.zero
+        int b = x / Constants.NONE;
+        long c = x / WIDE;
+        return a + b + (int) c;
+    }
+
+    static int expressions(int x) {
+        // :: error: divide.by.zero
+        int a = 1 / (1 - 1);
+        // Overflows to a negative value
+        int b = x / (Integer.MAX_VALUE + 1);
+        // :: error: divide.by.zero
+        int c = x / (int) 4294967296L;
+        int d = x / -(SIZE >> 2);
+        // :: error: divide.by.zero
+        int e = x / (SIZE & 1);
+        x /= SIZE;
+        // :: error: divide.by.zero
+        x %= NONE;
+        return a + b + c + d + e + x;
+    }
+
+    static @Positive Integer annotated() {
+        return SIZE * 2 + 1;
+    }
+
+    static int locals(int x) {
+        final int k = 3;
+        final int z = k - 3;
+        int a = x / k;
+        // :: error: divide.by.zero
+        int b = x / z;
+        return a + b;
+    }
+}
@@ -0,0 +1,90 @@
+import org.checkerframework.checker.dividebyzero.qual.*;
+
+// Code that -Adbz.partition splits between partitions, or checks in every
+// partition: DivideByZeroPartitionTest checks that the merged diagnostics of
+// several partitions are those of one compilation.
+class Partitions {
+
+    static int zero = 0;
+
+    // :: error: divide.by.zero
+    static int fieldInit = 10 / zero;
+
+    int instanceField = 10 / 5;
+
+    // :: error: divide.by.zero
+    java.util.function.IntUnaryOperator fieldLambda = v -> v / zero;
+
+    static {
+        int z = 0;
+        // :: error: divide.by.zero
+        int a = 1 / z;
+    }
+
+    {
+        int p = 3;
+        int b = 1 / p;
+    }
+
+    static int first(int y) {
+        // :: error: divide.by.zero
+        return 1 / y;
+    }
+
+    static int second(int y) {
+        if (y > 0) {
+            return 1 / y;
+        }
+        return 0;
+    }
+
+    static int anonymous(int y) {
+        Object o = new Object() {
+            @Override
+            public int hashCode() {
+                // :: error: divide.by.zero
+                return 1 / y;
+            }
+        };
+        return o.hashCode();
+    }
+
+    static int local(int y) {
+        class Local {
+            int f(int z) {
+                if (z != 0) {
+                    return y / z;
+                }
+                return 0;
+            }
+        }
+        return new Local().f(y);
+    }
+
+    static void lambdas() {
+        // :: error: divide.by.zero
+        java.util.function.IntUnaryOperator f = v -> 10 / v;
+        java.util.function.IntUnaryOperator g = v -> v > 0 ? 10 / v : 0;
+    }
+
+    static class Nested {
+        int g(int y) {
+            // :: error: divide.by.zero
+            return y % y;
+        }
+
+        int h(@Positive int y) {
+            return 7 / y;
+        }
+    }
+
+    class Inner {
+        int g(int y) {
+            if (y == 0) {
+                // :: error: divide.by.zero
+                return 1 / y;
+            }
+            return 1 / y;
+        }
+    }
+}
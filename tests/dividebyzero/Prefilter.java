@@ -0,0 +1,80 @@
+import org.checkerframework.checker.dividebyzero.qual.*;
+import org.checkerframework.framework.qual.DefaultQualifier;
+import org.checkerframework.framework.qual.TypeUseLocation;
+
+// Methods without a division still need dataflow when a refined type
+// flows somewhere below Top.
+class Prefilter {
+
+    static int positiveField = 1;
+
+    static @Positive Integer stride = 4;
+
+    static int half(@Positive Integer x) {
+        return 10 / x;
+    }
+
+    static void argument(int y) {
+        if (y > 0) {
+            half(y);
+        }
+    }
+
+    static @NonZero Integer returned(int y) {
+        if (y != 0) {
+            return y;
+        }
+        return 1;
+    }
+
+    static void field(int y) {
+        if (y > 0) {
+            stride = y;
+        }
+    }
+
+    static void lambda() {
+        // :: error: divide.by.zero
+        java.util.function.IntUnaryOperator f = v -> 10 / v;
+        java.util.function.IntUnaryOperator g = v -> v > 0 ? 10 / v : 0;
+    }
+
+    interface PositiveSupplier {
+        @Positive Integer get();
+    }
+
+    // The lambdas return into @Positive without an annotation in the method
+    static void lambdaReturn(int y) {
+        PositiveSupplier s = () -> {
+            if (y > 0) {
+                return y;
+            }
+            return 1;
+        };
+        PositiveSupplier t = () -> y > 0 ? y : 1;
+    }
+
+    @DefaultQualifier(value = NonZero.class, locations = TypeUseLocation.LOCAL_VARIABLE)
+    static class Defaulted {
+        static void local(int y) {
+            if (y != 0) {
+                Integer z = y;
+            }
+        }
+    }
+
+    static void localClass(int y) {
+        class Local {
+            int f(int z) {
+                // :: error: divide.by.zero
+                return y / z;
+            }
+        }
+    }
+
+    static int noDivision(int a, int b) {
+        int c = a + b;
+        positiveField = c * 2;
+        return c - a;
+    }
+}
@@ -0,0 +1,242 @@
+class Gen12 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            if (c != 0) {
+                while (c <= -1) {
+                    r += (int) (a / c);
+                }
+            }
+        }
+        if (b < 0) {
+            if (!(b == 0)) {
+                while (b <= -1) {
+                    r += (int) (a / b);
+                }
+            }
+        }
+        if (c > 0) {
+            if (c < 0) {
+                if (c < 0) {
+                    r += (int) (a % c);
+                }
+            }
+        }
+        while (b >= 1) {
+            if (!(b == 0)) {
+                if (b > 0) {
+                    s %= b;
+                }
+            }
+        }
+        if (!(b == 0)) {
+            if (!(b == 0)) {
+                while (b <= -1) {
+                    r += (int) (a % b);
+                }
+            }
+        }
+        while (b <= -1) {
+            if (b < 0) {
+                if (b < 0) {
+                    r += (int) (a % b);
+                }
+            }
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            if (!(c == 0)) {
+                if (c > 0) {
+                    s /= c;
+                }
+            }
+        }
+        if (!(c == 0)) {
+            while (c <= -1) {
+                if (c > 0) {
+                    r += (int) (a / c);
+                }
+            }
+        }
+        if (b != 0) {
+            if (b > 0) {
+                if (!(b == 0)) {
+                    s %= b;
+                }
+            }
+        }
+        if (c != 0) {
+            if (c != 0) {
+                while (c >= 1) {
+                    r += (int) (a % c);
+                }
+            }
+        }
+        while (b >= 1) {
+            if (b > 0) {
+                if (!(b == 0)) {
+                    r += (int) (a / b);
+                }
+            }
+        }
+        if (!(c == 0)) {
+            while (c >= 1) {
+                if (c < 0) {
+                    r += (int) (a % c);
+                }
+            }
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            if (c > 0) {
+                if (c > 0) {
+                    s %= c;
+                }
+            }
+        }
+        while (b >= 1) {
+            if (!(b == 0)) {
+                if (b != 0) {
+                    s /= b;
+                }
+            }
+        }
+        if (c != 0) {
+            if (c > 0) {
+                if (c != 0) {
+                    r += (int) (a % c);
+                }
+            }
+        }
+        if (c != 0) {
+            if (!(c == 0)) {
+                if (!(c == 0)) {
+                    s /= c;
+                }
+            }
+        }
+        if (c > 0) {
+            if (c != 0) {
+                if (!(c == 0)) {
+                    r += (int) (a / c);
+                }
+            }
+        }
+        if (c > 0) {
+            while (c <= -1) {
+                while (c >= 1) {
+                    r += (int) (a % c);
+                }
+            }
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            while (b <= -1) {
+                if (!(b == 0)) {
+                    s /= b;
+                }
+            }
+        }
+        if (!(c == 0)) {
+            while (c <= -1) {
+                if (c != 0) {
+                    s %= c;
+                }
+            }
+        }
+        while (c <= -1) {
+            if (!(c == 0)) {
+                if (c < 0) {
+                    r += (int) (a / c);
+                }
+            }
+        }
+        while (b >= 1) {
+            if (b < 0) {
+                while (b >= 1) {
+                    s /= b;
+                }
+            }
+        }
+        if (b < 0) {
+            while (b <= -1) {
+                if (b < 0) {
+                    r += (int) (a / b);
+                }
+            }
+        }
+        while (c >= 1) {
+            if (!(c == 0)) {
+                if (c < 0) {
+                    s /= c;
+                }
+            }
+        }
+        return r + (int) s;
+    }
+
+    static int m4(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            if (b > 0) {
+                while (b >= 1) {
+                    s %= b;
+                }
+            }
+        }
+        if (!(c == 0)) {
+            if (c > 0) {
+                if (c != 0) {
+                    s /= c;
+                }
+            }
+        }
+        while (c <= -1) {
+            if (c > 0) {
+                if (!(c == 0)) {
+                    s /= c;
+                }
+            }
+        }
+        while (b >= 1) {
+            while (b <= -1) {
+                while (b <= -1) {
+                    r += (int) (a % b);
+                }
+            }
+        }
+        while (b <= -1) {
+            if (b != 0) {
+                if (b > 0) {
+                    s %= b;
+                }
+            }
+        }
+        while (c <= -1) {
+            while (c >= 1) {
+                if (c < 0) {
+                    s %= c;
+                }
+            }
+        }
+        return r + (int) s;
+    }
+}
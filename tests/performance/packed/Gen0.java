@@ -0,0 +1,1720 @@
+class Gen0 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s %= b;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s %= c;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen1 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen2 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s %= b;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s %= c;
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen3 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            s /= b;
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen4 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            s /= c;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            s %= c;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen5 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s /= c;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen6 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            s /= b;
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen7 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s /= b;
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen8 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            s %= b;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen9 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            s %= b;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            s /= c;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen10 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s %= c;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen11 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s /= b;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen12 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s /= b;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen13 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s /= b;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            s /= b;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen14 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s /= c;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen15 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s %= c;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s /= c;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen16 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s /= c;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s %= c;
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s /= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen17 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s %= c;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            s /= b;
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen18 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s %= b;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen19 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            s %= b;
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+}
@@ -0,0 +1,1720 @@
+class Gen20 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            s %= c;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen21 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen22 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            s /= b;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen23 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c < 0) {
+            s /= c;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s %= b;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+}
+class Gen24 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            s %= b;
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+}
+class Gen25 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c < 0) {
+            s /= c;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            s %= c;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen26 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (c > 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+}
+class Gen27 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s /= c;
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen28 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            s %= b;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen29 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s %= c;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+}
+class Gen30 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            s /= c;
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+}
+class Gen31 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s /= b;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s %= b;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen32 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            s /= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s %= c;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen33 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s %= b;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        while (c >= 1) {
+            s %= c;
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen34 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s %= c;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (c < 0) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (c > 0) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            s %= b;
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen35 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a % b);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        if (!(b == 0)) {
+            s /= b;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen36 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b <= -1) {
+            r += (int) (a / b);
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            s /= c;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (c != 0) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            s /= b;
+        }
+        while (c <= -1) {
+            r += (int) (a % c);
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen37 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        if (c < 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b < 0) {
+            s /= b;
+        }
+        while (b <= -1) {
+            s %= b;
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        while (b <= -1) {
+            s /= b;
+        }
+        if (c > 0) {
+            r += (int) (a / c);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        return r + (int) s;
+    }
+}
+class Gen38 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s /= b;
+        }
+        while (b >= 1) {
+            r += (int) (a % b);
+        }
+        if (b < 0) {
+            s /= b;
+        }
+        if (c < 0) {
+            s /= c;
+        }
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s %= c;
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (b != 0) {
+            s %= b;
+        }
+        while (b >= 1) {
+            s /= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (!(c == 0)) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s /= c;
+        }
+        if (c < 0) {
+            r += (int) (a % c);
+        }
+        if (!(c == 0)) {
+            r += (int) (a % c);
+        }
+        if (b < 0) {
+            s %= b;
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            s %= b;
+        }
+        if (b < 0) {
+            r += (int) (a / b);
+        }
+        if (b < 0) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            s /= b;
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+}
+class Gen39 {
+
+    static int m0(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (c >= 1) {
+            r += (int) (a % c);
+        }
+        while (c >= 1) {
+            r += (int) (a / c);
+        }
+        if (c != 0) {
+            s /= c;
+        }
+        while (c <= -1) {
+            s %= c;
+        }
+        if (b > 0) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m1(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        if (c > 0) {
+            s %= c;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        if (b > 0) {
+            s %= b;
+        }
+        if (!(c == 0)) {
+            s %= c;
+        }
+        return r + (int) s;
+    }
+
+    static int m2(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (b != 0) {
+            r += (int) (a % b);
+        }
+        if (!(c == 0)) {
+            r += (int) (a / c);
+        }
+        while (c <= -1) {
+            r += (int) (a / c);
+        }
+        if (c != 0) {
+            s %= c;
+        }
+        while (b >= 1) {
+            r += (int) (a / b);
+        }
+        return r + (int) s;
+    }
+
+    static int m3(int a, int b, long c) {
+        int r = 1;
+        long s = c;
+        if (c > 0) {
+            s %= c;
+        }
+        if (!(b == 0)) {
+            s %= b;
+        }
+        if (!(b == 0)) {
+            r += (int) (a % b);
+        }
+        while (b <= -1) {
+            r += (int) (a % b);
+        }
+        while (c >= 1) {
+            s /= c;
+        }
+        return r + (int) s;
+    }
+}